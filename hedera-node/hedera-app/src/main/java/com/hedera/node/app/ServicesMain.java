@@ -205,7 +205,7 @@ public class ServicesMain implements SwirldMain {
         final var recycleBin =
                 RecycleBin.create(metrics, configuration, getStaticThreadManager(), time, fileSystemManager, selfId);
 
-        final var cryptography = CryptographyFactory.create();
+        final var cryptography = CryptographyFactory.create(configuration);
         CryptographyHolder.set(cryptography);
         // the AddressBook is not changed after this point, so we calculate the hash now
         cryptography.digestSync(diskAddressBook);
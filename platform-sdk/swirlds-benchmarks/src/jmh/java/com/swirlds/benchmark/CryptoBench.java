@@ -18,15 +18,26 @@ package com.swirlds.benchmark;
 
 import static com.swirlds.common.threading.manager.AdHocThreadManager.getStaticThreadManager;
 
+import com.swirlds.common.crypto.Cryptography;
+import com.swirlds.common.crypto.CryptographyFactory;
+import com.swirlds.common.crypto.DigestType;
+import com.swirlds.common.crypto.Hash;
+import com.swirlds.common.crypto.HashBuilder;
+import com.swirlds.common.crypto.config.CryptoConfig;
 import com.swirlds.common.threading.framework.config.ThreadConfiguration;
+import com.swirlds.config.api.ConfigurationBuilder;
 import com.swirlds.metrics.api.LongGauge;
 import com.swirlds.virtualmap.VirtualMap;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Deque;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Random;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -99,6 +110,12 @@ public abstract class CryptoBench extends VirtualMapBench {
     /* Platform metric for TPS */
     private LongGauge tps;
 
+    /* Class ID and version hashed with every internal node, like in VirtualHasher */
+    private static final long INTERNAL_CLASS_ID = 0xaf2482557cfdb6bfL;
+    private static final int INTERNAL_VERSION = 1;
+    /* Number of internal nodes hashed in one batch, same as a rank in a chunk of height 6 */
+    private static final int HASH_BATCH_SIZE = 32;
+
     private long average(long time) {
         return (long) numRecords * MILLISECONDS / Math.max(time, 1);
     }
@@ -421,4 +438,117 @@ public abstract class CryptoBench extends VirtualMapBench {
             finalMap.getDataSource().close();
         });
     }
+
+    /**
+     * Hashes all internal nodes of a tree with maxKey random leaf hashes, one node at a time with a
+     * {@link HashBuilder}, the same way as VirtualHasher does by default.
+     */
+    @Benchmark
+    public void hashInternalNodesSerial() throws Exception {
+        beforeTest("hashInternalNodesSerial");
+        logger.info(RUN_DELIMITER);
+
+        final HashBuilder builder = new HashBuilder(DigestType.SHA_384);
+        hashInternalNodes((messages, count, hashes) -> {
+            for (int i = 0; i < count; i++) {
+                builder.reset();
+                builder.update(messages[i]);
+                hashes[i] = builder.build();
+            }
+        });
+
+        afterTest();
+    }
+
+    /**
+     * Hashes all internal nodes of a tree with maxKey random leaf hashes in batches, with the default
+     * JCA digests.
+     */
+    @Benchmark
+    public void hashInternalNodesBatched() throws Exception {
+        beforeTest("hashInternalNodesBatched");
+        logger.info(RUN_DELIMITER);
+
+        hashInternalNodesBatched(false);
+
+        afterTest();
+    }
+
+    /**
+     * Hashes all internal nodes of a tree with maxKey random leaf hashes in batches, with multi-lane
+     * SHA-384 digests.
+     */
+    @Benchmark
+    public void hashInternalNodesMultiLane() throws Exception {
+        beforeTest("hashInternalNodesMultiLane");
+        logger.info(RUN_DELIMITER);
+
+        hashInternalNodesBatched(true);
+
+        afterTest();
+    }
+
+    private void hashInternalNodesBatched(final boolean multiLane) {
+        final Cryptography cryptography = CryptographyFactory.create(ConfigurationBuilder.create()
+                .withConfigDataType(CryptoConfig.class)
+                .withValue("crypto.multiLaneDigests", Boolean.toString(multiLane))
+                .build());
+        hashInternalNodes((messages, count, hashes) -> {
+            final byte[][] batch = count == messages.length ? messages : Arrays.copyOf(messages, count);
+            final Hash[] batchHashes = cryptography.digestBatchSync(batch, DigestType.SHA_384);
+            System.arraycopy(batchHashes, 0, hashes, 0, count);
+        });
+    }
+
+    interface BatchHasher {
+        void hash(byte[][] messages, int count, Hash[] hashes);
+    }
+
+    private void hashInternalNodes(final BatchHasher hasher) {
+        final Random random = new Random(maxKey);
+        Hash[] rank = new Hash[maxKey];
+        final byte[] bytes = new byte[DigestType.SHA_384.digestLength()];
+        for (int i = 0; i < maxKey; i++) {
+            random.nextBytes(bytes);
+            rank[i] = new Hash(bytes.clone(), DigestType.SHA_384);
+        }
+
+        final byte[][] messages = new byte[HASH_BATCH_SIZE][];
+        final Hash[] hashes = new Hash[HASH_BATCH_SIZE];
+        long nodes = 0;
+        final long start = System.nanoTime();
+        while (rank.length > 1) {
+            final Hash[] parents = new Hash[(rank.length + 1) / 2];
+            for (int first = 0; first < parents.length; first += HASH_BATCH_SIZE) {
+                final int count = Math.min(HASH_BATCH_SIZE, parents.length - first);
+                for (int i = 0; i < count; i++) {
+                    final int left = (first + i) * 2;
+                    messages[i] = internalNodeMessage(rank[left], left + 1 < rank.length ? rank[left + 1] : null);
+                }
+                hasher.hash(messages, count, hashes);
+                System.arraycopy(hashes, 0, parents, first, count);
+            }
+            nodes += parents.length;
+            rank = parents;
+        }
+        final long time = Math.max(System.nanoTime() - start, 1);
+        logger.info(
+                "Hashed {} internal nodes in {} ms, {} nodes/sec",
+                nodes,
+                TimeUnit.NANOSECONDS.toMillis(time),
+                nodes * TimeUnit.SECONDS.toNanos(1) / time);
+    }
+
+    private static byte[] internalNodeMessage(final Hash left, final Hash right) {
+        final int hashLength = DigestType.SHA_384.digestLength();
+        final ByteBuffer buffer =
+                ByteBuffer.allocate(Long.BYTES + Integer.BYTES + hashLength * 2).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putLong(INTERNAL_CLASS_ID);
+        buffer.putInt(INTERNAL_VERSION);
+        left.getBytes().writeTo(buffer);
+        if (right != null) {
+            right.getBytes().writeTo(buffer);
+        }
+        return buffer.array();
+    }
 }
@@ -17,14 +17,26 @@
 package com.swirlds.benchmark;
 
 import com.hedera.pbj.runtime.io.buffer.BufferedData;
+import com.swirlds.config.api.ConfigurationBuilder;
+import com.swirlds.config.extensions.sources.LegacyFileConfigSource;
+import com.swirlds.config.extensions.sources.SimpleConfigSource;
 import com.swirlds.merkledb.collections.LongList;
 import com.swirlds.merkledb.collections.LongListOffHeap;
 import com.swirlds.merkledb.config.MerkleDbConfig;
 import com.swirlds.merkledb.files.DataFileCollection;
+import com.swirlds.merkledb.files.DataFileCommon;
 import com.swirlds.merkledb.files.DataFileCompactor;
 import com.swirlds.merkledb.files.DataFileReader;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
@@ -108,4 +120,216 @@ public class DataFileCollectionBench extends BaseBench {
             index.close();
         });
     }
+
+    /**
+     * Compaction of the same set of files split into different numbers of partitions, from the
+     * number of available processors down to 1, see {@link MerkleDbConfig#compactionPartitions()}.
+     * Every run reports compaction throughput, so it can be compared across partition counts.
+     * Partition counts go in descending order, since the compaction partition thread pool is sized
+     * using the config it's first created with.
+     */
+    @Benchmark
+    public void compactionScaling() throws Exception {
+        final int maxPartitions = Runtime.getRuntime().availableProcessors();
+        for (int partitions = maxPartitions; partitions >= 1; partitions /= 2) {
+            final String storeName = "compactionScalingBench" + partitions;
+            beforeTest(storeName);
+
+            final MerkleDbConfig dbConfig = ConfigurationBuilder.create()
+                    .autoDiscoverExtensions()
+                    .withSource(new LegacyFileConfigSource(Path.of(".", "settings.txt")))
+                    .withSource(new SimpleConfigSource("merkleDb.compactionPartitions", partitions))
+                    .withConfigDataType(MerkleDbConfig.class)
+                    .build()
+                    .getConfigData(MerkleDbConfig.class);
+            final LongListOffHeap index = new LongListOffHeap();
+            final var store = new ReadableDataFileCollection(dbConfig, storeName, new BenchmarkRecordSerializer());
+            final var compactor = new DataFileCompactor(dbConfig, storeName, store, index, null, null, null, null);
+            for (int i = 0; i < numFiles; i++) {
+                store.startWriting();
+                resetKeys();
+                for (int j = 0; j < numRecords; ++j) {
+                    long id = nextAscKey();
+                    BenchmarkRecord record = new BenchmarkRecord(id, nextValue());
+                    index.put(id, store.storeDataItem(record::serialize, BenchmarkRecord.getSerializedSize()));
+                }
+                store.endWriting(0, maxKey).setFileCompleted();
+            }
+
+            final long sizeBefore = store.getAllCompletedFilesSizeStatistics().getSum();
+            final long start = System.currentTimeMillis();
+            compactor.compact();
+            final long took = Math.max(System.currentTimeMillis() - start, 1);
+            System.out.printf(
+                    "Compacted %d files / %,d bytes with %d partition(s) in %d ms, %.1f MB/s%n",
+                    numFiles, sizeBefore, partitions, took, sizeBefore / 1024.0 / 1024.0 * 1000.0 / took);
+            if (verify) {
+                // All live data items must be readable after compaction
+                final long[] dataLocations = shuffledDataLocations(index);
+                long found = 0;
+                for (final long dataLocation : dataLocations) {
+                    if (store.read(dataLocation) != null) {
+                        found++;
+                    }
+                }
+                verifyReadCount(found, dataLocations.length);
+            }
+
+            afterTest(() -> {
+                store.close();
+                index.close();
+            });
+        }
+    }
+
+    /**
+     * Random reads of all stored data items using blocking reads, {@link #numThreads} reading
+     * threads. This is the baseline for {@link #readAsync()}.
+     */
+    @Benchmark
+    public void readBlocking() throws Exception {
+        String storeName = "readBlockingBench";
+        beforeTest(storeName);
+
+        final LongListOffHeap index = new LongListOffHeap();
+        final var store = createStoreForReads(storeName, index);
+        final long[] dataLocations = shuffledDataLocations(index);
+
+        final long start = System.currentTimeMillis();
+        final AtomicLong found = new AtomicLong();
+        final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        final int chunk = dataLocations.length / numThreads + 1;
+        final Future<?>[] futures = new Future<?>[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            final int from = t * chunk;
+            final int to = Math.min(from + chunk, dataLocations.length);
+            futures[t] = executor.submit(() -> {
+                for (int i = from; i < to; i++) {
+                    if (store.read(dataLocations[i]) != null) {
+                        found.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        for (final Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        System.out.println("Read " + found.get() + " items with " + numThreads + " threads (blocking) in "
+                + (System.currentTimeMillis() - start) + "ms");
+        verifyReadCount(found.get(), dataLocations.length);
+
+        afterTest(() -> {
+            store.close();
+            index.close();
+        });
+    }
+
+    /**
+     * Random reads of all stored data items using async reads, issued from a single thread with up
+     * to {@link MerkleDbConfig#maxAsyncReadsInFlight()} reads in flight.
+     */
+    @Benchmark
+    public void readAsync() throws Exception {
+        String storeName = "readAsyncBench";
+        beforeTest(storeName);
+
+        final LongListOffHeap index = new LongListOffHeap();
+        final MerkleDbConfig dbConfig = getConfig(MerkleDbConfig.class);
+        final BenchmarkRecordSerializer serializer = new BenchmarkRecordSerializer();
+        final var store = createStoreForReads(storeName, index);
+        final long[] dataLocations = shuffledDataLocations(index);
+        final List<DataFileReader> files = store.getAllCompletedFiles();
+        final int maxFileIndex = files.stream().mapToInt(DataFileReader::getIndex).max().orElse(0);
+        final DataFileReader[] readers = new DataFileReader[maxFileIndex + 1];
+        for (final DataFileReader file : files) {
+            readers[file.getIndex()] = file;
+        }
+
+        final long start = System.currentTimeMillis();
+        final AtomicLong found = new AtomicLong();
+        final Semaphore inFlight = new Semaphore(dbConfig.maxAsyncReadsInFlight());
+        for (final long dataLocation : dataLocations) {
+            inFlight.acquire();
+            readers[DataFileCommon.fileIndexFromDataLocation(dataLocation)]
+                    .readDataItemAsync(dataLocation)
+                    .whenComplete((data, e) -> {
+                        if ((data != null) && (serializer.deserialize(data) != null)) {
+                            found.incrementAndGet();
+                        }
+                        inFlight.release();
+                    });
+        }
+        inFlight.acquire(dbConfig.maxAsyncReadsInFlight());
+        System.out.println("Read " + found.get() + " items with " + dbConfig.maxAsyncReadsInFlight()
+                + " reads in flight (async) in " + (System.currentTimeMillis() - start) + "ms");
+        verifyReadCount(found.get(), dataLocations.length);
+
+        afterTest(() -> {
+            store.close();
+            index.close();
+        });
+    }
+
+    private ReadableDataFileCollection createStoreForReads(final String storeName, final LongListOffHeap index)
+            throws IOException {
+        final MerkleDbConfig dbConfig = getConfig(MerkleDbConfig.class);
+        final var store = new ReadableDataFileCollection(dbConfig, storeName, new BenchmarkRecordSerializer());
+        final long start = System.currentTimeMillis();
+        for (int i = 0; i < numFiles; i++) {
+            store.startWriting();
+            resetKeys();
+            for (int j = 0; j < numRecords; ++j) {
+                long id = nextAscKey();
+                BenchmarkRecord record = new BenchmarkRecord(id, nextValue());
+                index.put(id, store.storeDataItem(record::serialize, BenchmarkRecord.getSerializedSize()));
+            }
+            store.endWriting(0, maxKey).setFileCompleted();
+        }
+        System.out.println("Created " + numFiles + " files in " + (System.currentTimeMillis() - start) + "ms");
+        return store;
+    }
+
+    private long[] shuffledDataLocations(final LongListOffHeap index) {
+        final long[] dataLocations = new long[maxKey];
+        int count = 0;
+        for (int key = 0; key < maxKey; key++) {
+            final long dataLocation = index.get(key, LongList.IMPERMISSIBLE_VALUE);
+            if (dataLocation != LongList.IMPERMISSIBLE_VALUE) {
+                dataLocations[count++] = dataLocation;
+            }
+        }
+        for (int i = count - 1; i > 0; i--) {
+            final int j = Utils.randomInt(i + 1);
+            final long tmp = dataLocations[i];
+            dataLocations[i] = dataLocations[j];
+            dataLocations[j] = tmp;
+        }
+        return Arrays.copyOf(dataLocations, count);
+    }
+
+    private void verifyReadCount(final long found, final long expected) {
+        if (verify && (found != expected)) {
+            throw new RuntimeException("Expected " + expected + " items, but read " + found);
+        }
+    }
+
+    private class ReadableDataFileCollection extends DataFileCollection {
+
+        private final BenchmarkRecordSerializer serializer;
+
+        ReadableDataFileCollection(
+                final MerkleDbConfig dbConfig, final String storeName, final BenchmarkRecordSerializer serializer)
+                throws IOException {
+            super(dbConfig, getTestDir(), storeName, null, (dataLocation, dataValue) -> {});
+            this.serializer = serializer;
+        }
+
+        BenchmarkRecord read(long dataLocation) throws IOException {
+            final BufferedData recordData = readDataItem(dataLocation);
+            return recordData != null ? serializer.deserialize(recordData) : null;
+        }
+    }
 }
@@ -17,6 +17,7 @@
 package com.swirlds.benchmark;
 
 import com.swirlds.virtualmap.VirtualMap;
+import com.swirlds.virtualmap.internal.pipeline.VirtualRoot;
 import java.util.ArrayDeque;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.IntStream;
@@ -138,6 +139,62 @@ public abstract class VirtualMapBench extends VirtualMapBaseBench {
         });
     }
 
+    /**
+     * Round end hashing latency. Every copy puts new values for random keys, then the copy is hashed
+     * right after it's made immutable, and the time to hash it is measured. Run with and without
+     * {@code virtualMap.speculativeHashing} to compare round end hashing latency.
+     */
+    @Benchmark
+    public void hashLatency() throws Exception {
+        beforeTest("hashLatency");
+
+        logger.info(RUN_DELIMITER);
+
+        final long[] map = new long[verify ? maxKey : 0];
+        VirtualMap<BenchmarkKey, BenchmarkValue> virtualMap = createMap(map);
+
+        long hashTime = 0;
+        long maxHashTime = 0;
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < numFiles; i++) {
+            for (int j = 0; j < numRecords; ++j) {
+                long id = Utils.randomLong(maxKey);
+                final long val = nextValue();
+                virtualMap.put(new BenchmarkKey(id), new BenchmarkValue(val));
+                if (verify) {
+                    map[(int) id] = val;
+                }
+            }
+
+            final VirtualRoot root = virtualMap.getRight();
+            final VirtualMap<BenchmarkKey, BenchmarkValue> newCopy = virtualMap.copy();
+            final long hashStart = System.nanoTime();
+            root.getHash();
+            final long copyHashTime = System.nanoTime() - hashStart;
+            hashTime += copyHashTime;
+            maxHashTime = Math.max(maxHashTime, copyHashTime);
+            virtualMap.release();
+            virtualMap = newCopy;
+        }
+
+        logger.info(
+                "Created {} copies in {} ms, hash latency avg {} us, max {} us",
+                numFiles,
+                System.currentTimeMillis() - start,
+                hashTime / numFiles / 1000,
+                maxHashTime / 1000);
+
+        // Ensure the map is done with hashing/merging/flushing
+        final var finalMap = flushMap(virtualMap);
+
+        verifyMap(map, finalMap);
+
+        afterTest(() -> {
+            finalMap.release();
+            finalMap.getDataSource().close();
+        });
+    }
+
     /**
      * [Read-update or create-write][Remove expired] cycle. Single-threaded.
      */
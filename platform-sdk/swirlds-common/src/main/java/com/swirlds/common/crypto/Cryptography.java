@@ -123,6 +123,25 @@ public interface Cryptography {
     @NonNull
     byte[] digestBytesSync(@NonNull final byte[] message, @NonNull final DigestType digestType);
 
+    /**
+     * Computes cryptographic hashes (message digests) for a batch of independent messages. Implementations
+     * may hash the messages in parallel lanes, which is faster than hashing them one by one, when the
+     * messages are short and of similar length. The default implementation hashes messages one by one.
+     *
+     * @param messages   the messages to be hashed
+     * @param digestType the type of digest used to compute the hashes
+     * @return the cryptographic hashes, in the same order as the messages
+     * @throws CryptographyException if an unrecoverable error occurs while computing the digests
+     */
+    @NonNull
+    default Hash[] digestBatchSync(@NonNull final byte[][] messages, @NonNull final DigestType digestType) {
+        final Hash[] hashes = new Hash[messages.length];
+        for (int i = 0; i < messages.length; i++) {
+            hashes[i] = digestSync(messages[i], digestType);
+        }
+        return hashes;
+    }
+
     /**
      * @return the hash for a null value. Uses SHA_384.
      */
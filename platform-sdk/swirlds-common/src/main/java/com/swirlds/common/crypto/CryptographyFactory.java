@@ -16,7 +16,9 @@
 
 package com.swirlds.common.crypto;
 
+import com.swirlds.common.crypto.config.CryptoConfig;
 import com.swirlds.common.crypto.engine.CryptoEngine;
+import com.swirlds.config.api.Configuration;
 import edu.umd.cs.findbugs.annotations.NonNull;
 
 /**
@@ -36,4 +38,15 @@ public final class CryptographyFactory {
     public static Cryptography create() {
         return new CryptoEngine();
     }
+
+    /**
+     * Creates a new {@link Cryptography} instance using the given configuration.
+     *
+     * @param configuration the configuration
+     * @return a new {@link Cryptography} instance
+     */
+    @NonNull
+    public static Cryptography create(@NonNull final Configuration configuration) {
+        return new CryptoEngine(configuration.getConfigData(CryptoConfig.class).multiLaneDigests());
+    }
 }
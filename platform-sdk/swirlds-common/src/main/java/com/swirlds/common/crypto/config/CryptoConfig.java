@@ -31,12 +31,17 @@ import com.swirlds.config.api.ConfigProperty;
  * @param enableNewKeyStoreModel whether to enable the new key store model which uses separate PKCS #8 key stores for
  *                               each node. This model is compatible with most industry standard tools and libraries
  *                               including OpenSSL, Java Keytool, and many others.
+ * @param multiLaneDigests       whether to compute SHA-384 digests of message batches in multiple lanes, see
+ *                               {@link com.swirlds.common.crypto.Cryptography#digestBatchSync}. Lanes are hashed in
+ *                               pure Java, and may be slower than the default JCA implementation, if it's backed by
+ *                               CPU SHA instructions.
  */
 @ConfigData("crypto")
 public record CryptoConfig(
         @ConfigProperty(defaultValue = "0.5") double cpuDigestThreadRatio,
         @ConfigProperty(defaultValue = "password") String keystorePassword,
-        @ConfigProperty(defaultValue = "true") boolean enableNewKeyStoreModel) {
+        @ConfigProperty(defaultValue = "true") boolean enableNewKeyStoreModel,
+        @ConfigProperty(defaultValue = "false") boolean multiLaneDigests) {
 
     /**
      * Calculates the number of threads needed to achieve the CPU core ratio given by {@link #cpuDigestThreadRatio()}.
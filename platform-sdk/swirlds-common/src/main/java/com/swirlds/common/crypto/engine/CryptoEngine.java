@@ -80,10 +80,30 @@ public class CryptoEngine implements Cryptography {
      */
     private Map<DigestType, Hash> nullHashes;
 
+    /**
+     * Whether to hash batches of SHA-384 messages in multiple lanes, see {@link Sha384BatchDigest}.
+     */
+    private final boolean multiLaneDigests;
+
+    /**
+     * Minimal batch size to hash in multiple lanes. Smaller batches are hashed one message at a time.
+     */
+    private static final int MIN_MULTI_LANE_BATCH_SIZE = 4;
+
     /**
      * Constructor.
      */
     public CryptoEngine() {
+        this(false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param multiLaneDigests whether to hash batches of SHA-384 messages in multiple lanes
+     */
+    public CryptoEngine(final boolean multiLaneDigests) {
+        this.multiLaneDigests = multiLaneDigests;
         this.digestProvider = new DigestProvider();
 
         this.ed25519VerificationProvider = new Ed25519VerificationProvider();
@@ -165,6 +185,28 @@ public class CryptoEngine implements Cryptography {
         return digestSyncInternal(message, digestType, digestProvider);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @NonNull
+    @Override
+    public Hash[] digestBatchSync(@NonNull final byte[][] messages, @NonNull final DigestType digestType) {
+        final Hash[] hashes = new Hash[messages.length];
+        if (multiLaneDigests
+                && (digestType == DigestType.SHA_384)
+                && (messages.length >= MIN_MULTI_LANE_BATCH_SIZE)) {
+            final byte[][] digests = Sha384BatchDigest.digest(messages);
+            for (int i = 0; i < messages.length; i++) {
+                hashes[i] = new Hash(digests[i], digestType);
+            }
+        } else {
+            for (int i = 0; i < messages.length; i++) {
+                hashes[i] = new Hash(digestSyncInternal(messages[i], digestType, digestProvider), digestType);
+            }
+        }
+        return hashes;
+    }
+
     /**
      * Compute and store hash for null using different digest types.
      */
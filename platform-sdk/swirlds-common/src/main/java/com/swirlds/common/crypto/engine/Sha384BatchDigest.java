@@ -0,0 +1,268 @@
+/*
+ * Copyright (C) 2024 Hedera Hashgraph, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.swirlds.common.crypto.engine;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Multi-buffer SHA-384 implementation. Computes digests of multiple independent messages at once.
+ * <p>
+ * Messages are hashed in lanes. The compression function state of all messages with the same number
+ * of blocks is stored in arrays indexed by lane, and every step of the compression function is applied
+ * to all lanes in a simple loop. This is plain Java code, it doesn't use SHA CPU instructions, and the
+ * JIT compiler isn't guaranteed to vectorize it. In {@code CryptoBench} this class is slower than the
+ * JCA SHA-384 digest, which is backed by intrinsics on current JVMs, so it isn't used unless explicitly
+ * enabled with {@code crypto.multiLaneDigests}. It's kept as a reference implementation of batch hashing,
+ * and it produces exactly the same digests as JCA.
+ * <p>
+ * This class is thread safe. Every thread uses its own scratch arrays.
+ */
+final class Sha384BatchDigest {
+
+    /** Digest length in bytes */
+    static final int DIGEST_LENGTH = 48;
+
+    /** Block length in bytes */
+    private static final int BLOCK_LENGTH = 128;
+
+    /** Number of bytes used to store message length in bits in the end of the last block */
+    private static final int LENGTH_BYTES = 16;
+
+    private static final int ROUNDS = 80;
+
+    private static final VarHandle LONG_BE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private static final long[] IV = {
+        0xcbbb9d5dc1059ed8L, 0x629a292a367cd507L, 0x9159015a3070dd17L, 0x152fecd8f70e5939L,
+        0x67332667ffc00b31L, 0x8eb44a8768581511L, 0xdb0c2e0d64f98fa7L, 0x47b5481dbefa4fa4L
+    };
+
+    private static final long[] K = {
+        0x428a2f98d728ae22L, 0x7137449123ef65cdL, 0xb5c0fbcfec4d3b2fL, 0xe9b5dba58189dbbcL,
+        0x3956c25bf348b538L, 0x59f111f1b605d019L, 0x923f82a4af194f9bL, 0xab1c5ed5da6d8118L,
+        0xd807aa98a3030242L, 0x12835b0145706fbeL, 0x243185be4ee4b28cL, 0x550c7dc3d5ffb4e2L,
+        0x72be5d74f27b896fL, 0x80deb1fe3b1696b1L, 0x9bdc06a725c71235L, 0xc19bf174cf692694L,
+        0xe49b69c19ef14ad2L, 0xefbe4786384f25e3L, 0x0fc19dc68b8cd5b5L, 0x240ca1cc77ac9c65L,
+        0x2de92c6f592b0275L, 0x4a7484aa6ea6e483L, 0x5cb0a9dcbd41fbd4L, 0x76f988da831153b5L,
+        0x983e5152ee66dfabL, 0xa831c66d2db43210L, 0xb00327c898fb213fL, 0xbf597fc7beef0ee4L,
+        0xc6e00bf33da88fc2L, 0xd5a79147930aa725L, 0x06ca6351e003826fL, 0x142929670a0e6e70L,
+        0x27b70a8546d22ffcL, 0x2e1b21385c26c926L, 0x4d2c6dfc5ac42aedL, 0x53380d139d95b3dfL,
+        0x650a73548baf63deL, 0x766a0abb3c77b2a8L, 0x81c2c92e47edaee6L, 0x92722c851482353bL,
+        0xa2bfe8a14cf10364L, 0xa81a664bbc423001L, 0xc24b8b70d0f89791L, 0xc76c51a30654be30L,
+        0xd192e819d6ef5218L, 0xd69906245565a910L, 0xf40e35855771202aL, 0x106aa07032bbd1b8L,
+        0x19a4c116b8d2d0c8L, 0x1e376c085141ab53L, 0x2748774cdf8eeb99L, 0x34b0bcb5e19b48a8L,
+        0x391c0cb3c5c95a63L, 0x4ed8aa4ae3418acbL, 0x5b9cca4f7763e373L, 0x682e6ff3d6b2b8a3L,
+        0x748f82ee5defb2fcL, 0x78a5636f43172f60L, 0x84c87814a1f0ab72L, 0x8cc702081a6439ecL,
+        0x90befffa23631e28L, 0xa4506cebde82bde9L, 0xbef9a3f7b2c67915L, 0xc67178f2e372532bL,
+        0xca273eceea26619cL, 0xd186b8c721c0c207L, 0xeada7dd6cde0eb1eL, 0xf57d4f7fee6ed178L,
+        0x06f067aa72176fbaL, 0x0a637dc5a2c898a6L, 0x113f9804bef90daeL, 0x1b710b35131c471bL,
+        0x28db77f523047d84L, 0x32caab7b40c72493L, 0x3c9ebe0a15c9bebcL, 0x431d67c49c100d4cL,
+        0x4cc5d4becb3e42b6L, 0x597f299cfc657e2aL, 0x5fcb6fab3ad6faecL, 0x6c44198c4a475817L
+    };
+
+    private static final ThreadLocal<Lanes> LANES = ThreadLocal.withInitial(Lanes::new);
+
+    private Sha384BatchDigest() {}
+
+    /**
+     * Computes SHA-384 digests of the given messages.
+     *
+     * @param messages the messages to hash
+     * @return the digests, in the same order as the messages
+     */
+    @NonNull
+    static byte[][] digest(@NonNull final byte[][] messages) {
+        final byte[][] digests = new byte[messages.length][];
+        if (messages.length == 0) {
+            return digests;
+        }
+        // Messages are grouped by the number of blocks, every group is hashed in lanes. In the most common
+        // case, all messages have the same number of blocks, and there is just one group
+        final Integer[] order = new Integer[messages.length];
+        for (int i = 0; i < messages.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (i, j) -> Integer.compare(blockCount(messages[i]), blockCount(messages[j])));
+        final Lanes lanes = LANES.get();
+        int groupStart = 0;
+        while (groupStart < order.length) {
+            final int blocks = blockCount(messages[order[groupStart]]);
+            int groupEnd = groupStart + 1;
+            while ((groupEnd < order.length) && (blockCount(messages[order[groupEnd]]) == blocks)) {
+                groupEnd++;
+            }
+            lanes.digest(messages, order, groupStart, groupEnd, blocks, digests);
+            groupStart = groupEnd;
+        }
+        return digests;
+    }
+
+    /**
+     * Number of blocks in a message after padding.
+     */
+    private static int blockCount(final byte[] message) {
+        return (message.length + 1 + LENGTH_BYTES + BLOCK_LENGTH - 1) / BLOCK_LENGTH;
+    }
+
+    /**
+     * Per-thread state of all lanes. Arrays are indexed by lane, except the message schedule, which is
+     * indexed by round and then by lane.
+     */
+    private static final class Lanes {
+        private int capacity = 0;
+        private long[][] state;
+        private long[][] w;
+        private long[] a, b, c, d, e, f, g, h;
+        private final byte[] block = new byte[BLOCK_LENGTH];
+
+        private void ensureCapacity(final int lanes) {
+            if (lanes <= capacity) {
+                return;
+            }
+            capacity = Math.max(lanes, capacity * 2);
+            state = new long[IV.length][capacity];
+            w = new long[ROUNDS][capacity];
+            a = new long[capacity];
+            b = new long[capacity];
+            c = new long[capacity];
+            d = new long[capacity];
+            e = new long[capacity];
+            f = new long[capacity];
+            g = new long[capacity];
+            h = new long[capacity];
+        }
+
+        void digest(
+                final byte[][] messages,
+                final Integer[] order,
+                final int from,
+                final int to,
+                final int blocks,
+                final byte[][] digests) {
+            final int n = to - from;
+            ensureCapacity(n);
+            for (int i = 0; i < IV.length; i++) {
+                Arrays.fill(state[i], 0, n, IV[i]);
+            }
+            for (int blockIndex = 0; blockIndex < blocks; blockIndex++) {
+                for (int lane = 0; lane < n; lane++) {
+                    loadBlock(messages[order[from + lane]], blockIndex, blocks, lane);
+                }
+                compress(n);
+            }
+            for (int lane = 0; lane < n; lane++) {
+                final byte[] digest = new byte[DIGEST_LENGTH];
+                for (int i = 0; i < DIGEST_LENGTH / Long.BYTES; i++) {
+                    LONG_BE.set(digest, i * Long.BYTES, state[i][lane]);
+                }
+                digests[order[from + lane]] = digest;
+            }
+        }
+
+        /**
+         * Loads a padded message block into the first 16 words of the message schedule of the given lane.
+         */
+        private void loadBlock(final byte[] message, final int blockIndex, final int blocks, final int lane) {
+            final int offset = blockIndex * BLOCK_LENGTH;
+            final int count = Math.max(0, Math.min(BLOCK_LENGTH, message.length - offset));
+            if (count > 0) {
+                System.arraycopy(message, offset, block, 0, count);
+            }
+            Arrays.fill(block, count, BLOCK_LENGTH, (byte) 0);
+            if ((message.length >= offset) && (message.length < offset + BLOCK_LENGTH)) {
+                block[message.length - offset] = (byte) 0x80;
+            }
+            if (blockIndex == blocks - 1) {
+                // message length in bits, the upper 64 bits are always zero for byte arrays
+                LONG_BE.set(block, BLOCK_LENGTH - Long.BYTES, (long) message.length * Byte.SIZE);
+            }
+            for (int i = 0; i < 16; i++) {
+                w[i][lane] = (long) LONG_BE.get(block, i * Long.BYTES);
+            }
+        }
+
+        /**
+         * Applies the compression function to all lanes. Every loop below is over lanes, so it can be
+         * vectorized.
+         */
+        private void compress(final int n) {
+            for (int t = 16; t < ROUNDS; t++) {
+                final long[] wt = w[t];
+                final long[] w2 = w[t - 2];
+                final long[] w7 = w[t - 7];
+                final long[] w15 = w[t - 15];
+                final long[] w16 = w[t - 16];
+                for (int lane = 0; lane < n; lane++) {
+                    final long x = w2[lane];
+                    final long y = w15[lane];
+                    final long s1 = Long.rotateRight(x, 19) ^ Long.rotateRight(x, 61) ^ (x >>> 6);
+                    final long s0 = Long.rotateRight(y, 1) ^ Long.rotateRight(y, 8) ^ (y >>> 7);
+                    wt[lane] = s1 + w7[lane] + s0 + w16[lane];
+                }
+            }
+            System.arraycopy(state[0], 0, a, 0, n);
+            System.arraycopy(state[1], 0, b, 0, n);
+            System.arraycopy(state[2], 0, c, 0, n);
+            System.arraycopy(state[3], 0, d, 0, n);
+            System.arraycopy(state[4], 0, e, 0, n);
+            System.arraycopy(state[5], 0, f, 0, n);
+            System.arraycopy(state[6], 0, g, 0, n);
+            System.arraycopy(state[7], 0, h, 0, n);
+            for (int t = 0; t < ROUNDS; t++) {
+                final long k = K[t];
+                final long[] wt = w[t];
+                for (int lane = 0; lane < n; lane++) {
+                    final long ea = e[lane];
+                    final long aa = a[lane];
+                    final long ba = b[lane];
+                    final long ca = c[lane];
+                    final long sigma1 = Long.rotateRight(ea, 14) ^ Long.rotateRight(ea, 18) ^ Long.rotateRight(ea, 41);
+                    final long ch = (ea & f[lane]) ^ (~ea & g[lane]);
+                    final long t1 = h[lane] + sigma1 + ch + k + wt[lane];
+                    final long sigma0 = Long.rotateRight(aa, 28) ^ Long.rotateRight(aa, 34) ^ Long.rotateRight(aa, 39);
+                    final long maj = (aa & ba) ^ (aa & ca) ^ (ba & ca);
+                    h[lane] = g[lane];
+                    g[lane] = f[lane];
+                    f[lane] = ea;
+                    e[lane] = d[lane] + t1;
+                    d[lane] = ca;
+                    c[lane] = ba;
+                    b[lane] = aa;
+                    a[lane] = t1 + sigma0 + maj;
+                }
+            }
+            addToState(state[0], a, n);
+            addToState(state[1], b, n);
+            addToState(state[2], c, n);
+            addToState(state[3], d, n);
+            addToState(state[4], e, n);
+            addToState(state[5], f, n);
+            addToState(state[6], g, n);
+            addToState(state[7], h, n);
+        }
+
+        private static void addToState(final long[] state, final long[] values, final int n) {
+            for (int lane = 0; lane < n; lane++) {
+                state[lane] += values[lane];
+            }
+        }
+    }
+}
@@ -30,6 +30,9 @@ import com.swirlds.common.merkle.synchronization.config.ReconnectConfig;
 import com.swirlds.common.merkle.synchronization.stats.ReconnectMapMetrics;
 import com.swirlds.common.merkle.synchronization.stats.ReconnectMapStats;
 import com.swirlds.common.merkle.synchronization.streams.AsyncOutputStream;
+import com.swirlds.common.merkle.synchronization.streams.CompressedFrameInputStream;
+import com.swirlds.common.merkle.synchronization.streams.CompressedFrameOutputStream;
+import com.swirlds.common.merkle.synchronization.streams.CompressedStreams;
 import com.swirlds.common.merkle.synchronization.task.ReconnectNodeCount;
 import com.swirlds.common.merkle.synchronization.utility.MerkleSynchronizationException;
 import com.swirlds.common.merkle.synchronization.views.CustomReconnectRoot;
@@ -41,6 +44,7 @@ import com.swirlds.common.threading.pool.StandardWorkGroup;
 import com.swirlds.logging.legacy.payload.SynchronizationCompletePayload;
 import com.swirlds.metrics.api.Metrics;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
 import java.util.Deque;
 import java.util.LinkedList;
 import java.util.Objects;
@@ -61,14 +65,26 @@ public class LearningSynchronizer implements ReconnectNodeCount {
     private static final Logger logger = LogManager.getLogger(LearningSynchronizer.class);
 
     /**
-     * Used to get data from the teacher.
+     * Used to get data from the teacher. Replaced with a decompressing stream, if the teacher and the learner agree
+     * to use compression.
      */
-    private final MerkleDataInputStream inputStream;
+    private MerkleDataInputStream inputStream;
 
     /**
-     * Used to transmit data to the teacher.
+     * Used to transmit data to the teacher. Replaced with a compressing stream, if the teacher and the learner agree
+     * to use compression.
      */
-    private final MerkleDataOutputStream outputStream;
+    private MerkleDataOutputStream outputStream;
+
+    /**
+     * The decompressing stream {@link #inputStream} reads from, or null if reconnect streams aren't compressed.
+     */
+    private CompressedFrameInputStream compressedInput;
+
+    /**
+     * The compressing stream {@link #outputStream} writes to, or null if reconnect streams aren't compressed.
+     */
+    private CompressedFrameOutputStream compressedOutput;
 
     private final Queue<MerkleNode> rootsToReceive;
     private final Deque<LearnerTreeView<?>> viewsToInitialize;
@@ -155,6 +171,8 @@ public class LearningSynchronizer implements ReconnectNodeCount {
         } catch (final Exception ex) {
             abort();
             throw new MerkleSynchronizationException(ex);
+        } finally {
+            releaseCompression();
         }
     }
 
@@ -184,10 +202,11 @@ public class LearningSynchronizer implements ReconnectNodeCount {
     /**
      * Receive the tree from the teacher.
      */
-    private void receiveTree() throws InterruptedException {
+    private void receiveTree() throws InterruptedException, IOException {
         logger.info(RECONNECT.getMarker(), "synchronizing tree");
         final long start = System.currentTimeMillis();
 
+        negotiateCompression();
         while (!rootsToReceive.isEmpty()) {
             final MerkleNode root = receiveTree(rootsToReceive.remove());
             if (newRoot == null) {
@@ -196,10 +215,41 @@ public class LearningSynchronizer implements ReconnectNodeCount {
             }
         }
 
+        // Compressed frames are buffered until flushed
+        outputStream.flush();
+
         synchronizationTimeMilliseconds = System.currentTimeMillis() - start;
         logger.info(RECONNECT.getMarker(), "synchronization complete");
     }
 
+    /**
+     * Agree with the teacher whether reconnect streams should be compressed, and wrap the streams if so.
+     */
+    private void negotiateCompression() throws IOException {
+        if (CompressedStreams.negotiate(inputStream, outputStream, reconnectConfig)) {
+            logger.info(RECONNECT.getMarker(), "reconnect streams are compressed");
+            compressedInput = new CompressedFrameInputStream(inputStream);
+            compressedOutput = new CompressedFrameOutputStream(outputStream, reconnectConfig.streamFrameSize());
+            inputStream = new MerkleDataInputStream(compressedInput);
+            outputStream = new MerkleDataOutputStream(compressedOutput);
+        }
+    }
+
+    /**
+     * Release the native compressor and decompressor memory, if reconnect streams are compressed. The underlying
+     * streams are not closed.
+     */
+    private void releaseCompression() {
+        if (compressedInput != null) {
+            compressedInput.close();
+            compressedInput = null;
+        }
+        if (compressedOutput != null) {
+            compressedOutput.end();
+            compressedOutput = null;
+        }
+    }
+
     /**
      * Initialize the tree.
      */
@@ -26,6 +26,9 @@ import com.swirlds.common.io.streams.SerializableDataOutputStream;
 import com.swirlds.common.merkle.MerkleNode;
 import com.swirlds.common.merkle.synchronization.config.ReconnectConfig;
 import com.swirlds.common.merkle.synchronization.streams.AsyncOutputStream;
+import com.swirlds.common.merkle.synchronization.streams.CompressedFrameInputStream;
+import com.swirlds.common.merkle.synchronization.streams.CompressedFrameOutputStream;
+import com.swirlds.common.merkle.synchronization.streams.CompressedStreams;
 import com.swirlds.common.merkle.synchronization.task.TeacherSubtree;
 import com.swirlds.common.merkle.synchronization.utility.MerkleSynchronizationException;
 import com.swirlds.common.merkle.synchronization.views.TeacherTreeView;
@@ -34,6 +37,7 @@ import com.swirlds.common.threading.pool.StandardWorkGroup;
 import com.swirlds.config.api.Configuration;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.IOException;
 import java.net.SocketException;
 import java.util.LinkedList;
 import java.util.Objects;
@@ -53,14 +57,26 @@ public class TeachingSynchronizer {
     private static final Logger logger = LogManager.getLogger(TeachingSynchronizer.class);
 
     /**
-     * Used to get data from the listener.
+     * Used to get data from the listener. Replaced with a decompressing stream, if the teacher and the learner agree
+     * to use compression.
      */
-    private final MerkleDataInputStream inputStream;
+    private MerkleDataInputStream inputStream;
 
     /**
-     * Used to transmit data to the listener.
+     * Used to transmit data to the listener. Replaced with a compressing stream, if the teacher and the learner agree
+     * to use compression.
      */
-    private final MerkleDataOutputStream outputStream;
+    private MerkleDataOutputStream outputStream;
+
+    /**
+     * The decompressing stream {@link #inputStream} reads from, or null if reconnect streams aren't compressed.
+     */
+    private CompressedFrameInputStream compressedInput;
+
+    /**
+     * The compressing stream {@link #outputStream} writes to, or null if reconnect streams aren't compressed.
+     */
+    private CompressedFrameOutputStream compressedOutput;
 
     /**
      * <p>
@@ -126,17 +142,51 @@ public class TeachingSynchronizer {
      */
     public void synchronize() throws InterruptedException {
         try {
+            negotiateCompression();
             while (!subtrees.isEmpty()) {
                 try (final TeacherSubtree subtree = subtrees.remove()) {
                     subtree.getView().waitUntilReady();
                     sendTree(subtree.getRoot(), subtree.getView());
                 }
             }
+            // Compressed frames are buffered until flushed
+            outputStream.flush();
+        } catch (final IOException e) {
+            throw new MerkleSynchronizationException(e);
         } finally {
             // If we crash, make sure to clean up any remaining subtrees.
             for (final TeacherSubtree subtree : subtrees) {
                 subtree.close();
             }
+            releaseCompression();
+        }
+    }
+
+    /**
+     * Agree with the learner whether reconnect streams should be compressed, and wrap the streams if so.
+     */
+    private void negotiateCompression() throws IOException {
+        if (CompressedStreams.negotiate(inputStream, outputStream, reconnectConfig)) {
+            logger.info(RECONNECT.getMarker(), "reconnect streams are compressed");
+            compressedInput = new CompressedFrameInputStream(inputStream);
+            compressedOutput = new CompressedFrameOutputStream(outputStream, reconnectConfig.streamFrameSize());
+            inputStream = new MerkleDataInputStream(compressedInput);
+            outputStream = new MerkleDataOutputStream(compressedOutput);
+        }
+    }
+
+    /**
+     * Release the native compressor and decompressor memory, if reconnect streams are compressed. The underlying
+     * streams are not closed.
+     */
+    private void releaseCompression() {
+        if (compressedInput != null) {
+            compressedInput.close();
+            compressedInput = null;
+        }
+        if (compressedOutput != null) {
+            compressedOutput.end();
+            compressedOutput = null;
         }
     }
 
@@ -56,6 +56,14 @@ import java.time.Duration;
  * @param pullLearnerRootResponseTimeout         In pull-based reconnect implementations (virtual trees only), the
  *                                               timeout on the learner side to get a virtual root node response from
  *                                               teacher
+ * @param streamCompression                      If true, reconnect streams are compressed. Must be set to the same
+ *                                               value on all nodes, since compression is only negotiated between
+ *                                               nodes that enable it
+ * @param streamFrameSize                        The maximum number of uncompressed bytes in a single compressed
+ *                                               reconnect stream frame. Smaller frames are sent on every stream flush
+ * @param pullMaxRangeSize                       In pull-based reconnect implementations (virtual trees only), the
+ *                                               maximum number of contiguous paths the learner asks about in a single
+ *                                               request. If 1, a request is sent for every path
  */
 @ConfigData("reconnect")
 public record ReconnectConfig(
@@ -70,4 +78,7 @@ public record ReconnectConfig(
         @ConfigProperty(defaultValue = "10m") Duration minimumTimeBetweenReconnects,
         @ConfigProperty(defaultValue = "0") int teacherMaxNodesPerSecond,
         @ConfigProperty(defaultValue = "1us") Duration teacherRateLimiterSleep,
-        @ConfigProperty(defaultValue = "60s") Duration pullLearnerRootResponseTimeout) {}
+        @ConfigProperty(defaultValue = "60s") Duration pullLearnerRootResponseTimeout,
+        @ConfigProperty(defaultValue = "false") boolean streamCompression,
+        @ConfigProperty(defaultValue = "65536") int streamFrameSize,
+        @ConfigProperty(defaultValue = "64") int pullMaxRangeSize) {}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2024 Hedera Hashgraph, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.swirlds.common.merkle.synchronization.streams;
+
+import static com.swirlds.common.merkle.synchronization.streams.CompressedFrameOutputStream.MAX_FRAME_SIZE;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * <p>
+ * An input stream that reads frames written by {@link CompressedFrameOutputStream}. Frames are read from the
+ * underlying stream one at a time, only when all bytes of the previous frame have been consumed.
+ * </p>
+ *
+ * <p>
+ * Closing this stream doesn't close the underlying stream.
+ * </p>
+ *
+ * <p>
+ * This object is not thread safe.
+ * </p>
+ */
+public class CompressedFrameInputStream extends InputStream {
+
+    private final DataInputStream in;
+
+    private final Inflater inflater;
+
+    /**
+     * Uncompressed bytes of the current frame.
+     */
+    private byte[] buffer = new byte[0];
+
+    /**
+     * Compressed bytes of the current frame.
+     */
+    private byte[] compressed = new byte[0];
+
+    /**
+     * The position of the next byte to read in the buffer.
+     */
+    private int position;
+
+    /**
+     * The number of uncompressed bytes in the current frame.
+     */
+    private int limit;
+
+    /**
+     * Create a new compressed frame input stream.
+     *
+     * @param in the stream to read compressed frames from
+     */
+    public CompressedFrameInputStream(@NonNull final InputStream in) {
+        this.in = new DataInputStream(Objects.requireNonNull(in, "in must not be null"));
+        this.inflater = new Inflater();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read() throws IOException {
+        if ((position == limit) && !readFrame()) {
+            return -1;
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read(@NonNull final byte[] b, final int off, final int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (len == 0) {
+            return 0;
+        }
+        if ((position == limit) && !readFrame()) {
+            return -1;
+        }
+        final int toCopy = Math.min(len, limit - position);
+        System.arraycopy(buffer, position, b, off, toCopy);
+        position += toCopy;
+        return toCopy;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int available() {
+        return limit - position;
+    }
+
+    /**
+     * Release the decompressor. The underlying stream is not closed.
+     */
+    @Override
+    public void close() {
+        inflater.end();
+    }
+
+    /**
+     * Read the next frame from the underlying stream.
+     *
+     * @return true if a frame was read, false if the end of the underlying stream is reached
+     */
+    private boolean readFrame() throws IOException {
+        final int length;
+        try {
+            length = in.readInt();
+        } catch (final EOFException e) {
+            return false;
+        }
+        final int compressedLength = in.readInt();
+        if ((length <= 0) || (length > MAX_FRAME_SIZE) || (compressedLength < 0) || (compressedLength >= length)) {
+            throw new IOException("Invalid frame, length = " + length + ", compressed length = " + compressedLength);
+        }
+        if (buffer.length < length) {
+            buffer = new byte[length];
+        }
+        if (compressedLength == 0) {
+            in.readFully(buffer, 0, length);
+        } else {
+            if (compressed.length < compressedLength) {
+                compressed = new byte[compressedLength];
+            }
+            in.readFully(compressed, 0, compressedLength);
+            inflater.reset();
+            inflater.setInput(compressed, 0, compressedLength);
+            try {
+                final int inflated = inflater.inflate(buffer, 0, length);
+                if ((inflated != length) || !inflater.finished()) {
+                    throw new IOException("Corrupted frame, expected " + length + " bytes, got " + inflated);
+                }
+            } catch (final DataFormatException e) {
+                throw new IOException("Corrupted frame", e);
+            }
+        }
+        position = 0;
+        limit = length;
+        return true;
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2024 Hedera Hashgraph, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.swirlds.common.merkle.synchronization.streams;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Objects;
+import java.util.zip.Deflater;
+
+/**
+ * <p>
+ * An output stream that collects written bytes into frames and compresses every frame independently. Frames are
+ * written when the buffer is full, or when the stream is flushed. Each frame is written as the number of uncompressed
+ * bytes (int), the number of compressed bytes (int), and the compressed bytes. If a frame can't be compressed to a
+ * smaller size, it's written uncompressed, with the number of compressed bytes set to zero.
+ * </p>
+ *
+ * <p>
+ * Since frames are self-delimited, {@link CompressedFrameInputStream} never reads past the last frame. It makes it
+ * safe to switch back to the underlying stream, after all compressed data has been read.
+ * </p>
+ *
+ * <p>
+ * Closing this stream doesn't close the underlying stream.
+ * </p>
+ *
+ * <p>
+ * This object is not thread safe.
+ * </p>
+ */
+public class CompressedFrameOutputStream extends OutputStream {
+
+    /**
+     * The maximum supported frame size. Readers reject frames larger than that.
+     */
+    public static final int MAX_FRAME_SIZE = 16 * 1024 * 1024;
+
+    private final DataOutputStream out;
+
+    private final Deflater deflater;
+
+    /**
+     * Uncompressed bytes of the current frame.
+     */
+    private final byte[] buffer;
+
+    /**
+     * The number of bytes in the current frame.
+     */
+    private int count;
+
+    /**
+     * Compressed bytes of the current frame. Compressed data that doesn't fit into this buffer is not worth sending,
+     * such frames are sent uncompressed.
+     */
+    private final byte[] compressed;
+
+    /**
+     * Create a new compressed frame output stream.
+     *
+     * @param out       the stream to write compressed frames to
+     * @param frameSize the maximum number of uncompressed bytes in a frame
+     */
+    public CompressedFrameOutputStream(@NonNull final OutputStream out, final int frameSize) {
+        Objects.requireNonNull(out, "out must not be null");
+        if ((frameSize <= 0) || (frameSize > MAX_FRAME_SIZE)) {
+            throw new IllegalArgumentException("Invalid frame size: " + frameSize);
+        }
+        this.out = new DataOutputStream(out);
+        this.deflater = new Deflater(Deflater.BEST_SPEED);
+        this.buffer = new byte[frameSize];
+        this.compressed = new byte[frameSize];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(final int b) throws IOException {
+        if (count == buffer.length) {
+            writeFrame();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(@NonNull final byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        while (len > 0) {
+            if (count == buffer.length) {
+                writeFrame();
+            }
+            final int toCopy = Math.min(len, buffer.length - count);
+            System.arraycopy(b, off, buffer, count, toCopy);
+            count += toCopy;
+            off += toCopy;
+            len -= toCopy;
+        }
+    }
+
+    /**
+     * Write all buffered bytes as a frame, and flush the underlying stream.
+     */
+    @Override
+    public void flush() throws IOException {
+        writeFrame();
+        out.flush();
+    }
+
+    /**
+     * Flush all buffered bytes and release the compressor. The underlying stream is not closed.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * Release the compressor without writing buffered bytes. The underlying stream is not closed.
+     */
+    public void end() {
+        deflater.end();
+    }
+
+    private void writeFrame() throws IOException {
+        if (count == 0) {
+            return;
+        }
+        deflater.reset();
+        deflater.setInput(buffer, 0, count);
+        deflater.finish();
+        final int compressedLength = deflater.deflate(compressed, 0, compressed.length);
+        out.writeInt(count);
+        if (deflater.finished() && (compressedLength < count)) {
+            out.writeInt(compressedLength);
+            out.write(compressed, 0, compressedLength);
+        } else {
+            out.writeInt(0);
+            out.write(buffer, 0, count);
+        }
+        count = 0;
+    }
+}
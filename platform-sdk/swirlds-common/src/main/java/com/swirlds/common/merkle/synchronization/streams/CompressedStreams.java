@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2024 Hedera Hashgraph, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.swirlds.common.merkle.synchronization.streams;
+
+import com.swirlds.common.io.streams.MerkleDataInputStream;
+import com.swirlds.common.io.streams.MerkleDataOutputStream;
+import com.swirlds.common.merkle.synchronization.config.ReconnectConfig;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+
+/**
+ * Utility methods to negotiate compressed reconnect streams.
+ */
+public final class CompressedStreams {
+
+    private CompressedStreams() {}
+
+    /**
+     * Agree with the peer whether to use compressed streams. If compression is disabled in this node's config, nothing
+     * is exchanged, and the reconnect protocol is the same as without compression support. Otherwise, tell the peer
+     * that this node wants to use compressed streams, and read the same flag from the peer. Both the teacher and the
+     * learner call this method before anything else is sent, so neither side blocks on the other. Since the flags are
+     * only exchanged when compression is enabled, it must be enabled or disabled on all nodes in the network.
+     *
+     * @param in     the stream to read the peer's flag from
+     * @param out    the stream to write this node's flag to
+     * @param config the reconnect configuration
+     * @return true if both this node and the peer want to use compressed streams
+     * @throws IOException if an I/O error occurs
+     */
+    public static boolean negotiate(
+            @NonNull final MerkleDataInputStream in,
+            @NonNull final MerkleDataOutputStream out,
+            @NonNull final ReconnectConfig config)
+            throws IOException {
+        if (!config.streamCompression()) {
+            return false;
+        }
+        out.writeBoolean(true);
+        out.flush();
+        return in.readBoolean();
+    }
+}
@@ -18,6 +18,7 @@ package com.swirlds.common.wiring.model;
 
 import static com.swirlds.common.wiring.schedulers.builders.TaskSchedulerType.NO_OP;
 import static com.swirlds.common.wiring.schedulers.builders.TaskSchedulerType.SEQUENTIAL;
+import static com.swirlds.common.wiring.schedulers.builders.TaskSchedulerType.SEQUENTIAL_RING_BUFFER;
 import static com.swirlds.common.wiring.schedulers.builders.TaskSchedulerType.SEQUENTIAL_THREAD;
 
 import com.swirlds.common.context.PlatformContext;
@@ -28,6 +29,7 @@ import com.swirlds.common.wiring.model.internal.standard.JvmAnchor;
 import com.swirlds.common.wiring.schedulers.TaskScheduler;
 import com.swirlds.common.wiring.schedulers.builders.TaskSchedulerBuilder;
 import com.swirlds.common.wiring.schedulers.builders.internal.StandardTaskSchedulerBuilder;
+import com.swirlds.common.wiring.schedulers.internal.SequentialRingBufferTaskScheduler;
 import com.swirlds.common.wiring.schedulers.internal.SequentialThreadTaskScheduler;
 import com.swirlds.common.wiring.wires.input.BindableInputWire;
 import com.swirlds.common.wiring.wires.output.OutputWire;
@@ -75,6 +77,11 @@ public class StandardWiringModel extends TraceableWiringModel {
      */
     private final List<SequentialThreadTaskScheduler<?>> threadSchedulers = new ArrayList<>();
 
+    /**
+     * Ring buffer schedulers also have a thread that needs to be started/stopped.
+     */
+    private final List<SequentialRingBufferTaskScheduler<?>> ringBufferSchedulers = new ArrayList<>();
+
     /**
      * The default fork join pool, schedulers not explicitly assigned a pool will use this one.
      */
@@ -187,6 +194,8 @@ public class StandardWiringModel extends TraceableWiringModel {
         super.registerScheduler(scheduler, hyperlink);
         if (scheduler.getType() == SEQUENTIAL_THREAD) {
             threadSchedulers.add((SequentialThreadTaskScheduler<?>) scheduler);
+        } else if (scheduler.getType() == SEQUENTIAL_RING_BUFFER) {
+            ringBufferSchedulers.add((SequentialRingBufferTaskScheduler<?>) scheduler);
         }
     }
 
@@ -219,6 +228,10 @@ public class StandardWiringModel extends TraceableWiringModel {
         for (final SequentialThreadTaskScheduler<?> threadScheduler : threadSchedulers) {
             threadScheduler.start();
         }
+
+        for (final SequentialRingBufferTaskScheduler<?> ringBufferScheduler : ringBufferSchedulers) {
+            ringBufferScheduler.start();
+        }
     }
 
     /**
@@ -236,6 +249,10 @@ public class StandardWiringModel extends TraceableWiringModel {
             threadScheduler.stop();
         }
 
+        for (final SequentialRingBufferTaskScheduler<?> ringBufferScheduler : ringBufferSchedulers) {
+            ringBufferScheduler.stop();
+        }
+
         if (anchor != null) {
             anchor.stop();
         }
@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2023-2024 Hedera Hashgraph, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.swirlds.common.wiring.schedulers.builders;
+
+/**
+ * How the handler thread of a {@link TaskSchedulerType#SEQUENTIAL_RING_BUFFER} scheduler waits when there are no tasks.
+ * Pass one of these to
+ * {@link TaskSchedulerBuilder#withWaitStrategy(RingBufferWaitStrategy)}. The default is {@link #PARK}.
+ */
+public enum RingBufferWaitStrategy {
+    /**
+     * Busy spin with {@link Thread#onSpinWait()}. Lowest latency, but a waiting thread keeps a core fully busy.
+     */
+    SPIN,
+    /**
+     * Call {@link Thread#yield()} in a loop. Low latency while leaving the core to other runnable threads, but a
+     * waiting thread still shows up as busy.
+     */
+    YIELD,
+    /**
+     * Park the handler thread, it is unparked as soon as a task is inserted. Uses no CPU while idle, at the cost of a
+     * wakeup when work arrives.
+     */
+    PARK
+}
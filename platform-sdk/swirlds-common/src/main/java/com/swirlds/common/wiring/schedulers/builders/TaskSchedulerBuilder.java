@@ -126,6 +126,16 @@ public interface TaskSchedulerBuilder<OUT> {
     @NonNull
     TaskSchedulerBuilder<OUT> withSleepDuration(@NonNull Duration backpressureSleepDuration);
 
+    /**
+     * Set how the handler thread of a {@link TaskSchedulerType#SEQUENTIAL_RING_BUFFER} task scheduler waits when there
+     * are no tasks. Ignored by other task scheduler types. Default {@link RingBufferWaitStrategy#PARK}.
+     *
+     * @param waitStrategy the wait strategy
+     * @return this
+     */
+    @NonNull
+    TaskSchedulerBuilder<OUT> withWaitStrategy(@NonNull RingBufferWaitStrategy waitStrategy);
+
     /**
      * Set whether the unhandled task count metric should be enabled. Default false.
      *
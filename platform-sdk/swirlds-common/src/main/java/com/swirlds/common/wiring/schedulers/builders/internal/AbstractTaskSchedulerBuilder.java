@@ -29,6 +29,7 @@ import com.swirlds.common.wiring.counters.ObjectCounter;
 import com.swirlds.common.wiring.counters.StandardObjectCounter;
 import com.swirlds.common.wiring.model.TraceableWiringModel;
 import com.swirlds.common.wiring.schedulers.TaskScheduler;
+import com.swirlds.common.wiring.schedulers.builders.RingBufferWaitStrategy;
 import com.swirlds.common.wiring.schedulers.builders.TaskSchedulerBuilder;
 import com.swirlds.common.wiring.schedulers.builders.TaskSchedulerConfiguration;
 import com.swirlds.common.wiring.schedulers.builders.TaskSchedulerType;
@@ -69,6 +70,7 @@ public abstract class AbstractTaskSchedulerBuilder<OUT> implements TaskScheduler
     protected boolean busyFractionMetricEnabled = false;
 
     protected Duration sleepDuration = Duration.ofNanos(100);
+    protected RingBufferWaitStrategy waitStrategy = RingBufferWaitStrategy.PARK;
 
     protected final PlatformContext platformContext;
 
@@ -213,6 +215,16 @@ public abstract class AbstractTaskSchedulerBuilder<OUT> implements TaskScheduler
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @NonNull
+    public AbstractTaskSchedulerBuilder<OUT> withWaitStrategy(@NonNull final RingBufferWaitStrategy waitStrategy) {
+        this.waitStrategy = Objects.requireNonNull(waitStrategy);
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      */
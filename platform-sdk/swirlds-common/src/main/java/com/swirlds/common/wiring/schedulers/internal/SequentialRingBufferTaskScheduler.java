@@ -0,0 +1,402 @@
+/*
+ * Copyright (C) 2023-2024 Hedera Hashgraph, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.swirlds.common.wiring.schedulers.internal;
+
+import com.swirlds.base.state.Startable;
+import com.swirlds.base.state.Stoppable;
+import com.swirlds.common.metrics.extensions.FractionalTimer;
+import com.swirlds.common.wiring.counters.ObjectCounter;
+import com.swirlds.common.wiring.model.TraceableWiringModel;
+import com.swirlds.common.wiring.schedulers.TaskScheduler;
+import com.swirlds.common.wiring.schedulers.builders.RingBufferWaitStrategy;
+import com.swirlds.common.wiring.schedulers.builders.TaskSchedulerType;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * A scheduler that performs work sequentially on a dedicated thread, like {@link SequentialThreadTaskScheduler}, but
+ * passes tasks to that thread through a preallocated lock free ring buffer instead of a linked blocking queue.
+ * Inserting a task doesn't allocate or take a lock, and the handler thread drains the ring buffer in batches.
+ * <p>
+ * Any number of threads may insert tasks. Each slot of the ring buffer has a sequence number: a thread inserting task
+ * {@code n} claims slot {@code n & mask} once its sequence is {@code n}, and publishes the task by setting the sequence
+ * to {@code n + 1}. The handler thread frees the slot for task {@code n + ringSize} after taking the task out of it.
+ * <p>
+ * The ring buffer is sized to hold at least twice the capacity of the scheduler. If it is full anyway (e.g. when tasks
+ * are injected past the capacity, or the capacity is unlimited), then tasks are added to an unbounded overflow queue
+ * instead, so inserting never blocks on the ring buffer (and the handler may insert into its own scheduler). While
+ * the overflow queue isn't empty all new tasks go there as well, and the handler only takes tasks out of it once the
+ * ring buffer is empty, so tasks are still handled in the order they were inserted.
+ *
+ * @param <OUT> the type of the primary output wire
+ */
+public class SequentialRingBufferTaskScheduler<OUT> extends TaskScheduler<OUT> implements Startable, Stoppable {
+
+    /**
+     * The size of the ring buffer if the capacity of the scheduler is unlimited.
+     */
+    static final int UNLIMITED_CAPACITY_RING_SIZE = 1 << 16;
+
+    /**
+     * The smallest ring buffer size.
+     */
+    static final int MINIMUM_RING_SIZE = 1024;
+
+    /**
+     * The largest ring buffer size, the capacity doesn't increase the ring buffer size beyond this.
+     */
+    static final int MAXIMUM_RING_SIZE = 1 << 24;
+
+    /**
+     * The maximum number of tasks handled between two checks of the {@link #alive} flag.
+     */
+    private static final int BATCH_SIZE = 1024;
+
+    private final UncaughtExceptionHandler uncaughtExceptionHandler;
+    private final ObjectCounter onRamp;
+    private final ObjectCounter offRamp;
+    private final FractionalTimer busyTimer;
+    private final RingBufferWaitStrategy waitStrategy;
+    private final long capacity;
+
+    private final int ringSize;
+    private final int mask;
+    private final Consumer<Object>[] handlers;
+    private final Object[] data;
+
+    /**
+     * The sequence number of each slot of the ring buffer. A slot with sequence {@code n} is free for task {@code n},
+     * and a slot with sequence {@code n + 1} holds task {@code n}.
+     */
+    private final AtomicLongArray sequences;
+
+    /**
+     * The sequence number of the next task to be inserted.
+     */
+    private final AtomicLong nextInsertSequence = new AtomicLong();
+
+    /**
+     * The sequence number of the next task to be handled. Only used by the handler thread.
+     */
+    private long nextHandleSequence;
+
+    /**
+     * Tasks that didn't fit into the ring buffer.
+     */
+    private final Queue<SequentialThreadTask> overflow = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The number of tasks in {@link #overflow}. Incremented after a task is added, and decremented after a task is
+     * removed, so the handler thread always finds a task in the queue if this is positive.
+     */
+    private final AtomicLong overflowCount = new AtomicLong();
+
+    /**
+     * True while the handler thread is parked, or about to park, waiting for tasks.
+     */
+    private volatile boolean handlerParked;
+
+    private final AtomicBoolean alive = new AtomicBoolean(true);
+
+    private final Thread thread;
+
+    /**
+     * Constructor.
+     *
+     * @param model                    the wiring model containing this task scheduler
+     * @param name                     the name of the task scheduler
+     * @param uncaughtExceptionHandler the handler to call when an exception is thrown by a task
+     * @param onRamp                   the counter to increment when a task is added to the queue
+     * @param offRamp                  the counter to decrement when a task is removed from the queue
+     * @param busyTimer                the timer to activate when a task is being handled
+     * @param waitStrategy             how the handler thread waits when there are no tasks
+     * @param capacity                 the maximum desired capacity for this task scheduler
+     * @param flushEnabled             if true, then {@link #flush()} will be enabled, otherwise it will throw.
+     * @param squelchingEnabled        if true, then squelching will be enabled, otherwise trying to squelch will throw
+     * @param insertionIsBlocking      when data is inserted into this task scheduler, will it block until capacity is
+     *                                 available?
+     */
+    @SuppressWarnings("unchecked")
+    public SequentialRingBufferTaskScheduler(
+            @NonNull final TraceableWiringModel model,
+            @NonNull final String name,
+            @NonNull final UncaughtExceptionHandler uncaughtExceptionHandler,
+            @NonNull final ObjectCounter onRamp,
+            @NonNull final ObjectCounter offRamp,
+            @NonNull final FractionalTimer busyTimer,
+            @NonNull final RingBufferWaitStrategy waitStrategy,
+            final long capacity,
+            final boolean flushEnabled,
+            final boolean squelchingEnabled,
+            final boolean insertionIsBlocking) {
+        super(
+                model,
+                name,
+                TaskSchedulerType.SEQUENTIAL_RING_BUFFER,
+                flushEnabled,
+                squelchingEnabled,
+                insertionIsBlocking);
+
+        this.uncaughtExceptionHandler = Objects.requireNonNull(uncaughtExceptionHandler);
+        this.onRamp = Objects.requireNonNull(onRamp);
+        this.offRamp = Objects.requireNonNull(offRamp);
+        this.busyTimer = Objects.requireNonNull(busyTimer);
+        this.waitStrategy = Objects.requireNonNull(waitStrategy);
+        this.capacity = capacity;
+
+        ringSize = ringSizeForCapacity(capacity);
+        mask = ringSize - 1;
+        handlers = (Consumer<Object>[]) new Consumer[ringSize];
+        data = new Object[ringSize];
+        sequences = new AtomicLongArray(ringSize);
+        for (int i = 0; i < ringSize; i++) {
+            sequences.set(i, i);
+        }
+
+        thread = new Thread(this::run, "<scheduler " + name + ">");
+    }
+
+    /**
+     * Get the size of the ring buffer for a scheduler with the given capacity: a power of two at least twice the
+     * capacity, within {@link #MINIMUM_RING_SIZE} and {@link #MAXIMUM_RING_SIZE}.
+     *
+     * @param capacity the capacity of the scheduler, or a negative value if unlimited
+     * @return the ring buffer size
+     */
+    static int ringSizeForCapacity(final long capacity) {
+        if (capacity < 0) {
+            return UNLIMITED_CAPACITY_RING_SIZE;
+        }
+        if (capacity >= MAXIMUM_RING_SIZE / 2) {
+            return MAXIMUM_RING_SIZE;
+        }
+        return Math.max(MINIMUM_RING_SIZE, Integer.highestOneBit((int) (2 * capacity - 1)) << 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getUnprocessedTaskCount() {
+        return onRamp.getCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void flush() {
+        throwIfFlushDisabled();
+        onRamp.waitUntilEmpty();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void put(@NonNull final Consumer<Object> handler, @NonNull final Object data) {
+        onRamp.onRamp();
+        insert(handler, data);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean offer(@NonNull final Consumer<Object> handler, @NonNull final Object data) {
+        final boolean accepted = onRamp.attemptOnRamp();
+        if (!accepted) {
+            return false;
+        }
+
+        insert(handler, data);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void inject(@NonNull final Consumer<Object> handler, @NonNull final Object data) {
+        onRamp.forceOnRamp();
+        insert(handler, data);
+    }
+
+    /**
+     * Insert a task into the ring buffer, or into the overflow queue if the ring buffer is full or the overflow queue
+     * isn't empty.
+     *
+     * @param handler the handler of the task
+     * @param data    the data to pass to the handler
+     */
+    private void insert(@NonNull final Consumer<Object> handler, @NonNull final Object data) {
+        if (overflowCount.get() > 0 || !tryInsertIntoRing(handler, data)) {
+            overflow.add(new SequentialThreadTask(handler, data));
+            overflowCount.incrementAndGet();
+        }
+        // Both paths end with a volatile write, so it can't be reordered with this read of handlerParked
+        if (handlerParked) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Claim the next slot of the ring buffer and publish a task in it.
+     *
+     * @param handler the handler of the task
+     * @param data    the data to pass to the handler
+     * @return true if the task was inserted, false if the ring buffer is full
+     */
+    private boolean tryInsertIntoRing(@NonNull final Consumer<Object> handler, @NonNull final Object data) {
+        long sequence = nextInsertSequence.get();
+        while (true) {
+            final int index = (int) sequence & mask;
+            final long slotSequence = sequences.get(index);
+            if (slotSequence == sequence) {
+                if (nextInsertSequence.compareAndSet(sequence, sequence + 1)) {
+                    handlers[index] = handler;
+                    this.data[index] = data;
+                    sequences.set(index, sequence + 1);
+                    return true;
+                }
+            } else if (slotSequence < sequence) {
+                // The slot still holds a task from the previous lap, the ring buffer is full
+                return false;
+            }
+            sequence = nextInsertSequence.get();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void stop() {
+        alive.set(false);
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Take work out of the ring buffer and handle it.
+     */
+    private void run() {
+        while (alive.get()) {
+            if (handleBatch() == 0) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                waitForTasks();
+            }
+        }
+    }
+
+    /**
+     * Handle at most {@link #BATCH_SIZE} tasks, from the ring buffer if it isn't empty, otherwise from the overflow
+     * queue.
+     *
+     * @return the number of tasks handled
+     */
+    private int handleBatch() {
+        int handled = 0;
+        while (handled < BATCH_SIZE) {
+            final Consumer<Object> handler;
+            final Object task;
+            if (hasTaskInRing()) {
+                final int index = (int) nextHandleSequence & mask;
+                handler = handlers[index];
+                task = data[index];
+                handlers[index] = null;
+                data[index] = null;
+                // Free the slot before handling the task, so the handler may insert into this scheduler
+                sequences.lazySet(index, nextHandleSequence + ringSize);
+                nextHandleSequence++;
+            } else if (overflowCount.get() > 0) {
+                final SequentialThreadTask overflowTask = overflow.remove();
+                overflowCount.decrementAndGet();
+                handler = overflowTask.handler();
+                task = overflowTask.data();
+            } else {
+                break;
+            }
+
+            if (handled == 0) {
+                busyTimer.activate();
+            }
+            handled++;
+            try {
+                handler.accept(task);
+            } catch (final Throwable t) {
+                uncaughtExceptionHandler.uncaughtException(thread, t);
+            } finally {
+                offRamp.offRamp();
+            }
+        }
+        if (handled > 0) {
+            busyTimer.deactivate();
+        }
+        return handled;
+    }
+
+    /**
+     * Check if the next task in the ring buffer has been published.
+     */
+    private boolean hasTaskInRing() {
+        return sequences.get((int) nextHandleSequence & mask) == nextHandleSequence + 1;
+    }
+
+    /**
+     * Wait for tasks to be inserted while there are none. May return before any task is inserted.
+     */
+    private void waitForTasks() {
+        switch (waitStrategy) {
+            case SPIN -> Thread.onSpinWait();
+            case YIELD -> Thread.yield();
+            case PARK -> {
+                handlerParked = true;
+                // Check again after setting the flag, a task inserted before that would not unpark this thread
+                if (!hasTaskInRing() && overflowCount.get() == 0 && alive.get()) {
+                    LockSupport.park(this);
+                }
+                handlerParked = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2024 Hedera Hashgraph, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.swirlds.common.crypto.engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.swirlds.common.crypto.DigestType;
+import com.swirlds.common.crypto.Hash;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class Sha384BatchDigestTest {
+
+    /**
+     * Every message length around block boundaries must give the same digest as JCA.
+     */
+    @Test
+    void allLengths() throws NoSuchAlgorithmException {
+        final MessageDigest md = MessageDigest.getInstance("SHA-384");
+        final Random random = new Random(42);
+        for (int length = 0; length < 300; length++) {
+            final byte[] message = new byte[length];
+            random.nextBytes(message);
+            assertArrayEquals(
+                    md.digest(message),
+                    Sha384BatchDigest.digest(new byte[][] {message})[0],
+                    "Wrong digest for length " + length);
+        }
+    }
+
+    /**
+     * Batches of messages of mixed lengths are split into groups with the same number of blocks. Digests
+     * must be returned in the original message order.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4, 17, 256})
+    void mixedLengthBatches(final int batchSize) throws NoSuchAlgorithmException {
+        final MessageDigest md = MessageDigest.getInstance("SHA-384");
+        final Random random = new Random(batchSize);
+        for (int iteration = 0; iteration < 20; iteration++) {
+            final byte[][] messages = new byte[batchSize][];
+            for (int i = 0; i < batchSize; i++) {
+                messages[i] = new byte[random.nextInt(500)];
+                random.nextBytes(messages[i]);
+            }
+            final byte[][] digests = Sha384BatchDigest.digest(messages);
+            assertEquals(batchSize, digests.length, "Wrong number of digests");
+            for (int i = 0; i < batchSize; i++) {
+                assertArrayEquals(md.digest(messages[i]), digests[i], "Wrong digest for message " + i);
+            }
+        }
+    }
+
+    @Test
+    void engineBatchesMatchSingleDigests() {
+        final CryptoEngine engine = new CryptoEngine();
+        final CryptoEngine multiLaneEngine = new CryptoEngine(true);
+        final byte[][] messages = new byte[64][108];
+        final Random random = new Random(7);
+        for (final byte[] message : messages) {
+            random.nextBytes(message);
+        }
+        final Hash[] hashes = engine.digestBatchSync(messages, DigestType.SHA_384);
+        final Hash[] multiLaneHashes = multiLaneEngine.digestBatchSync(messages, DigestType.SHA_384);
+        for (int i = 0; i < messages.length; i++) {
+            final Hash expected = engine.digestSync(messages[i], DigestType.SHA_384);
+            assertEquals(expected, hashes[i], "Wrong batch hash for message " + i);
+            assertEquals(expected, multiLaneHashes[i], "Wrong multi-lane hash for message " + i);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2024 Hedera Hashgraph, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.swirlds.common.merkle.synchronization.streams;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.swirlds.common.io.streams.MerkleDataInputStream;
+import com.swirlds.common.io.streams.MerkleDataOutputStream;
+import com.swirlds.common.merkle.synchronization.config.ReconnectConfig;
+import com.swirlds.common.merkle.synchronization.config.ReconnectConfig_;
+import com.swirlds.config.extensions.test.fixtures.TestConfigBuilder;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class CompressedFrameStreamsTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 7, 1024, 65536})
+    void roundTrip(final int frameSize) throws IOException {
+        final Random random = new Random(frameSize);
+        // Half compressible, half random data
+        final byte[] data = new byte[100_000];
+        for (int i = 0; i < data.length / 2; i++) {
+            data[i] = (byte) (i % 10);
+        }
+        final byte[] noise = new byte[data.length / 2];
+        random.nextBytes(noise);
+        System.arraycopy(noise, 0, data, data.length / 2, noise.length);
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final CompressedFrameOutputStream out = new CompressedFrameOutputStream(bytes, frameSize)) {
+            int off = 0;
+            while (off < data.length) {
+                final int len = Math.min(random.nextInt(5000), data.length - off);
+                if (len == 0) {
+                    out.write(data[off++]);
+                } else {
+                    out.write(data, off, len);
+                    off += len;
+                }
+                if (random.nextInt(10) == 0) {
+                    out.flush();
+                }
+            }
+        }
+
+        final byte[] read = new byte[data.length];
+        try (final DataInputStream in =
+                new DataInputStream(new CompressedFrameInputStream(new ByteArrayInputStream(bytes.toByteArray())))) {
+            in.readFully(read);
+            assertEquals(-1, in.read(), "All data should be read");
+        }
+        assertArrayEquals(data, read, "Data should not change");
+    }
+
+    @Test
+    void doesNotReadPastLastFrame() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream raw = new DataOutputStream(bytes);
+        final DataOutputStream compressed = new DataOutputStream(new CompressedFrameOutputStream(raw, 1024));
+        for (int i = 0; i < 1000; i++) {
+            compressed.writeInt(i);
+        }
+        compressed.flush();
+        raw.writeLong(42);
+        raw.flush();
+
+        final ByteArrayInputStream source = new ByteArrayInputStream(bytes.toByteArray());
+        final DataInputStream in = new DataInputStream(new CompressedFrameInputStream(source));
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, in.readInt(), "Wrong value");
+        }
+        assertEquals(42, new DataInputStream(source).readLong(), "Underlying stream should be positioned after frames");
+        assertTrue(bytes.size() < 1000 * Integer.BYTES, "Data should be compressed");
+    }
+
+    @Test
+    void invalidFrames() {
+        assertThrows(
+                IllegalArgumentException.class, () -> new CompressedFrameOutputStream(new ByteArrayOutputStream(), 0));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new CompressedFrameOutputStream(
+                        new ByteArrayOutputStream(), CompressedFrameOutputStream.MAX_FRAME_SIZE + 1));
+
+        final byte[] tooLarge = new byte[] {0x7F, 0, 0, 0, 0, 0, 0, 0};
+        assertThrows(
+                IOException.class,
+                () -> new CompressedFrameInputStream(new ByteArrayInputStream(tooLarge)).read(),
+                "Frames larger than the max frame size should be rejected");
+        final byte[] corrupted = new byte[] {0, 0, 0, 8, 0, 0, 0, 4, 1, 2, 3, 4};
+        assertThrows(
+                IOException.class,
+                () -> new CompressedFrameInputStream(new ByteArrayInputStream(corrupted)).read(),
+                "Corrupted frames should be rejected");
+    }
+
+    @Test
+    void negotiation() throws IOException {
+        final ReconnectConfig disabled = new TestConfigBuilder()
+                .withValue(ReconnectConfig_.STREAM_COMPRESSION, "false")
+                .getOrCreateConfig()
+                .getConfigData(ReconnectConfig.class);
+        final ByteArrayOutputStream disabledBytes = new ByteArrayOutputStream();
+        assertFalse(CompressedStreams.negotiate(
+                new MerkleDataInputStream(new ByteArrayInputStream(new byte[0])),
+                new MerkleDataOutputStream(disabledBytes),
+                disabled));
+        assertEquals(0, disabledBytes.size(), "Nothing should be exchanged if compression is disabled");
+
+        final ReconnectConfig enabled = new TestConfigBuilder()
+                .withValue(ReconnectConfig_.STREAM_COMPRESSION, "true")
+                .getOrCreateConfig()
+                .getConfigData(ReconnectConfig.class);
+        final ByteArrayOutputStream enabledBytes = new ByteArrayOutputStream();
+        assertTrue(CompressedStreams.negotiate(
+                new MerkleDataInputStream(new ByteArrayInputStream(new byte[] {1})),
+                new MerkleDataOutputStream(enabledBytes),
+                enabled));
+        assertArrayEquals(new byte[] {1}, enabledBytes.toByteArray(), "The compression flag should be sent");
+    }
+}
@@ -1001,14 +1001,29 @@ public final class MerkleTestUtils {
     /**
      * Synchronize two trees and verify that the end result is the expected result.
      */
-    @SuppressWarnings("unchecked")
     public static <T extends MerkleNode> T testSynchronization(
             final MerkleNode startingTree,
             final MerkleNode desiredTree,
             final int latencyMilliseconds,
             final ReconnectConfig reconnectConfig)
             throws Exception {
-        try (PairedStreams streams = new PairedStreams()) {
+        return testSynchronization(
+                startingTree, desiredTree, latencyMilliseconds, reconnectConfig, new PairedStreams());
+    }
+
+    /**
+     * Synchronize two trees over the given streams and verify that the end result is the expected result. The
+     * streams are closed, when synchronization is complete.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends MerkleNode> T testSynchronization(
+            final MerkleNode startingTree,
+            final MerkleNode desiredTree,
+            final int latencyMilliseconds,
+            final ReconnectConfig reconnectConfig,
+            final PairedStreams streams)
+            throws Exception {
+        try (streams) {
 
             final LearningSynchronizer learner;
             final TeachingSynchronizer teacher;
@@ -1241,6 +1256,18 @@ public final class MerkleTestUtils {
     public static <T extends MerkleNode> T hashAndTestSynchronization(
             final MerkleNode startingTree, final MerkleNode desiredTree, final ReconnectConfig reconnectConfig)
             throws Exception {
+        return hashAndTestSynchronization(startingTree, desiredTree, 0, reconnectConfig);
+    }
+
+    /**
+     * Hash two trees, synchronize them with simulated latency, and verify that the end result is the expected result.
+     */
+    public static <T extends MerkleNode> T hashAndTestSynchronization(
+            final MerkleNode startingTree,
+            final MerkleNode desiredTree,
+            final int latencyMilliseconds,
+            final ReconnectConfig reconnectConfig)
+            throws Exception {
         System.out.println("------------");
         System.out.println("starting: " + startingTree);
         System.out.println("desired: " + desiredTree);
@@ -1251,7 +1278,25 @@ public final class MerkleTestUtils {
         if (desiredTree != null && desiredTree.getHash() == null) {
             MerkleCryptoFactory.getInstance().digestTreeSync(desiredTree);
         }
-        return testSynchronization(startingTree, desiredTree, 0, reconnectConfig);
+        return testSynchronization(startingTree, desiredTree, latencyMilliseconds, reconnectConfig);
+    }
+
+    /**
+     * Hash two trees, synchronize them over the given streams, and verify that the end result is the expected result.
+     */
+    public static <T extends MerkleNode> T hashAndTestSynchronization(
+            final MerkleNode startingTree,
+            final MerkleNode desiredTree,
+            final ReconnectConfig reconnectConfig,
+            final PairedStreams streams)
+            throws Exception {
+        if (startingTree != null && startingTree.getHash() == null) {
+            MerkleCryptoFactory.getInstance().digestTreeSync(startingTree);
+        }
+        if (desiredTree != null && desiredTree.getHash() == null) {
+            MerkleCryptoFactory.getInstance().digestTreeSync(desiredTree);
+        }
+        return testSynchronization(startingTree, desiredTree, 0, reconnectConfig, streams);
     }
 
     /**
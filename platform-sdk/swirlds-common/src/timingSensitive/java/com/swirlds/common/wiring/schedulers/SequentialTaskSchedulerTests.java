@@ -25,6 +25,7 @@ import static com.swirlds.common.utility.NonCryptographicHashing.hash32;
 import static com.swirlds.common.wiring.schedulers.builders.TaskSchedulerBuilder.UNLIMITED_CAPACITY;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -39,11 +40,13 @@ import com.swirlds.common.wiring.counters.BackpressureObjectCounter;
 import com.swirlds.common.wiring.counters.ObjectCounter;
 import com.swirlds.common.wiring.model.WiringModel;
 import com.swirlds.common.wiring.model.WiringModelBuilder;
+import com.swirlds.common.wiring.schedulers.builders.RingBufferWaitStrategy;
 import com.swirlds.common.wiring.schedulers.builders.TaskSchedulerType;
 import com.swirlds.common.wiring.wires.SolderType;
 import com.swirlds.common.wiring.wires.input.BindableInputWire;
 import com.swirlds.common.wiring.wires.output.StandardOutputWire;
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Random;
 import java.util.Set;
@@ -56,6 +59,7 @@ import java.util.function.Consumer;
 import java.util.function.Function;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.junit.jupiter.params.provider.ValueSource;
 
 class SequentialTaskSchedulerTests {
@@ -87,7 +91,7 @@ class SequentialTaskSchedulerTests {
      * Add values to the task scheduler, ensure that each value was processed in the correct order.
      */
     @ParameterizedTest
-    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD"})
+    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD", "SEQUENTIAL_RING_BUFFER"})
     void orderOfOperationsTest(final String typeString) {
         final WiringModel model = TestWiringModelBuilder.create();
 
@@ -128,7 +132,7 @@ class SequentialTaskSchedulerTests {
      * (which will fail the test).
      */
     @ParameterizedTest
-    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD"})
+    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD", "SEQUENTIAL_RING_BUFFER"})
     void orderOfOperationsWithDelayTest(final String typeString) {
         final WiringModel model = TestWiringModelBuilder.create();
         final TaskSchedulerType type = TaskSchedulerType.valueOf(typeString);
@@ -172,7 +176,7 @@ class SequentialTaskSchedulerTests {
      * sequentially regardless of the number of threads adding work.
      */
     @ParameterizedTest
-    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD"})
+    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD", "SEQUENTIAL_RING_BUFFER"})
     void multipleChannelsTest(final String typeString) {
         final WiringModel model = TestWiringModelBuilder.create();
         final TaskSchedulerType type = TaskSchedulerType.valueOf(typeString);
@@ -241,7 +245,7 @@ class SequentialTaskSchedulerTests {
      * not effect the outcome.
      */
     @ParameterizedTest
-    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD"})
+    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD", "SEQUENTIAL_RING_BUFFER"})
     void multipleChannelsWithDelayTest(final String typeString) {
         final WiringModel model = TestWiringModelBuilder.create();
         final TaskSchedulerType type = TaskSchedulerType.valueOf(typeString);
@@ -318,7 +322,7 @@ class SequentialTaskSchedulerTests {
      * Ensure that the work happening on the task scheduler is not happening on the caller's thread.
      */
     @ParameterizedTest
-    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD"})
+    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD", "SEQUENTIAL_RING_BUFFER"})
     void wireDoesNotBlockCallingThreadTest(final String typeString) throws InterruptedException {
         final WiringModel model = TestWiringModelBuilder.create();
         final TaskSchedulerType type = TaskSchedulerType.valueOf(typeString);
@@ -373,7 +377,7 @@ class SequentialTaskSchedulerTests {
      * Sanity checks on the unprocessed event count.
      */
     @ParameterizedTest
-    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD"})
+    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD", "SEQUENTIAL_RING_BUFFER"})
     void unprocessedEventCountTest(final String typeString) {
         final WiringModel model = TestWiringModelBuilder.create();
         final TaskSchedulerType type = TaskSchedulerType.valueOf(typeString);
@@ -456,7 +460,7 @@ class SequentialTaskSchedulerTests {
      * Make sure backpressure works.
      */
     @ParameterizedTest
-    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD"})
+    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD", "SEQUENTIAL_RING_BUFFER"})
     void backpressureTest(final String typeString) throws InterruptedException {
 
         final PlatformContext platformContext =
@@ -562,7 +566,7 @@ class SequentialTaskSchedulerTests {
      * Test interrupts with accept() when backpressure is being applied.
      */
     @ParameterizedTest
-    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD"})
+    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD", "SEQUENTIAL_RING_BUFFER"})
     void uninterruptableTest(final String typeString) throws InterruptedException {
         final PlatformContext platformContext =
                 TestPlatformContextBuilder.create().build();
@@ -654,7 +658,7 @@ class SequentialTaskSchedulerTests {
      * Offering tasks is equivalent to calling accept() if there is no backpressure.
      */
     @ParameterizedTest
-    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD"})
+    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD", "SEQUENTIAL_RING_BUFFER"})
     void offerNoBackpressureTest(final String typeString) {
         final WiringModel model = TestWiringModelBuilder.create();
         final TaskSchedulerType type = TaskSchedulerType.valueOf(typeString);
@@ -699,7 +703,7 @@ class SequentialTaskSchedulerTests {
      * </pre>
      */
     @ParameterizedTest
-    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD"})
+    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD", "SEQUENTIAL_RING_BUFFER"})
     void circularDataFlowTest(final String typeString) throws InterruptedException {
         final WiringModel model = TestWiringModelBuilder.create();
         final TaskSchedulerType type = TaskSchedulerType.valueOf(typeString);
@@ -827,7 +831,7 @@ class SequentialTaskSchedulerTests {
      * Validate the behavior when there are multiple channels.
      */
     @ParameterizedTest
-    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD"})
+    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD", "SEQUENTIAL_RING_BUFFER"})
     void multipleChannelTypesTest(final String typeString) {
         final WiringModel model = TestWiringModelBuilder.create();
         final TaskSchedulerType type = TaskSchedulerType.valueOf(typeString);
@@ -879,7 +883,7 @@ class SequentialTaskSchedulerTests {
      * Make sure backpressure works when there are multiple channels.
      */
     @ParameterizedTest
-    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD"})
+    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD", "SEQUENTIAL_RING_BUFFER"})
     void multipleChannelBackpressureTest(final String typeString) throws InterruptedException {
         final PlatformContext platformContext =
                 TestPlatformContextBuilder.create().build();
@@ -987,7 +991,7 @@ class SequentialTaskSchedulerTests {
      * Make sure backpressure works when a single counter spans multiple wires.
      */
     @ParameterizedTest
-    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD"})
+    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD", "SEQUENTIAL_RING_BUFFER"})
     void backpressureOverMultipleWiresTest(final String typeString) throws InterruptedException {
         final WiringModel model = TestWiringModelBuilder.create();
         final TaskSchedulerType type = TaskSchedulerType.valueOf(typeString);
@@ -1110,7 +1114,7 @@ class SequentialTaskSchedulerTests {
      * Validate the behavior of the flush() method.
      */
     @ParameterizedTest
-    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD"})
+    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD", "SEQUENTIAL_RING_BUFFER"})
     void flushTest(final String typeString) throws InterruptedException {
         final PlatformContext platformContext =
                 TestPlatformContextBuilder.create().build();
@@ -1223,7 +1227,7 @@ class SequentialTaskSchedulerTests {
     }
 
     @ParameterizedTest
-    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD"})
+    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD", "SEQUENTIAL_RING_BUFFER"})
     void flushDisabledTest(final String typeString) {
         final WiringModel model = TestWiringModelBuilder.create();
         final TaskSchedulerType type = TaskSchedulerType.valueOf(typeString);
@@ -1242,7 +1246,7 @@ class SequentialTaskSchedulerTests {
     }
 
     @ParameterizedTest
-    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD"})
+    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD", "SEQUENTIAL_RING_BUFFER"})
     void exceptionHandlingTest(final String typeString) {
         final WiringModel model = TestWiringModelBuilder.create();
         final TaskSchedulerType type = TaskSchedulerType.valueOf(typeString);
@@ -1289,7 +1293,7 @@ class SequentialTaskSchedulerTests {
      * than the number of blocking wires.
      */
     @ParameterizedTest
-    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD"})
+    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD", "SEQUENTIAL_RING_BUFFER"})
     void deadlockTestOneThread(final String typeString) throws InterruptedException {
         final WiringModel model = TestWiringModelBuilder.create();
         final TaskSchedulerType type = TaskSchedulerType.valueOf(typeString);
@@ -1363,7 +1367,7 @@ class SequentialTaskSchedulerTests {
     }
 
     @ParameterizedTest
-    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD"})
+    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD", "SEQUENTIAL_RING_BUFFER"})
     void deadlockTestThreeThreads(final String typeString) throws InterruptedException {
         final WiringModel model = TestWiringModelBuilder.create();
         final TaskSchedulerType type = TaskSchedulerType.valueOf(typeString);
@@ -1440,7 +1444,7 @@ class SequentialTaskSchedulerTests {
      * Solder together a simple sequence of wires.
      */
     @ParameterizedTest
-    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD"})
+    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD", "SEQUENTIAL_RING_BUFFER"})
     void simpleSolderingTest(final String typeString) {
         final WiringModel model = TestWiringModelBuilder.create();
         final TaskSchedulerType type = TaskSchedulerType.valueOf(typeString);
@@ -1509,7 +1513,7 @@ class SequentialTaskSchedulerTests {
      * Test soldering to a lambda function.
      */
     @ParameterizedTest
-    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD"})
+    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD", "SEQUENTIAL_RING_BUFFER"})
     void lambdaSolderingTest(final String typeString) {
         final WiringModel model = TestWiringModelBuilder.create();
         final TaskSchedulerType type = TaskSchedulerType.valueOf(typeString);
@@ -1584,7 +1588,7 @@ class SequentialTaskSchedulerTests {
      * Solder the output of a wire to the inputs of multiple other wires.
      */
     @ParameterizedTest
-    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD"})
+    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD", "SEQUENTIAL_RING_BUFFER"})
     void multiWireSolderingTest(final String typeString) {
         final WiringModel model = TestWiringModelBuilder.create();
         final TaskSchedulerType type = TaskSchedulerType.valueOf(typeString);
@@ -1697,7 +1701,7 @@ class SequentialTaskSchedulerTests {
      * Validate that a wire soldered to another using injection ignores backpressure constraints.
      */
     @ParameterizedTest
-    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD"})
+    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD", "SEQUENTIAL_RING_BUFFER"})
     void injectionSolderingTest(final String typeString) throws InterruptedException {
         final PlatformContext platformContext =
                 TestPlatformContextBuilder.create().build();
@@ -1826,7 +1830,7 @@ class SequentialTaskSchedulerTests {
      * When a handler returns null, the wire should not forward the null value to the next wire.
      */
     @ParameterizedTest
-    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD"})
+    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD", "SEQUENTIAL_RING_BUFFER"})
     void discardNullValuesInWiresTest(final String typeString) {
         final WiringModel model = TestWiringModelBuilder.create();
         final TaskSchedulerType type = TaskSchedulerType.valueOf(typeString);
@@ -1923,7 +1927,7 @@ class SequentialTaskSchedulerTests {
      * now the metrics framework makes it complex to do so.
      */
     @ParameterizedTest
-    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD"})
+    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD", "SEQUENTIAL_RING_BUFFER"})
     void metricsEnabledTest(final String typeString) {
         final WiringModel model = TestWiringModelBuilder.create();
         final TaskSchedulerType type = TaskSchedulerType.valueOf(typeString);
@@ -2005,7 +2009,7 @@ class SequentialTaskSchedulerTests {
     }
 
     @ParameterizedTest
-    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD"})
+    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD", "SEQUENTIAL_RING_BUFFER"})
     void multipleOutputChannelsTest(final String typeString) {
         final WiringModel model = TestWiringModelBuilder.create();
         final TaskSchedulerType type = TaskSchedulerType.valueOf(typeString);
@@ -2069,7 +2073,7 @@ class SequentialTaskSchedulerTests {
     }
 
     @ParameterizedTest
-    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD"})
+    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD", "SEQUENTIAL_RING_BUFFER"})
     void externalBackPressureTest(final String typeString) throws InterruptedException {
         final WiringModel model = TestWiringModelBuilder.create();
         final TaskSchedulerType type = TaskSchedulerType.valueOf(typeString);
@@ -2193,7 +2197,7 @@ class SequentialTaskSchedulerTests {
     }
 
     @ParameterizedTest
-    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD"})
+    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD", "SEQUENTIAL_RING_BUFFER"})
     void multipleCountersInternalBackpressureTest(final String typeString) throws InterruptedException {
         final PlatformContext platformContext =
                 TestPlatformContextBuilder.create().build();
@@ -2321,7 +2325,7 @@ class SequentialTaskSchedulerTests {
     }
 
     @ParameterizedTest
-    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD"})
+    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD", "SEQUENTIAL_RING_BUFFER"})
     void offerSolderingTest(final String typeString) {
         final PlatformContext platformContext =
                 TestPlatformContextBuilder.create().build();
@@ -2424,7 +2428,7 @@ class SequentialTaskSchedulerTests {
     }
 
     @ParameterizedTest
-    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD"})
+    @ValueSource(strings = {"SEQUENTIAL", "SEQUENTIAL_THREAD", "SEQUENTIAL_RING_BUFFER"})
     void squelching(final String typeString) {
         final WiringModel model = TestWiringModelBuilder.create();
         final TaskSchedulerType type = TaskSchedulerType.valueOf(typeString);
@@ -2496,4 +2500,110 @@ class SequentialTaskSchedulerTests {
 
         model.stop();
     }
+
+    /**
+     * Inject more tasks than fit in the ring buffer from several threads at the same time, with each wait strategy.
+     * All tasks should be handled, and tasks from each thread should be handled in the order they were injected.
+     */
+    @ParameterizedTest
+    @EnumSource(RingBufferWaitStrategy.class)
+    void ringBufferWaitStrategyTest(final RingBufferWaitStrategy waitStrategy) throws InterruptedException {
+        final WiringModel model = TestWiringModelBuilder.create();
+
+        final int workerCount = 4;
+        final int operationsPerWorker = 10_000;
+
+        // Only read and written on the handler thread
+        final int[] lastValues = new int[workerCount];
+        Arrays.fill(lastValues, -1);
+        final AtomicBoolean outOfOrder = new AtomicBoolean(false);
+        final AtomicInteger handleCount = new AtomicInteger();
+        final Consumer<Integer> handler = x -> {
+            final int workerNumber = x % workerCount;
+            if (x / workerCount != lastValues[workerNumber] + 1) {
+                outOfOrder.set(true);
+            }
+            lastValues[workerNumber] = x / workerCount;
+            handleCount.incrementAndGet();
+        };
+
+        final TaskScheduler<Void> taskScheduler = model.schedulerBuilder("test")
+                .withType(TaskSchedulerType.SEQUENTIAL_RING_BUFFER)
+                .withWaitStrategy(waitStrategy)
+                .withUnhandledTaskCapacity(10)
+                .build()
+                .cast();
+        final BindableInputWire<Integer, Void> channel = taskScheduler.buildInputWire("channel");
+        channel.bindConsumer(handler);
+
+        model.start();
+
+        // Injected tasks ignore the capacity, so the ring buffer fills up and tasks spill into the overflow queue
+        final CountDownLatch workersDone = new CountDownLatch(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            final int workerNumber = i;
+            new ThreadConfiguration(getStaticThreadManager())
+                    .setRunnable(() -> {
+                        for (int j = 0; j < operationsPerWorker; j++) {
+                            channel.inject(j * workerCount + workerNumber);
+                        }
+                        workersDone.countDown();
+                    })
+                    .build(true);
+        }
+
+        assertTrue(workersDone.await(10, SECONDS), "Workers should be able to insert all tasks");
+        assertEventuallyEquals(
+                workerCount * operationsPerWorker,
+                handleCount::get,
+                Duration.ofSeconds(10),
+                "All tasks should be handled");
+        assertFalse(outOfOrder.get(), "Tasks from each worker should be handled in order");
+
+        model.stop();
+    }
+
+    /**
+     * The handler of a ring buffer scheduler injects more tasks into its own scheduler than fit into the ring buffer.
+     * This must not deadlock, and all tasks should be handled in the order they were injected.
+     */
+    @Test
+    void ringBufferHandlerInjectsIntoFullRingTest() {
+        final WiringModel model = TestWiringModelBuilder.create();
+
+        final int taskCount = 10_000;
+
+        final AtomicInteger lastValue = new AtomicInteger(-1);
+        final AtomicBoolean outOfOrder = new AtomicBoolean(false);
+
+        final TaskScheduler<Void> taskScheduler = model.schedulerBuilder("test")
+                .withType(TaskSchedulerType.SEQUENTIAL_RING_BUFFER)
+                .withUnhandledTaskCapacity(10)
+                .build()
+                .cast();
+        final BindableInputWire<Integer, Void> channel = taskScheduler.buildInputWire("channel");
+        channel.bindConsumer(x -> {
+            if (x < 0) {
+                // The ring buffer holds far fewer tasks than this, so most of them go to the overflow queue
+                for (int i = 0; i < taskCount; i++) {
+                    channel.inject(i);
+                }
+                return;
+            }
+            if (x != lastValue.get() + 1) {
+                outOfOrder.set(true);
+            }
+            lastValue.set(x);
+        });
+
+        model.start();
+
+        channel.put(-1);
+
+        assertEventuallyEquals(
+                taskCount - 1, lastValue::get, Duration.ofSeconds(10), "All injected tasks should be handled");
+        assertFalse(outOfOrder.get(), "Tasks should be handled in the order they were injected");
+
+        model.stop();
+    }
 }
@@ -243,6 +243,33 @@ public class MerkleSynchronizationTests {
      * </pre>
      * </p>
      */
+    @Test
+    @Tag(TestComponentTags.MERKLE)
+    @DisplayName("Synchronization with compressed streams")
+    void compressedStreams() throws Exception {
+        final ReconnectConfig compressedConfig = new TestConfigBuilder()
+                .withValue("reconnect.asyncStreamTimeout", "5s")
+                .withValue("reconnect.maxAckDelay", "1000ms")
+                .withValue("reconnect.streamCompression", "true")
+                // Small frames, so lessons are split across multiple frames
+                .withValue("reconnect.streamFrameSize", "256")
+                .getOrCreateConfig()
+                .getConfigData(ReconnectConfig.class);
+
+        final MerkleNode startingTree = MerkleTestUtils.generateRandomBalancedTree(1, 5, 2, 20, 0);
+        final MerkleNode desiredTree = MerkleTestUtils.generateRandomBalancedTree(2, 5, 2, 20, 0);
+        startingTree.reserve();
+        desiredTree.reserve();
+
+        final MerkleNode result =
+                MerkleTestUtils.hashAndTestSynchronization(startingTree, desiredTree, compressedConfig);
+        if (result != startingTree) {
+            result.release();
+        }
+        startingTree.release();
+        desiredTree.release();
+    }
+
     @Test
     @Tag(TestComponentTags.MERKLE)
     @DisplayName("Verify result is a tree")
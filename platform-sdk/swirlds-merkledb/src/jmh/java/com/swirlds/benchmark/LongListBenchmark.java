@@ -17,11 +17,15 @@
 package com.swirlds.benchmark;
 
 import com.swirlds.merkledb.collections.LongList;
+import com.swirlds.merkledb.collections.LongListDisk;
 import com.swirlds.merkledb.collections.LongListHeap;
 import com.swirlds.merkledb.collections.LongListOffHeap;
+import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.lang.management.MemoryPoolMXBean;
 import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
@@ -37,6 +41,7 @@ import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Warmup;
 
 @State(Scope.Thread)
@@ -51,16 +56,27 @@ public class LongListBenchmark {
     private int randomIndex;
     private LongList list;
     private int nextIndex = INITIAL_DATA_SIZE;
+    private int sequentialIndex = 0;
 
-    @Param({"LongListHeap", "LongListOffHeap"})
+    @Param({"LongListHeap", "LongListOffHeap", "LongListDisk", "LongListDiskCached"})
     public String listImpl;
 
+    /** Page cache size for LongListDiskCached, in bytes */
+    @Param({"16777216"})
+    public long pageCacheSize;
+
+    /** Read ahead pages for LongListDiskCached */
+    @Param({"16"})
+    public int readAheadPages;
+
     @Setup(Level.Trial)
-    public void setup() {
+    public void setup() throws IOException {
         random = new Random(1234);
         list = switch (listImpl) {
             default -> new LongListHeap();
-            case "LongListOffHeap" -> new LongListOffHeap();};
+            case "LongListOffHeap" -> new LongListOffHeap();
+            case "LongListDisk" -> new LongListDisk(newListFile(), 0, 0);
+            case "LongListDiskCached" -> new LongListDisk(newListFile(), pageCacheSize, readAheadPages);};
         // fill with some data
         for (int i = 0; i < INITIAL_DATA_SIZE; i++) {
             list.put(i, i + 1);
@@ -70,6 +86,16 @@ public class LongListBenchmark {
         printMemoryUsage();
     }
 
+    private static Path newListFile() throws IOException {
+        final Path dir = Files.createTempDirectory("LongListBenchmark");
+        return dir.resolve("list.ll");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        list.close();
+    }
+
     @Setup(Level.Invocation)
     public void randomIndex() {
         randomIndex = random.nextInt(INITIAL_DATA_SIZE - 1) + 1;
@@ -117,6 +143,24 @@ public class LongListBenchmark {
         });
     }
 
+    @Benchmark
+    public void c_sequentialRead10k() {
+        for (int i = 0; i < 10_000; i++) {
+            list.get(sequentialIndex, -1);
+            sequentialIndex = (sequentialIndex + 1) % INITIAL_DATA_SIZE;
+        }
+    }
+
+    @Benchmark
+    public void c_multiThreadedSequentialRead10k() {
+        IntStream.range(0, 5).parallel().forEach(jobID -> {
+            final int start = ThreadLocalRandom.current().nextInt(INITIAL_DATA_SIZE - 2000);
+            for (int i = start; i < start + 2000; i++) {
+                list.get(i, -1);
+            }
+        });
+    }
+
     public void printMemoryUsage() {
         for (final MemoryPoolMXBean mpBean : ManagementFactory.getMemoryPoolMXBeans()) {
             if (mpBean.getType() == MemoryType.HEAP) {
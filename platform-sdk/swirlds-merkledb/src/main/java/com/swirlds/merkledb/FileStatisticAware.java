@@ -28,4 +28,80 @@ public interface FileStatisticAware {
      * @return statistics for sizes of all fully written files, in bytes
      */
     LongSummaryStatistics getFilesSizeStatistics();
+
+    /**
+     * Get the total size of the files it uses, which are currently memory mapped.
+     *
+     * @return mapped files size, in bytes
+     */
+    default long getMappedFilesSize() {
+        return 0;
+    }
+
+    /**
+     * Get the number of data items read from memory mapped files, since the files were opened.
+     *
+     * @return mapped reads count
+     */
+    default long getMappedReadsCount() {
+        return 0;
+    }
+
+    /**
+     * Get the total time spent reading data items from memory mapped files, since the files were opened.
+     *
+     * @return mapped reads time, in nanoseconds
+     */
+    default long getMappedReadsTimeNanos() {
+        return 0;
+    }
+
+    /**
+     * Get the number of data items read from compressed files, since the files were opened.
+     *
+     * @return compressed reads count
+     */
+    default long getCompressedReadsCount() {
+        return 0;
+    }
+
+    /**
+     * Get the total time spent reading and decompressing data items from compressed files, since the files were
+     * opened.
+     *
+     * @return compressed reads time, in nanoseconds
+     */
+    default long getCompressedReadsTimeNanos() {
+        return 0;
+    }
+
+    /**
+     * Get the total size of data item blocks written to compressed files before compression, since the files were
+     * opened.
+     *
+     * @return uncompressed bytes written
+     */
+    default long getUncompressedBytesWritten() {
+        return 0;
+    }
+
+    /**
+     * Get the total size of data item blocks written to compressed files after compression, since the files were
+     * opened.
+     *
+     * @return compressed bytes written
+     */
+    default long getCompressedBytesWritten() {
+        return 0;
+    }
+
+    /**
+     * Get the estimated size of data items in the files it uses, which are no longer referenced, by compaction level.
+     *
+     * @param maxCompactionLevel max compaction level
+     * @return reclaimable size in bytes, indexed by compaction level
+     */
+    default long[] getReclaimableSizeByLevel(final int maxCompactionLevel) {
+        return new long[maxCompactionLevel + 1];
+    }
 }
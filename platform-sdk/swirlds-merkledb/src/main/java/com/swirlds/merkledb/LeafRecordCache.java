@@ -0,0 +1,441 @@
+/*
+ * Copyright (C) 2024 Hedera Hashgraph, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.swirlds.merkledb;
+
+import static com.swirlds.virtualmap.datasource.VirtualDataSource.INVALID_PATH;
+
+import com.hedera.pbj.runtime.io.buffer.Bytes;
+import com.swirlds.virtualmap.datasource.VirtualLeafBytes;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent, bounded cache of virtual leaf records used by {@link MerkleDbDataSource}. The
+ * cache is bounded both by the number of records and by their total size in bytes.
+ *
+ * <p>Records are cached by leaf keys. Some records contain just a key and a path, but no value.
+ * Such records are used to cache key to path lookups, the path may be {@code INVALID_PATH} for
+ * keys known not to exist in the data source. Records with values are also indexed by their
+ * paths, so the cache can serve path to leaf lookups, too. Both views are updated together, when
+ * a record is put to the cache, replaced, invalidated, or evicted.
+ *
+ * <p>Eviction follows the CLOCK algorithm. Cached records are stored in a fixed array of slots,
+ * and every cached record has a "referenced" flag, which is set on every cache hit. A clock hand
+ * walks over the slots, clears the flags that are set, and takes the first empty slot for a new
+ * record. When the cache is full, the first record with the flag not set is evicted instead. A new
+ * record is only admitted to a full cache, if its key is accessed more often than the key of the
+ * record to evict, similar to TinyLFU admission policy. Access frequencies are tracked
+ * approximately in a small count-min sketch.
+ *
+ * <p>Cache lookups are lock free. Cache updates are lock free, too: records are added to, replaced
+ * in, and removed from slots using compare-and-set, and the thread, which removes a record from its
+ * slot, also removes it from both views. A record is added to the views after it takes a slot, and
+ * is removed from the views again, if it loses the slot in the meantime.
+ */
+final class LeafRecordCache {
+
+    /**
+     * Approximate memory overhead per cached record, in bytes: the record object, cache node, and
+     * hash map entries in both views
+     */
+    private static final int RECORD_OVERHEAD_BYTES = 160;
+
+    /** Max total size of records in the cache, in bytes */
+    private final long maxBytes;
+
+    /** Key to record view */
+    private final ConcurrentHashMap<Bytes, Node> nodesByKey;
+
+    /** Path to record view. Only records with values are indexed by path */
+    private final ConcurrentHashMap<Long, Node> nodesByPath;
+
+    /** Access frequencies of cached and recently requested keys */
+    private final FrequencySketch sketch;
+
+    /**
+     * Cached nodes. The number of slots is the max number of records in the cache, unless records
+     * of the min size would exceed the max total size of the cache before the slots are all taken
+     */
+    private final AtomicReferenceArray<Node> slots;
+
+    /** Clock hand, the next slot to check for a new node or for eviction */
+    private final AtomicInteger clockHand = new AtomicInteger(0);
+
+    /** Number of records in the cache */
+    private final AtomicInteger recordCount = new AtomicInteger(0);
+
+    /** Total size of records in the cache, in bytes */
+    private final AtomicLong sizeInBytes = new AtomicLong(0);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a new leaf record cache.
+     *
+     * @param maxRecords max number of records in the cache
+     * @param maxBytes max total size of records in the cache, in bytes
+     */
+    LeafRecordCache(final int maxRecords, final long maxBytes) {
+        if ((maxRecords <= 0) || (maxBytes <= 0)) {
+            throw new IllegalArgumentException("Leaf record cache size must be positive");
+        }
+        this.maxBytes = maxBytes;
+        nodesByKey = new ConcurrentHashMap<>();
+        nodesByPath = new ConcurrentHashMap<>();
+        // Records are usually small, so the byte limit may be a stricter bound than the count limit
+        final long expectedRecords = Math.min(maxRecords, maxBytes / RECORD_OVERHEAD_BYTES);
+        slots = new AtomicReferenceArray<>((int) Math.max(expectedRecords, 1));
+        sketch = new FrequencySketch(slots.length());
+    }
+
+    /**
+     * Returns a cached record for the given key, or null if not found. The record may contain no
+     * value, but only a path, which may be INVALID_PATH for keys known not to exist.
+     *
+     * @param keyBytes virtual key
+     * @param keyHashCode virtual key hash code
+     * @return the cached record, or null
+     */
+    @Nullable
+    VirtualLeafBytes get(@NonNull final Bytes keyBytes, final int keyHashCode) {
+        sketch.increment(keyHashCode);
+        final Node node = nodesByKey.get(keyBytes);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        node.referenced = true;
+        hits.increment();
+        return node.record;
+    }
+
+    /**
+     * Returns a cached record with a value for the given path, or null if not found.
+     *
+     * @param path virtual leaf path
+     * @return the cached record, or null
+     */
+    @Nullable
+    VirtualLeafBytes get(final long path) {
+        final Node node = nodesByPath.get(path);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        sketch.increment(node.keyHashCode);
+        node.referenced = true;
+        hits.increment();
+        return node.record;
+    }
+
+    /**
+     * Puts the given record to the cache. If the cache already has a record for the same key, it's
+     * replaced. Otherwise, if the cache is full, the record may be rejected by admission policy.
+     * Key hash code is passed explicitly, since records loaded from disk don't have it set.
+     *
+     * @param keyHashCode virtual key hash code
+     * @param record the record to cache
+     */
+    void put(final int keyHashCode, @NonNull final VirtualLeafBytes record) {
+        final long recordSize = RECORD_OVERHEAD_BYTES + record.getSizeInBytes();
+        if (recordSize > maxBytes) {
+            return;
+        }
+        final Node node = new Node(record, keyHashCode, recordSize);
+        final Node existing = nodesByKey.get(record.keyBytes());
+        final boolean replaced = (existing != null) && replace(existing, node);
+        if (!replaced && !takeSlot(node)) {
+            // Rejected by admission policy
+            return;
+        }
+        link(node);
+        while (sizeInBytes.get() > maxBytes) {
+            evictAtClockHand();
+        }
+    }
+
+    /**
+     * Removes a record for the given key from the cache, if present.
+     *
+     * @param keyBytes virtual key
+     */
+    void invalidate(@NonNull final Bytes keyBytes) {
+        final Node node = nodesByKey.remove(keyBytes);
+        if (node != null) {
+            remove(node);
+        }
+    }
+
+    /** Number of records in the cache. */
+    int getRecordCount() {
+        return recordCount.get();
+    }
+
+    /** Total size of records in the cache, in bytes. */
+    long getSizeInBytes() {
+        return sizeInBytes.get();
+    }
+
+    /** Number of cache hits since the cache was created. */
+    long getHits() {
+        return hits.sum();
+    }
+
+    /** Number of cache misses since the cache was created. */
+    long getMisses() {
+        return misses.sum();
+    }
+
+    /** Number of records evicted from the cache since it was created. */
+    long getEvictions() {
+        return evictions.sum();
+    }
+
+    // =================================================================================================================
+    // Private methods
+
+    private boolean hasRoomFor(final long recordSize) {
+        return (recordCount.get() < slots.length()) && (sizeInBytes.get() + recordSize <= maxBytes);
+    }
+
+    /** Moves the clock hand to the next slot and returns the slot the hand was at. */
+    private int advanceClockHand() {
+        final int slotCount = slots.length();
+        return clockHand.getAndUpdate(hand -> (hand + 1 == slotCount) ? 0 : hand + 1);
+    }
+
+    /**
+     * Puts the given node to the slot of the given existing node, if the existing node is still
+     * cached. Replacing a record doesn't change the number of records in the cache, so admission
+     * policy isn't checked.
+     *
+     * @return true if the existing node is replaced, false if it's no longer cached
+     */
+    private boolean replace(final Node existing, final Node node) {
+        node.slot = existing.slot;
+        if (!slots.compareAndSet(existing.slot, existing, node)) {
+            return false;
+        }
+        sizeInBytes.addAndGet(node.size - existing.size);
+        if (existing.hasPath()) {
+            nodesByPath.remove(existing.record.path(), existing);
+        }
+        return true;
+    }
+
+    /**
+     * Puts the given node to the first empty slot at or after the clock hand. Referenced flags of
+     * all nodes on the way are cleared. If the cache is full, the first node with the flag not set
+     * is evicted, unless the new node is rejected by admission policy.
+     *
+     * @return true if the node takes a slot, false if it's rejected
+     */
+    private boolean takeSlot(final Node node) {
+        while (true) {
+            final int slot = advanceClockHand();
+            final Node current = slots.get(slot);
+            if (current != null) {
+                if (current.referenced) {
+                    current.referenced = false;
+                    continue;
+                }
+                if (hasRoomFor(node.size)) {
+                    // Look for an empty slot instead
+                    continue;
+                }
+                if (sketch.frequency(node.keyHashCode) <= sketch.frequency(current.keyHashCode)) {
+                    // The victim is accessed at least as often as the new record, keep it
+                    return false;
+                }
+                if (remove(current)) {
+                    evictions.increment();
+                }
+            }
+            node.slot = slot;
+            if (slots.compareAndSet(slot, null, node)) {
+                recordCount.incrementAndGet();
+                sizeInBytes.addAndGet(node.size);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Moves the clock hand to the next slot. The node at the slot the hand was at is evicted, if
+     * it wasn't referenced since the last check, otherwise its referenced flag is cleared.
+     */
+    private void evictAtClockHand() {
+        final Node current = slots.get(advanceClockHand());
+        if (current == null) {
+            return;
+        }
+        if (current.referenced) {
+            current.referenced = false;
+        } else if (remove(current)) {
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Adds a node, which has just taken a slot, to the key and path views. If another node for the
+     * same key is cached, it's removed. If the node loses its slot before it's added to the views,
+     * it's removed from the views again.
+     */
+    private void link(final Node node) {
+        final VirtualLeafBytes record = node.record;
+        final Node previous = nodesByKey.put(record.keyBytes(), node);
+        if ((previous != null) && (previous != node)) {
+            remove(previous);
+        }
+        if (node.hasPath()) {
+            nodesByPath.put(record.path(), node);
+        }
+        if (slots.get(node.slot) != node) {
+            // Evicted or replaced in parallel, possibly before it was added to the views
+            unlinkViews(node);
+        }
+    }
+
+    /**
+     * Removes the given node from its slot and from both views, if the node still takes the slot.
+     *
+     * @return true if the node is removed, false if it's already removed or replaced
+     */
+    private boolean remove(final Node node) {
+        // Counters are decremented before the slot is released, so they never exceed the actual
+        // number and size of records, when the slot is taken by a new node in parallel
+        recordCount.decrementAndGet();
+        sizeInBytes.addAndGet(-node.size);
+        if (!slots.compareAndSet(node.slot, node, null)) {
+            recordCount.incrementAndGet();
+            sizeInBytes.addAndGet(node.size);
+            return false;
+        }
+        unlinkViews(node);
+        return true;
+    }
+
+    private void unlinkViews(final Node node) {
+        final VirtualLeafBytes record = node.record;
+        nodesByKey.remove(record.keyBytes(), node);
+        if (node.hasPath()) {
+            // Another record may already be cached for this path, only remove this one
+            nodesByPath.remove(record.path(), node);
+        }
+    }
+
+    /** A cached record with its clock state */
+    private static final class Node {
+
+        final VirtualLeafBytes record;
+        final int keyHashCode;
+        final long size;
+
+        /** Set on every cache hit, cleared by the clock hand */
+        volatile boolean referenced = false;
+
+        /** The slot this node takes. Set before the node is put to the slot */
+        int slot = -1;
+
+        Node(final VirtualLeafBytes record, final int keyHashCode, final long size) {
+            this.record = record;
+            this.keyHashCode = keyHashCode;
+            this.size = size;
+        }
+
+        boolean hasPath() {
+            return (record.valueBytes() != null) && (record.path() != INVALID_PATH);
+        }
+    }
+
+    /**
+     * Count-min sketch with four 4-bit counters per key. All counters are halved periodically, so
+     * the sketch reflects recent access frequencies. Counters are updated atomically, so concurrent
+     * increments are never lost and never overflow into neighbour counters.
+     */
+    private static final class FrequencySketch {
+
+        private static final int[] SEEDS = {0x97CB3127, 0xB9F2D2E5, 0x6B1F57AB, 0xC2B2AE35};
+
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private final AtomicLongArray table;
+
+        private final int tableMask;
+
+        /** Number of increments, after which all counters are halved */
+        private final int sampleSize;
+
+        private final AtomicInteger additions = new AtomicInteger(0);
+
+        FrequencySketch(final int maxRecords) {
+            // 16 counters per long, about 4 counters per cached record
+            final int tableSize = Integer.highestOneBit(Math.max(maxRecords / 4, 16) - 1) << 1;
+            table = new AtomicLongArray(tableSize);
+            tableMask = tableSize - 1;
+            sampleSize = maxRecords <= Integer.MAX_VALUE / 10 ? maxRecords * 10 : Integer.MAX_VALUE;
+        }
+
+        int frequency(final int hash) {
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < SEEDS.length; i++) {
+                final int h = rehash(hash, i);
+                final int shift = (h >>> 28) << 2;
+                frequency = Math.min(frequency, (int) ((table.get(h & tableMask) >>> shift) & 0xF));
+            }
+            return frequency;
+        }
+
+        void increment(final int hash) {
+            for (int i = 0; i < SEEDS.length; i++) {
+                final int h = rehash(hash, i);
+                final int index = h & tableMask;
+                final int shift = (h >>> 28) << 2;
+                long value = table.get(index);
+                // counters saturate at 0xF, the increment is only applied if the counter is still below that
+                while (((value >>> shift) & 0xF) < 0xF) {
+                    final long witness = table.compareAndExchange(index, value, value + (1L << shift));
+                    if (witness == value) {
+                        break;
+                    }
+                    value = witness;
+                }
+            }
+            final int count = additions.incrementAndGet();
+            // if the reset races with other increments, one of the threads that reach the sample size resets
+            if ((count >= sampleSize) && additions.compareAndSet(count, 0)) {
+                for (int i = 0; i < table.length(); i++) {
+                    table.getAndUpdate(i, v -> (v >>> 1) & RESET_MASK);
+                }
+            }
+        }
+
+        private static int rehash(final int hash, final int i) {
+            int h = (hash + SEEDS[i]) * SEEDS[i];
+            h ^= h >>> 16;
+            return h;
+        }
+    }
+}
@@ -155,6 +155,13 @@ public final class MerkleDb {
      */
     private final Set<Integer> primaryTables = ConcurrentHashMap.newKeySet();
 
+    /**
+     * Whether this database instance is read-only. Read-only instances are opened from snapshots using
+     * {@link #openReadOnly(Path, Path)}. No tables can be created, copied, or snapshotted in such instances,
+     * and data sources opened in them reject writes and never run compactions.
+     */
+    private final boolean readOnly;
+
     private static final FieldDefinition FIELD_DBMETADATA_TABLEMETADATA =
             new FieldDefinition("tableMetadata", FieldType.MESSAGE, true, true, false, 11);
 
@@ -236,7 +243,12 @@ public final class MerkleDb {
      * @param storageDir A folder to store database files in
      */
     private MerkleDb(final Path storageDir, final MerkleDbConfig config) {
+        this(storageDir, config, false);
+    }
+
+    private MerkleDb(final Path storageDir, final MerkleDbConfig config, final boolean readOnly) {
         this.config = config;
+        this.readOnly = readOnly;
         if (storageDir == null) {
             throw new IllegalArgumentException("Cannot create a MerkleDatabase instance with null storageDir");
         }
@@ -258,7 +270,11 @@ public final class MerkleDb {
         if (!Files.exists(storageDir.resolve(METADATA_FILENAME))) {
             storeMetadata();
         }
-        logger.info(MERKLE_DB.getMarker(), "New MerkleDb instance is created, storageDir={}", storageDir);
+        logger.info(
+                MERKLE_DB.getMarker(),
+                "New MerkleDb instance is created, storageDir={}, readOnly={}",
+                storageDir,
+                readOnly);
     }
 
     /**
@@ -333,6 +349,21 @@ public final class MerkleDb {
         return config;
     }
 
+    /**
+     * Checks if this database instance is read-only.
+     *
+     * @return whether this database instance is read-only
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new IllegalStateException("MerkleDb instance is read-only, storageDir=" + storageDir);
+        }
+    }
+
     /**
      * Creates a new data source (table) in this database instance with the given name.
      *
@@ -349,6 +380,7 @@ public final class MerkleDb {
     public MerkleDbDataSource createDataSource(
             final String label, final MerkleDbTableConfig tableConfig, final boolean dbCompactionEnabled)
             throws IOException {
+        checkWritable();
         // This method should be synchronized, as between tableExists() and tableConfigs.set()
         // a new data source can be created in a parallel thread. However, the current assumption
         // is no threads are creating a data source with the same name at the same time. From
@@ -386,6 +418,7 @@ public final class MerkleDb {
      */
     public MerkleDbDataSource copyDataSource(final MerkleDbDataSource dataSource, final boolean makeCopyPrimary)
             throws IOException {
+        checkWritable();
         final String label = dataSource.getTableName();
         final int tableId = getNextTableId();
         importDataSource(dataSource, tableId, !makeCopyPrimary, makeCopyPrimary); // import to itself == copy
@@ -427,7 +460,8 @@ public final class MerkleDb {
      *
      * @param name Table name
      * @param dbCompactionEnabled Whether background compaction process needs to be enabled for this
-     *     data source. If the data source was previously opened, this flag is ignored
+     *     data source. If the data source was previously opened, or if this database instance is
+     *     read-only, this flag is ignored
      * @return The datasource
      */
     public MerkleDbDataSource getDataSource(final String name, final boolean dbCompactionEnabled) throws IOException {
@@ -448,7 +482,8 @@ public final class MerkleDb {
                 return ds;
             }
             try {
-                return new MerkleDbDataSource(this, tableName, tableId, tableConfig, dbCompactionEnabled);
+                return new MerkleDbDataSource(
+                        this, tableName, tableId, tableConfig, dbCompactionEnabled && !readOnly);
             } catch (final IOException z) {
                 rethrowIO.set(z);
                 return null;
@@ -484,6 +519,30 @@ public final class MerkleDb {
         storeMetadata();
     }
 
+    /**
+     * Returns the part of {@link MerkleDbConfig#hashesRamBudget()} available to the given data source. The budget
+     * is shared equally by all opened data sources in this database, which adjust their hashes RAM to disk
+     * thresholds to the budget. The given data source is counted, even if it's still being opened.
+     *
+     * @param dataSource the data source
+     * @return the hashes RAM budget of the data source, in bytes
+     */
+    long getHashesRamBudget(final MerkleDbDataSource dataSource) {
+        int adaptiveDataSources = 0;
+        boolean opened = false;
+        for (int i = 0; i < dataSources.length(); i++) {
+            final MerkleDbDataSource ds = dataSources.get(i);
+            if ((ds != null) && ds.isHashesThresholdAdaptive()) {
+                adaptiveDataSources++;
+                opened |= (ds == dataSource);
+            }
+        }
+        if (!opened) {
+            adaptiveDataSources++;
+        }
+        return config.hashesRamBudget() / adaptiveDataSources;
+    }
+
     /**
      * Returns table serialization config for the specified table ID.
      *
@@ -520,6 +579,7 @@ public final class MerkleDb {
                     dataSource.getDatabase().getStorageDir());
             throw new IllegalArgumentException("Cannot snapshot a data source from a different database");
         }
+        checkWritable();
         final String tableName = dataSource.getTableName();
         final boolean isPrimary = primaryTables.contains(dataSource.getTableId());
         if (!isPrimary) {
@@ -554,20 +614,7 @@ public final class MerkleDb {
         final Path defaultInstancePath = (target != null) ? target : getDefaultPath();
         if (!Files.exists(defaultInstancePath.resolve(METADATA_FILENAME))) {
             Files.createDirectories(defaultInstancePath);
-            // For all data files, it's enough to create hard-links from the source dir to the
-            // target dir. However, hard-linking the metadata file wouldn't work. The target
-            // MerkleDb instance is mutable, e.g. new tables can be created in it and stored
-            // in DB metadata. With hard links, changing target metadata would also change the
-            // source metadata, which is strictly prohibited as existing saved states must
-            // never be changed. So just copy the metadata file
-            assert Files.exists(source.resolve(METADATA_FILENAME));
-            Files.copy(source.resolve(METADATA_FILENAME), defaultInstancePath.resolve(METADATA_FILENAME));
-            final Path sharedDirPath = source.resolve(SHARED_DIRNAME);
-            // No shared data yet, so the folder may be empty or even may not exist
-            if (Files.exists(sharedDirPath)) {
-                hardLinkTree(sharedDirPath, defaultInstancePath.resolve(SHARED_DIRNAME));
-            }
-            hardLinkTree(source.resolve(TABLES_DIRNAME), defaultInstancePath.resolve(TABLES_DIRNAME));
+            linkSnapshot(source, defaultInstancePath);
         } else {
             // Check the target database:
             //   * if it has the same set of tables as in the source, restore is a no-op
@@ -576,6 +623,57 @@ public final class MerkleDb {
         return getInstance(defaultInstancePath);
     }
 
+    /**
+     * Opens a read-only database instance from a database snapshot in the specified folder. Data
+     * files and indices are hard-linked from the source folder to the target folder, the same way as
+     * in {@link #restore(Path, Path)}, so the live database the snapshot was taken from is not affected.
+     * Data sources opened in the returned instance use their own caches and file handles, they can
+     * be used for point lookups and range scans without interfering with the live node.
+     *
+     * <p>The target folder is a working copy owned by the returned instance. It must not exist or be
+     * empty, and it must not be used by any other database instance. When a data source in the read-only
+     * instance is closed, its files in the target folder are deleted. The source snapshot is never changed.
+     *
+     * @param source Source snapshot folder
+     * @param target Target folder
+     * @return Read-only database instance
+     * @throws IOException If an I/O error occurs
+     * @throws IllegalStateException If a database already exists in the target folder
+     */
+    public static MerkleDb openReadOnly(@NonNull final Path source, @NonNull final Path target) throws IOException {
+        Objects.requireNonNull(source);
+        Objects.requireNonNull(target);
+        if (instances.containsKey(target) || Files.exists(target.resolve(METADATA_FILENAME))) {
+            throw new IllegalStateException("Database already exists in the target folder: " + target);
+        }
+        Files.createDirectories(target);
+        linkSnapshot(source, target);
+        final MerkleDbConfig config = ConfigurationHolder.getConfigData(MerkleDbConfig.class);
+        return instances.compute(target, (p, db) -> {
+            if (db != null) {
+                throw new IllegalStateException("Database already exists in the target folder: " + target);
+            }
+            return new MerkleDb(p, config, true);
+        });
+    }
+
+    private static void linkSnapshot(final Path source, final Path target) throws IOException {
+        // For all data files, it's enough to create hard-links from the source dir to the
+        // target dir. However, hard-linking the metadata file wouldn't work. The target
+        // MerkleDb instance is mutable, e.g. new tables can be created in it and stored
+        // in DB metadata. With hard links, changing target metadata would also change the
+        // source metadata, which is strictly prohibited as existing saved states must
+        // never be changed. So just copy the metadata file
+        assert Files.exists(source.resolve(METADATA_FILENAME));
+        Files.copy(source.resolve(METADATA_FILENAME), target.resolve(METADATA_FILENAME));
+        final Path sharedDirPath = source.resolve(SHARED_DIRNAME);
+        // No shared data yet, so the folder may be empty or even may not exist
+        if (Files.exists(sharedDirPath)) {
+            hardLinkTree(sharedDirPath, target.resolve(SHARED_DIRNAME));
+        }
+        hardLinkTree(source.resolve(TABLES_DIRNAME), target.resolve(TABLES_DIRNAME));
+    }
+
     /**
      * Writes database metadata file to the specified dir. Only table configs from the given list of
      * tables are included.
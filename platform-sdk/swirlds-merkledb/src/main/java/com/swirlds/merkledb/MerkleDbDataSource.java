@@ -22,6 +22,7 @@ import static com.swirlds.logging.legacy.LogMarker.EXCEPTION;
 import static com.swirlds.logging.legacy.LogMarker.MERKLE_DB;
 import static com.swirlds.merkledb.KeyRange.INVALID_KEY_RANGE;
 import static com.swirlds.merkledb.MerkleDb.MERKLEDB_COMPONENT;
+import static com.swirlds.merkledb.utilities.HashTools.HASH_SIZE_BYTES;
 import static java.util.Objects.requireNonNull;
 
 import com.hedera.pbj.runtime.FieldDefinition;
@@ -32,6 +33,7 @@ import com.hedera.pbj.runtime.io.buffer.BufferedData;
 import com.hedera.pbj.runtime.io.buffer.Bytes;
 import com.hedera.pbj.runtime.io.stream.ReadableStreamingData;
 import com.hedera.pbj.runtime.io.stream.WritableStreamingData;
+import com.swirlds.base.function.CheckedConsumer;
 import com.swirlds.base.units.UnitConstants;
 import com.swirlds.base.utility.ToStringBuilder;
 import com.swirlds.common.crypto.Hash;
@@ -42,6 +44,9 @@ import com.swirlds.merkledb.collections.LongList;
 import com.swirlds.merkledb.collections.LongListDisk;
 import com.swirlds.merkledb.collections.LongListOffHeap;
 import com.swirlds.merkledb.collections.OffHeapUser;
+import com.swirlds.merkledb.config.MerkleDbConfig;
+import com.swirlds.merkledb.files.CompactionPolicy;
+import com.swirlds.merkledb.files.CompactionPolicyType;
 import com.swirlds.merkledb.files.DataFileCollection.LoadedDataCallback;
 import com.swirlds.merkledb.files.DataFileCompactor;
 import com.swirlds.merkledb.files.DataFileReader;
@@ -61,13 +66,18 @@ import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.LongAdder;
@@ -89,9 +99,25 @@ public final class MerkleDbDataSource implements VirtualDataSource {
     private static final FieldDefinition FIELD_DSMETADATA_MAXVALIDKEY =
             new FieldDefinition("maxValidKey", FieldType.UINT64, false, true, false, 2);
 
+    private static final FieldDefinition FIELD_DSMETADATA_HASHESRAMTODISKTHRESHOLD =
+            new FieldDefinition("hashesRamToDiskThreshold", FieldType.UINT64, false, true, false, 3);
+
+    /** Number of hashes to read from disk at once, when hashes are moved from disk to RAM */
+    private static final int HASHES_MIGRATION_BATCH_SIZE = 4096;
+
+    /** Number of leaf records to read from disk at once, when leaves are iterated by path */
+    private static final int LEAVES_SCAN_BATCH_SIZE = 4096;
+
     /** Virtual database instance that hosts this data source. */
     private final MerkleDb database;
 
+    /**
+     * Whether this data source is read-only. Read-only data sources are opened in read-only database
+     * instances, see {@link MerkleDb#openReadOnly(Path, Path)}. They never write any data or metadata
+     * and never run compactions.
+     */
+    private final boolean readOnly;
+
     /** Table name. Used as a subdir name in the database directory */
     private final String tableName;
 
@@ -128,6 +154,21 @@ public final class MerkleDbDataSource implements VirtualDataSource {
     /** True when hashesRamToDiskThreshold is less than Long.MAX_VALUE */
     private final boolean hasDiskStoreForHashes;
 
+    /**
+     * Paths below this threshold are stored in {@link #hashStoreRam}, other paths in {@link #hashStoreDisk}.
+     * Initially, it's the threshold from the table config, or the threshold loaded from the data source
+     * metadata. In adaptive mode (see {@link MerkleDbConfig#hashesRamBudget()}), the threshold follows the
+     * tree size and the RAM budget. Hashes are moved between the stores during flushes, when the threshold
+     * changes. This happens in fixed mode, too, if the loaded threshold differs from the table config.
+     */
+    private volatile long hashesRamToDiskThreshold;
+
+    /** Number of hashes read from {@link #hashStoreRam} */
+    private final LongAdder hashReadsRam = new LongAdder();
+
+    /** Number of hashes read from {@link #hashStoreDisk} */
+    private final LongAdder hashReadsDisk = new LongAdder();
+
     /** Mixed disk and off-heap memory store for key to path map */
     private final HalfDiskHashMap keyToPath;
 
@@ -138,25 +179,21 @@ public final class MerkleDbDataSource implements VirtualDataSource {
     private final MemoryIndexDiskKeyValueStore pathToKeyValue;
 
     /**
-     * Cache size for reading virtual leaf records. Initialized in data source creation time from
-     * MerkleDb settings. If the value is zero, leaf records cache isn't used.
-     */
-    private final int leafRecordCacheSize;
-
-    /**
-     * Virtual leaf records cache. It's a simple array indexed by leaf keys % cache size. Cache
-     * eviction is not needed, as array size is fixed and can be configured in MerkleDb settings.
-     * Index conflicts are resolved in a very straightforward way: whatever entry is read last, it's
-     * put to the cache.
+     * Virtual leaf records cache, bounded by the number of records and their total size. Both
+     * limits are configured in MerkleDb settings. If either limit is zero, the cache is null and
+     * isn't used.
      */
-    private final VirtualLeafBytes[] leafRecordCache;
+    private final LeafRecordCache leafRecordCache;
 
     /** Thread pool storing internal records */
     private final ExecutorService storeHashesExecutor;
 
-    /** Thread pool storing key-to-path mappings */
+    /** Thread pool storing virtual leaf nodes */
     private final ExecutorService storeLeavesExecutor;
 
+    /** Thread pool storing key-to-path mappings, used only if parallel flushes are enabled */
+    private final ExecutorService storeLeafKeysExecutor;
+
     /** Thread pool creating snapshots, it is unbounded in threads, but we use at most 7 */
     private final ExecutorService snapshotExecutor;
 
@@ -184,6 +221,7 @@ public final class MerkleDbDataSource implements VirtualDataSource {
             final boolean compactionEnabled)
             throws IOException {
         this.database = database;
+        this.readOnly = database.isReadOnly();
         this.tableName = tableName;
         this.tableId = tableId;
         this.tableConfig = tableConfig;
@@ -206,6 +244,14 @@ public final class MerkleDbDataSource implements VirtualDataSource {
                 .setExceptionHandler((t, ex) -> logger.error(
                         EXCEPTION.getMarker(), "[{}] Uncaught exception during storing leaves", tableName, ex))
                 .buildFactory());
+        // create thread pool storing virtual leaf keys
+        storeLeafKeysExecutor = Executors.newSingleThreadExecutor(new ThreadConfiguration(getStaticThreadManager())
+                .setComponent(MERKLEDB_COMPONENT)
+                .setThreadGroup(threadGroup)
+                .setThreadName("Store leaf keys")
+                .setExceptionHandler((t, ex) -> logger.error(
+                        EXCEPTION.getMarker(), "[{}] Uncaught exception during storing leaf keys", tableName, ex))
+                .buildFactory());
         // thread pool creating snapshots, it is unbounded in threads, but we use at most 7
         snapshotExecutor = Executors.newCachedThreadPool(new ThreadConfiguration(getStaticThreadManager())
                 .setComponent(MERKLEDB_COMPONENT)
@@ -217,6 +263,8 @@ public final class MerkleDbDataSource implements VirtualDataSource {
 
         final Path storageDir = database.getTableDir(tableName, tableId);
         dbPaths = new MerkleDbPaths(storageDir);
+        // may be overridden by the loaded metadata
+        hashesRamToDiskThreshold = tableConfig.getHashesRamToDiskThreshold();
 
         // check if we are loading an existing database or creating a new one
         if (Files.exists(storageDir)) {
@@ -234,12 +282,17 @@ public final class MerkleDbDataSource implements VirtualDataSource {
         } else {
             Files.createDirectories(storageDir);
         }
-        saveMetadata(dbPaths);
+        if (!readOnly) {
+            saveMetadata(dbPaths);
+        }
 
         // create path to disk location index
         final boolean forceIndexRebuilding = database.getConfig().indexRebuildingEnforced();
         if (tableConfig.isPreferDiskBasedIndices()) {
-            pathToDiskLocationInternalNodes = new LongListDisk(dbPaths.pathToDiskLocationInternalNodesFile);
+            pathToDiskLocationInternalNodes = new LongListDisk(
+                    dbPaths.pathToDiskLocationInternalNodesFile,
+                    database.getConfig().longListDiskPageCacheSize(),
+                    database.getConfig().longListDiskReadAheadPages());
         } else if (Files.exists(dbPaths.pathToDiskLocationInternalNodesFile) && !forceIndexRebuilding) {
             pathToDiskLocationInternalNodes = new LongListOffHeap(dbPaths.pathToDiskLocationInternalNodesFile);
         } else {
@@ -247,7 +300,10 @@ public final class MerkleDbDataSource implements VirtualDataSource {
         }
         // path to disk location index, leaf nodes
         if (tableConfig.isPreferDiskBasedIndices()) {
-            pathToDiskLocationLeafNodes = new LongListDisk(dbPaths.pathToDiskLocationLeafNodesFile);
+            pathToDiskLocationLeafNodes = new LongListDisk(
+                    dbPaths.pathToDiskLocationLeafNodesFile,
+                    database.getConfig().longListDiskPageCacheSize(),
+                    database.getConfig().longListDiskReadAheadPages());
         } else if (Files.exists(dbPaths.pathToDiskLocationLeafNodesFile) && !forceIndexRebuilding) {
             pathToDiskLocationLeafNodes = new LongListOffHeap(dbPaths.pathToDiskLocationLeafNodesFile);
         } else {
@@ -256,7 +312,7 @@ public final class MerkleDbDataSource implements VirtualDataSource {
         }
 
         // internal node hashes store, RAM
-        if (tableConfig.getHashesRamToDiskThreshold() > 0) {
+        if ((hashesRamToDiskThreshold > 0) || (targetHashesRamToDiskThreshold(0) > 0)) {
             if (Files.exists(dbPaths.hashStoreRamFile)) {
                 hashStoreRam = new HashListByteBuffer(dbPaths.hashStoreRamFile);
             } else {
@@ -271,10 +327,14 @@ public final class MerkleDbDataSource implements VirtualDataSource {
         final Runnable updateTotalStatsFunction = () -> {
             statisticsUpdater.updateStoreFileStats(this);
             statisticsUpdater.updateOffHeapStats(this);
+            statisticsUpdater.updateLeafCacheStats(this);
+            statisticsUpdater.updateLeafKeyFilterStats(this);
+            statisticsUpdater.updateHashesTierStats(this);
         };
 
         // internal node hashes store, on disk
-        hasDiskStoreForHashes = tableConfig.getHashesRamToDiskThreshold() < Long.MAX_VALUE;
+        hasDiskStoreForHashes = (hashesRamToDiskThreshold < Long.MAX_VALUE)
+                || (tableConfig.getHashesRamToDiskThreshold() < Long.MAX_VALUE);
         final DataFileCompactor hashStoreDiskFileCompactor;
         if (hasDiskStoreForHashes) {
             final boolean hashIndexEmpty = pathToDiskLocationInternalNodes.size() == 0;
@@ -303,6 +363,7 @@ public final class MerkleDbDataSource implements VirtualDataSource {
                     storeName,
                     hashStoreDisk.getFileCollection(),
                     pathToDiskLocationInternalNodes,
+                    tableCompactionPolicy(),
                     statisticsUpdater::setHashesStoreCompactionTimeMs,
                     statisticsUpdater::setHashesStoreCompactionSavedSpaceMb,
                     statisticsUpdater::setHashesStoreFileSizeByLevelMb,
@@ -327,6 +388,7 @@ public final class MerkleDbDataSource implements VirtualDataSource {
                 keyToPathStoreName,
                 keyToPath.getFileCollection(),
                 keyToPath.getBucketIndexToBucketLocation(),
+                tableCompactionPolicy(),
                 statisticsUpdater::setLeafKeysStoreCompactionTimeMs,
                 statisticsUpdater::setLeafKeysStoreCompactionSavedSpaceMb,
                 statisticsUpdater::setLeafKeysStoreFileSizeByLevelMb,
@@ -361,14 +423,18 @@ public final class MerkleDbDataSource implements VirtualDataSource {
                 pathToKeyValueStoreName,
                 pathToKeyValue.getFileCollection(),
                 pathToDiskLocationLeafNodes,
+                tableCompactionPolicy(),
                 statisticsUpdater::setLeavesStoreCompactionTimeMs,
                 statisticsUpdater::setLeavesStoreCompactionSavedSpaceMb,
                 statisticsUpdater::setLeavesStoreFileSizeByLevelMb,
                 updateTotalStatsFunction);
 
         // Leaf records cache
-        leafRecordCacheSize = database.getConfig().leafRecordCacheSize();
-        leafRecordCache = (leafRecordCacheSize > 0) ? new VirtualLeafBytes[leafRecordCacheSize] : null;
+        final int leafRecordCacheSize = database.getConfig().leafRecordCacheSize();
+        final long leafRecordCacheMaxBytes = database.getConfig().leafRecordCacheMaxBytes();
+        leafRecordCache = (leafRecordCacheSize > 0) && (leafRecordCacheMaxBytes > 0)
+                ? new LeafRecordCache(leafRecordCacheSize, leafRecordCacheMaxBytes)
+                : null;
 
         // Update count of open databases
         COUNT_OF_OPEN_DATABASES.increment();
@@ -379,7 +445,7 @@ public final class MerkleDbDataSource implements VirtualDataSource {
                 tableName,
                 storageDir,
                 tableConfig.getMaxNumberOfKeys(),
-                tableConfig.getHashesRamToDiskThreshold());
+                hashesRamToDiskThreshold);
 
         compactionCoordinator = new MerkleDbCompactionCoordinator(
                 tableName, keyToPathFileCompactor, hashStoreDiskFileCompactor, pathToKeyValueFileCompactor);
@@ -394,6 +460,10 @@ public final class MerkleDbDataSource implements VirtualDataSource {
      */
     @Override
     public void enableBackgroundCompaction() {
+        if (readOnly) {
+            logger.info(MERKLE_DB.getMarker(), "[{}] Compaction is never enabled in read-only data sources", tableName);
+            return;
+        }
         compactionCoordinator.enableBackgroundCompaction();
     }
 
@@ -488,6 +558,9 @@ public final class MerkleDbDataSource implements VirtualDataSource {
             @NonNull final Stream<VirtualLeafBytes> leafRecordsToDelete,
             final boolean isReconnectContext)
             throws IOException {
+        if (readOnly) {
+            throw new IllegalStateException("Cannot save records to a read-only data source: " + tableName);
+        }
         try {
             validLeafPathRange = new KeyRange(firstLeafPath, lastLeafPath);
             final CountDownLatch countDownLatch = new CountDownLatch(lastLeafPath > 0 ? 2 : 1);
@@ -548,6 +621,11 @@ public final class MerkleDbDataSource implements VirtualDataSource {
             statisticsUpdater.updateStoreFileStats(this);
             // update off-heap stats
             statisticsUpdater.updateOffHeapStats(this);
+            // update leaf record cache stats
+            statisticsUpdater.updateLeafCacheStats(this);
+            // update leaf key filter stats
+            statisticsUpdater.updateLeafKeyFilterStats(this);
+            statisticsUpdater.updateHashesTierStats(this);
         }
     }
 
@@ -564,18 +642,8 @@ public final class MerkleDbDataSource implements VirtualDataSource {
         requireNonNull(keyBytes);
 
         final long path;
-        VirtualLeafBytes cached = null;
-        int cacheIndex = -1;
-        if (leafRecordCache != null) {
-            cacheIndex = Math.abs(keyHashCode % leafRecordCacheSize);
-            // No synchronization is needed here. Java guarantees (JLS 17.7) that reference writes
-            // are atomic, so we will never get corrupted objects from the array. The object may
-            // be overwritten in the cache in a different thread in parallel, but it isn't a
-            // problem as cached entry key is checked below anyway
-            cached = leafRecordCache[cacheIndex];
-        }
-        // If an entry is found in the cache, and entry key is the one requested
-        if ((cached != null) && keyBytes.equals(cached.keyBytes())) {
+        VirtualLeafBytes cached = getCachedLeafRecord(keyBytes, keyHashCode);
+        if (cached != null) {
             // Some cache entries contain just key and path, but no value. If the value is there,
             // just return the cached entry. If not, at least make use of the path
             if (cached.valueBytes() != null) {
@@ -585,7 +653,6 @@ public final class MerkleDbDataSource implements VirtualDataSource {
             path = cached.path();
         } else {
             // Cache miss
-            cached = null;
             statisticsUpdater.countLeafKeyReads();
             path = keyToPath.get(keyBytes, keyHashCode, INVALID_PATH);
         }
@@ -593,8 +660,8 @@ public final class MerkleDbDataSource implements VirtualDataSource {
         // If the key didn't map to anything, we just return null
         if (path == INVALID_PATH) {
             // Cache the result if not already cached
-            if (leafRecordCache != null && cached == null) {
-                leafRecordCache[cacheIndex] = new VirtualLeafBytes(path, keyBytes, 0, null);
+            if (cached == null) {
+                putLeafRecordToCache(keyHashCode, new VirtualLeafBytes(path, keyBytes, 0, null));
             }
             return null;
         }
@@ -611,14 +678,98 @@ public final class MerkleDbDataSource implements VirtualDataSource {
         VirtualLeafBytes leafBytes = VirtualLeafBytes.parseFrom(pathToKeyValue.get(path));
         assert leafBytes != null && leafBytes.keyBytes().equals(keyBytes);
 
-        if (leafRecordCache != null) {
-            // No synchronization is needed here, see the comment above
-            leafRecordCache[cacheIndex] = leafBytes;
-        }
+        putLeafRecordToCache(keyHashCode, leafBytes);
 
         return leafBytes;
     }
 
+    /**
+     * Load leaf records for a batch of keys. Records found in the leaf record cache are returned
+     * right away. For the rest of the keys, paths are looked up in the key-to-path store, so every
+     * bucket is read from disk once, even if multiple keys belong to it. Then leaf records are
+     * loaded from the path-to-KV store. In both stores, disk reads are grouped by data file,
+     * sorted by file offsets, and run in parallel.
+     *
+     * @param keyBytes the keys to load leaf records for
+     * @param keyHashCodes the key hash codes, in the same order as the keys
+     * @return a list of loaded records in the same order as the keys, with nulls for the keys not found
+     * @throws IOException If there was a problem reading records from db
+     */
+    @NonNull
+    @Override
+    public List<VirtualLeafBytes> loadLeafRecords(
+            @NonNull final List<Bytes> keyBytes, @NonNull final int[] keyHashCodes) throws IOException {
+        requireNonNull(keyBytes);
+        requireNonNull(keyHashCodes);
+        if (keyBytes.size() != keyHashCodes.length) {
+            throw new IllegalArgumentException("Number of keys and key hash codes don't match");
+        }
+        final int count = keyBytes.size();
+        final VirtualLeafBytes[] leaves = new VirtualLeafBytes[count];
+        final long[] paths = new long[count];
+
+        // Check the cache first. Keys not found in the cache need a key-to-path lookup
+        final List<Bytes> keysToFind = new ArrayList<>();
+        final int[] keysToFindIndices = new int[count];
+        for (int i = 0; i < count; i++) {
+            final Bytes key = requireNonNull(keyBytes.get(i));
+            final VirtualLeafBytes cached = getCachedLeafRecord(key, keyHashCodes[i]);
+            if (cached == null) {
+                keysToFindIndices[keysToFind.size()] = i;
+                keysToFind.add(key);
+            } else if (cached.valueBytes() != null) {
+                leaves[i] = cached;
+                paths[i] = INVALID_PATH;
+            } else {
+                // Note that the path may be INVALID_PATH here, this is perfectly legal
+                paths[i] = cached.path();
+            }
+        }
+
+        if (!keysToFind.isEmpty()) {
+            final int[] hashCodesToFind = new int[keysToFind.size()];
+            for (int j = 0; j < hashCodesToFind.length; j++) {
+                hashCodesToFind[j] = keyHashCodes[keysToFindIndices[j]];
+                statisticsUpdater.countLeafKeyReads();
+            }
+            final long[] foundPaths = keyToPath.getAll(keysToFind, hashCodesToFind, INVALID_PATH);
+            for (int j = 0; j < foundPaths.length; j++) {
+                final int i = keysToFindIndices[j];
+                paths[i] = foundPaths[j];
+                if (foundPaths[j] == INVALID_PATH) {
+                    // Cache negative results
+                    putLeafRecordToCache(
+                            hashCodesToFind[j], new VirtualLeafBytes(INVALID_PATH, keysToFind.get(j), 0, null));
+                }
+            }
+        }
+
+        // Now load leaf records for all keys with known paths within the valid leaf path range
+        final KeyRange leafPathRange = validLeafPathRange;
+        final long[] pathsToLoad = new long[count];
+        final int[] pathsToLoadIndices = new int[count];
+        int pathsToLoadCount = 0;
+        for (int i = 0; i < count; i++) {
+            if ((leaves[i] == null) && (paths[i] != INVALID_PATH) && leafPathRange.withinRange(paths[i])) {
+                pathsToLoad[pathsToLoadCount] = paths[i];
+                pathsToLoadIndices[pathsToLoadCount] = i;
+                pathsToLoadCount++;
+                statisticsUpdater.countLeafReads();
+            }
+        }
+        if (pathsToLoadCount > 0) {
+            pathToKeyValue.getAll(Arrays.copyOf(pathsToLoad, pathsToLoadCount), (j, leafData) -> {
+                final int i = pathsToLoadIndices[j];
+                final VirtualLeafBytes leafBytes = VirtualLeafBytes.parseFrom(leafData);
+                assert leafBytes != null && leafBytes.keyBytes().equals(keyBytes.get(i));
+                leaves[i] = leafBytes;
+                putLeafRecordToCache(keyHashCodes[i], leafBytes);
+            });
+        }
+
+        return Arrays.asList(leaves);
+    }
+
     /**
      * Load a leaf record by path. This method returns {@code null}, if the path is outside the
      * valid path range.
@@ -637,10 +788,62 @@ public final class MerkleDbDataSource implements VirtualDataSource {
         if (!leafPathRange.withinRange(path)) {
             return null;
         }
+        // Records loaded by path aren't put to the cache, since their key hash codes are unknown,
+        // but records cached during key lookups can be used here
+        if (leafRecordCache != null) {
+            final VirtualLeafBytes cached = leafRecordCache.get(path);
+            if ((cached != null) && (cached.path() == path)) {
+                return cached;
+            }
+        }
         statisticsUpdater.countLeafReads();
         return VirtualLeafBytes.parseFrom(pathToKeyValue.get(path));
     }
 
+    /**
+     * Iterates over leaf records in the given path range, in path order. Paths outside the current
+     * leaf path range are skipped. Records are read from disk in batches, the leaf record cache is
+     * neither used nor updated, so large scans don't evict records used by regular lookups. This
+     * method is mostly intended for read-only data sources, see {@link MerkleDb#openReadOnly(Path, Path)}.
+     *
+     * @param fromPath the first path to iterate, inclusive
+     * @param toPath the last path to iterate, inclusive
+     * @param consumer the consumer to pass leaf records to
+     * @throws IOException If there was a problem reading records from db
+     */
+    public void forEachLeafRecord(
+            final long fromPath,
+            final long toPath,
+            @NonNull final CheckedConsumer<VirtualLeafBytes, IOException> consumer)
+            throws IOException {
+        requireNonNull(consumer);
+        final KeyRange leafPathRange = validLeafPathRange;
+        if (leafPathRange == INVALID_KEY_RANGE) {
+            return;
+        }
+        final long first = Math.max(fromPath, leafPathRange.getMinValidKey());
+        final long last = Math.min(toPath, leafPathRange.getMaxValidKey());
+        final long[] paths = new long[LEAVES_SCAN_BATCH_SIZE];
+        final VirtualLeafBytes[] records = new VirtualLeafBytes[LEAVES_SCAN_BATCH_SIZE];
+        for (long batchStart = first; batchStart <= last; batchStart += LEAVES_SCAN_BATCH_SIZE) {
+            final int count = (int) Math.min(LEAVES_SCAN_BATCH_SIZE, last - batchStart + 1);
+            for (int i = 0; i < count; i++) {
+                paths[i] = batchStart + i;
+            }
+            // the callback may be called from multiple threads, records are passed to the consumer
+            // in path order once the whole batch is read
+            pathToKeyValue.getAll(
+                    count == paths.length ? paths : Arrays.copyOf(paths, count),
+                    (i, leafData) -> records[i] = VirtualLeafBytes.parseFrom(leafData));
+            for (int i = 0; i < count; i++) {
+                if (records[i] != null) {
+                    consumer.accept(records[i]);
+                    records[i] = null;
+                }
+            }
+        }
+    }
+
     /**
      * Find the path of the given key.
      *
@@ -653,24 +856,17 @@ public final class MerkleDbDataSource implements VirtualDataSource {
         requireNonNull(keyBytes);
 
         // Check the cache first
-        int cacheIndex = -1;
-        if (leafRecordCache != null) {
-            cacheIndex = Math.abs(keyHashCode % leafRecordCacheSize);
-            // No synchronization is needed here. See the comment in loadLeafRecord(key) above
-            final VirtualLeafBytes cached = leafRecordCache[cacheIndex];
-            if (cached != null && keyBytes.equals(cached.keyBytes())) {
-                // Cached path may be a valid path or INVALID_PATH, both are legal here
-                return cached.path();
-            }
+        final VirtualLeafBytes cached = getCachedLeafRecord(keyBytes, keyHashCode);
+        if (cached != null) {
+            // Cached path may be a valid path or INVALID_PATH, both are legal here
+            return cached.path();
         }
 
         statisticsUpdater.countLeafKeyReads();
         final long path = keyToPath.get(keyBytes, keyHashCode, INVALID_PATH);
 
-        if (leafRecordCache != null) {
-            // Path may be INVALID_PATH here. Still needs to be cached (negative result)
-            leafRecordCache[cacheIndex] = new VirtualLeafBytes(path, keyBytes, keyHashCode, null);
-        }
+        // Path may be INVALID_PATH here. Still needs to be cached (negative result)
+        putLeafRecordToCache(keyHashCode, new VirtualLeafBytes(path, keyBytes, keyHashCode, null));
 
         return path;
     }
@@ -695,18 +891,69 @@ public final class MerkleDbDataSource implements VirtualDataSource {
         }
 
         final Hash hash;
-        if (path < tableConfig.getHashesRamToDiskThreshold()) {
-            hash = hashStoreRam.get(path);
+        if (path < hashesRamToDiskThreshold) {
+            hash = loadRamHash(path);
             // Should count hash reads here, too?
         } else {
             final VirtualHashRecord rec = VirtualHashRecord.parseFrom(hashStoreDisk.get(path));
-            hash = (rec != null) ? rec.hash() : null;
+            hash = (rec != null) ? rec.hash() : loadMigratedHash(path);
+            hashReadsDisk.increment();
             statisticsUpdater.countHashReads();
         }
 
         return hash;
     }
 
+    /**
+     * Load hashes for a batch of paths. Hashes stored in RAM are returned right away. Hashes
+     * stored on disk are read in a batch: reads are grouped by data file, sorted by file offsets,
+     * and run in parallel.
+     *
+     * @param paths virtual node paths
+     * @return an array of hashes in the same order as the paths, with nulls for the paths not found
+     * @throws IOException If there was a problem reading hashes from db
+     */
+    @NonNull
+    @Override
+    public Hash[] loadHashes(@NonNull final long[] paths) throws IOException {
+        requireNonNull(paths);
+        final Hash[] hashes = new Hash[paths.length];
+        final long lastLeaf = validLeafPathRange.getMaxValidKey();
+        final long[] diskPaths = new long[paths.length];
+        final int[] diskPathsIndices = new int[paths.length];
+        int diskPathsCount = 0;
+        for (int i = 0; i < paths.length; i++) {
+            final long path = paths[i];
+            if (path < 0) {
+                throw new IllegalArgumentException("Path (" + path + ") is not valid");
+            }
+            if (path > lastLeaf) {
+                continue;
+            }
+            if (path < hashesRamToDiskThreshold) {
+                hashes[i] = loadRamHash(path);
+            } else {
+                diskPaths[diskPathsCount] = path;
+                diskPathsIndices[diskPathsCount] = i;
+                diskPathsCount++;
+                hashReadsDisk.increment();
+                statisticsUpdater.countHashReads();
+            }
+        }
+        if (diskPathsCount > 0) {
+            hashStoreDisk.getAll(Arrays.copyOf(diskPaths, diskPathsCount), (j, hashData) -> {
+                final VirtualHashRecord rec = VirtualHashRecord.parseFrom(hashData);
+                hashes[diskPathsIndices[j]] = (rec != null) ? rec.hash() : null;
+            });
+            for (int j = 0; j < diskPathsCount; j++) {
+                if (hashes[diskPathsIndices[j]] == null) {
+                    hashes[diskPathsIndices[j]] = loadMigratedHash(diskPaths[j]);
+                }
+            }
+        }
+        return hashes;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -723,16 +970,22 @@ public final class MerkleDbDataSource implements VirtualDataSource {
         // hash comes from hashStoreRam, it's enough to just serialize it to the output stream.
         // However, if a hash is stored in the files as a VirtualHashRecord, its bytes are
         // slightly different, so additional processing is required
-        if (path < tableConfig.getHashesRamToDiskThreshold()) {
-            final Hash hash = hashStoreRam.get(path);
+        if (path < hashesRamToDiskThreshold) {
+            final Hash hash = loadRamHash(path);
             if (hash == null) {
                 return false;
             }
             hash.serialize(out);
         } else {
             final BufferedData hashBytes = hashStoreDisk.get(path);
+            hashReadsDisk.increment();
             if (hashBytes == null) {
-                return false;
+                final Hash hash = loadMigratedHash(path);
+                if (hash == null) {
+                    return false;
+                }
+                hash.serialize(out);
+                return true;
             }
             // Hash.serialize() format is: digest ID (4 bytes) + size (4 bytes) + hash (48 bytes)
             VirtualHashRecord.extractAndWriteHashBytes(hashBytes, out);
@@ -750,7 +1003,8 @@ public final class MerkleDbDataSource implements VirtualDataSource {
                 // Shut down all executors. If a flush is currently in progress, it will be interrupted.
                 // It's critical to make sure there are no disk read/write operations before all indiced
                 // and file collections are closed below
-                shutdownThreadsAndWait(storeHashesExecutor, storeLeavesExecutor, snapshotExecutor);
+                shutdownThreadsAndWait(
+                        storeHashesExecutor, storeLeavesExecutor, storeLeafKeysExecutor, snapshotExecutor);
             } finally {
                 try {
                     // close all closable data stores
@@ -816,16 +1070,21 @@ public final class MerkleDbDataSource implements VirtualDataSource {
             // create snapshot dir if it doesn't exist
             Files.createDirectories(snapshotDirectory);
             final MerkleDbPaths snapshotDbPaths = new MerkleDbPaths(snapshotDirectory);
+            final MerkleDbConfig config = database.getConfig();
             // main snapshotting process in multiple-threads
             try {
                 final CountDownLatch countDownLatch = new CountDownLatch(7);
                 // write all data stores
                 runWithSnapshotExecutor(true, countDownLatch, "pathToDiskLocationInternalNodes", () -> {
-                    pathToDiskLocationInternalNodes.writeToFile(snapshotDbPaths.pathToDiskLocationInternalNodesFile);
+                    writeIndexToFile(
+                            config,
+                            pathToDiskLocationInternalNodes,
+                            snapshotDbPaths.pathToDiskLocationInternalNodesFile);
                     return true;
                 });
                 runWithSnapshotExecutor(true, countDownLatch, "pathToDiskLocationLeafNodes", () -> {
-                    pathToDiskLocationLeafNodes.writeToFile(snapshotDbPaths.pathToDiskLocationLeafNodesFile);
+                    writeIndexToFile(
+                            config, pathToDiskLocationLeafNodes, snapshotDbPaths.pathToDiskLocationLeafNodesFile);
                     return true;
                 });
                 runWithSnapshotExecutor(hashStoreRam != null, countDownLatch, "internalHashStoreRam", () -> {
@@ -868,6 +1127,19 @@ public final class MerkleDbDataSource implements VirtualDataSource {
         }
     }
 
+    /**
+     * Writes a path to disk location index to a snapshot file, either as a full file or as a delta,
+     * depending on MerkleDb config.
+     */
+    private static void writeIndexToFile(final MerkleDbConfig config, final LongList index, final Path file)
+            throws IOException {
+        if (config.indexDeltaSnapshots()) {
+            index.writeDeltaToFile(file, config.indexDeltaMaxDirtyChunksPercent());
+        } else {
+            index.writeToFile(file);
+        }
+    }
+
     /** toString for debugging */
     @Override
     public String toString() {
@@ -876,7 +1148,7 @@ public final class MerkleDbDataSource implements VirtualDataSource {
                 .append("preferDiskBasedIndexes", tableConfig.isPreferDiskBasedIndices())
                 .append("pathToDiskLocationInternalNodes.size", pathToDiskLocationInternalNodes.size())
                 .append("pathToDiskLocationLeafNodes.size", pathToDiskLocationLeafNodes.size())
-                .append("hashesRamToDiskThreshold", tableConfig.getHashesRamToDiskThreshold())
+                .append("hashesRamToDiskThreshold", hashesRamToDiskThreshold)
                 .append("hashStoreRam.size", hashStoreRam == null ? null : hashStoreRam.size())
                 .append("hashStoreDisk", hashStoreDisk)
                 .append("hasDiskStoreForHashes", hasDiskStoreForHashes)
@@ -938,6 +1210,34 @@ public final class MerkleDbDataSource implements VirtualDataSource {
         return tableConfig.getHashesRamToDiskThreshold();
     }
 
+    /**
+     * Current hashes RAM to disk threshold. May differ from the threshold in the table config, if
+     * adaptive tiering is enabled.
+     *
+     * @return the current threshold
+     */
+    long getCurrentHashesRamToDiskThreshold() {
+        return hashesRamToDiskThreshold;
+    }
+
+    /**
+     * Number of hashes read from RAM since this data source was opened.
+     *
+     * @return number of hashes read from RAM
+     */
+    long getHashReadsRam() {
+        return hashReadsRam.sum();
+    }
+
+    /**
+     * Number of hashes read from disk since this data source was opened.
+     *
+     * @return number of hashes read from disk
+     */
+    long getHashReadsDisk() {
+        return hashReadsDisk.sum();
+    }
+
     // For testing purpose
     boolean isPreferDiskBasedIndexes() {
         return tableConfig.isPreferDiskBasedIndices();
@@ -962,6 +1262,12 @@ public final class MerkleDbDataSource implements VirtualDataSource {
                 ProtoWriterTools.writeTag(out, FIELD_DSMETADATA_MAXVALIDKEY);
                 out.writeVarLong(leafRange.getMaxValidKey(), false);
             }
+            // only written if the threshold is changed by adaptive tiering, so it's restored on load
+            final long threshold = hashesRamToDiskThreshold;
+            if (threshold != tableConfig.getHashesRamToDiskThreshold()) {
+                ProtoWriterTools.writeTag(out, FIELD_DSMETADATA_HASHESRAMTODISKTHRESHOLD);
+                out.writeVarLong(threshold, false);
+            }
             fileOut.flush();
         }
     }
@@ -979,6 +1285,8 @@ public final class MerkleDbDataSource implements VirtualDataSource {
                         minValidKey = in.readVarLong(false);
                     } else if (fieldNum == FIELD_DSMETADATA_MAXVALIDKEY.number()) {
                         maxValidKey = in.readVarLong(false);
+                    } else if (fieldNum == FIELD_DSMETADATA_HASHESRAMTODISKTHRESHOLD.number()) {
+                        hashesRamToDiskThreshold = in.readVarLong(false);
                     } else {
                         throw new IllegalArgumentException("Unknown data source metadata field: " + fieldNum);
                     }
@@ -1010,6 +1318,16 @@ public final class MerkleDbDataSource implements VirtualDataSource {
     // ==================================================================================================================
     // private methods
 
+    /**
+     * Creates a compaction policy for a table store, if the policy is set in the table config.
+     * Otherwise returns null, and the store compactor uses the default policy from MerkleDb config.
+     */
+    @Nullable
+    private CompactionPolicy tableCompactionPolicy() {
+        final CompactionPolicyType policyType = tableConfig.getCompactionPolicy();
+        return (policyType != null) ? CompactionPolicy.create(policyType, database.getConfig()) : null;
+    }
+
     /**
      * Shutdown threads if they are running and wait for them to finish
      *
@@ -1084,18 +1402,37 @@ public final class MerkleDbDataSource implements VirtualDataSource {
             }
         }
 
+        if ((hashStoreRam != null) && (hashStoreRam.size() > hashesRamToDiskThreshold)) {
+            // The threshold was lowered by a previous flush, and the hashes above it were copied to disk. They
+            // are released one flush later rather than right away, since a concurrent reader may have read the
+            // old threshold and still look them up in RAM
+            hashStoreRam.truncate(hashesRamToDiskThreshold);
+        }
+
         if ((dirtyHashes == null) || (maxValidPath < 0)) {
             // nothing to do
             return;
         }
 
+        final long oldThreshold = hashesRamToDiskThreshold;
+        final long newThreshold = nextHashesRamToDiskThreshold(oldThreshold, maxValidPath);
+        if (newThreshold > oldThreshold) {
+            // hashes are in RAM before the new threshold is visible to readers
+            moveHashesToRam(oldThreshold, Math.min(newThreshold, maxValidPath + 1));
+            hashesRamToDiskThreshold = newThreshold;
+        }
+
         if (hasDiskStoreForHashes) {
             hashStoreDisk.startWriting();
         }
 
+        if (newThreshold < oldThreshold) {
+            copyHashesToDisk(newThreshold, Math.min(oldThreshold, maxValidPath + 1));
+        }
+
         dirtyHashes.forEach(rec -> {
             statisticsUpdater.countFlushHashesWritten();
-            if (rec.path() < tableConfig.getHashesRamToDiskThreshold()) {
+            if (rec.path() < newThreshold) {
                 hashStoreRam.put(rec.path(), rec.hash());
             } else {
                 try {
@@ -1110,10 +1447,144 @@ public final class MerkleDbDataSource implements VirtualDataSource {
         if (hasDiskStoreForHashes) {
             final DataFileReader newHashesFile = hashStoreDisk.endWriting();
             statisticsUpdater.setFlushHashesStoreFileSize(newHashesFile);
+            if (newThreshold < oldThreshold) {
+                // hashes are on disk before the new threshold is visible to readers
+                hashesRamToDiskThreshold = newThreshold;
+            } else if (newThreshold > oldThreshold) {
+                // hashes moved to RAM are garbage on disk now, they are removed from files during compactions.
+                // Readers, which still use the old threshold, fall back to RAM, see loadMigratedHash()
+                for (long path = oldThreshold; path < Math.min(newThreshold, maxValidPath + 1); path++) {
+                    pathToDiskLocationInternalNodes.remove(path);
+                }
+            }
             compactionCoordinator.compactDiskStoreForHashesAsync();
         }
     }
 
+    /**
+     * Whether the hashes RAM to disk threshold is adjusted to {@link MerkleDbConfig#hashesRamBudget()}. This is
+     * the case, if the budget is set, and the table config doesn't store hashes on disk only (threshold 0) or in
+     * RAM only (threshold {@link Long#MAX_VALUE}).
+     *
+     * @return whether this data source is in adaptive hashes mode
+     */
+    boolean isHashesThresholdAdaptive() {
+        final long tableThreshold = tableConfig.getHashesRamToDiskThreshold();
+        return (database.getConfig().hashesRamBudget() > 0)
+                && (tableThreshold > 0)
+                && (tableThreshold < Long.MAX_VALUE);
+    }
+
+    /**
+     * Get the hashes RAM to disk threshold to aim for. In fixed mode, it's the threshold from the table
+     * config. In adaptive mode, it's the number of hashes that fit into this data source's share of {@link
+     * MerkleDbConfig#hashesRamBudget()}, but not more than the number of paths in the tree, unless the current
+     * threshold is already higher. Since a virtual hasher loads hashes of siblings of all dirty nodes, hashes at
+     * the top of the tree are loaded much more often than hashes at the lower ranks, so paths are kept in RAM in
+     * rank order.
+     *
+     * @param maxValidPath the max valid path in the tree
+     * @return the target threshold
+     */
+    private long targetHashesRamToDiskThreshold(final long maxValidPath) {
+        if (!isHashesThresholdAdaptive()) {
+            return tableConfig.getHashesRamToDiskThreshold();
+        }
+        final long budgetHashes = database.getHashesRamBudget(this) / HASH_SIZE_BYTES;
+        return Math.min(budgetHashes, Math.max(hashesRamToDiskThreshold, maxValidPath + 1));
+    }
+
+    /**
+     * Get the hashes RAM to disk threshold for the current flush. The threshold moves towards the target
+     * threshold by at most {@link MerkleDbConfig#hashesMaxMigratedPerFlush()} paths, which limits the
+     * extra work done in a single flush.
+     */
+    private long nextHashesRamToDiskThreshold(final long currentThreshold, final long maxValidPath) {
+        final long target = targetHashesRamToDiskThreshold(maxValidPath);
+        if ((target == currentThreshold) || !hasDiskStoreForHashes || (hashStoreRam == null)) {
+            return currentThreshold;
+        }
+        // no hashes to move beyond the last path, the threshold can be changed at once
+        final long lastPathToMove = maxValidPath + 1;
+        final long maxMigrated = database.getConfig().hashesMaxMigratedPerFlush();
+        if (target > currentThreshold) {
+            return (currentThreshold >= lastPathToMove)
+                    ? target
+                    : Math.min(target, Math.min(currentThreshold, lastPathToMove) + maxMigrated);
+        } else {
+            return (target >= lastPathToMove)
+                    ? target
+                    : Math.max(target, Math.min(currentThreshold, lastPathToMove) - maxMigrated);
+        }
+    }
+
+    /**
+     * Copy hashes in the given path range from disk to RAM.
+     */
+    private void moveHashesToRam(final long fromPath, final long toPath) throws IOException {
+        final long[] paths = new long[HASHES_MIGRATION_BATCH_SIZE];
+        for (long batchStart = fromPath; batchStart < toPath; batchStart += HASHES_MIGRATION_BATCH_SIZE) {
+            final int count = (int) Math.min(HASHES_MIGRATION_BATCH_SIZE, toPath - batchStart);
+            for (int i = 0; i < count; i++) {
+                paths[i] = batchStart + i;
+            }
+            hashStoreDisk.getAll(count == paths.length ? paths : Arrays.copyOf(paths, count), (i, hashData) -> {
+                final VirtualHashRecord rec = VirtualHashRecord.parseFrom(hashData);
+                if (rec != null) {
+                    hashStoreRam.put(rec.path(), rec.hash());
+                }
+            });
+        }
+        logger.info(
+                MERKLE_DB.getMarker(), "[{}] Moved hashes [{}, {}) from disk to RAM", tableName, fromPath, toPath);
+    }
+
+    /**
+     * Copy hashes in the given path range from RAM to disk. Must be called between {@link
+     * MemoryIndexDiskKeyValueStore#startWriting()} and {@link MemoryIndexDiskKeyValueStore#endWriting()}.
+     */
+    private void copyHashesToDisk(final long fromPath, final long toPath) throws IOException {
+        for (long path = fromPath; path < toPath; path++) {
+            final Hash hash = hashStoreRam.get(path);
+            if (hash != null) {
+                final VirtualHashRecord rec = new VirtualHashRecord(path, hash);
+                hashStoreDisk.put(path, rec::writeTo, rec.getSizeInBytes());
+            }
+        }
+        logger.info(
+                MERKLE_DB.getMarker(), "[{}] Moved hashes [{}, {}) from RAM to disk", tableName, fromPath, toPath);
+    }
+
+    /**
+     * Load a hash from RAM. If the hash is released from RAM concurrently, after the RAM to disk threshold is
+     * lowered by a flush, it's read from disk.
+     *
+     * @param path the path
+     * @return the hash, or null if the hash isn't found
+     */
+    @Nullable
+    private Hash loadRamHash(final long path) throws IOException {
+        final Hash hash = hashStoreRam.get(path);
+        hashReadsRam.increment();
+        if ((hash == null) && (path >= hashesRamToDiskThreshold)) {
+            final VirtualHashRecord rec = VirtualHashRecord.parseFrom(hashStoreDisk.get(path));
+            return (rec != null) ? rec.hash() : loadMigratedHash(path);
+        }
+        return hash;
+    }
+
+    /**
+     * Called when a hash isn't found on disk. If the hash was moved from disk to RAM concurrently with
+     * the lookup, it's read from RAM.
+     *
+     * @param path the path
+     * @return the hash in RAM, or null if the hash isn't moved to RAM
+     */
+    @Nullable
+    private Hash loadMigratedHash(final long path) throws IOException {
+        return path < hashesRamToDiskThreshold ? hashStoreRam.get(path) : null;
+    }
+
     /** Write all the given leaf records to pathToKeyValue */
     private void writeLeavesToPathToKeyValue(
             final long firstLeafPath,
@@ -1144,6 +1615,11 @@ public final class MerkleDbDataSource implements VirtualDataSource {
             return;
         }
 
+        if (database.getConfig().parallelFlush()) {
+            writeLeavesInParallel(dirtyIterator, deletedIterator, isReconnect);
+            return;
+        }
+
         pathToKeyValue.startWriting();
         keyToPath.startWriting();
 
@@ -1165,10 +1641,100 @@ public final class MerkleDbDataSource implements VirtualDataSource {
             statisticsUpdater.countFlushLeavesWritten();
 
             // cache the record
-            invalidateReadCache(leafBytes.keyBytes(), leafBytes.keyHashCode());
+            invalidateReadCache(leafBytes.keyBytes());
         }
 
         // Iterate over leaf records to delete
+        deleteLeafKeys(deletedIterator, isReconnect);
+
+        // end writing
+        final DataFileReader pathToKeyValueReader = pathToKeyValue.endWriting();
+        statisticsUpdater.setFlushLeavesStoreFileSize(pathToKeyValueReader);
+        compactionCoordinator.compactPathToKeyValueAsync();
+        final DataFileReader keyToPathReader = keyToPath.endWriting();
+        statisticsUpdater.setFlushLeafKeysStoreFileSize(keyToPathReader);
+        compactionCoordinator.compactDiskStoreForKeyToPathAsync();
+    }
+
+    /**
+     * Writes the given leaf records to pathToKeyValue and keyToPath concurrently. Leaf data is written on
+     * the current thread, while keyToPath is updated on {@link #storeLeafKeysExecutor}. This method waits
+     * for both stores to be written.
+     */
+    private void writeLeavesInParallel(
+            @NonNull final Iterator<VirtualLeafBytes> dirtyIterator,
+            @NonNull final Iterator<VirtualLeafBytes> deletedIterator,
+            final boolean isReconnect)
+            throws IOException {
+        // Both stores need all dirty leaves, collect them once. Sorting the dirty leaves stream has
+        // already collected them all in memory, so this doesn't increase memory usage much
+        final List<VirtualLeafBytes> dirtyLeaves = new ArrayList<>();
+        dirtyIterator.forEachRemaining(dirtyLeaves::add);
+
+        final Future<?> leafKeysFuture = storeLeafKeysExecutor.submit(() -> {
+            writeLeafKeys(dirtyLeaves, deletedIterator, isReconnect);
+            return null;
+        });
+
+        try {
+            pathToKeyValue.startWriting();
+            for (final VirtualLeafBytes leafBytes : dirtyLeaves) {
+                pathToKeyValue.put(leafBytes.path(), leafBytes::writeTo, leafBytes.getSizeInBytes());
+                statisticsUpdater.countFlushLeavesWritten();
+            }
+            final DataFileReader pathToKeyValueReader = pathToKeyValue.endWriting();
+            statisticsUpdater.setFlushLeavesStoreFileSize(pathToKeyValueReader);
+            compactionCoordinator.compactPathToKeyValueAsync();
+        } catch (final Throwable e) {
+            // Wait for leaf keys to be written even if leaf data failed, the data source must not be
+            // closed while keyToPath is still being updated. Leaf data failure is the primary one
+            try {
+                waitForLeafKeys(leafKeysFuture);
+            } catch (final IOException | RuntimeException leafKeysException) {
+                e.addSuppressed(leafKeysException);
+            }
+            throw e;
+        }
+        waitForLeafKeys(leafKeysFuture);
+    }
+
+    /**
+     * Waits for leaf keys to be written to keyToPath in a parallel flush, see {@link #writeLeavesInParallel}.
+     */
+    private static void waitForLeafKeys(@NonNull final Future<?> leafKeysFuture) throws IOException {
+        try {
+            leafKeysFuture.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for leaf keys to be stored", e);
+        } catch (final ExecutionException e) {
+            throw new IOException("Failed to store leaf keys", e.getCause());
+        }
+    }
+
+    /**
+     * Writes keys of the given dirty and deleted leaf records to keyToPath. Used in parallel flushes,
+     * when keyToPath is updated on a separate thread, see {@link #writeLeavesInParallel}.
+     */
+    private void writeLeafKeys(
+            @NonNull final List<VirtualLeafBytes> dirtyLeaves,
+            @NonNull final Iterator<VirtualLeafBytes> deletedIterator,
+            final boolean isReconnect)
+            throws IOException {
+        keyToPath.startWriting();
+        for (final VirtualLeafBytes leafBytes : dirtyLeaves) {
+            keyToPath.put(leafBytes.keyBytes(), leafBytes.keyHashCode(), leafBytes.path());
+            statisticsUpdater.countFlushLeafKeysWritten();
+            invalidateReadCache(leafBytes.keyBytes());
+        }
+        deleteLeafKeys(deletedIterator, isReconnect);
+        final DataFileReader keyToPathReader = keyToPath.endWriting();
+        statisticsUpdater.setFlushLeafKeysStoreFileSize(keyToPathReader);
+        compactionCoordinator.compactDiskStoreForKeyToPathAsync();
+    }
+
+    /** Deletes keys of the given leaf records from keyToPath. keyToPath must be in writing mode */
+    private void deleteLeafKeys(@NonNull final Iterator<VirtualLeafBytes> deletedIterator, final boolean isReconnect) {
         while (deletedIterator.hasNext()) {
             final VirtualLeafBytes leafBytes = deletedIterator.next();
             final long path = leafBytes.path();
@@ -1191,42 +1757,53 @@ public final class MerkleDbDataSource implements VirtualDataSource {
             // inserted at path X then the record is just updated to new leaf's data.
 
             // delete the record from the cache
-            invalidateReadCache(leafBytes.keyBytes(), leafBytes.keyHashCode());
+            invalidateReadCache(leafBytes.keyBytes());
         }
+    }
 
-        // end writing
-        final DataFileReader pathToKeyValueReader = pathToKeyValue.endWriting();
-        statisticsUpdater.setFlushLeavesStoreFileSize(pathToKeyValueReader);
-        compactionCoordinator.compactPathToKeyValueAsync();
-        final DataFileReader keyToPathReader = keyToPath.endWriting();
-        statisticsUpdater.setFlushLeafKeysStoreFileSize(keyToPathReader);
-        compactionCoordinator.compactDiskStoreForKeyToPathAsync();
+    /**
+     * Invalidates the given key in virtual leaf record cache, if the cache is enabled. The record
+     * is removed from both key and path views of the cache.
+     *
+     * @param keyBytes virtual key
+     */
+    private void invalidateReadCache(final Bytes keyBytes) {
+        if (leafRecordCache != null) {
+            leafRecordCache.invalidate(keyBytes);
+        }
     }
 
     /**
-     * Invalidates the given key in virtual leaf record cache, if the cache is enabled.
-     * <p>
-     * If the key is deleted, it's still updated in the cache. It means no record with the given
-     * key exists in the data source, so further lookups for the key are skipped.
-     * <p>
-     * Cache index is calculated as the key's hash code % cache size. The cache is only updated,
-     * if the current record at this index has the given key. If the key is different, no update is
-     * performed.
+     * Returns a record from virtual leaf record cache for the given key, if the cache is enabled
+     * and contains a record for the key. The record may contain no value, but only a path, which
+     * may be INVALID_PATH for keys known not to exist.
      *
      * @param keyBytes virtual key
      * @param keyHashCode virtual key hash code
+     * @return the cached record, or null if not found
      */
-    private void invalidateReadCache(final Bytes keyBytes, final int keyHashCode) {
-        if (leafRecordCache == null) {
-            return;
-        }
-        final int cacheIndex = Math.abs(keyHashCode % leafRecordCacheSize);
-        final VirtualLeafBytes cached = leafRecordCache[cacheIndex];
-        if ((cached != null) && keyBytes.equals(cached.keyBytes())) {
-            leafRecordCache[cacheIndex] = null;
+    @Nullable
+    private VirtualLeafBytes getCachedLeafRecord(final Bytes keyBytes, final int keyHashCode) {
+        return (leafRecordCache != null) ? leafRecordCache.get(keyBytes, keyHashCode) : null;
+    }
+
+    /**
+     * Puts the given record to virtual leaf record cache, if the cache is enabled. Key hash code
+     * is passed explicitly, since records loaded from disk don't have it set.
+     *
+     * @param keyHashCode virtual key hash code
+     * @param leafBytes the record to cache
+     */
+    private void putLeafRecordToCache(final int keyHashCode, final VirtualLeafBytes leafBytes) {
+        if (leafRecordCache != null) {
+            leafRecordCache.put(keyHashCode, leafBytes);
         }
     }
 
+    LeafRecordCache getLeafRecordCache() {
+        return leafRecordCache;
+    }
+
     FileStatisticAware getHashStoreDisk() {
         return hashStoreDisk;
     }
@@ -18,9 +18,11 @@ package com.swirlds.merkledb;
 
 import com.swirlds.merkledb.config.MerkleDbConfig;
 import com.swirlds.metrics.api.DoubleAccumulator;
+import com.swirlds.metrics.api.DoubleGauge;
 import com.swirlds.metrics.api.FloatFormats;
 import com.swirlds.metrics.api.IntegerGauge;
 import com.swirlds.metrics.api.LongAccumulator;
+import com.swirlds.metrics.api.LongGauge;
 import com.swirlds.metrics.api.Metrics;
 import java.util.ArrayList;
 import java.util.List;
@@ -47,6 +49,8 @@ public class MerkleDbStatistics {
     private static final String LEVEL_PREFIX = "level_";
     /** Prefix for all off-heap related metrics */
     private static final String OFFHEAP_PREFIX = "offheap_";
+    /** Prefix for all leaf record cache related metrics */
+    private static final String LEAF_CACHE_PREFIX = "leafCache_";
 
     private final MerkleDbConfig dbConfig;
 
@@ -58,6 +62,22 @@ public class MerkleDbStatistics {
     private LongAccumulator leafReads;
     /** Leaf keys - reads / s */
     private LongAccumulator leafKeyReads;
+    /** Data items read from memory mapped files - reads / s */
+    private LongAccumulator mappedReads;
+    /** Average time of a data item read from memory mapped files, in microseconds */
+    private DoubleGauge mappedReadAvgTimeUs;
+    /** Data items read from compressed files - reads / s */
+    private LongAccumulator compressedReads;
+    /** Average time of a data item read from compressed files, including decompression, in microseconds */
+    private DoubleGauge compressedReadAvgTimeUs;
+    /** Leaf keys - lookups answered by the key filter without disk reads / s */
+    private LongAccumulator leafKeyFilterNegatives;
+    /** Leaf keys - key filter false positive rate */
+    private DoubleGauge leafKeyFilterFalsePositiveRate;
+    /** Hashes - ratio of hash reads served from RAM */
+    private DoubleGauge hashesRamHitRatio;
+    /** Hashes - paths below this threshold are stored in RAM */
+    private LongGauge hashesRamToDiskThreshold;
 
     /** Hashes store - file count */
     private IntegerGauge hashesStoreFileCount;
@@ -74,6 +94,10 @@ public class MerkleDbStatistics {
     /** Total file size in Mb */
     // Should all file sizes be doubles?
     private IntegerGauge totalFileSizeMb;
+    /** Total size of memory mapped files in Mb */
+    private IntegerGauge mappedFileSizeMb;
+    /** Ratio of uncompressed to compressed size of data written to compressed files */
+    private DoubleGauge compressionRatio;
 
     private LongAccumulator flushHashesWritten;
     private DoubleAccumulator flushHashesStoreFileSizeMb;
@@ -89,6 +113,8 @@ public class MerkleDbStatistics {
     private final List<DoubleAccumulator> hashesStoreCompactionSavedSpaceMbList;
     /** Hashes store - cumulative file size by compaction level in Mb */
     private final List<DoubleAccumulator> hashesStoreFileSizeByLevelMbList;
+    /** Hashes store - estimated size of dead data items by compaction level in Mb */
+    private final List<DoubleGauge> hashesStoreReclaimableByLevelMbList;
     /** Leaves store compactions - time in ms */
     private final List<LongAccumulator> leavesStoreCompactionTimeMsList;
     /** Leaves store compactions - saved space in Mb */
@@ -96,6 +122,8 @@ public class MerkleDbStatistics {
 
     /** Leaves store - cumulative file size by compaction level in Mb */
     private final List<DoubleAccumulator> leavesStoreFileSizeByLevelMbList;
+    /** Leaves store - estimated size of dead data items by compaction level in Mb */
+    private final List<DoubleGauge> leavesStoreReclaimableByLevelMbList;
     /** Leaf keys store compactions - time in ms */
     private final List<LongAccumulator> leafKeysStoreCompactionTimeMsList;
     /** Leaf keys store compactions - saved space in Mb */
@@ -103,6 +131,8 @@ public class MerkleDbStatistics {
 
     /** Leaf keys store - cumulative file size by compaction level in Mb */
     private final List<DoubleAccumulator> leafKeysStoreFileSizeByLevelMbList;
+    /** Leaf keys store - estimated size of dead data items by compaction level in Mb */
+    private final List<DoubleGauge> leafKeysStoreReclaimableByLevelMbList;
     /** Off-heap usage in MB of hashes store index */
     private IntegerGauge offHeapHashesIndexMb;
     /** Off-heap usage in MB of leaves store index */
@@ -114,6 +144,15 @@ public class MerkleDbStatistics {
     /** Total data source off-heap usage in MB */
     private IntegerGauge offHeapDataSourceMb;
 
+    /** Leaf record cache - hit ratio */
+    private DoubleGauge leafCacheHitRatio;
+    /** Leaf record cache - evictions / s */
+    private LongAccumulator leafCacheEvictions;
+    /** Leaf record cache - number of cached records */
+    private IntegerGauge leafCacheRecords;
+    /** Leaf record cache - total size of cached records in Mb */
+    private IntegerGauge leafCacheSizeMb;
+
     /**
      * Create a new statistics object for a MerkleDb instances.
      *
@@ -129,18 +168,25 @@ public class MerkleDbStatistics {
         hashesStoreCompactionTimeMsList = new ArrayList<>();
         hashesStoreCompactionSavedSpaceMbList = new ArrayList<>();
         hashesStoreFileSizeByLevelMbList = new ArrayList<>();
+        hashesStoreReclaimableByLevelMbList = new ArrayList<>();
         leavesStoreCompactionTimeMsList = new ArrayList<>();
         leavesStoreCompactionSavedSpaceMbList = new ArrayList<>();
         leavesStoreFileSizeByLevelMbList = new ArrayList<>();
+        leavesStoreReclaimableByLevelMbList = new ArrayList<>();
         leafKeysStoreCompactionTimeMsList = new ArrayList<>();
         leafKeysStoreCompactionSavedSpaceMbList = new ArrayList<>();
         leafKeysStoreFileSizeByLevelMbList = new ArrayList<>();
+        leafKeysStoreReclaimableByLevelMbList = new ArrayList<>();
     }
 
     private static IntegerGauge buildIntegerGauge(final Metrics metrics, final String name, final String description) {
         return metrics.getOrCreate(new IntegerGauge.Config(STAT_CATEGORY, name).withDescription(description));
     }
 
+    private static DoubleGauge buildDoubleGauge(final Metrics metrics, final String name, final String description) {
+        return metrics.getOrCreate(new DoubleGauge.Config(STAT_CATEGORY, name).withDescription(description));
+    }
+
     private static LongAccumulator buildLongAccumulator(
             final Metrics metrics, final String name, final String description) {
         return metrics.getOrCreate(new LongAccumulator.Config(STAT_CATEGORY, name)
@@ -175,6 +221,37 @@ public class MerkleDbStatistics {
                 metrics, DS_PREFIX + READS_PREFIX + "leaves_" + label, "Number of leaf reads, " + label);
         leafKeyReads = buildLongAccumulator(
                 metrics, DS_PREFIX + READS_PREFIX + "leafKeys_" + label, "Number of leaf key reads, " + label);
+        mappedReads = buildLongAccumulator(
+                metrics,
+                DS_PREFIX + READS_PREFIX + "mapped_" + label,
+                "Number of data item reads from memory mapped files, " + label);
+        mappedReadAvgTimeUs = metrics.getOrCreate(
+                new DoubleGauge.Config(STAT_CATEGORY, DS_PREFIX + READS_PREFIX + "mappedAvgTimeUs_" + label)
+                        .withDescription("Average time of a data item read from memory mapped files, " + label + ", us")
+                        .withFormat(FloatFormats.FORMAT_9_6));
+        compressedReads = buildLongAccumulator(
+                metrics,
+                DS_PREFIX + READS_PREFIX + "compressed_" + label,
+                "Number of data item reads from compressed files, " + label);
+        compressedReadAvgTimeUs = metrics.getOrCreate(
+                new DoubleGauge.Config(STAT_CATEGORY, DS_PREFIX + READS_PREFIX + "compressedAvgTimeUs_" + label)
+                        .withDescription("Average time of a data item read from compressed files, " + label + ", us")
+                        .withFormat(FloatFormats.FORMAT_9_6));
+        leafKeyFilterNegatives = buildLongAccumulator(
+                metrics,
+                DS_PREFIX + READS_PREFIX + "leafKeysFiltered_" + label,
+                "Number of leaf key lookups answered by the key filter without disk reads, " + label);
+        leafKeyFilterFalsePositiveRate = metrics.getOrCreate(
+                new DoubleGauge.Config(STAT_CATEGORY, DS_PREFIX + READS_PREFIX + "leafKeysFilterFpRate_" + label)
+                        .withDescription("Leaf key filter false positive rate, " + label)
+                        .withFormat(FloatFormats.FORMAT_9_6));
+        hashesRamHitRatio = metrics.getOrCreate(
+                new DoubleGauge.Config(STAT_CATEGORY, DS_PREFIX + READS_PREFIX + "hashesRamHitRatio_" + label)
+                        .withDescription("Ratio of hash reads served from RAM, " + label)
+                        .withFormat(FloatFormats.FORMAT_9_6));
+        hashesRamToDiskThreshold = metrics.getOrCreate(
+                new LongGauge.Config(STAT_CATEGORY, DS_PREFIX + "hashesRamToDiskThreshold_" + label)
+                        .withDescription("Hashes of paths below this threshold are stored in RAM, " + label));
 
         // File counts and sizes
         hashesStoreFileCount = metrics.getOrCreate(
@@ -202,6 +279,14 @@ public class MerkleDbStatistics {
                 metrics,
                 DS_PREFIX + FILES_PREFIX + "totalSizeMb_" + label,
                 "Total file size, data source, " + label + ", Mb");
+        mappedFileSizeMb = buildIntegerGauge(
+                metrics,
+                DS_PREFIX + FILES_PREFIX + "mappedSizeMb_" + label,
+                "Memory mapped file size, data source, " + label + ", Mb");
+        compressionRatio = metrics.getOrCreate(
+                new DoubleGauge.Config(STAT_CATEGORY, DS_PREFIX + FILES_PREFIX + "compressionRatio_" + label)
+                        .withDescription("Compression ratio of data written to compressed files, " + label)
+                        .withFormat(FloatFormats.FORMAT_9_6));
 
         // Flushes
         flushHashesWritten = buildLongAccumulator(
@@ -249,6 +334,11 @@ public class MerkleDbStatistics {
                     metrics,
                     DS_PREFIX + FILES_PREFIX + LEVEL_PREFIX + level + "_hashesFileSizeByLevelMb_" + label,
                     "Total space taken by files of level %s, hashes store, %s, Mb".formatted(level, label)));
+            hashesStoreReclaimableByLevelMbList.add(buildDoubleGauge(
+                    metrics,
+                    DS_PREFIX + FILES_PREFIX + LEVEL_PREFIX + level + "_hashesReclaimableMb_" + label,
+                    "Space taken by dead data items in files of level %s, hashes store, %s, Mb"
+                            .formatted(level, label)));
 
             // Leaves store
             leavesStoreCompactionTimeMsList.add(buildLongAccumulator(
@@ -263,6 +353,11 @@ public class MerkleDbStatistics {
                     metrics,
                     DS_PREFIX + FILES_PREFIX + LEVEL_PREFIX + level + "_leavesFileSizeByLevelMb_" + label,
                     "Total space taken by files of level %s, leaves store, %s, Mb".formatted(level, label)));
+            leavesStoreReclaimableByLevelMbList.add(buildDoubleGauge(
+                    metrics,
+                    DS_PREFIX + FILES_PREFIX + LEVEL_PREFIX + level + "_leavesReclaimableMb_" + label,
+                    "Space taken by dead data items in files of level %s, leaves store, %s, Mb"
+                            .formatted(level, label)));
 
             // Leaf keys store
             leafKeysStoreCompactionTimeMsList.add(buildLongAccumulator(
@@ -277,6 +372,11 @@ public class MerkleDbStatistics {
                     metrics,
                     DS_PREFIX + FILES_PREFIX + LEVEL_PREFIX + level + "_leafKeysFileSizeByLevelMb_" + label,
                     "Total space taken by files of level %s, leaf keys store, %s, Mb".formatted(level, label)));
+            leafKeysStoreReclaimableByLevelMbList.add(buildDoubleGauge(
+                    metrics,
+                    DS_PREFIX + FILES_PREFIX + LEVEL_PREFIX + level + "_leafKeysReclaimableMb_" + label,
+                    "Space taken by dead data items in files of level %s, leaf keys store, %s, Mb"
+                            .formatted(level, label)));
         }
 
         // Off-heap usage
@@ -295,6 +395,24 @@ public class MerkleDbStatistics {
         offHeapDataSourceMb = metrics.getOrCreate(
                 new IntegerGauge.Config(STAT_CATEGORY, DS_PREFIX + OFFHEAP_PREFIX + "dataSourceMb_" + label)
                         .withDescription("Off-heap usage, data source, " + label + ", Mb"));
+
+        // Leaf record cache
+        leafCacheHitRatio = metrics.getOrCreate(
+                new DoubleGauge.Config(STAT_CATEGORY, DS_PREFIX + LEAF_CACHE_PREFIX + "hitRatio_" + label)
+                        .withDescription("Leaf record cache hit ratio, " + label)
+                        .withFormat(FloatFormats.FORMAT_9_6));
+        leafCacheEvictions = buildLongAccumulator(
+                metrics,
+                DS_PREFIX + LEAF_CACHE_PREFIX + "evictions_" + label,
+                "Number of records evicted from leaf record cache, " + label);
+        leafCacheRecords = buildIntegerGauge(
+                metrics,
+                DS_PREFIX + LEAF_CACHE_PREFIX + "records_" + label,
+                "Number of records in leaf record cache, " + label);
+        leafCacheSizeMb = buildIntegerGauge(
+                metrics,
+                DS_PREFIX + LEAF_CACHE_PREFIX + "sizeMb_" + label,
+                "Total size of records in leaf record cache, " + label + ", Mb");
     }
 
     /**
@@ -408,6 +526,58 @@ public class MerkleDbStatistics {
         }
     }
 
+    /**
+     * Set the current value for the {@link #mappedFileSizeMb} stat
+     *
+     * @param value
+     * 		the value to set
+     */
+    public void setMappedFileSizeMb(final int value) {
+        if (mappedFileSizeMb != null) {
+            mappedFileSizeMb.set(value);
+        }
+    }
+
+    /**
+     * Increments {@link #mappedReads} stat by the given number of reads, and updates {@link
+     * #mappedReadAvgTimeUs} stat with their average time
+     *
+     * @param count number of data item reads from memory mapped files
+     * @param timeNanos total time of these reads, in nanoseconds
+     */
+    public void countMappedReads(final long count, final long timeNanos) {
+        if ((mappedReads != null) && (count > 0)) {
+            mappedReads.update(count);
+            mappedReadAvgTimeUs.set(timeNanos / 1000.0 / count);
+        }
+    }
+
+    /**
+     * Increments {@link #compressedReads} stat by the given number of reads, and updates {@link
+     * #compressedReadAvgTimeUs} stat with their average time
+     *
+     * @param count number of data item reads from compressed files
+     * @param timeNanos total time of these reads, in nanoseconds
+     */
+    public void countCompressedReads(final long count, final long timeNanos) {
+        if ((compressedReads != null) && (count > 0)) {
+            compressedReads.update(count);
+            compressedReadAvgTimeUs.set(timeNanos / 1000.0 / count);
+        }
+    }
+
+    /**
+     * Set the current value for the {@link #compressionRatio} stat
+     *
+     * @param value
+     * 		the value to set
+     */
+    public void setCompressionRatio(final double value) {
+        if (compressionRatio != null) {
+            compressionRatio.set(value);
+        }
+    }
+
     public void countFlushHashesWritten(final long value) {
         if (flushHashesWritten != null) {
             flushHashesWritten.update(value);
@@ -495,6 +665,21 @@ public class MerkleDbStatistics {
         hashesStoreFileSizeByLevelMbList.get(compactionLevel).update(value);
     }
 
+    /**
+     * Set the current value for the gauge corresponding to provided compaction level from
+     * {@link #hashesStoreReclaimableByLevelMbList}
+     *
+     * @param value the value to set
+     */
+    public void setHashesStoreReclaimableByLevelMb(final int compactionLevel, final double value) {
+        assert compactionLevel >= 0 && compactionLevel <= dbConfig.maxCompactionLevel();
+        if (hashesStoreReclaimableByLevelMbList.isEmpty()) {
+            // if the method called before the metrics are registered, there is nothing to do
+            return;
+        }
+        hashesStoreReclaimableByLevelMbList.get(compactionLevel).set(value);
+    }
+
     /**
      * Set the current value for the accumulator corresponding to provided compaction level from
      * {@link #leavesStoreCompactionTimeMsList}
@@ -538,6 +723,21 @@ public class MerkleDbStatistics {
         leavesStoreFileSizeByLevelMbList.get(compactionLevel).update(value);
     }
 
+    /**
+     * Set the current value for the gauge corresponding to provided compaction level from
+     * {@link #leavesStoreReclaimableByLevelMbList}
+     *
+     * @param value the value to set
+     */
+    public void setLeavesStoreReclaimableByLevelMb(final int compactionLevel, final double value) {
+        assert compactionLevel >= 0 && compactionLevel <= dbConfig.maxCompactionLevel();
+        if (leavesStoreReclaimableByLevelMbList.isEmpty()) {
+            // if the method called before the metrics are registered, there is nothing to do
+            return;
+        }
+        leavesStoreReclaimableByLevelMbList.get(compactionLevel).set(value);
+    }
+
     /**
      * Set the current value for the accumulator corresponding to provided compaction level from
      * {@link #leafKeysStoreCompactionTimeMsList}
@@ -583,6 +783,21 @@ public class MerkleDbStatistics {
         leafKeysStoreFileSizeByLevelMbList.get(compactionLevel).update(value);
     }
 
+    /**
+     * Set the current value for the gauge corresponding to provided compaction level from
+     * {@link #leafKeysStoreReclaimableByLevelMbList}
+     *
+     * @param value the value to set
+     */
+    public void setLeafKeysStoreReclaimableByLevelMb(final int compactionLevel, final double value) {
+        assert compactionLevel >= 0 && compactionLevel <= dbConfig.maxCompactionLevel();
+        if (leafKeysStoreReclaimableByLevelMbList.isEmpty()) {
+            // if the method called before the metrics are registered, there is nothing to do
+            return;
+        }
+        leafKeysStoreReclaimableByLevelMbList.get(compactionLevel).set(value);
+    }
+
     /**
      * Set the current value for the {@link #offHeapLeavesIndexMb} stat
      *
@@ -637,4 +852,60 @@ public class MerkleDbStatistics {
             offHeapDataSourceMb.set(value);
         }
     }
+
+    /**
+     * Updates leaf key filter stats. False positive rate is the ratio of lookups of missing keys,
+     * which passed the filter, to all lookups of missing keys.
+     *
+     * @param negatives number of lookups answered by the filter since the last update
+     * @param falsePositives number of lookups passed by the filter, but not found, since the last update
+     */
+    public void updateLeafKeyFilterStats(final long negatives, final long falsePositives) {
+        if (leafKeyFilterNegatives == null) {
+            return;
+        }
+        leafKeyFilterNegatives.update(negatives);
+        if (negatives + falsePositives > 0) {
+            leafKeyFilterFalsePositiveRate.set((double) falsePositives / (negatives + falsePositives));
+        }
+    }
+
+    /**
+     * Updates hashes RAM / disk tiering stats.
+     *
+     * @param ramReads number of hashes read from RAM since the last update
+     * @param diskReads number of hashes read from disk since the last update
+     * @param threshold current hashes RAM to disk threshold
+     */
+    public void updateHashesTierStats(final long ramReads, final long diskReads, final long threshold) {
+        if (hashesRamHitRatio == null) {
+            return;
+        }
+        if (ramReads + diskReads > 0) {
+            hashesRamHitRatio.set((double) ramReads / (ramReads + diskReads));
+        }
+        hashesRamToDiskThreshold.set(threshold);
+    }
+
+    /**
+     * Updates leaf record cache stats
+     *
+     * @param hits number of cache hits since the last update
+     * @param misses number of cache misses since the last update
+     * @param evictions number of cache evictions since the last update
+     * @param records current number of records in the cache
+     * @param sizeMb current total size of records in the cache, in Mb
+     */
+    public void updateLeafCacheStats(
+            final long hits, final long misses, final long evictions, final int records, final int sizeMb) {
+        if (leafCacheHitRatio == null) {
+            return;
+        }
+        if (hits + misses > 0) {
+            leafCacheHitRatio.set((double) hits / (hits + misses));
+        }
+        leafCacheEvictions.update(evictions);
+        leafCacheRecords.set(records);
+        leafCacheSizeMb.set(sizeMb);
+    }
 }
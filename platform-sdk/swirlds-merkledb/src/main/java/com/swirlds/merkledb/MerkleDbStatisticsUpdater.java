@@ -23,9 +23,11 @@ import com.swirlds.merkledb.collections.LongList;
 import com.swirlds.merkledb.collections.OffHeapUser;
 import com.swirlds.merkledb.config.MerkleDbConfig;
 import com.swirlds.merkledb.files.DataFileReader;
+import com.swirlds.merkledb.files.hashmap.HalfDiskHashMap;
 import com.swirlds.metrics.api.Metrics;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import java.util.LongSummaryStatistics;
+import java.util.function.BiConsumer;
 import java.util.function.IntConsumer;
 
 /**
@@ -43,8 +45,33 @@ public class MerkleDbStatisticsUpdater {
 
     private final MerkleDbStatistics statistics;
 
+    /** Max compaction level, per-level stats are maintained for levels 0 to this level */
+    private final int maxCompactionLevel;
+
+    /** Number of reads from memory mapped files, as of the last stats update */
+    private long lastMappedReadsCount = 0;
+    /** Total time of reads from memory mapped files, as of the last stats update */
+    private long lastMappedReadsTimeNanos = 0;
+
+    /** Number of reads from compressed files, as of the last stats update */
+    private long lastCompressedReadsCount = 0;
+    /** Total time of reads from compressed files, as of the last stats update */
+    private long lastCompressedReadsTimeNanos = 0;
+
+    /** Leaf key filter negatives and false positives, as of the last stats update */
+    private long lastLeafKeyFilterNegatives = 0;
+    private long lastLeafKeyFilterFalsePositives = 0;
+    private long lastHashReadsRam = 0;
+    private long lastHashReadsDisk = 0;
+
+    /** Leaf record cache hits, misses, and evictions, as of the last stats update */
+    private long lastLeafCacheHits = 0;
+    private long lastLeafCacheMisses = 0;
+    private long lastLeafCacheEvictions = 0;
+
     public MerkleDbStatisticsUpdater(@NonNull final MerkleDbConfig config, @NonNull final String tableName) {
         statistics = new MerkleDbStatistics(config, tableName);
+        maxCompactionLevel = config.maxCompactionLevel();
     }
 
     /**
@@ -132,6 +159,85 @@ public class MerkleDbStatisticsUpdater {
         statistics.setTotalFileSizeMb(updateHashesStoreFileStats(dataSource)
                 + updateLeavesStoreFileStats(dataSource)
                 + updateLeafKeysStoreFileStats(dataSource));
+        updateMappedFileStats(dataSource);
+        updateCompressionStats(dataSource);
+        updateReclaimableSizeStats(dataSource);
+    }
+
+    /**
+     * Updates estimated size of dead data items by compaction level for all stores, see {@link
+     * FileStatisticAware#getReclaimableSizeByLevel(int)}.
+     */
+    private void updateReclaimableSizeStats(final MerkleDbDataSource dataSource) {
+        updateReclaimableSizeStats(dataSource.getHashStoreDisk(), statistics::setHashesStoreReclaimableByLevelMb);
+        updateReclaimableSizeStats(dataSource.getPathToKeyValue(), statistics::setLeavesStoreReclaimableByLevelMb);
+        updateReclaimableSizeStats(dataSource.getKeyToPath(), statistics::setLeafKeysStoreReclaimableByLevelMb);
+    }
+
+    private void updateReclaimableSizeStats(
+            final FileStatisticAware store, final BiConsumer<Integer, Double> updateFunction) {
+        if (store == null) {
+            return;
+        }
+        final long[] reclaimableSizeByLevel = store.getReclaimableSizeByLevel(maxCompactionLevel);
+        for (int level = 0; level <= maxCompactionLevel; level++) {
+            updateFunction.accept(level, reclaimableSizeByLevel[level] * BYTES_TO_MEBIBYTES);
+        }
+    }
+
+    /**
+     * Updates memory mapped files stats: total mapped size, and number and average time of reads
+     * from mapped files since the last update.
+     */
+    private synchronized void updateMappedFileStats(final MerkleDbDataSource dataSource) {
+        long mappedSize = 0;
+        long mappedReadsCount = 0;
+        long mappedReadsTimeNanos = 0;
+        final FileStatisticAware[] stores = {
+            dataSource.getHashStoreDisk(), dataSource.getPathToKeyValue(), dataSource.getKeyToPath()
+        };
+        for (final FileStatisticAware store : stores) {
+            if (store != null) {
+                mappedSize += store.getMappedFilesSize();
+                mappedReadsCount += store.getMappedReadsCount();
+                mappedReadsTimeNanos += store.getMappedReadsTimeNanos();
+            }
+        }
+        statistics.setMappedFileSizeMb((int) (mappedSize * BYTES_TO_MEBIBYTES));
+        statistics.countMappedReads(
+                mappedReadsCount - lastMappedReadsCount, mappedReadsTimeNanos - lastMappedReadsTimeNanos);
+        lastMappedReadsCount = mappedReadsCount;
+        lastMappedReadsTimeNanos = mappedReadsTimeNanos;
+    }
+
+    /**
+     * Updates compressed files stats: compression ratio of all data written to compressed files,
+     * and number and average time of reads from compressed files since the last update.
+     */
+    private synchronized void updateCompressionStats(final MerkleDbDataSource dataSource) {
+        long uncompressedBytes = 0;
+        long compressedBytes = 0;
+        long compressedReadsCount = 0;
+        long compressedReadsTimeNanos = 0;
+        final FileStatisticAware[] stores = {
+            dataSource.getHashStoreDisk(), dataSource.getPathToKeyValue(), dataSource.getKeyToPath()
+        };
+        for (final FileStatisticAware store : stores) {
+            if (store != null) {
+                uncompressedBytes += store.getUncompressedBytesWritten();
+                compressedBytes += store.getCompressedBytesWritten();
+                compressedReadsCount += store.getCompressedReadsCount();
+                compressedReadsTimeNanos += store.getCompressedReadsTimeNanos();
+            }
+        }
+        if (compressedBytes > 0) {
+            statistics.setCompressionRatio((double) uncompressedBytes / compressedBytes);
+        }
+        statistics.countCompressedReads(
+                compressedReadsCount - lastCompressedReadsCount,
+                compressedReadsTimeNanos - lastCompressedReadsTimeNanos);
+        lastCompressedReadsCount = compressedReadsCount;
+        lastCompressedReadsTimeNanos = compressedReadsTimeNanos;
     }
 
     /**
@@ -152,6 +258,60 @@ public class MerkleDbStatisticsUpdater {
         statistics.setOffHeapDataSourceMb(totalOffHeapMemoryConsumption);
     }
 
+    /**
+     * Updates leaf record cache stats: hit ratio and number of evictions since the last update,
+     * current number of cached records and their total size. No-op if the cache is disabled.
+     */
+    synchronized void updateLeafCacheStats(final MerkleDbDataSource dataSource) {
+        final LeafRecordCache cache = dataSource.getLeafRecordCache();
+        if (cache == null) {
+            return;
+        }
+        final long hits = cache.getHits();
+        final long misses = cache.getMisses();
+        final long evictions = cache.getEvictions();
+        statistics.updateLeafCacheStats(
+                hits - lastLeafCacheHits,
+                misses - lastLeafCacheMisses,
+                evictions - lastLeafCacheEvictions,
+                cache.getRecordCount(),
+                (int) (cache.getSizeInBytes() * BYTES_TO_MEBIBYTES));
+        lastLeafCacheHits = hits;
+        lastLeafCacheMisses = misses;
+        lastLeafCacheEvictions = evictions;
+    }
+
+    /**
+     * Updates leaf key filter stats: number of lookups answered by the filter and false positive
+     * rate since the last update. No-op if the filter is disabled.
+     */
+    synchronized void updateLeafKeyFilterStats(final MerkleDbDataSource dataSource) {
+        if (!(dataSource.getKeyToPath() instanceof HalfDiskHashMap keyToPath) || !keyToPath.isKeyFilterEnabled()) {
+            return;
+        }
+        final long negatives = keyToPath.getKeyFilterNegativeCount();
+        final long falsePositives = keyToPath.getKeyFilterFalsePositiveCount();
+        statistics.updateLeafKeyFilterStats(
+                negatives - lastLeafKeyFilterNegatives, falsePositives - lastLeafKeyFilterFalsePositives);
+        lastLeafKeyFilterNegatives = negatives;
+        lastLeafKeyFilterFalsePositives = falsePositives;
+    }
+
+    /**
+     * Updates hashes RAM / disk tiering stats: ratio of hash reads served from RAM since the last
+     * update and the current RAM to disk threshold.
+     */
+    synchronized void updateHashesTierStats(final MerkleDbDataSource dataSource) {
+        final long ramReads = dataSource.getHashReadsRam();
+        final long diskReads = dataSource.getHashReadsDisk();
+        statistics.updateHashesTierStats(
+                ramReads - lastHashReadsRam,
+                diskReads - lastHashReadsDisk,
+                dataSource.getCurrentHashesRamToDiskThreshold());
+        lastHashReadsRam = ramReads;
+        lastHashReadsDisk = diskReads;
+    }
+
     /** Updates statistics with number of leaf reads. */
     void countLeafReads() {
         statistics.countLeafReads();
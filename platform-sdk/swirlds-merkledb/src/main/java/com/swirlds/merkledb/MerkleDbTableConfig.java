@@ -31,8 +31,10 @@ import com.swirlds.common.io.SelfSerializable;
 import com.swirlds.common.io.streams.SerializableDataInputStream;
 import com.swirlds.common.io.streams.SerializableDataOutputStream;
 import com.swirlds.merkledb.config.MerkleDbConfig;
+import com.swirlds.merkledb.files.CompactionPolicyType;
 import com.swirlds.virtualmap.serialize.KeySerializer;
 import com.swirlds.virtualmap.serialize.ValueSerializer;
+import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.IOException;
 import java.util.Objects;
 
@@ -47,6 +49,7 @@ public final class MerkleDbTableConfig implements SelfSerializable {
 
     private static final class ClassVersion {
         public static final int ORIGINAL = 1;
+        public static final int COMPACTION_POLICY = 2;
     }
 
     private static final FieldDefinition FIELD_TABLECONFIG_HASHVERSION =
@@ -76,6 +79,8 @@ public final class MerkleDbTableConfig implements SelfSerializable {
             new FieldDefinition("maxNumberOfKeys", FieldType.UINT64, false, true, false, 8);
     private static final FieldDefinition FIELD_TABLECONFIG_HASHRAMTODISKTHRESHOLD =
             new FieldDefinition("hashesRamToDiskThreshold", FieldType.UINT64, false, true, false, 9);
+    private static final FieldDefinition FIELD_TABLECONFIG_COMPACTIONPOLICY =
+            new FieldDefinition("compactionPolicy", FieldType.UINT32, false, true, false, 10);
 
     /**
      * Hash version.
@@ -133,6 +138,13 @@ public final class MerkleDbTableConfig implements SelfSerializable {
      */
     private boolean preferDiskBasedIndices = false;
 
+    /**
+     * Policy to select data files to compact in all table stores. If null, the default policy from
+     * MerkleDb configuration is used. This field is not initialized from MerkleDb config, so table
+     * stores follow config changes unless a policy is set explicitly for the table.
+     */
+    private CompactionPolicyType compactionPolicy = null;
+
     /**
      * Creates a new virtual table config with default values. This constructor should only be used
      * for deserialization.
@@ -172,6 +184,7 @@ public final class MerkleDbTableConfig implements SelfSerializable {
         preferDiskBasedIndices = false;
         maxNumberOfKeys = 0;
         hashesRamToDiskThreshold = 0;
+        compactionPolicy = null;
 
         while (in.hasRemaining()) {
             final int tag = in.readVarInt(false);
@@ -199,6 +212,8 @@ public final class MerkleDbTableConfig implements SelfSerializable {
                 maxNumberOfKeys = in.readVarLong(false);
             } else if (fieldNum == FIELD_TABLECONFIG_HASHRAMTODISKTHRESHOLD.number()) {
                 hashesRamToDiskThreshold = in.readVarLong(false);
+            } else if (fieldNum == FIELD_TABLECONFIG_COMPACTIONPOLICY.number()) {
+                compactionPolicy = CompactionPolicyType.valueOf(in.readVarInt(false));
             } else {
                 throw new IllegalArgumentException("Unknown table config field: " + fieldNum);
             }
@@ -234,6 +249,11 @@ public final class MerkleDbTableConfig implements SelfSerializable {
                     FIELD_TABLECONFIG_HASHRAMTODISKTHRESHOLD, ProtoConstants.WIRE_TYPE_VARINT_OR_ZIGZAG);
             size += ProtoWriterTools.sizeOfVarInt64(hashesRamToDiskThreshold);
         }
+        if (compactionPolicy != null) {
+            size += ProtoWriterTools.sizeOfTag(
+                    FIELD_TABLECONFIG_COMPACTIONPOLICY, ProtoConstants.WIRE_TYPE_VARINT_OR_ZIGZAG);
+            size += ProtoWriterTools.sizeOfVarInt32(compactionPolicy.id());
+        }
         return size;
     }
 
@@ -255,6 +275,10 @@ public final class MerkleDbTableConfig implements SelfSerializable {
             ProtoWriterTools.writeTag(out, FIELD_TABLECONFIG_HASHRAMTODISKTHRESHOLD);
             out.writeVarLong(hashesRamToDiskThreshold, false);
         }
+        if (compactionPolicy != null) {
+            ProtoWriterTools.writeTag(out, FIELD_TABLECONFIG_COMPACTIONPOLICY);
+            out.writeVarInt(compactionPolicy.id(), false);
+        }
     }
 
     /**
@@ -375,6 +399,32 @@ public final class MerkleDbTableConfig implements SelfSerializable {
         return this;
     }
 
+    /**
+     * Policy to select data files to compact in table stores, or null if the default policy from
+     * MerkleDb config is used.
+     *
+     * @return
+     *      Compaction policy type, or null
+     */
+    @Nullable
+    public CompactionPolicyType getCompactionPolicy() {
+        return compactionPolicy;
+    }
+
+    /**
+     * Specifies a policy to select data files to compact in table stores. If null, the default
+     * policy from MerkleDb config is used.
+     *
+     * @param compactionPolicy
+     *      Compaction policy type, or null
+     * @return
+     *      This table config object
+     */
+    public MerkleDbTableConfig compactionPolicy(@Nullable final CompactionPolicyType compactionPolicy) {
+        this.compactionPolicy = compactionPolicy;
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -385,10 +435,13 @@ public final class MerkleDbTableConfig implements SelfSerializable {
 
     /**
      * {@inheritDoc}
+     *
+     * <p>Table configs without an explicit compaction policy are serialized in the original format,
+     * so they can still be read by nodes that don't support compaction policies.
      */
     @Override
     public int getVersion() {
-        return ClassVersion.ORIGINAL;
+        return compactionPolicy != null ? ClassVersion.COMPACTION_POLICY : ClassVersion.ORIGINAL;
     }
 
     /**
@@ -405,6 +458,9 @@ public final class MerkleDbTableConfig implements SelfSerializable {
         out.writeSerializable(null, true); // key serializer
         out.writeShort(0); // value version
         out.writeSerializable(null, true); // value serializer
+        if (compactionPolicy != null) {
+            out.writeInt(compactionPolicy.id());
+        }
     }
 
     /**
@@ -421,6 +477,11 @@ public final class MerkleDbTableConfig implements SelfSerializable {
         in.readSerializable(); // key serializer
         in.readShort(); // value version
         in.readSerializable(); // value serializer
+        if (version >= ClassVersion.COMPACTION_POLICY) {
+            compactionPolicy = CompactionPolicyType.valueOf(in.readInt());
+        } else {
+            compactionPolicy = null;
+        }
     }
 
     /**
@@ -433,6 +494,7 @@ public final class MerkleDbTableConfig implements SelfSerializable {
         copy.preferDiskIndices(preferDiskBasedIndices);
         copy.hashesRamToDiskThreshold(hashesRamToDiskThreshold);
         copy.maxNumberOfKeys(maxNumberOfKeys);
+        copy.compactionPolicy(compactionPolicy);
         return copy;
     }
 
@@ -441,7 +503,13 @@ public final class MerkleDbTableConfig implements SelfSerializable {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(hashVersion, hashType, preferDiskBasedIndices, maxNumberOfKeys, hashesRamToDiskThreshold);
+        return Objects.hash(
+                hashVersion,
+                hashType,
+                preferDiskBasedIndices,
+                maxNumberOfKeys,
+                hashesRamToDiskThreshold,
+                compactionPolicy);
     }
 
     /**
@@ -456,6 +524,7 @@ public final class MerkleDbTableConfig implements SelfSerializable {
                 && (maxNumberOfKeys == other.maxNumberOfKeys)
                 && (hashesRamToDiskThreshold == other.hashesRamToDiskThreshold)
                 && (hashVersion == other.hashVersion)
-                && Objects.equals(hashType, other.hashType);
+                && Objects.equals(hashType, other.hashType)
+                && (compactionPolicy == other.compactionPolicy);
     }
 }
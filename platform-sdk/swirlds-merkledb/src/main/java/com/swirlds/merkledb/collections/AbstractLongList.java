@@ -22,17 +22,21 @@ import static java.lang.Math.max;
 import static java.lang.Math.min;
 import static java.lang.Math.toIntExact;
 
+import com.swirlds.merkledb.utilities.MemoryUtils;
 import com.swirlds.merkledb.utilities.MerkleDbFileUtils;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.stream.LongStream;
 import java.util.stream.StreamSupport;
@@ -72,6 +76,10 @@ public abstract class AbstractLongList<C> implements LongList {
     private static final int MIN_VALID_INDEX_SUPPORT_VERSION = 2;
     /** The version number for format of current data files */
     private static final int CURRENT_FILE_FORMAT_VERSION = MIN_VALID_INDEX_SUPPORT_VERSION;
+    /** Delta file format, contains only chunks changed since the base file, see {@link #writeDeltaToFile} */
+    private static final int DELTA_FILE_FORMAT_VERSION = 3;
+    /** The suffix of a base file name, a base file is stored next to the delta file that references it */
+    public static final String DELTA_BASE_FILE_SUFFIX = ".base";
     /** The number of bytes required to store file version */
     protected static final int VERSION_METADATA_SIZE = Integer.BYTES;
     /** The number of bytes to read for format metadata, v1: <br>
@@ -90,6 +98,14 @@ public abstract class AbstractLongList<C> implements LongList {
     protected static final int FILE_HEADER_SIZE_V1 = VERSION_METADATA_SIZE + FORMAT_METADATA_SIZE_V1;
     /** The number for bytes to read for file header, v2 */
     protected static final int FILE_HEADER_SIZE_V2 = VERSION_METADATA_SIZE + FORMAT_METADATA_SIZE_V2;
+    /** The number for bytes to read for delta file header, after the version:
+     * - number of longs per chunk<br>
+     * - max number of longs supported by the list<br>
+     * - min valid index<br>
+     * - size<br>
+     * - number of chunks in the delta<br>
+     */
+    private static final int DELTA_FORMAT_METADATA_SIZE = Integer.BYTES + Long.BYTES * 3 + Integer.BYTES;
     /** File header size for the latest format */
     protected final int currentFileHeaderSize;
 
@@ -126,6 +142,18 @@ public abstract class AbstractLongList<C> implements LongList {
      */
     protected final long reservedBufferLength;
 
+    /**
+     * A bit per chunk, set when the chunk is changed since {@link #baseFile} was written. Used to write
+     * delta snapshots in {@link #writeDeltaToFile(Path, int)}.
+     */
+    private final AtomicLongArray dirtyChunks = new AtomicLongArray(MAX_NUM_CHUNKS / Long.SIZE);
+
+    /**
+     * The last full snapshot of this list, which delta snapshots are written against. Null if there is
+     * no such file, then the next delta snapshot is written as a full snapshot.
+     */
+    private volatile Path baseFile;
+
     /**
      * Construct a new LongList with the specified number of longs per chunk and maximum number of
      * longs.
@@ -177,7 +205,10 @@ public abstract class AbstractLongList<C> implements LongList {
             chunkList = new AtomicReferenceArray<>(calculateNumberOfChunks(maxLongs));
             onEmptyOrAbsentSourceFile(path);
         } else {
-            try (final FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // a delta file is merged with its base file into a temporary full file, which is loaded as usual
+            final Path deltaBaseFile = isDeltaFile(path) ? deltaBaseFile(path) : null;
+            final Path sourceFile = deltaBaseFile != null ? reconstructFromDelta(path, deltaBaseFile) : path;
+            try (final FileChannel fileChannel = FileChannel.open(sourceFile, StandardOpenOption.READ)) {
                 // read header from existing file
                 final ByteBuffer versionBuffer = readFromFileChannel(fileChannel, VERSION_METADATA_SIZE);
                 final int formatVersion = versionBuffer.getInt();
@@ -216,6 +247,15 @@ public abstract class AbstractLongList<C> implements LongList {
                 maxValidIndex.set(size.get() - 1);
                 chunkList = new AtomicReferenceArray<>(calculateNumberOfChunks(maxLongs));
                 readBodyFromFileChannelOnInit(file.getName(), fileChannel);
+                if (deltaBaseFile != null) {
+                    baseFile = deltaBaseFile;
+                } else if (formatVersion == CURRENT_FILE_FORMAT_VERSION) {
+                    baseFile = path;
+                }
+            } finally {
+                if (deltaBaseFile != null) {
+                    Files.deleteIfExists(sourceFile);
+                }
             }
         }
     }
@@ -280,6 +320,20 @@ public abstract class AbstractLongList<C> implements LongList {
         putImpl(index, value);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final long getAndSet(final long index, final long value) {
+        checkIndex(index);
+        checkValue(value);
+        final C chunk = createOrGetChunk(index);
+        final int subIndex = toIntExact(index % numLongsPerChunk);
+        final long oldValue = getAndSetInChunk(chunk, subIndex, value);
+        markChunkDirty(toIntExact(index / numLongsPerChunk));
+        return oldValue;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -289,6 +343,19 @@ public abstract class AbstractLongList<C> implements LongList {
         putImpl(index, IMPERMISSIBLE_VALUE);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final long getAndRemove(final long index) {
+        checkIndex(index);
+        final C chunk = createOrGetChunk(index);
+        final int subIndex = toIntExact(index % numLongsPerChunk);
+        final long oldValue = getAndSetInChunk(chunk, subIndex, IMPERMISSIBLE_VALUE);
+        markChunkDirty(toIntExact(index / numLongsPerChunk));
+        return oldValue;
+    }
+
     private void putImpl(final long index, final long value) {
         assert index >= minValidIndex.get()
                 : String.format("Index %d is less than min valid index %d", index, minValidIndex.get());
@@ -297,6 +364,8 @@ public abstract class AbstractLongList<C> implements LongList {
         final C chunk = createOrGetChunk(index);
         final int subIndex = toIntExact(index % numLongsPerChunk);
         putToChunk(chunk, subIndex, value);
+        // the chunk is marked dirty after it's updated, so a concurrent full snapshot can't miss the change
+        markChunkDirty(toIntExact(index / numLongsPerChunk));
     }
 
     /**
@@ -307,6 +376,15 @@ public abstract class AbstractLongList<C> implements LongList {
      */
     protected abstract void putToChunk(C chunk, int subIndex, long value);
 
+    /**
+     * Atomically stores a long in the given chunk at subIndex and returns the previous long.
+     * @param chunk the chunk to use
+     * @param subIndex the subIndex to use
+     * @param value the long to store
+     * @return the previous long at subIndex
+     */
+    protected abstract long getAndSetInChunk(C chunk, int subIndex, long value);
+
     /**
      * Stores a long at the given index, on the condition that the current long therein has a given
      * value.
@@ -334,6 +412,7 @@ public abstract class AbstractLongList<C> implements LongList {
         if (result) {
             // update the size if necessary
             size.getAndUpdate(oldSize -> index >= oldSize ? (index + 1) : oldSize);
+            markChunkDirty(chunkIndex);
         }
         return result;
     }
@@ -413,6 +492,266 @@ public abstract class AbstractLongList<C> implements LongList {
         }
     }
 
+    /**
+     * Write a delta snapshot of this list into a file. A delta file contains only the chunks changed since
+     * the last full snapshot (the base file) of this list. The base file is hard linked next to the delta
+     * file, with {@link #DELTA_BASE_FILE_SUFFIX} appended to the name, so the snapshot directory is
+     * self-contained, and older snapshot directories can be deleted in any order.
+     * <p>
+     * Deltas are cumulative, every delta contains all chunks changed since the base file, so a delta is
+     * never applied on top of another delta. When there is no base file yet, the base file can't be linked,
+     * or the share of changed chunks exceeds {@code maxDirtyChunksPercent}, the delta chain is compacted:
+     * a full snapshot is written to the file, and it becomes the base file for the next deltas.
+     * <p>
+     * Files written by this method are loaded by the {@code (Path)} constructors, the same way as files
+     * written by {@link #writeToFile(Path)}. Same as for {@link #writeToFile(Path)}, it's not guaranteed
+     * what version of data will be written, if the list is changed while it's being written.
+     *
+     * @param file The file to write into. If it exists, it's replaced
+     * @param maxDirtyChunksPercent The max percent of changed chunks, when a delta is written rather than
+     *                              a full snapshot. If zero, full snapshots are always written
+     * @throws IOException If there was a problem creating or writing to the file
+     */
+    @Override
+    public void writeDeltaToFile(final Path file, final int maxDirtyChunksPercent) throws IOException {
+        final Path currentBaseFile = baseFile;
+        final Path baseLink = deltaBaseFile(file);
+        // a delta is only written for a list with a valid range, same as a full snapshot
+        if ((currentBaseFile != null)
+                && (minValidIndex.get() >= 0)
+                && (dirtyChunksPercent() <= maxDirtyChunksPercent)) {
+            try {
+                // the base file may be the file to write, so it's linked before the file is replaced
+                if (!Files.exists(baseLink) || !Files.isSameFile(baseLink, currentBaseFile)) {
+                    Files.deleteIfExists(baseLink);
+                    Files.createLink(baseLink, currentBaseFile);
+                }
+                Files.deleteIfExists(file);
+                writeDelta(file);
+                baseFile = baseLink;
+                return;
+            } catch (final IOException e) {
+                // the base file is not available (e.g. deleted), compact to a new base file below
+                Files.deleteIfExists(file);
+            }
+        }
+        // compaction. Dirty bits are cleared before the full snapshot is written, chunks changed
+        // concurrently are marked dirty again. If the snapshot fails, the next one is a full snapshot
+        baseFile = null;
+        for (int i = 0; i < dirtyChunks.length(); i++) {
+            dirtyChunks.set(i, 0);
+        }
+        Files.deleteIfExists(baseLink);
+        // the file may be linked as a base file to other snapshots, it must not be modified in place
+        Files.deleteIfExists(file);
+        writeToFile(file);
+        baseFile = file;
+    }
+
+    /**
+     * Writes all dirty chunks to a delta file.
+     *
+     * @param file The file to write into, it should not exist
+     * @throws IOException If there was a problem creating or writing to the file
+     */
+    private void writeDelta(final Path file) throws IOException {
+        final long currentSize = size.get();
+        final int firstChunk = toIntExact(max(minValidIndex.get(), 0) / numLongsPerChunk);
+        final int lastChunk = toIntExact((currentSize + numLongsPerChunk - 1) / numLongsPerChunk);
+        final List<Integer> chunkIndices = new ArrayList<>();
+        for (int i = firstChunk; i < lastChunk; i++) {
+            if (isChunkDirty(i)) {
+                chunkIndices.add(i);
+            }
+        }
+        try (final FileChannel fc = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            final ByteBuffer headerBuffer = ByteBuffer.allocate(VERSION_METADATA_SIZE + DELTA_FORMAT_METADATA_SIZE);
+            headerBuffer.putInt(DELTA_FILE_FORMAT_VERSION);
+            headerBuffer.putInt(numLongsPerChunk);
+            headerBuffer.putLong(maxLongs);
+            headerBuffer.putLong(minValidIndex.get());
+            headerBuffer.putLong(currentSize);
+            headerBuffer.putInt(chunkIndices.size());
+            headerBuffer.flip();
+            MerkleDbFileUtils.completelyWrite(fc, headerBuffer);
+            final ByteBuffer chunkIndexBuffer = ByteBuffer.allocate(Integer.BYTES);
+            for (final int chunkIndex : chunkIndices) {
+                chunkIndexBuffer.clear();
+                chunkIndexBuffer.putInt(chunkIndex);
+                chunkIndexBuffer.flip();
+                MerkleDbFileUtils.completelyWrite(fc, chunkIndexBuffer);
+                writeChunkData(fc, chunkList.get(chunkIndex));
+            }
+            fc.force(true);
+        }
+    }
+
+    /**
+     * Writes a complete chunk, {@link #memoryChunkSize} bytes, at the current position of the file channel.
+     * The default implementation looks up longs one by one, subclasses may override it with a bulk copy.
+     *
+     * @param fc The file channel to write to
+     * @param chunk The chunk to write, if null, zeroes are written
+     * @throws IOException If there was a problem writing the chunk
+     */
+    protected void writeChunkData(final FileChannel fc, final C chunk) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(memoryChunkSize).order(ByteOrder.nativeOrder());
+        try {
+            if (chunk != null) {
+                for (int i = 0; i < numLongsPerChunk; i++) {
+                    buffer.putLong(lookupInChunk(chunk, i));
+                }
+            }
+            buffer.clear();
+            MerkleDbFileUtils.completelyWrite(fc, buffer);
+        } finally {
+            MemoryUtils.closeDirectByteBuffer(buffer);
+        }
+    }
+
+    /**
+     * Merges a delta file with its base file into a new temporary full file in the current format. Chunks
+     * in the delta file are marked dirty, as they are still changed compared to the base file. This method
+     * is called from the constructor, before any other fields are initialized.
+     *
+     * @param deltaFile The delta file
+     * @param deltaBaseFile The base file of the delta
+     * @return the temporary full file, to be deleted by the caller
+     * @throws IOException If there was a problem reading the files, or they are inconsistent
+     */
+    private Path reconstructFromDelta(final Path deltaFile, final Path deltaBaseFile) throws IOException {
+        final Path fullFile = deltaFile.resolveSibling(deltaFile.getFileName() + ".tmp");
+        try (final FileChannel deltaChannel = FileChannel.open(deltaFile, StandardOpenOption.READ);
+                final FileChannel baseChannel = FileChannel.open(deltaBaseFile, StandardOpenOption.READ);
+                final FileChannel fullChannel = FileChannel.open(
+                        fullFile,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.WRITE)) {
+            // delta header, the version is already checked
+            final ByteBuffer header =
+                    readFromFileChannel(deltaChannel, VERSION_METADATA_SIZE + DELTA_FORMAT_METADATA_SIZE);
+            header.getInt();
+            final int chunkLongs = header.getInt();
+            final long deltaMaxLongs = header.getLong();
+            final long deltaMinValidIndex = header.getLong();
+            final long deltaSize = header.getLong();
+            final int deltaChunkCount = header.getInt();
+            // base header
+            final ByteBuffer baseHeader = readFromFileChannel(baseChannel, FILE_HEADER_SIZE_V2);
+            final int baseVersion = baseHeader.getInt();
+            final int baseChunkLongs = baseHeader.getInt();
+            baseHeader.getLong();
+            final long baseMinValidIndex = baseHeader.getLong();
+            if ((baseVersion != MIN_VALID_INDEX_SUPPORT_VERSION) || (baseChunkLongs != chunkLongs)) {
+                throw new IOException("Base file " + deltaBaseFile + " doesn't match delta file " + deltaFile);
+            }
+            final long baseSize = baseMinValidIndex + (baseChannel.size() - FILE_HEADER_SIZE_V2) / Long.BYTES;
+            // positions of changed chunks in the delta file
+            final long chunkBytes = (long) chunkLongs * Long.BYTES;
+            final long[] deltaChunkPositions = new long[toIntExact((deltaSize + chunkLongs - 1) / chunkLongs)];
+            long position = VERSION_METADATA_SIZE + DELTA_FORMAT_METADATA_SIZE;
+            for (int i = 0; i < deltaChunkCount; i++) {
+                final int chunkIndex = readFromFileChannel(deltaChannel, Integer.BYTES).getInt();
+                deltaChunkPositions[chunkIndex] = position + Integer.BYTES;
+                markChunkDirty(chunkIndex);
+                position += Integer.BYTES + chunkBytes;
+                deltaChannel.position(position);
+            }
+            // full file header
+            final ByteBuffer fullHeader = ByteBuffer.allocate(FILE_HEADER_SIZE_V2);
+            fullHeader.putInt(MIN_VALID_INDEX_SUPPORT_VERSION);
+            fullHeader.putInt(chunkLongs);
+            fullHeader.putLong(deltaMaxLongs);
+            fullHeader.putLong(deltaMinValidIndex);
+            fullHeader.flip();
+            MerkleDbFileUtils.completelyWrite(fullChannel, fullHeader);
+            // full file body, from min valid index to size. Every index is taken from the delta file, if
+            // its chunk is changed, or from the base file, or is zero, if it's out of the base file range
+            final ByteBuffer buffer = ByteBuffer.allocate(toIntExact(chunkBytes));
+            long index = max(deltaMinValidIndex, 0);
+            while (index < deltaSize) {
+                final int chunkIndex = toIntExact(index / chunkLongs);
+                final long chunkEnd = min((long) (chunkIndex + 1) * chunkLongs, deltaSize);
+                final long deltaChunkPosition = deltaChunkPositions[chunkIndex];
+                final long end;
+                buffer.clear();
+                if (deltaChunkPosition != 0) {
+                    end = chunkEnd;
+                    buffer.limit(toIntExact((end - index) * Long.BYTES));
+                    MerkleDbFileUtils.completelyRead(
+                            deltaChannel, buffer, deltaChunkPosition + (index % chunkLongs) * Long.BYTES);
+                } else if ((index >= baseMinValidIndex) && (index < baseSize)) {
+                    end = min(chunkEnd, baseSize);
+                    buffer.limit(toIntExact((end - index) * Long.BYTES));
+                    MerkleDbFileUtils.completelyRead(
+                            baseChannel, buffer, FILE_HEADER_SIZE_V2 + (index - baseMinValidIndex) * Long.BYTES);
+                } else {
+                    end = (index < baseMinValidIndex) ? min(chunkEnd, baseMinValidIndex) : chunkEnd;
+                    buffer.limit(toIntExact((end - index) * Long.BYTES));
+                }
+                buffer.flip();
+                MerkleDbFileUtils.completelyWrite(fullChannel, buffer);
+                index = end;
+            }
+        } catch (final IOException | RuntimeException e) {
+            Files.deleteIfExists(fullFile);
+            throw e;
+        }
+        return fullFile;
+    }
+
+    /**
+     * Checks if the given file is a delta file written by {@link #writeDeltaToFile(Path, int)}.
+     */
+    private static boolean isDeltaFile(final Path file) throws IOException {
+        try (final FileChannel fc = FileChannel.open(file, StandardOpenOption.READ)) {
+            return (fc.size() >= VERSION_METADATA_SIZE)
+                    && (readFromFileChannel(fc, VERSION_METADATA_SIZE).getInt() == DELTA_FILE_FORMAT_VERSION);
+        }
+    }
+
+    /**
+     * Returns the base file, which is stored next to the given delta file.
+     */
+    private static Path deltaBaseFile(final Path deltaFile) {
+        return deltaFile.resolveSibling(deltaFile.getFileName() + DELTA_BASE_FILE_SUFFIX);
+    }
+
+    private void markChunkDirty(final int chunkIndex) {
+        final int i = chunkIndex / Long.SIZE;
+        final long bit = 1L << chunkIndex;
+        // check first to avoid contended writes, when many threads update values in the same chunk
+        if ((dirtyChunks.get(i) & bit) == 0) {
+            dirtyChunks.accumulateAndGet(i, bit, (a, b) -> a | b);
+        }
+    }
+
+    private boolean isChunkDirty(final int chunkIndex) {
+        return (dirtyChunks.get(chunkIndex / Long.SIZE) & (1L << chunkIndex)) != 0;
+    }
+
+    /**
+     * Gets the percent of changed chunks since the base file, among all chunks in the valid range. Used to
+     * decide whether to write a delta or a full snapshot.
+     *
+     * @return percent of changed chunks, 0 to 100
+     */
+    int dirtyChunksPercent() {
+        final int firstChunk = toIntExact(max(minValidIndex.get(), 0) / numLongsPerChunk);
+        final int lastChunk = toIntExact((size.get() + numLongsPerChunk - 1) / numLongsPerChunk);
+        if (lastChunk <= firstChunk) {
+            return 0;
+        }
+        int dirty = 0;
+        for (int i = firstChunk; i < lastChunk; i++) {
+            if (isChunkDirty(i)) {
+                dirty++;
+            }
+        }
+        return toIntExact(dirty * 100L / (lastChunk - firstChunk));
+    }
+
     /**
      * Write or rewrite header in file
      *
@@ -516,6 +855,7 @@ public abstract class AbstractLongList<C> implements LongList {
             final C chunk = chunkList.get(i);
             if (chunk != null && chunkList.compareAndSet(i, chunk, null)) {
                 closeChunk(chunk);
+                markChunkDirty(i);
             }
         }
 
@@ -525,6 +865,7 @@ public abstract class AbstractLongList<C> implements LongList {
         C chunk = chunkList.get(firstChunkWithDataIndex);
         if (chunk != null && numberOfElementsToCleanUp > 0) {
             partialChunkCleanup(chunk, true, numberOfElementsToCleanUp);
+            markChunkDirty(firstChunkWithDataIndex);
         }
 
         // clean up chunk(s) reserved for buffer
@@ -532,6 +873,7 @@ public abstract class AbstractLongList<C> implements LongList {
             chunk = chunkList.get(i);
             if (chunk != null) {
                 partialChunkCleanup(chunk, true, numLongsPerChunk);
+                markChunkDirty(i);
             }
         }
     }
@@ -553,6 +895,7 @@ public abstract class AbstractLongList<C> implements LongList {
             final C chunk = chunkList.get(i);
             if (chunk != null && chunkList.compareAndSet(i, chunk, null)) {
                 closeChunk(chunk);
+                markChunkDirty(i);
             }
         }
 
@@ -562,6 +905,7 @@ public abstract class AbstractLongList<C> implements LongList {
         C chunk = chunkList.get(firstChunkWithDataIndex);
         if (chunk != null && numberOfEntriesToCleanUp > 0) {
             partialChunkCleanup(chunk, false, numberOfEntriesToCleanUp);
+            markChunkDirty(firstChunkWithDataIndex);
         }
 
         // clean up chunk(s) reserved for buffer
@@ -569,6 +913,7 @@ public abstract class AbstractLongList<C> implements LongList {
             chunk = chunkList.get(i);
             if (chunk != null) {
                 partialChunkCleanup(chunk, false, numLongsPerChunk);
+                markChunkDirty(i);
             }
         }
     }
@@ -649,6 +994,25 @@ public abstract class AbstractLongList<C> implements LongList {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public <T extends Throwable> void forEach(final long fromIndex, final long toIndex, final LongAction<T> action)
+            throws InterruptedException, T {
+        final long max = maxValidIndex.get();
+        if (max < 0) {
+            // Empty list, nothing to do
+            return;
+        }
+        final long from = Math.max(Math.max(fromIndex, minValidIndex.get()), 0);
+        final long to = Math.min(toIndex, max + 1);
+        for (long i = from; i < to; i++) {
+            final long value = get(i);
+            if (value != IMPERMISSIBLE_VALUE) {
+                action.handle(i, value);
+            }
+        }
+    }
+
     /**
      * This method returns a snapshot of the current data. FOR TEST PURPOSES ONLY. NOT
      * THREAD SAFE
@@ -56,6 +56,27 @@ public interface CASableLongIndex {
      */
     <T extends Throwable> void forEach(LongAction<T> action) throws InterruptedException, T;
 
+    /**
+     * Iterates over all valid index entries in the given range and calls the specified action for
+     * each of them. The default implementation iterates over all entries and skips the ones outside
+     * the range, implementations are encouraged to override it.
+     *
+     * @param fromIndex the first index to iterate over, inclusive
+     * @param toIndex the last index to iterate over, exclusive
+     * @param action Action to call.
+     * @param <T> Type of throwables allowed to throw by this method
+     * @throws InterruptedException If the thread running the method is interrupted
+     * @throws T If an error occurs
+     */
+    default <T extends Throwable> void forEach(final long fromIndex, final long toIndex, final LongAction<T> action)
+            throws InterruptedException, T {
+        forEach((index, value) -> {
+            if ((index >= fromIndex) && (index < toIndex)) {
+                action.handle(index, value);
+            }
+        });
+    }
+
     /**
      * Action interface to use in {@link #forEach(LongAction)}. It could be a standard Java API
      * interface like BiFunction, but all these APIs work with boxed Long type instead of
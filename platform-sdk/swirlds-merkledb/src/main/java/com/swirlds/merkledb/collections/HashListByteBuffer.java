@@ -83,10 +83,8 @@ public final class HashListByteBuffer implements HashList, OffHeapUser {
 
     /**
      * The current maximum index that can be stored. This is determined dynamically based on the
-     * actual indexes used. It will grow, but never shrinks. Ultimately it would be nice to have
-     * some way to shrink this based on knowledge other parts of the system have about how many
-     * hashes need to be stored, but in the real system, this isn't important because we don't
-     * shrink the state size that dramatically, and on a reboot, this would be reset anyway.
+     * actual indexes used. It grows as needed, and only shrinks when the list is {@link #truncate(long) truncated}
+     * by a caller that knows the hashes above some index are no longer needed.
      */
     private final AtomicLong maxIndexThatCanBeStored = new AtomicLong(-1);
 
@@ -216,11 +214,18 @@ public final class HashListByteBuffer implements HashList, OffHeapUser {
 
         // Note: if there is a race between the reader and a writer, such that the writer is
         // writing to a higher index than `maxIndexThatCanBeStored`, this is OK.
-        if (index <= maxIndexThatCanBeStored.get()) {
-            return byteBufferToHash(getBuffer(index), HashTools.getSerializationVersion());
-        } else {
+        if (index > maxIndexThatCanBeStored.get()) {
             return null;
         }
+        // The buffer may be removed by a concurrent truncate() after the index is checked above
+        final int bufferIndex = (int) (index / numHashesPerBuffer);
+        final ByteBuffer buffer;
+        try {
+            buffer = data.get(bufferIndex);
+        } catch (final IndexOutOfBoundsException e) {
+            return null;
+        }
+        return byteBufferToHash(sliceHash(buffer, index), HashTools.getSerializationVersion());
     }
 
     /**
@@ -276,6 +281,39 @@ public final class HashListByteBuffer implements HashList, OffHeapUser {
         return maxHashes;
     }
 
+    /**
+     * Remove all hashes at and above the given index, and drop the buffers that only held such hashes. The buffers
+     * aren't freed explicitly, since a concurrent reader may still use them, off-heap memory is released when they
+     * are garbage collected. {@link #get(long)} may be called concurrently, it returns null for hashes in removed
+     * buffers. Must not be called concurrently with {@link #put(long, Hash)}.
+     *
+     * @param newSize
+     * 		the number of hashes to keep
+     */
+    public void truncate(final long newSize) {
+        if (newSize < 0) {
+            throw new IllegalArgumentException("Cannot truncate to a negative size " + newSize);
+        }
+        if (newSize >= size()) {
+            return;
+        }
+        final int buffersToKeep = (int) ((newSize + numHashesPerBuffer - 1) / numHashesPerBuffer);
+        final int hashesInLastBuffer = (int) (newSize % numHashesPerBuffer);
+        if (hashesInLastBuffer != 0) {
+            // clear the removed hashes in the last buffer kept, they must not reappear if the list grows again
+            final ByteBuffer buffer = data.get(buffersToKeep - 1).slice();
+            buffer.position(hashesInLastBuffer * HASH_SIZE_BYTES);
+            while (buffer.hasRemaining()) {
+                buffer.put((byte) 0);
+            }
+        }
+        maxIndexThatCanBeStored.set((long) buffersToKeep * numHashesPerBuffer - 1);
+        numberOfHashesStored.set(newSize);
+        while (data.size() > buffersToKeep) {
+            data.remove(data.size() - 1);
+        }
+    }
+
     /**
      * Write all hashes in this HashList into a file
      *
@@ -348,11 +386,24 @@ public final class HashListByteBuffer implements HashList, OffHeapUser {
 
         // Figure out which buffer in `data` will contain the index
         final int bufferIndex = (int) (index / numHashesPerBuffer);
+        return sliceHash(data.get(bufferIndex), index);
+    }
+
+    /**
+     * Get a slice of the given buffer, which holds the hash at the given index.
+     *
+     * @param dataBuffer
+     * 		the buffer from {@link #data}, which contains the index
+     * @param index
+     * 		the hash index
+     * @return The slice of the buffer for the hash
+     */
+    private ByteBuffer sliceHash(final ByteBuffer dataBuffer, final long index) {
         // Create a new sub-buffer (slice). This is necessary for threading. In Java versions < 13, you must
         // have a unique buffer for each thread, because each buffer has its own position and limit state.
         // Once we have the buffer, compute the index within the buffer and the offset and then set the
         // position and limit appropriately.
-        final ByteBuffer buffer = data.get(bufferIndex).slice(); // for threading
+        final ByteBuffer buffer = dataBuffer.slice(); // for threading
         final int subIndex = (int) (index % numHashesPerBuffer);
         final int offset = HASH_SIZE_BYTES * subIndex;
         buffer.position(offset);
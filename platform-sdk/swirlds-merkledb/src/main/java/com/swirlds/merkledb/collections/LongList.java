@@ -61,6 +61,17 @@ public interface LongList extends CASableLongIndex, Closeable {
      */
     void put(long index, long value);
 
+    /**
+     * Atomically stores a long at the given index and returns the long previously stored there.
+     *
+     * @param index the index to use
+     * @param value the long to store
+     * @return the previous long at the index, or {@link #IMPERMISSIBLE_VALUE} if it was not set
+     * @throws IndexOutOfBoundsException if the index is negative or beyond the max capacity of the list
+     * @throws IllegalArgumentException  if the value is zero
+     */
+    long getAndSet(long index, long value);
+
     /**
      * Marks the index as not containing a valid long value.
      *
@@ -68,6 +79,15 @@ public interface LongList extends CASableLongIndex, Closeable {
      */
     void remove(long index);
 
+    /**
+     * Atomically marks the index as not containing a valid long value and returns the long previously
+     * stored there.
+     *
+     * @param index the index to clear
+     * @return the previous long at the index, or {@link #IMPERMISSIBLE_VALUE} if it was not set
+     */
+    long getAndRemove(long index);
+
     /**
      * Stores a long at the given index, on the condition that the current long therein has a given
      * value.
@@ -118,6 +138,20 @@ public interface LongList extends CASableLongIndex, Closeable {
      */
     void writeToFile(Path file) throws IOException;
 
+    /**
+     * Write a delta snapshot of this LongList into a file. A delta snapshot contains only the data changed
+     * since the previous full snapshot, which is referenced by the delta. Implementations that don't support
+     * delta snapshots write a full snapshot, same as {@link #writeToFile(Path)}.
+     *
+     * @param file The file to write into. If it exists, it's replaced
+     * @param maxDirtyChunksPercent The max percent of changed data, when a delta is written rather than
+     *                              a full snapshot
+     * @throws IOException If there was a problem creating or writing to the file.
+     */
+    default void writeDeltaToFile(Path file, int maxDirtyChunksPercent) throws IOException {
+        writeToFile(file);
+    }
+
     /**
      * Updates min and max valid indexes in this list. If both values are -1, this indicates
      * the list is empty.
@@ -31,6 +31,8 @@ import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
 
 /**
@@ -39,7 +41,10 @@ import java.util.concurrent.ConcurrentLinkedDeque;
  *  it will take the name of the file provided by the user and create a temporary file with this name.
  * <p>
  *  Unlike the "snapshot" file, the temporary files doesn't contain the header, only the body.
- *
+ * <p>
+ *  Optionally, reads can be served from an off-heap page cache, see {@link LongListDiskPageCache}. Sequential
+ *  scans then load multiple pages with a single file read, and chunks can be pinned in the cache using
+ *  {@link #pinChunk(int)}.
  */
 public class LongListDisk extends AbstractLongList<Long> {
 
@@ -67,6 +72,12 @@ public class LongListDisk extends AbstractLongList<Long> {
      */
     private final Deque<Long> freeChunks;
 
+    /** Off-heap page cache for reads, or null if reads aren't cached */
+    private final LongListDiskPageCache pageCache;
+
+    /** File offsets of pinned chunks, by chunk index */
+    private final Map<Integer, Long> pinnedChunks = new ConcurrentHashMap<>();
+
     static {
         TRANSFER_BUFFER_THREAD_LOCAL = new ThreadLocal<>();
         // it's initialized as 8 bytes (Long.BYTES) but likely it's going to be resized later
@@ -82,6 +93,15 @@ public class LongListDisk extends AbstractLongList<Long> {
     }
 
     LongListDisk(final int numLongsPerChunk, final long maxLongs, final long reservedBufferLength) {
+        this(numLongsPerChunk, maxLongs, reservedBufferLength, 0, 0);
+    }
+
+    LongListDisk(
+            final int numLongsPerChunk,
+            final long maxLongs,
+            final long reservedBufferLength,
+            final long pageCacheSize,
+            final int readAheadPages) {
         super(numLongsPerChunk, maxLongs, reservedBufferLength);
         try {
             currentFileChannel = FileChannel.open(
@@ -94,6 +114,7 @@ public class LongListDisk extends AbstractLongList<Long> {
         }
         freeChunks = new ConcurrentLinkedDeque<>();
         fillBufferWithZeroes(initOrGetTransferBuffer());
+        pageCache = createPageCache(currentFileChannel, pageCacheSize, readAheadPages);
     }
 
     /**
@@ -106,7 +127,25 @@ public class LongListDisk extends AbstractLongList<Long> {
         this(file, DEFAULT_RESERVED_BUFFER_LENGTH);
     }
 
+    /**
+     * Create a {@link LongListDisk} on a file with an off-heap page cache for reads. If the file doesn't exist it
+     * will be created.
+     *
+     * @param file The file to read and write to
+     * @param pageCacheSize The page cache size in bytes, or zero to read without a cache
+     * @param readAheadPages Max number of pages to read at once when the list is read sequentially
+     * @throws IOException If there was a problem reading the file
+     */
+    public LongListDisk(final Path file, final long pageCacheSize, final int readAheadPages) throws IOException {
+        this(file, DEFAULT_RESERVED_BUFFER_LENGTH, pageCacheSize, readAheadPages);
+    }
+
     LongListDisk(final Path file, final long reservedBufferLength) throws IOException {
+        this(file, reservedBufferLength, 0, 0);
+    }
+
+    LongListDisk(final Path file, final long reservedBufferLength, final long pageCacheSize, final int readAheadPages)
+            throws IOException {
         super(file, reservedBufferLength);
         freeChunks = new ConcurrentLinkedDeque<>();
         // IDE complains that the tempFile is not initialized, but it's initialized in readBodyFromFileChannelOnInit
@@ -117,6 +156,15 @@ public class LongListDisk extends AbstractLongList<Long> {
         }
         currentFileChannel = FileChannel.open(
                 tempFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        pageCache = createPageCache(currentFileChannel, pageCacheSize, readAheadPages);
+    }
+
+    private static LongListDiskPageCache createPageCache(
+            final FileChannel fileChannel, final long pageCacheSize, final int readAheadPages) {
+        if (pageCacheSize < LongListDiskPageCache.PAGE_SIZE) {
+            return null;
+        }
+        return new LongListDiskPageCache(fileChannel, pageCacheSize, Math.max(1, readAheadPages));
     }
 
     /**
@@ -206,11 +254,22 @@ public class LongListDisk extends AbstractLongList<Long> {
             buf.putLong(0, value);
             buf.position(0);
             MerkleDbFileUtils.completelyWrite(currentFileChannel, buf, offset);
+            if (pageCache != null) {
+                pageCache.update(offset, value);
+            }
         } catch (final IOException e) {
             throw new UncheckedIOException(e);
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected synchronized long getAndSetInChunk(final Long chunk, final int subIndex, final long value) {
+        final long oldValue = lookupInChunk(chunk, subIndex);
+        putToChunk(chunk, subIndex, value);
+        return oldValue;
+    }
+
     /** {@inheritDoc} */
     @Override
     protected synchronized boolean putIfEqual(
@@ -226,6 +285,9 @@ public class LongListDisk extends AbstractLongList<Long> {
                 buf.putLong(0, newValue);
                 buf.position(0);
                 MerkleDbFileUtils.completelyWrite(currentFileChannel, buf, offset);
+                if (pageCache != null) {
+                    pageCache.update(offset, newValue);
+                }
                 return true;
             }
         } catch (final IOException e) {
@@ -291,6 +353,19 @@ public class LongListDisk extends AbstractLongList<Long> {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void writeChunkData(final FileChannel fc, final Long chunk) throws IOException {
+        final ByteBuffer transferBuffer = initOrGetTransferBuffer();
+        // the end of the last chunk may be beyond the end of the file, it must be written as zeroes
+        fillBufferWithZeroes(transferBuffer);
+        if (chunk != null) {
+            MerkleDbFileUtils.completelyRead(currentFileChannel, transferBuffer, chunk);
+            transferBuffer.clear();
+        }
+        MerkleDbFileUtils.completelyWrite(fc, transferBuffer);
+    }
+
     /**
      * Lookup a long in data
      *
@@ -301,6 +376,9 @@ public class LongListDisk extends AbstractLongList<Long> {
     @Override
     protected long lookupInChunk(@NonNull final Long chunkOffset, final long subIndex) {
         try {
+            if (pageCache != null) {
+                return pageCache.get(chunkOffset + subIndex * Long.BYTES);
+            }
             final ByteBuffer buf = TEMP_LONG_BUFFER_THREAD_LOCAL.get();
             // if there is nothing to read the buffer will have the default value
             buf.putLong(0, IMPERMISSIBLE_VALUE);
@@ -328,6 +406,10 @@ public class LongListDisk extends AbstractLongList<Long> {
             // now close
             currentFileChannel.close();
             freeChunks.clear();
+            pinnedChunks.clear();
+            if (pageCache != null) {
+                pageCache.close();
+            }
         } catch (final IOException e) {
             throw new UncheckedIOException(e);
         }
@@ -343,6 +425,15 @@ public class LongListDisk extends AbstractLongList<Long> {
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
+        if (pageCache != null) {
+            // the chunk may be reused for a different chunk index, it must not stay pinned
+            for (final Map.Entry<Integer, Long> entry : pinnedChunks.entrySet()) {
+                if (entry.getValue().equals(chunk) && pinnedChunks.remove(entry.getKey(), chunk)) {
+                    pageCache.unpin(chunk, memoryChunkSize);
+                }
+            }
+            pageCache.clear(chunk, memoryChunkSize);
+        }
         freeChunks.add(chunk);
     }
 
@@ -359,6 +450,9 @@ public class LongListDisk extends AbstractLongList<Long> {
             } catch (IOException e) {
                 throw new UncheckedIOException(e);
             }
+            if (pageCache != null) {
+                pageCache.clear(chunkOffset, entriesToCleanUp * Long.BYTES);
+            }
         } else {
             long cleanUpOffset = memoryChunkSize - (entriesToCleanUp * Long.BYTES);
             try {
@@ -366,6 +460,9 @@ public class LongListDisk extends AbstractLongList<Long> {
             } catch (IOException e) {
                 throw new UncheckedIOException(e);
             }
+            if (pageCache != null) {
+                pageCache.clear(chunkOffset + cleanUpOffset, entriesToCleanUp * Long.BYTES);
+            }
         }
     }
 
@@ -385,6 +482,62 @@ public class LongListDisk extends AbstractLongList<Long> {
         }
     }
 
+    /**
+     * Load all values of a chunk into the page cache and keep them there until {@link #unpinChunk(int)} is called,
+     * or the chunk is released. Pinning a chunk makes sense before multiple scans of the same index range.
+     *
+     * <p>Chunk pages are loaded without holding the list lock, so writers aren't blocked by the file reads. The
+     * page cache takes care of writes done while the pages are loaded. The pinned chunk is published after the
+     * pages are loaded, and then checked to still be in the list. A chunk released concurrently is either
+     * unpinned here, or by {@link #closeChunk(Long)}, which only runs after the chunk is removed from the list.
+     *
+     * @param chunkIndex the chunk index
+     * @return true if the chunk is pinned, false if there is no page cache, no such chunk, the chunk is already
+     *         pinned, or the page cache doesn't have enough space for the chunk
+     */
+    public boolean pinChunk(final int chunkIndex) {
+        if (pageCache == null || pinnedChunks.containsKey(chunkIndex)) {
+            return false;
+        }
+        final Long chunk = chunkList.get(chunkIndex);
+        if (chunk == null) {
+            return false;
+        }
+        try {
+            if (!pageCache.pin(chunk, memoryChunkSize)) {
+                return false;
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (pinnedChunks.putIfAbsent(chunkIndex, chunk) != null) {
+            // pinned by another thread in parallel
+            pageCache.unpin(chunk, memoryChunkSize);
+            return false;
+        }
+        if (!chunk.equals(chunkList.get(chunkIndex))) {
+            // the chunk was released in parallel, and may have been already unpinned in closeChunk()
+            if (pinnedChunks.remove(chunkIndex, chunk)) {
+                pageCache.unpin(chunk, memoryChunkSize);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Release a chunk previously pinned with {@link #pinChunk(int)}. If the chunk isn't pinned, this method
+     * does nothing.
+     *
+     * @param chunkIndex the chunk index
+     */
+    public void unpinChunk(final int chunkIndex) {
+        final Long chunk = pinnedChunks.remove(chunkIndex);
+        if (chunk != null) {
+            pageCache.unpin(chunk, memoryChunkSize);
+        }
+    }
+
     // exposed for test purposes only - DO NOT USE IN PROD CODE
     FileChannel getCurrentFileChannel() {
         return currentFileChannel;
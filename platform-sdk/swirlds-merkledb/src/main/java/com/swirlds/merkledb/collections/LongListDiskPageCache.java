@@ -0,0 +1,463 @@
+/*
+ * Copyright (C) 2024 Hedera Hashgraph, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.swirlds.merkledb.collections;
+
+import static java.lang.Math.toIntExact;
+
+import com.swirlds.merkledb.utilities.MerkleDbFileUtils;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * An off-heap cache of fixed size pages of a {@link LongListDisk} file. The cache is write-through:
+ * the file is always up-to-date, and every write to the file is followed by a call to {@link #update(long, long)}
+ * or {@link #clear(long, long)} to keep cached pages in sync.
+ *
+ * <p>Cached pages are evicted using the CLOCK algorithm. If a page is loaded right after the previous page
+ * in the file, access is considered sequential, and up to {@code readAheadPages} pages are loaded with
+ * a single file read. Pages can be pinned, pinned pages are never evicted. At most half of the cache can
+ * be pinned.
+ *
+ * <p>Lookups of cached pages are lock-free. Updates only take the write lock of the updated page. Page
+ * loads and evictions are guarded by a single cache lock, but file reads are done outside the lock. To
+ * make sure a page loaded concurrently with a write isn't stale, every write increments the write stamp
+ * of the written page's stripe, and a loaded page is removed from the cache again if there were writes
+ * to its stripe since the load was started. Writes to other stripes don't affect the load.
+ */
+final class LongListDiskPageCache {
+
+    /** Page size in bytes, matches the typical OS page size */
+    static final int PAGE_SIZE = 4096;
+
+    /** Number of pages allocated in a single direct buffer */
+    private static final int PAGES_PER_SLAB = 256;
+
+    /** Page index of free pages */
+    private static final long NO_PAGE = -1;
+
+    /** Number of write stamp stripes, must be a power of two */
+    private static final int WRITE_STAMP_STRIPES = 1024;
+
+    /** Max number of attempts to load a page to pin, if the cache is full of pages being loaded */
+    private static final int MAX_PIN_ATTEMPTS = 8;
+
+    /** A temp byte buffer to read longs, which can't be loaded into the cache */
+    private static final ThreadLocal<ByteBuffer> TEMP_LONG_BUFFER_THREAD_LOCAL =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(Long.BYTES).order(ByteOrder.nativeOrder()));
+
+    /** A temp direct byte buffer to read multiple pages at once */
+    private static final ThreadLocal<ByteBuffer> READ_BUFFER_THREAD_LOCAL = new ThreadLocal<>();
+
+    /**
+     * A cached page. Page buffer and index are changed under the page write lock, so they can be read
+     * using optimistic reads. Other fields are guarded by the cache lock.
+     */
+    private static final class Page {
+        final ByteBuffer buffer;
+        final StampedLock stampedLock = new StampedLock();
+        long index = NO_PAGE;
+        boolean loading = false;
+        int pinCount = 0;
+        volatile boolean referenced = false;
+
+        Page(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
+
+    /** The file to cache */
+    private final FileChannel fileChannel;
+
+    /** All pages, both free and cached */
+    private final Page[] pages;
+
+    /** Cached pages by page index in the file */
+    private final ConcurrentHashMap<Long, Page> pageMap;
+
+    /** Max number of pages to load at once on sequential access */
+    private final int readAheadPages;
+
+    /** Max total number of page pins */
+    private final int maxPins;
+
+    /** Guards page loads, evictions, pins, and the fields below */
+    private final Object lock = new Object();
+
+    /** Write stamps by page stripe, a stripe stamp is incremented on every write to a page in the stripe */
+    private final AtomicLongArray writeStamps = new AtomicLongArray(WRITE_STAMP_STRIPES);
+
+    /** Next page to check on eviction */
+    private int clockHand = 0;
+
+    /** Total number of page pins */
+    private int pins = 0;
+
+    /** Index of the last page loaded from the file, used to detect sequential access */
+    private volatile long lastLoadedPage = NO_PAGE;
+
+    /**
+     * Create a new page cache.
+     *
+     * @param fileChannel the file to cache
+     * @param cacheSize the cache size in bytes, must be at least one page
+     * @param readAheadPages max number of pages to load at once on sequential access
+     */
+    LongListDiskPageCache(@NonNull final FileChannel fileChannel, final long cacheSize, final int readAheadPages) {
+        this.fileChannel = Objects.requireNonNull(fileChannel);
+        final int numPages = toIntExact(cacheSize / PAGE_SIZE);
+        if (numPages < 1) {
+            throw new IllegalArgumentException("Page cache size must be at least " + PAGE_SIZE + ", not " + cacheSize);
+        }
+        if (readAheadPages < 1) {
+            throw new IllegalArgumentException("Read ahead pages must be positive, not " + readAheadPages);
+        }
+        pages = new Page[numPages];
+        for (int slabStart = 0; slabStart < numPages; slabStart += PAGES_PER_SLAB) {
+            final int slabPages = Math.min(PAGES_PER_SLAB, numPages - slabStart);
+            final ByteBuffer slab = ByteBuffer.allocateDirect(slabPages * PAGE_SIZE);
+            for (int i = 0; i < slabPages; i++) {
+                pages[slabStart + i] =
+                        new Page(slab.slice(i * PAGE_SIZE, PAGE_SIZE).order(ByteOrder.nativeOrder()));
+            }
+        }
+        pageMap = new ConcurrentHashMap<>(numPages);
+        // leave enough free pages for other loads
+        this.readAheadPages = Math.max(1, Math.min(readAheadPages, numPages / 4));
+        this.maxPins = numPages / 2;
+    }
+
+    /**
+     * Read a long at the given file offset. The page containing the long is loaded into the cache, if
+     * needed.
+     *
+     * @param offset the file offset, must be a multiple of {@link Long#BYTES}
+     * @return the long at the offset, or zero if the offset is beyond the end of the file
+     * @throws IOException if the file can't be read
+     */
+    long get(final long offset) throws IOException {
+        final long pageIndex = offset / PAGE_SIZE;
+        final int offsetInPage = (int) (offset % PAGE_SIZE);
+        final Page page = pageMap.get(pageIndex);
+        if (page != null) {
+            final StampedLock stampedLock = page.stampedLock;
+            long stamp = stampedLock.tryOptimisticRead();
+            long index = page.index;
+            long value = page.buffer.getLong(offsetInPage);
+            if (!stampedLock.validate(stamp)) {
+                stamp = stampedLock.readLock();
+                try {
+                    index = page.index;
+                    value = page.buffer.getLong(offsetInPage);
+                } finally {
+                    stampedLock.unlockRead(stamp);
+                }
+            }
+            // the page may be evicted after it's found in the map
+            if (index == pageIndex) {
+                page.referenced = true;
+                return value;
+            }
+        }
+        return load(pageIndex, offsetInPage);
+    }
+
+    /**
+     * Update a long in the cache. Must be called after the long is written to the file.
+     *
+     * @param offset the file offset, must be a multiple of {@link Long#BYTES}
+     * @param value the value written to the file
+     */
+    void update(final long offset, final long value) {
+        final long pageIndex = offset / PAGE_SIZE;
+        // the stamp is incremented before the page is looked up, see load()
+        writeStamps.incrementAndGet(stripe(pageIndex));
+        final Page page = pageMap.get(pageIndex);
+        if (page != null) {
+            final long stamp = page.stampedLock.writeLock();
+            try {
+                // the page may be evicted after it's found in the map
+                if (page.index == pageIndex) {
+                    page.buffer.putLong((int) (offset % PAGE_SIZE), value);
+                }
+            } finally {
+                page.stampedLock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * Zero out a range of bytes in the cache. Must be called after the range is zeroed out in the file.
+     *
+     * @param offset the start file offset
+     * @param length the number of bytes
+     */
+    void clear(final long offset, final long length) {
+        if (length <= 0) {
+            return;
+        }
+        final long end = offset + length;
+        for (long pageIndex = offset / PAGE_SIZE; pageIndex <= (end - 1) / PAGE_SIZE; pageIndex++) {
+            writeStamps.incrementAndGet(stripe(pageIndex));
+            final Page page = pageMap.get(pageIndex);
+            if (page == null) {
+                continue;
+            }
+            final long pageStart = pageIndex * PAGE_SIZE;
+            final int from = toIntExact(Math.max(offset, pageStart) - pageStart);
+            final int to = toIntExact(Math.min(end, pageStart + PAGE_SIZE) - pageStart);
+            final long stamp = page.stampedLock.writeLock();
+            try {
+                if (page.index == pageIndex) {
+                    for (int i = from; i < to; i++) {
+                        page.buffer.put(i, (byte) 0);
+                    }
+                }
+            } finally {
+                page.stampedLock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * Load all pages of a range of bytes into the cache and pin them, so they are never evicted
+     * until {@link #unpin(long, long)} is called for the same range.
+     *
+     * @param offset the start file offset
+     * @param length the number of bytes
+     * @return true if the pages are pinned, false if too many pages would be pinned
+     * @throws IOException if the file can't be read
+     */
+    boolean pin(final long offset, final long length) throws IOException {
+        final long firstPage = offset / PAGE_SIZE;
+        final long lastPage = (offset + length - 1) / PAGE_SIZE;
+        final int count = toIntExact(lastPage - firstPage + 1);
+        synchronized (lock) {
+            if (pins + count > maxPins) {
+                return false;
+            }
+            pins += count;
+        }
+        for (long pageIndex = firstPage; pageIndex <= lastPage; pageIndex++) {
+            if (!pinPage(pageIndex)) {
+                // release all pages pinned so far
+                synchronized (lock) {
+                    for (long i = firstPage; i < pageIndex; i++) {
+                        pageMap.get(i).pinCount--;
+                    }
+                    pins -= count;
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean pinPage(final long pageIndex) throws IOException {
+        for (int attempt = 0; attempt < MAX_PIN_ATTEMPTS; attempt++) {
+            synchronized (lock) {
+                final Page page = pageMap.get(pageIndex);
+                if (page != null) {
+                    page.pinCount++;
+                    return true;
+                }
+            }
+            load(pageIndex, 0);
+        }
+        return false;
+    }
+
+    /**
+     * Unpin pages previously pinned with {@link #pin(long, long)}.
+     *
+     * @param offset the start file offset
+     * @param length the number of bytes
+     */
+    void unpin(final long offset, final long length) {
+        final long firstPage = offset / PAGE_SIZE;
+        final long lastPage = (offset + length - 1) / PAGE_SIZE;
+        synchronized (lock) {
+            for (long pageIndex = firstPage; pageIndex <= lastPage; pageIndex++) {
+                // pinned pages are never evicted
+                pageMap.get(pageIndex).pinCount--;
+            }
+            pins -= toIntExact(lastPage - firstPage + 1);
+        }
+    }
+
+    /**
+     * Remove all pages from the cache.
+     */
+    void close() {
+        synchronized (lock) {
+            pageMap.clear();
+            for (final Page page : pages) {
+                page.index = NO_PAGE;
+                page.pinCount = 0;
+            }
+            pins = 0;
+        }
+    }
+
+    /**
+     * Load a page, and possibly a few next pages on sequential access, from the file into the cache.
+     *
+     * @return the long at the given offset in the page
+     */
+    private long load(final long pageIndex, final int offsetInPage) throws IOException {
+        final long fileSize = fileChannel.size();
+        int count = 1;
+        if (pageIndex == lastLoadedPage + 1) {
+            final long pagesTillEndOfFile = (fileSize + PAGE_SIZE - 1) / PAGE_SIZE - pageIndex;
+            count = (int) Math.max(1, Math.min(readAheadPages, pagesTillEndOfFile));
+        }
+        final Page[] loaded = new Page[count];
+        int allocated = 0;
+        synchronized (lock) {
+            while (allocated < count) {
+                // don't read ahead pages, which are already cached
+                if ((allocated > 0) && pageMap.containsKey(pageIndex + allocated)) {
+                    break;
+                }
+                final Page page = allocatePage();
+                if (page == null) {
+                    break;
+                }
+                page.loading = true;
+                loaded[allocated++] = page;
+            }
+        }
+        if (allocated == 0) {
+            // all pages are pinned or being loaded
+            return readLong(pageIndex * PAGE_SIZE + offsetInPage);
+        }
+
+        final long[] stamps = new long[allocated];
+        for (int i = 0; i < allocated; i++) {
+            stamps[i] = writeStamps.get(stripe(pageIndex + i));
+        }
+        final ByteBuffer readBuffer = getReadBuffer(allocated * PAGE_SIZE);
+        final int bytesRead = MerkleDbFileUtils.completelyRead(fileChannel, readBuffer, pageIndex * PAGE_SIZE);
+        // anything beyond the end of the file is zeroes
+        for (int i = Math.max(bytesRead, 0); i < allocated * PAGE_SIZE; i++) {
+            readBuffer.put(i, (byte) 0);
+        }
+        // loaded pages aren't in the map, it's safe to update them without locks
+        for (int i = 0; i < allocated; i++) {
+            loaded[i].buffer.put(0, readBuffer, i * PAGE_SIZE, PAGE_SIZE);
+        }
+        final long value = loaded[0].buffer.getLong(offsetInPage);
+
+        synchronized (lock) {
+            for (int i = 0; i < allocated; i++) {
+                final Page page = loaded[i];
+                page.loading = false;
+                // the page may be loaded by another thread
+                if (pageMap.containsKey(pageIndex + i)) {
+                    continue;
+                }
+                final long pageStamp = page.stampedLock.writeLock();
+                try {
+                    page.index = pageIndex + i;
+                    pageMap.put(page.index, page);
+                    // The page is added to the map before the write stamp is checked, and writers increment
+                    // the stamp before they look up the page. So a concurrent write either finds the page and
+                    // updates it (once this lock is released), or its stamp change is detected here
+                    if (writeStamps.get(stripe(page.index)) != stamps[i]) {
+                        pageMap.remove(page.index, page);
+                        page.index = NO_PAGE;
+                    }
+                } finally {
+                    page.stampedLock.unlockWrite(pageStamp);
+                }
+                page.referenced = (i == 0);
+            }
+            lastLoadedPage = pageIndex + allocated - 1;
+        }
+        // if the page was written, the loaded value may be stale
+        final boolean upToDate = writeStamps.get(stripe(pageIndex)) == stamps[0];
+        return upToDate ? value : readLong(pageIndex * PAGE_SIZE + offsetInPage);
+    }
+
+    private static int stripe(final long pageIndex) {
+        return (int) (pageIndex & (WRITE_STAMP_STRIPES - 1));
+    }
+
+    /**
+     * Get the number of pages in the cache.
+     *
+     * @return the number of cached pages
+     */
+    int getCachedPageCount() {
+        return pageMap.size();
+    }
+
+    /**
+     * Find a page to load data into. Must be called under the cache lock.
+     *
+     * @return a free page, or null if all pages are pinned or being loaded
+     */
+    private Page allocatePage() {
+        for (int i = 0; i < 2 * pages.length; i++) {
+            final Page page = pages[clockHand];
+            clockHand = (clockHand + 1) % pages.length;
+            if (page.loading || (page.pinCount > 0)) {
+                continue;
+            }
+            if (page.index == NO_PAGE) {
+                return page;
+            }
+            if (page.referenced) {
+                // second chance
+                page.referenced = false;
+                continue;
+            }
+            pageMap.remove(page.index, page);
+            final long stamp = page.stampedLock.writeLock();
+            page.index = NO_PAGE;
+            page.stampedLock.unlockWrite(stamp);
+            return page;
+        }
+        return null;
+    }
+
+    private long readLong(final long offset) throws IOException {
+        final ByteBuffer buf = TEMP_LONG_BUFFER_THREAD_LOCAL.get();
+        // if there is nothing to read the buffer will have the default value
+        buf.putLong(0, 0);
+        buf.clear();
+        MerkleDbFileUtils.completelyRead(fileChannel, buf, offset);
+        return buf.getLong(0);
+    }
+
+    private static ByteBuffer getReadBuffer(final int size) {
+        ByteBuffer buffer = READ_BUFFER_THREAD_LOCAL.get();
+        if ((buffer == null) || (buffer.capacity() < size)) {
+            buffer = ByteBuffer.allocateDirect(size);
+            READ_BUFFER_THREAD_LOCAL.set(buffer);
+        }
+        buffer.clear();
+        buffer.limit(size);
+        return buffer;
+    }
+}
@@ -111,6 +111,12 @@ public final class LongListHeap extends AbstractLongList<AtomicLongArray> {
         chunk.set(subIndex, value);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected long getAndSetInChunk(AtomicLongArray chunk, int subIndex, long value) {
+        return chunk.getAndSet(subIndex, value);
+    }
+
     /** {@inheritDoc} */
     @Override
     protected boolean putIfEqual(AtomicLongArray chunk, int subIndex, long oldValue, long newValue) {
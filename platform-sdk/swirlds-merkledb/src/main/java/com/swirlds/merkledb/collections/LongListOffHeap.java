@@ -125,6 +125,12 @@ public final class LongListOffHeap extends AbstractLongList<ByteBuffer> implemen
         MemoryUtils.putLongVolatile(chunk, subIndexOffset, value);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected long getAndSetInChunk(ByteBuffer chunk, int subIndex, long value) {
+        return MemoryUtils.getAndSetLong(chunk, (long) subIndex * Long.BYTES, value);
+    }
+
     /** {@inheritDoc} */
     @Override
     protected boolean putIfEqual(ByteBuffer chunk, int subIndex, long oldValue, long newValue) {
@@ -180,6 +186,17 @@ public final class LongListOffHeap extends AbstractLongList<ByteBuffer> implemen
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void writeChunkData(final FileChannel fc, final ByteBuffer chunk) throws IOException {
+        if (chunk == null) {
+            super.writeChunkData(fc, null);
+            return;
+        }
+        // Slice so we don't mess with the byte buffer pointers
+        MerkleDbFileUtils.completelyWrite(fc, chunk.slice(0, chunk.capacity()));
+    }
+
     /**
      * Lookup a long in a data chunk.
      *
@@ -21,9 +21,12 @@ import com.swirlds.config.api.ConfigProperty;
 import com.swirlds.config.api.Configuration;
 import com.swirlds.config.api.validation.ConfigViolation;
 import com.swirlds.config.api.validation.annotation.ConstraintMethod;
+import com.swirlds.config.api.validation.annotation.Max;
 import com.swirlds.config.api.validation.annotation.Min;
 import com.swirlds.config.api.validation.annotation.Positive;
 import com.swirlds.config.extensions.validators.DefaultConfigViolation;
+import com.swirlds.merkledb.files.CompactionPolicyType;
+import com.swirlds.merkledb.files.DataFileCompression;
 
 /**
  * Instance-wide config for {@code MerkleDbDataSource}.
@@ -62,12 +65,83 @@ import com.swirlds.config.extensions.validators.DefaultConfigViolation;
  * @param reservedBufferLengthForLeafList
  *      Length of a reserved buffer in a LongList used to store leafs. Value in bytes.
  * @param leafRecordCacheSize
- *      Cache size in bytes for reading virtual leaf records. Initialized in data source creation time from MerkleDb config.
- *      If the value is zero, leaf records cache isn't used.
+ *      Max number of records in the cache for reading virtual leaf records. Initialized in data source creation time
+ *      from MerkleDb config. If the value is zero, leaf records cache isn't used.
+ * @param leafRecordCacheMaxBytes
+ *      Max total size in bytes of records in the cache for reading virtual leaf records, per data source. If the value
+ *      is zero, leaf records cache isn't used.
  * @param maxFileChannelsPerFileReader
  *     Maximum number of file channels per file reader.
  * @param maxThreadsPerFileChannel
  *    Maximum number of threads per file channel.
+ * @param batchReadThreads
+ *    Number of threads used to read data items in parallel in batched lookups, e.g. in
+ *    {@code MerkleDbDataSource.loadLeafRecords()}. The threads mostly wait for disk I/O, so the
+ *    value may be higher than the number of available processors.
+ * @param asyncFileReads
+ *    If true, batched lookups read data items using asynchronous file channels rather than blocking
+ *    reads on the batch reading threads. Every batch then keeps up to {@link #maxAsyncReadsInFlight}
+ *    reads in flight.
+ * @param maxAsyncReadsInFlight
+ *    Maximum number of asynchronous reads in flight per batched lookup, when async file reads are enabled.
+ * @param mmapCompletedFiles
+ *    If true, data files are memory mapped once they are fully written, and data items are read from
+ *    the mapped memory rather than using file channels. Mapped memory is released when a data file
+ *    reader is closed.
+ * @param keyFilterBitsPerKey
+ *    Number of bits per key in the in-memory key filter of HalfDiskHashMap. The filter is used to
+ *    answer lookups of keys, which aren't in the map, without reading buckets from disk. The more
+ *    bits per key, the lower the false positive rate, and the more memory is used. If the value is
+ *    zero, key filters aren't used.
+ * @param compactionPartitions
+ *    Number of partitions to split a single compaction into. The index key range is split into this
+ *    number of sub-ranges, and data items from every sub-range are copied to a separate new file on
+ *    its own thread. Since every compaction then produces this number of files, the value should be
+ *    well below {@link #minNumberOfFilesInCompaction}, otherwise higher compaction levels are
+ *    compacted more often than needed.
+ * @param compactionPolicy
+ *    Default policy to select data files to compact. The policy can be overridden for individual tables using
+ *    {@code MerkleDbTableConfig}. See {@link CompactionPolicyType} for available policies.
+ * @param compactionGarbageRatioThreshold
+ *    Min estimated ratio of dead data items in a data file to compact the file, when the garbage ratio compaction
+ *    policy is used. The value must be greater than 0.0 and not greater than 1.0.
+ * @param compactionGarbageMaxFiles
+ *    Max number of data files to compact at once, when the garbage ratio compaction policy is used. Files with
+ *    the most reclaimable space are selected first.
+ * @param dataFileCompression
+ *    Compression used for new data files. Data items in compressed files are stored in blocks, and only one block
+ *    is decompressed to read a data item. Existing files are read regardless of this setting, and get rewritten
+ *    with the new compression during compactions. See {@link DataFileCompression} for available options.
+ * @param dataFileCompressionBlockSize
+ *    Uncompressed size of data item blocks in compressed data files, in bytes. Larger blocks compress better, but
+ *    every random data item read decompresses the whole block.
+ * @param indexDeltaSnapshots
+ *    Whether to write index files (path to disk location and bucket indexes) in snapshots as deltas. A delta file
+ *    only contains index chunks changed since the last full index file, which is hard linked to the snapshot.
+ * @param indexDeltaMaxDirtyChunksPercent
+ *    Max percent of index chunks changed since the last full index file to write a delta rather than a new full
+ *    index file. Writing a full file compacts the delta chain: next deltas are written against the new file.
+ * @param parallelFlush
+ *    Whether to update the key to path store on a separate thread during flushes. If enabled, hashes, leaf keys,
+ *    and leaf data are written to their stores concurrently, otherwise leaf keys and leaf data are written one
+ *    after another on the same thread.
+ * @param longListDiskPageCacheSize
+ *    Size in bytes of the off-heap page cache of every disk-based index ({@code LongListDisk}). Index lookups are
+ *    served from cached pages, which avoids a file read per lookup. The cache is allocated in direct memory for
+ *    every disk-based index, so it's disabled by default. If the value is less than the page size (4KiB), the
+ *    cache isn't used.
+ * @param longListDiskReadAheadPages
+ *    Max number of pages to load into a disk-based index page cache with a single file read, when the index is
+ *    read sequentially, e.g. during full index scans.
+ * @param hashesRamBudget
+ *    Max total size in bytes of internal node hashes kept in RAM by all data sources of a MerkleDb instance. The
+ *    budget is split equally between the opened data sources. If greater than zero, and the table config doesn't
+ *    store hashes on disk only (threshold 0) or in RAM only, the hashes RAM to disk threshold is adjusted to the
+ *    tree size, so hashes of the top tree ranks, which are read most often, are kept in RAM, and the rest on disk.
+ *    If zero, the threshold from the table config is used.
+ * @param hashesMaxMigratedPerFlush
+ *    Max number of hashes to move between RAM and disk during a single flush, when the hashes RAM to disk
+ *    threshold is changed.
  */
 @ConfigData("merkleDb")
 public record MerkleDbConfig(
@@ -85,8 +159,28 @@ public record MerkleDbConfig(
         @ConfigProperty(defaultValue = "-1") int numHalfDiskHashMapFlushThreads,
         @ConfigProperty(defaultValue = "262144") int reservedBufferLengthForLeafList,
         @ConfigProperty(defaultValue = "1048576") int leafRecordCacheSize,
+        @Min(0) @ConfigProperty(defaultValue = "134217728") long leafRecordCacheMaxBytes,
         @Min(1) @ConfigProperty(defaultValue = "8") int maxFileChannelsPerFileReader,
-        @Min(1) @ConfigProperty(defaultValue = "8") int maxThreadsPerFileChannel) {
+        @Min(1) @ConfigProperty(defaultValue = "8") int maxThreadsPerFileChannel,
+        @Min(1) @ConfigProperty(defaultValue = "32") int batchReadThreads,
+        @ConfigProperty(defaultValue = "false") boolean asyncFileReads,
+        @Min(1) @ConfigProperty(defaultValue = "256") int maxAsyncReadsInFlight,
+        @ConfigProperty(defaultValue = "false") boolean mmapCompletedFiles,
+        @Min(0) @ConfigProperty(defaultValue = "0") int keyFilterBitsPerKey,
+        @Min(1) @ConfigProperty(defaultValue = "1") int compactionPartitions,
+        @ConfigProperty(defaultValue = "LEVELED") CompactionPolicyType compactionPolicy,
+        @ConstraintMethod("compactionGarbageRatioThresholdValidation") @ConfigProperty(defaultValue = "0.5")
+                double compactionGarbageRatioThreshold,
+        @Min(1) @ConfigProperty(defaultValue = "32") int compactionGarbageMaxFiles,
+        @ConfigProperty(defaultValue = "NONE") DataFileCompression dataFileCompression,
+        @Min(1024) @Max(65536) @ConfigProperty(defaultValue = "16384") int dataFileCompressionBlockSize,
+        @ConfigProperty(defaultValue = "false") boolean indexDeltaSnapshots,
+        @Min(0) @Max(100) @ConfigProperty(defaultValue = "50") int indexDeltaMaxDirtyChunksPercent,
+        @ConfigProperty(defaultValue = "false") boolean parallelFlush,
+        @Min(0) @ConfigProperty(defaultValue = "0") long longListDiskPageCacheSize,
+        @Min(1) @ConfigProperty(defaultValue = "16") int longListDiskReadAheadPages,
+        @Min(0) @ConfigProperty(defaultValue = "0") long hashesRamBudget,
+        @Min(1) @ConfigProperty(defaultValue = "1000000") int hashesMaxMigratedPerFlush) {
 
     static double UNIT_FRACTION_PERCENT = 100.0;
 
@@ -104,6 +198,20 @@ public record MerkleDbConfig(
         return null;
     }
 
+    public ConfigViolation compactionGarbageRatioThresholdValidation(final Configuration configuration) {
+        final double compactionGarbageRatioThreshold =
+                configuration.getConfigData(MerkleDbConfig.class).compactionGarbageRatioThreshold();
+        if ((compactionGarbageRatioThreshold <= 0) || (compactionGarbageRatioThreshold > 1)) {
+            return new DefaultConfigViolation(
+                    "compactionGarbageRatioThreshold",
+                    "%f".formatted(compactionGarbageRatioThreshold),
+                    true,
+                    "Cannot configure compactionGarbageRatioThreshold to " + compactionGarbageRatioThreshold
+                            + ", it must be > 0.0 and <= 1.0");
+        }
+        return null;
+    }
+
     public int getNumHalfDiskHashMapFlushThreads() {
         final int numProcessors = Runtime.getRuntime().availableProcessors();
         final int threads = (numHalfDiskHashMapFlushThreads() == -1)
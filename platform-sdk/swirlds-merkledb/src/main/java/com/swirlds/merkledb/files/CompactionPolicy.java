@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2024 Hedera Hashgraph, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.swirlds.merkledb.files;
+
+import com.swirlds.merkledb.KeyRange;
+import com.swirlds.merkledb.collections.CASableLongIndex;
+import com.swirlds.merkledb.config.MerkleDbConfig;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.List;
+
+/**
+ * A strategy to select data files to compact. {@link DataFileCompactor} asks its policy for files
+ * to compact every time compaction is triggered, and then copies all live data items from the
+ * selected files to new files at the target compaction level.
+ *
+ * <p>Different policies trade write amplification (how many times a data item is copied before
+ * it's deleted) against space amplification (how much disk space is used by data items that are
+ * no longer referenced from the index). A policy can be configured globally using {@link
+ * MerkleDbConfig#compactionPolicy()}, or per table using {@code MerkleDbTableConfig}.
+ *
+ * <p>Policies are called on compaction threads only, at most one call at a time per compactor.
+ */
+public interface CompactionPolicy {
+
+    /**
+     * Selects files to compact. If no compaction is needed, an empty list is returned. Some
+     * policies may inspect the index or per-file live item counts, see {@link
+     * DataFileReader#getLiveItemCount()}.
+     *
+     * @param completedFiles all completed data files in the collection, sorted by file index
+     * @param index the index of the data file collection
+     * @param validKeyRange valid key range of the index
+     * @return files to compact, or an empty list
+     */
+    @NonNull
+    List<DataFileReader> selectFilesToCompact(
+            @NonNull List<DataFileReader> completedFiles,
+            @NonNull CASableLongIndex index,
+            @NonNull KeyRange validKeyRange);
+
+    /**
+     * Returns a compaction level for a new file created by compacting the given files. The level
+     * must not exceed {@link MerkleDbConfig#maxCompactionLevel()}, as statistics are maintained
+     * for every level. The default implementation returns the next level after the highest level
+     * of the given files.
+     *
+     * @param filesToCompact files to compact, as returned by {@link #selectFilesToCompact}
+     * @param maxCompactionLevel max compaction level
+     * @return target compaction level
+     */
+    default int getTargetCompactionLevel(
+            @NonNull final List<? extends DataFileReader> filesToCompact, final int maxCompactionLevel) {
+        int highestExistingCompactionLevel = 0;
+        for (final DataFileReader file : filesToCompact) {
+            highestExistingCompactionLevel =
+                    Math.max(highestExistingCompactionLevel, file.getMetadata().getCompactionLevel());
+        }
+        return Math.min(highestExistingCompactionLevel + 1, maxCompactionLevel);
+    }
+
+    /**
+     * Creates a compaction policy of the given type.
+     *
+     * @param type compaction policy type
+     * @param dbConfig MerkleDb config to get policy parameters from
+     * @return the policy
+     */
+    static CompactionPolicy create(@NonNull final CompactionPolicyType type, @NonNull final MerkleDbConfig dbConfig) {
+        return switch (type) {
+            case LEVELED -> new LeveledCompactionPolicy(
+                    dbConfig.minNumberOfFilesInCompaction(), dbConfig.maxCompactionLevel());
+            case SIZE_TIERED -> new SizeTieredCompactionPolicy(dbConfig.minNumberOfFilesInCompaction());
+            case GARBAGE_RATIO -> new GarbageRatioCompactionPolicy(
+                    dbConfig.compactionGarbageRatioThreshold(),
+                    dbConfig.compactionGarbageMaxFiles(),
+                    dbConfig.minNumberOfFilesInCompaction(),
+                    dbConfig.maxCompactionLevel());
+        };
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2024 Hedera Hashgraph, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.swirlds.merkledb.files;
+
+/**
+ * Built-in {@link CompactionPolicy} types. Type IDs are stored in table configs, so they must never
+ * be changed or reused.
+ */
+public enum CompactionPolicyType {
+
+    /**
+     * Files are compacted level by level, see {@link LeveledCompactionPolicy}. Lowest write
+     * amplification for tables with mostly new data, this is the default policy.
+     */
+    LEVELED(1),
+
+    /**
+     * Files of similar sizes are compacted together, see {@link SizeTieredCompactionPolicy}.
+     */
+    SIZE_TIERED(2),
+
+    /**
+     * Files with a high estimated ratio of dead data items are compacted, see {@link
+     * GarbageRatioCompactionPolicy}. Lowest space amplification for tables with frequently updated
+     * data.
+     */
+    GARBAGE_RATIO(3);
+
+    private final int id;
+
+    CompactionPolicyType(final int id) {
+        this.id = id;
+    }
+
+    /**
+     * Compaction policy type ID.
+     *
+     * @return policy type ID
+     */
+    public int id() {
+        return id;
+    }
+
+    /**
+     * Returns a compaction policy type by its ID.
+     *
+     * @param id policy type ID
+     * @return compaction policy type
+     * @throws IllegalArgumentException if the ID is unknown
+     */
+    public static CompactionPolicyType valueOf(final int id) {
+        for (final CompactionPolicyType type : values()) {
+            if (type.id == id) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown compaction policy type: " + id);
+    }
+}
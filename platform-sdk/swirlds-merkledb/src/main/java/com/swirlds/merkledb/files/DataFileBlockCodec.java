@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2024 Hedera Hashgraph, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.swirlds.merkledb.files;
+
+import com.hedera.pbj.runtime.ProtoWriterTools;
+import com.hedera.pbj.runtime.io.buffer.BufferedData;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Encodes and decodes data item blocks in compressed data files. Encoded block format is the
+ * uncompressed block size as an unsigned varint followed by block bytes. If the number of block
+ * bytes is equal to the uncompressed size, the block is stored uncompressed, otherwise the bytes
+ * are compressed using {@link DataFileCompression}.
+ *
+ * <p>Codecs reuse their internal buffers. Encoded and decoded bytes are only valid until the next
+ * call to {@link #encode(byte[], int)} or {@link #decode(byte[], int, int)}. This class is not
+ * thread safe.
+ */
+final class DataFileBlockCodec implements AutoCloseable {
+
+    /** Compressor, created lazily on the first encode */
+    private Deflater deflater;
+
+    /** Decompressor, created lazily on the first decode */
+    private Inflater inflater;
+
+    /** Buffer with encoded block bytes */
+    private byte[] encoded = new byte[0];
+
+    /** Buffer with decoded block bytes */
+    private byte[] decoded = new byte[0];
+
+    /** Buffer to read encoded blocks from files */
+    private byte[] input = new byte[0];
+
+    /**
+     * Encodes a block. The result is available in {@link #getEncoded()}.
+     *
+     * @param block uncompressed block bytes
+     * @param size uncompressed block size
+     * @return encoded block size
+     */
+    int encode(final byte[] block, final int size) {
+        final int headerSize = ProtoWriterTools.sizeOfUnsignedVarInt32(size);
+        if (encoded.length < headerSize + size) {
+            encoded = new byte[headerSize + size];
+        }
+        if (deflater == null) {
+            deflater = new Deflater(Deflater.BEST_SPEED);
+        }
+        deflater.reset();
+        deflater.setInput(block, 0, size);
+        deflater.finish();
+        int dataSize = 0;
+        while (!deflater.finished() && (dataSize < size)) {
+            dataSize += deflater.deflate(encoded, headerSize + dataSize, size - dataSize);
+        }
+        if (!deflater.finished() || (dataSize >= size)) {
+            // Incompressible data, store the block as is
+            System.arraycopy(block, 0, encoded, headerSize, size);
+            dataSize = size;
+        }
+        BufferedData.wrap(encoded).writeVarInt(size, false);
+        return headerSize + dataSize;
+    }
+
+    /**
+     * Get encoded block bytes, as written by the last {@link #encode(byte[], int)} call.
+     *
+     * @return encoded block bytes
+     */
+    byte[] getEncoded() {
+        return encoded;
+    }
+
+    /**
+     * Get a buffer to read an encoded block of the given size. The buffer is reused between calls.
+     *
+     * @param size encoded block size
+     * @return a buffer of at least the given size
+     */
+    byte[] getInputBuffer(final int size) {
+        if (input.length < size) {
+            input = new byte[size];
+        }
+        return input;
+    }
+
+    /**
+     * Decodes a block. The result is available in {@link #getDecoded()}.
+     *
+     * @param block encoded block bytes
+     * @param offset encoded block offset in the array
+     * @param length encoded block size
+     * @return uncompressed block size
+     * @throws IOException if the block is malformed
+     */
+    int decode(final byte[] block, final int offset, final int length) throws IOException {
+        final int size = BufferedData.wrap(block).getVarInt(offset, false);
+        final int headerSize = ProtoWriterTools.sizeOfUnsignedVarInt32(size);
+        final int dataSize = length - headerSize;
+        if ((size < 0) || (dataSize < 0) || (dataSize > size)) {
+            throw new IOException("Malformed data file block, size=" + size + " encodedSize=" + length);
+        }
+        if (decoded.length < size) {
+            decoded = new byte[size];
+        }
+        if (dataSize == size) {
+            System.arraycopy(block, offset + headerSize, decoded, 0, size);
+            return size;
+        }
+        if (inflater == null) {
+            inflater = new Inflater();
+        }
+        inflater.reset();
+        inflater.setInput(block, offset + headerSize, dataSize);
+        final int inflated;
+        try {
+            inflated = inflater.inflate(decoded, 0, size);
+        } catch (final DataFormatException e) {
+            throw new IOException("Malformed data file block", e);
+        }
+        if ((inflated != size) || !inflater.finished()) {
+            throw new IOException("Malformed data file block, expected " + size + " bytes, got " + inflated);
+        }
+        return size;
+    }
+
+    /**
+     * Get decoded block bytes, as read by the last {@link #decode(byte[], int, int)} call.
+     *
+     * @return decoded block bytes
+     */
+    byte[] getDecoded() {
+        return decoded;
+    }
+
+    /**
+     * Releases compressor and decompressor resources. The codec can't be used after it's closed.
+     */
+    @Override
+    public void close() {
+        if (deflater != null) {
+            deflater.end();
+        }
+        if (inflater != null) {
+            inflater.end();
+        }
+    }
+}
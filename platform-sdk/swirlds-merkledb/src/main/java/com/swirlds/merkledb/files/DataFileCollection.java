@@ -17,9 +17,11 @@
 package com.swirlds.merkledb.files;
 
 import static com.hedera.pbj.runtime.ProtoParserTools.TAG_FIELD_OFFSET;
+import static com.swirlds.common.threading.manager.AdHocThreadManager.getStaticThreadManager;
 import static com.swirlds.logging.legacy.LogMarker.EXCEPTION;
 import static com.swirlds.logging.legacy.LogMarker.MERKLE_DB;
 import static com.swirlds.merkledb.KeyRange.INVALID_KEY_RANGE;
+import static com.swirlds.merkledb.MerkleDb.MERKLEDB_COMPONENT;
 import static com.swirlds.merkledb.files.DataFileCommon.FILE_EXTENSION;
 import static com.swirlds.merkledb.files.DataFileCommon.byteOffsetFromDataLocation;
 import static com.swirlds.merkledb.files.DataFileCommon.fileIndexFromDataLocation;
@@ -34,6 +36,7 @@ import com.hedera.pbj.runtime.io.WritableSequentialData;
 import com.hedera.pbj.runtime.io.buffer.BufferedData;
 import com.hedera.pbj.runtime.io.stream.ReadableStreamingData;
 import com.hedera.pbj.runtime.io.stream.WritableStreamingData;
+import com.swirlds.common.threading.framework.config.ThreadConfiguration;
 import com.swirlds.merkledb.KeyRange;
 import com.swirlds.merkledb.Snapshotable;
 import com.swirlds.merkledb.collections.CASableLongIndex;
@@ -42,22 +45,33 @@ import com.swirlds.merkledb.collections.ImmutableIndexedObjectListUsingArray;
 import com.swirlds.merkledb.collections.LongList;
 import com.swirlds.merkledb.config.MerkleDbConfig;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.channels.ClosedChannelException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.LongSummaryStatistics;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Stream;
@@ -103,6 +117,16 @@ public class DataFileCollection implements Snapshotable {
     /** The number of times to retry index based reads */
     private static final int NUM_OF_READ_RETRIES = 5;
 
+    /**
+     * Max number of data items read by a single task in {@link #readDataItemsUsingIndex(LongList,
+     * long[], BatchReadCallback)}. All items in a task are from the same file and are read in
+     * the order of their offsets in the file
+     */
+    private static final int BATCH_READ_TASK_SIZE = 64;
+
+    /** Thread pool for batched reads, shared by all file collections. Created lazily */
+    private static volatile ExecutorService batchReadExecutor = null;
+
     /** File collection metadata fields */
     private static final FieldDefinition FIELD_FILECOLLECTION_MINVALIDKEY =
             new FieldDefinition("minValidKey", FieldType.UINT64, false, true, false, 1);
@@ -169,6 +193,20 @@ public class DataFileCollection implements Snapshotable {
     private final ConcurrentSkipListSet<Integer> setOfNewFileIndexes =
             logger.isTraceEnabled() ? new ConcurrentSkipListSet<>() : null;
 
+    /** Number of data items read from memory mapped files, see {@link MerkleDbConfig#mmapCompletedFiles()} */
+    private final LongAdder mappedReadsCount = new LongAdder();
+    /** Total time spent reading data items from memory mapped files, in nanoseconds */
+    private final LongAdder mappedReadsTimeNanos = new LongAdder();
+
+    /** Number of data items read from compressed files, see {@link MerkleDbConfig#dataFileCompression()} */
+    private final LongAdder compressedReadsCount = new LongAdder();
+    /** Total time spent reading and decompressing data items from compressed files, in nanoseconds */
+    private final LongAdder compressedReadsTimeNanos = new LongAdder();
+    /** Total size of data item blocks written to compressed files before compression, in bytes */
+    private final LongAdder uncompressedBytesWritten = new LongAdder();
+    /** Total size of data item blocks written to compressed files after compression, in bytes */
+    private final LongAdder compressedBytesWritten = new LongAdder();
+
     /**
      * Construct a new DataFileCollection.
      *
@@ -327,6 +365,158 @@ public class DataFileCollection implements Snapshotable {
                         .summaryStatistics();
     }
 
+    /**
+     * Get the total size of all files in this collection, which are currently memory mapped.
+     *
+     * @return mapped files size, in bytes
+     */
+    public long getMappedFilesSize() {
+        final ImmutableIndexedObjectList<DataFileReader> activeIndexedFiles = dataFiles.get();
+        return activeIndexedFiles == null
+                ? 0
+                : activeIndexedFiles.stream().mapToLong(DataFileReader::getMappedSize).sum();
+    }
+
+    /**
+     * Get the estimated size of data items in completed files, which are no longer referenced
+     * from the index, by compaction level. See {@link DataFileReader#getReclaimableSize()}.
+     *
+     * @param maxCompactionLevel max compaction level
+     * @return reclaimable size in bytes, indexed by compaction level
+     */
+    public long[] getReclaimableSizeByLevel(final int maxCompactionLevel) {
+        final long[] reclaimableSizeByLevel = new long[maxCompactionLevel + 1];
+        for (final DataFileReader file : getAllCompletedFiles()) {
+            final int level = Math.min(file.getMetadata().getCompactionLevel(), maxCompactionLevel);
+            reclaimableSizeByLevel[level] += file.getReclaimableSize();
+        }
+        return reclaimableSizeByLevel;
+    }
+
+    /**
+     * Marks a data item at the given location as no longer referenced from the index. This method
+     * must be called every time an index entry is updated or removed, so per-file live item counts
+     * are kept up to date, see {@link DataFileReader#getLiveItemCount()}. If the location is
+     * {@link DataFileCommon#NON_EXISTENT_DATA_LOCATION}, or the file was already deleted, this
+     * method is a no-op.
+     *
+     * @param dataLocation the old data location from the index
+     */
+    public void markDataItemDead(final long dataLocation) {
+        if (dataLocation == DataFileCommon.NON_EXISTENT_DATA_LOCATION) {
+            return;
+        }
+        final ImmutableIndexedObjectList<DataFileReader> activeIndexedFiles = dataFiles.get();
+        if (activeIndexedFiles == null) {
+            return;
+        }
+        final DataFileReader file = activeIndexedFiles.get(fileIndexFromDataLocation(dataLocation));
+        if (file != null) {
+            file.markDataItemDead();
+        }
+    }
+
+    /**
+     * Marks the given number of data items in a file as no longer referenced from the index. Same
+     * as {@link #markDataItemDead(long)} called for that many data locations in the file.
+     *
+     * @param fileIndex the index of the file
+     * @param count the number of data items
+     */
+    public void markDataItemsDead(final int fileIndex, final long count) {
+        final ImmutableIndexedObjectList<DataFileReader> activeIndexedFiles = dataFiles.get();
+        if (activeIndexedFiles == null) {
+            return;
+        }
+        final DataFileReader file = activeIndexedFiles.get(fileIndex);
+        if (file != null) {
+            file.markDataItemsDead(count);
+        }
+    }
+
+    /**
+     * Marks all data items in all files as no longer referenced from the index. This method
+     * should be called when all keys are removed from the index.
+     */
+    public void markAllDataItemsDead() {
+        final ImmutableIndexedObjectList<DataFileReader> activeIndexedFiles = dataFiles.get();
+        if (activeIndexedFiles != null) {
+            activeIndexedFiles.stream().forEach(DataFileReader::markAllDataItemsDead);
+        }
+    }
+
+    /**
+     * Get the number of data items read from memory mapped files since this collection was created.
+     *
+     * @return mapped reads count
+     */
+    public long getMappedReadsCount() {
+        return mappedReadsCount.sum();
+    }
+
+    /**
+     * Get the total time spent reading data items from memory mapped files since this collection
+     * was created. Since data items are read from mapped memory without copying, this time is
+     * mostly spent in page faults.
+     *
+     * @return mapped reads time, in nanoseconds
+     */
+    public long getMappedReadsTimeNanos() {
+        return mappedReadsTimeNanos.sum();
+    }
+
+    /**
+     * Get the number of data items read from compressed files since this collection was created.
+     *
+     * @return compressed reads count
+     */
+    public long getCompressedReadsCount() {
+        return compressedReadsCount.sum();
+    }
+
+    /**
+     * Get the total time spent reading data items from compressed files since this collection was
+     * created. This time includes reading and decompressing blocks, unless a block is already
+     * decompressed by the reading thread.
+     *
+     * @return compressed reads time, in nanoseconds
+     */
+    public long getCompressedReadsTimeNanos() {
+        return compressedReadsTimeNanos.sum();
+    }
+
+    /**
+     * Get the total size of data item blocks written to compressed files by this collection,
+     * before compression. Together with {@link #getCompressedBytesWritten()}, it gives the
+     * compression ratio.
+     *
+     * @return uncompressed bytes written
+     */
+    public long getUncompressedBytesWritten() {
+        return uncompressedBytesWritten.sum();
+    }
+
+    /**
+     * Get the total size of data item blocks written to compressed files by this collection,
+     * after compression.
+     *
+     * @return compressed bytes written
+     */
+    public long getCompressedBytesWritten() {
+        return compressedBytesWritten.sum();
+    }
+
+    /**
+     * Updates compression stats of this collection with block sizes of a data file, which is
+     * finished writing.
+     *
+     * @param writer the data file writer
+     */
+    void updateCompressionStats(final DataFileWriter writer) {
+        uncompressedBytesWritten.add(writer.getUncompressedBlocksSize());
+        compressedBytesWritten.add(writer.getCompressedBlocksSize());
+    }
+
     /** Close all the data files */
     public void close() throws IOException {
         // finish writing if we still are
@@ -357,8 +547,7 @@ public class DataFileCollection implements Snapshotable {
         }
         final DataFileWriter writer = newDataFile(Instant.now(), INITIAL_COMPACTION_LEVEL);
         currentDataFileWriter.set(writer);
-        final DataFileMetadata metadata = writer.getMetadata();
-        final DataFileReader reader = addNewDataFileReader(writer.getPath(), metadata);
+        final DataFileReader reader = addNewDataFileReader(writer);
         currentDataFileReader.set(reader);
     }
 
@@ -416,6 +605,7 @@ public class DataFileCollection implements Snapshotable {
         }
         // finish writing the file and write its footer
         dataWriter.finishWriting();
+        updateCompressionStats(dataWriter);
         final DataFileReader dataReader = currentDataFileReader.getAndSet(null);
         if (logger.isTraceEnabled()) {
             final DataFileMetadata metadata = dataReader.getMetadata();
@@ -482,7 +672,24 @@ public class DataFileCollection implements Snapshotable {
      */
     protected BufferedData readDataItem(final long dataLocation) throws IOException {
         final DataFileReader file = readerForDataLocation(dataLocation);
-        return (file != null) ? file.readDataItem(dataLocation) : null;
+        if (file == null) {
+            return null;
+        }
+        if (file.isCompressed()) {
+            final long start = System.nanoTime();
+            final BufferedData dataItem = file.readDataItem(dataLocation);
+            compressedReadsTimeNanos.add(System.nanoTime() - start);
+            compressedReadsCount.increment();
+            return dataItem;
+        }
+        if (!file.isMapped()) {
+            return file.readDataItem(dataLocation);
+        }
+        final long start = System.nanoTime();
+        final BufferedData dataItem = file.readDataItem(dataLocation);
+        mappedReadsTimeNanos.add(System.nanoTime() - start);
+        mappedReadsCount.increment();
+        return dataItem;
     }
 
     /**
@@ -566,6 +773,206 @@ public class DataFileCollection implements Snapshotable {
         throw new IOException("Read failed after 5 retries");
     }
 
+    /**
+     * Read a batch of data items from files that have finished being written. This method is
+     * similar to {@link #readDataItemUsingIndex(LongList, long)}, but it looks up data locations
+     * for all the given keys first, groups them by data file, sorts them by byte offsets in the
+     * files, and then reads them in parallel on a shared pool of batch reading threads. It lets
+     * many random reads be in flight at the same time rather than one after another.
+     *
+     * <p>Data item bytes are passed to the callback as soon as they are read. The bytes are only
+     * valid during the callback call, since read buffers are reused by reading threads. The
+     * callback may be called from multiple threads concurrently, but it's called exactly once
+     * for every key. If a key is not found in the index, the callback is called with {@code null}
+     * data item bytes.
+     *
+     * @param index key-&gt;dataLocation index
+     * @param keysIntoIndex The keys to lookup in index
+     * @param callback The callback to pass read data items to
+     * @throws IOException If there was a problem reading data items
+     */
+    public void readDataItemsUsingIndex(
+            @NonNull final LongList index,
+            @NonNull final long[] keysIntoIndex,
+            @NonNull final BatchReadCallback callback)
+            throws IOException {
+        final int count = keysIntoIndex.length;
+        final long[] dataLocations = new long[count];
+        final List<Integer> found = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            dataLocations[i] = index.get(keysIntoIndex[i], LongList.IMPERMISSIBLE_VALUE);
+            if (dataLocations[i] == LongList.IMPERMISSIBLE_VALUE) {
+                callback.dataItemRead(i, null);
+            } else {
+                found.add(i);
+            }
+        }
+        if (found.isEmpty()) {
+            return;
+        }
+        // Data location is file index in the upper bits and byte offset in the lower bits, so
+        // sorting by data location groups the items by file and sorts them by offset in the file
+        final int[] order = found.stream()
+                .sorted(Comparator.comparingLong(i -> dataLocations[i]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        if (dbConfig.asyncFileReads()) {
+            readDataItemsAsync(index, keysIntoIndex, dataLocations, order, callback);
+            return;
+        }
+        if (order.length <= BATCH_READ_TASK_SIZE) {
+            // Not worth a thread hand-off
+            readDataItemsBatch(index, keysIntoIndex, dataLocations, order, 0, order.length, callback);
+            return;
+        }
+        final ExecutorService executor = getBatchReadExecutor(dbConfig);
+        final List<Future<Void>> futures = new ArrayList<>(order.length / BATCH_READ_TASK_SIZE + 1);
+        int taskStart = 0;
+        for (int i = 1; i <= order.length; i++) {
+            if ((i == order.length)
+                    || (i - taskStart == BATCH_READ_TASK_SIZE)
+                    || (fileIndexFromDataLocation(dataLocations[order[i]])
+                            != fileIndexFromDataLocation(dataLocations[order[taskStart]]))) {
+                final int from = taskStart;
+                final int to = i;
+                futures.add(executor.submit(() -> {
+                    readDataItemsBatch(index, keysIntoIndex, dataLocations, order, from, to, callback);
+                    return null;
+                }));
+                taskStart = i;
+            }
+        }
+        waitForBatchReads(futures);
+    }
+
+    /**
+     * Reads data items in a batch using asynchronous file reads. Up to {@link
+     * MerkleDbConfig#maxAsyncReadsInFlight()} reads are in flight at any moment. Read requests
+     * are issued in the given order, i.e. grouped by file and sorted by offsets in the file. Data
+     * items are passed to the callback as reads are completed.
+     */
+    private void readDataItemsAsync(
+            final LongList index,
+            final long[] keysIntoIndex,
+            final long[] dataLocations,
+            final int[] order,
+            final BatchReadCallback callback)
+            throws IOException {
+        final Semaphore inFlight = new Semaphore(dbConfig.maxAsyncReadsInFlight());
+        final List<CompletableFuture<Void>> futures = new ArrayList<>(order.length);
+        try {
+            for (final int keyIndex : order) {
+                inFlight.acquire();
+                final long dataLocation = dataLocations[keyIndex];
+                DataFileReader reader;
+                try {
+                    reader = readerForDataLocation(dataLocation);
+                } catch (final IOException e) {
+                    // The file may have been just compacted and deleted, the item will be read
+                    // again using the index below
+                    reader = null;
+                }
+                final CompletableFuture<BufferedData> read = (reader != null)
+                        ? reader.readDataItemAsync(dataLocation)
+                        : CompletableFuture.completedFuture(null);
+                futures.add(read.handle((dataItem, readError) -> {
+                    try {
+                        BufferedData data = (readError == null) ? dataItem : null;
+                        if (data == null) {
+                            data = readDataItemUsingIndex(index, keysIntoIndex[keyIndex]);
+                        }
+                        callback.dataItemRead(keyIndex, data);
+                        return null;
+                    } catch (final IOException e) {
+                        throw new UncheckedIOException(e);
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading a batch of data items", e);
+        }
+        waitForBatchReads(futures);
+    }
+
+    /**
+     * Waits for all batch read tasks to complete. If any of the tasks fails, or the current
+     * thread is interrupted, all other tasks are cancelled.
+     */
+    private static void waitForBatchReads(final List<? extends Future<Void>> futures) throws IOException {
+        try {
+            for (final Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (final InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading a batch of data items", e);
+        } catch (final ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            if (e.getCause() instanceof IOException ioe) {
+                throw ioe;
+            }
+            if (e.getCause() instanceof UncheckedIOException uioe) {
+                throw uioe.getCause();
+            }
+            throw new IOException("Failed to read a batch of data items", e.getCause());
+        }
+    }
+
+    /**
+     * Reads a range of data items in a batch, in the given order. If a data item can't be read
+     * at the location, which was previously loaded from the index, e.g. because the file has just
+     * been compacted and closed, the item is read again using {@link #readDataItemUsingIndex(LongList,
+     * long)}, which has retries.
+     */
+    private void readDataItemsBatch(
+            final LongList index,
+            final long[] keysIntoIndex,
+            final long[] dataLocations,
+            final int[] order,
+            final int from,
+            final int to,
+            final BatchReadCallback callback)
+            throws IOException {
+        for (int i = from; i < to; i++) {
+            final int keyIndex = order[i];
+            BufferedData dataItem;
+            try {
+                dataItem = readDataItem(dataLocations[keyIndex]);
+            } catch (final IOException e) {
+                dataItem = null;
+            }
+            if (dataItem == null) {
+                dataItem = readDataItemUsingIndex(index, keysIntoIndex[keyIndex]);
+            }
+            callback.dataItemRead(keyIndex, dataItem);
+        }
+    }
+
+    private static ExecutorService getBatchReadExecutor(final MerkleDbConfig config) {
+        ExecutorService executor = batchReadExecutor;
+        if (executor == null) {
+            synchronized (DataFileCollection.class) {
+                executor = batchReadExecutor;
+                if (executor == null) {
+                    executor = Executors.newFixedThreadPool(
+                            config.batchReadThreads(),
+                            new ThreadConfiguration(getStaticThreadManager())
+                                    .setComponent(MERKLEDB_COMPONENT)
+                                    .setThreadName("Batch reads")
+                                    .setExceptionHandler((t, ex) -> logger.error(
+                                            EXCEPTION.getMarker(), "Uncaught exception during batch reads", ex))
+                                    .buildFactory());
+                    batchReadExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
     /** {@inheritDoc} */
     @Override
     public void snapshot(final Path snapshotDirectory) throws IOException {
@@ -603,6 +1010,22 @@ public class DataFileCollection implements Snapshotable {
         void newIndexEntry(long dataLocation, @NonNull BufferedData dataValue);
     }
 
+    /**
+     * Callback for data items read in {@link #readDataItemsUsingIndex(LongList, long[], BatchReadCallback)}.
+     * May be called from multiple threads concurrently.
+     */
+    @FunctionalInterface
+    public interface BatchReadCallback {
+        /**
+         * Handle a data item read for a key in a batch. Data item bytes are only valid during this call.
+         *
+         * @param keyIndex the index of the key in the batch
+         * @param dataItem data item bytes, or {@code null} if the key was not found in the index
+         * @throws IOException If there was a problem processing the data item
+         */
+        void dataItemRead(int keyIndex, @Nullable BufferedData dataItem) throws IOException;
+    }
+
     // =================================================================================================================
     // Private API
 
@@ -618,14 +1041,14 @@ public class DataFileCollection implements Snapshotable {
     }
 
     /**
-     * Create and add a new data file reader to end of indexedFileList
+     * Create and add a new data file reader to end of indexedFileList. The reader can read data
+     * items from the file while it's being written by the given writer.
      *
-     * @param filePath the path for the new data file
-     * @param metadata The metadata for the file at filePath, to save reading from file
+     * @param writer the writer of the new data file
      * @return The newly added DataFileReader.
      */
-    DataFileReader addNewDataFileReader(final Path filePath, final DataFileMetadata metadata) throws IOException {
-        final DataFileReader newDataFileReader = new DataFileReader(dbConfig, filePath, metadata);
+    DataFileReader addNewDataFileReader(final DataFileWriter writer) throws IOException {
+        final DataFileReader newDataFileReader = new DataFileReader(dbConfig, writer);
         dataFiles.getAndUpdate(currentFileList -> {
             try {
                 return (currentFileList == null)
@@ -670,7 +1093,14 @@ public class DataFileCollection implements Snapshotable {
         if (logger.isTraceEnabled()) {
             setOfNewFileIndexes.add(newFileIndex);
         }
-        return new DataFileWriter(storeName, storeDir, newFileIndex, creationTime, compactionLevel);
+        return new DataFileWriter(
+                storeName,
+                storeDir,
+                newFileIndex,
+                creationTime,
+                compactionLevel,
+                dbConfig.dataFileCompression(),
+                dbConfig.dataFileCompressionBlockSize());
     }
 
     /**
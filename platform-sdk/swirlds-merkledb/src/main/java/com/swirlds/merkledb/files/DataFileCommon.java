@@ -80,6 +80,17 @@ public final class DataFileCommon {
     /** Bit mask to remove file index from data location long */
     private static final long ITEM_OFFSET_MASK = MAX_ADDRESSABLE_DATA_FILE_SIZE_BYTES - 1;
 
+    /**
+     * In compressed data files, the data item byte offset is a block number in upper 24 bits and an
+     * offset of the data item within the uncompressed block in lower 16 bits. This allows for 16
+     * million blocks, and with max block size of 64Kb, 1Tb of uncompressed data per file.
+     */
+    private static final int BLOCK_ITEM_OFFSET_BITS = 16;
+    /** Max uncompressed block size in compressed data files */
+    public static final int MAX_COMPRESSED_BLOCK_SIZE = 1 << BLOCK_ITEM_OFFSET_BITS;
+    /** Max number of blocks in a compressed data file */
+    static final int MAX_COMPRESSED_BLOCKS = 1 << (DATA_ITEM_OFFSET_BITS - BLOCK_ITEM_OFFSET_BITS);
+
     /** Date formatter for dates used in data file names */
     private static final DateTimeFormatter DATE_FORMAT =
             DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss-SSS").withZone(ZoneId.of("Z"));
@@ -96,6 +107,10 @@ public final class DataFileCommon {
             new FieldDefinition("metadata", FieldType.MESSAGE, false, false, false, 1);
     static final FieldDefinition FIELD_DATAFILE_ITEMS =
             new FieldDefinition("items", FieldType.MESSAGE, true, true, false, 11);
+    static final FieldDefinition FIELD_DATAFILE_BLOCKS =
+            new FieldDefinition("blocks", FieldType.BYTES, true, true, false, 12);
+    static final FieldDefinition FIELD_DATAFILE_BLOCK_INDEX =
+            new FieldDefinition("blockIndex", FieldType.BYTES, false, true, false, 13);
 
     // Data file metadata protobuf fields
     static final FieldDefinition FIELD_DATAFILEMETADATA_INDEX =
@@ -113,6 +128,10 @@ public final class DataFileCommon {
 
     static final FieldDefinition FIELD_DATAFILEMETADATA_COMPACTION_LEVEL =
             new FieldDefinition("compactionLevel", FieldType.UINT32, false, true, false, 6);
+    static final FieldDefinition FIELD_DATAFILEMETADATA_COMPRESSION =
+            new FieldDefinition("compression", FieldType.UINT32, false, true, false, 7);
+    static final FieldDefinition FIELD_DATAFILEMETADATA_BLOCK_INDEX_OFFSET =
+            new FieldDefinition("blockIndexOffset", FieldType.FIXED64, false, true, false, 8);
 
     static final String ERROR_DATAITEM_TOO_LARGE =
             "Data item is too large to write to a data file. Increase data file mapped byte buffer size";
@@ -193,6 +212,40 @@ public final class DataFileCommon {
         return dataLocation & ITEM_OFFSET_MASK;
     }
 
+    /**
+     * Get the data byte offset in a compressed data file from block number and data item offset in
+     * the uncompressed block.
+     *
+     * @param blockNumber the block number in the file
+     * @param offsetInBlock the data item offset in the uncompressed block
+     * @return data offset
+     */
+    static long blockByteOffset(final int blockNumber, final int offsetInBlock) {
+        assert (offsetInBlock >= 0) && (offsetInBlock < MAX_COMPRESSED_BLOCK_SIZE);
+        return ((long) blockNumber << BLOCK_ITEM_OFFSET_BITS) | offsetInBlock;
+    }
+
+    /**
+     * Extract the block number from a data byte offset in a compressed data file.
+     *
+     * @param byteOffset data offset, see {@link #blockByteOffset(int, int)}
+     * @return block number
+     */
+    static int blockNumberFromByteOffset(final long byteOffset) {
+        return (int) (byteOffset >> BLOCK_ITEM_OFFSET_BITS);
+    }
+
+    /**
+     * Extract the data item offset in the uncompressed block from a data byte offset in a
+     * compressed data file.
+     *
+     * @param byteOffset data offset, see {@link #blockByteOffset(int, int)}
+     * @return data item offset in the block
+     */
+    static int offsetInBlockFromByteOffset(final long byteOffset) {
+        return (int) (byteOffset & (MAX_COMPRESSED_BLOCK_SIZE - 1));
+    }
+
     /**
      * Check if a file at path, is a data file based on name. Also checks if there is an existing
      * write lock file.
@@ -16,8 +16,11 @@
 
 package com.swirlds.merkledb.files;
 
+import static com.swirlds.common.threading.manager.AdHocThreadManager.getStaticThreadManager;
 import static com.swirlds.logging.legacy.LogMarker.EXCEPTION;
 import static com.swirlds.logging.legacy.LogMarker.MERKLE_DB;
+import static com.swirlds.merkledb.KeyRange.INVALID_KEY_RANGE;
+import static com.swirlds.merkledb.MerkleDb.MERKLEDB_COMPONENT;
 import static com.swirlds.merkledb.files.DataFileCommon.formatSizeBytes;
 import static com.swirlds.merkledb.files.DataFileCommon.getSizeOfFiles;
 import static com.swirlds.merkledb.files.DataFileCommon.getSizeOfFilesByPath;
@@ -25,6 +28,7 @@ import static com.swirlds.merkledb.files.DataFileCommon.logCompactStats;
 
 import com.hedera.pbj.runtime.io.buffer.BufferedData;
 import com.swirlds.base.units.UnitConstants;
+import com.swirlds.common.threading.framework.config.ThreadConfiguration;
 import com.swirlds.merkledb.KeyRange;
 import com.swirlds.merkledb.collections.CASableLongIndex;
 import com.swirlds.merkledb.config.MerkleDbConfig;
@@ -37,6 +41,10 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -60,6 +68,17 @@ public class DataFileCompactor {
      */
     public static final int INITIAL_COMPACTION_LEVEL = 0;
 
+    /**
+     * Key ranges smaller than this number are never split into multiple compaction partitions.
+     */
+    private static final long MIN_PARTITION_SIZE = 1024;
+
+    /**
+     * Thread pool to copy data items in compaction partitions. Only used, if compactions are
+     * configured to run in more than one partition.
+     */
+    private static volatile ExecutorService partitionExecutor = null;
+
     private final MerkleDbConfig dbConfig;
 
     /**
@@ -75,6 +94,10 @@ public class DataFileCompactor {
      * Index to update during compaction
      */
     private final CASableLongIndex index;
+    /**
+     * The policy to select files to compact
+     */
+    private final CompactionPolicy compactionPolicy;
     /**
      * A function that will be called to report the duration of the compaction
      */
@@ -94,16 +117,26 @@ public class DataFileCompactor {
     @Nullable
     private final Runnable updateTotalStatsFunction;
 
+    /**
+     * Number of partitions a compaction is split into, and therefore the number of files written
+     * in parallel during compaction.
+     */
+    private final int compactionPartitions;
+
     /**
      * A lock used for synchronization between snapshots and compactions. While a compaction is in
      * progress, it runs on its own without any synchronization. However, a few critical sections
-     * are protected with this lock: to create a new compaction writer/reader when compaction is
-     * started, to copy data items to the current writer and update the corresponding index item,
-     * and to close the compaction writer. This mechanism allows snapshots to effectively put
+     * are protected with this lock: to create new compaction writers/readers when compaction is
+     * started, to copy data items to the current writers and update the corresponding index items,
+     * and to close the compaction writers. This mechanism allows snapshots to effectively put
      * compaction on hold, which is critical as snapshots should be as fast as possible, while
      * compactions are just background processes.
+     * <p>
+     * The lock has one permit per compaction partition. Copying a data item takes a single permit,
+     * so partitions don't block each other. All other critical sections take all permits. The lock
+     * is fair, so snapshots aren't starved by partitions.
      */
-    private final Semaphore snapshotCompactionLock = new Semaphore(1);
+    private final Semaphore snapshotCompactionLock;
 
     /**
      * Start time of the current compaction, or null if compaction isn't running
@@ -111,20 +144,20 @@ public class DataFileCompactor {
     private final AtomicReference<Instant> currentCompactionStartTime = new AtomicReference<>();
 
     /**
-     * Current data file writer during compaction, or null if compaction isn't running. The writer
-     * is created at compaction start. If compaction is interrupted by a snapshot, the writer is
-     * closed before the snapshot, and then a new writer / new file is created after the snapshot is
-     * taken.
+     * Current data file writers during compaction, one per compaction partition, or null if
+     * compaction isn't running. The writers are created at compaction start. If compaction is
+     * interrupted by a snapshot, the writers are closed before the snapshot, and then new writers /
+     * new files are created after the snapshot is taken.
      */
-    private final AtomicReference<DataFileWriter> currentWriter = new AtomicReference<>();
+    private final AtomicReference<DataFileWriter[]> currentWriters = new AtomicReference<>();
     /**
-     * Currrent data file reader for the compaction writer above.
+     * Currrent data file readers for the compaction writers above.
      */
-    private final AtomicReference<DataFileReader> currentReader = new AtomicReference<>();
+    private final AtomicReference<DataFileReader[]> currentReaders = new AtomicReference<>();
     /**
      * The list of new files created during compaction. Usually, all files to process are compacted
-     * to a single new file, but if compaction is interrupted by a snapshot, there may be more than
-     * one file created.
+     * to a single new file per partition, but if compaction is interrupted by a snapshot, there may
+     * be more files created.
      */
     private final List<Path> newCompactedFiles = new ArrayList<>();
 
@@ -141,11 +174,50 @@ public class DataFileCompactor {
      */
     private final AtomicInteger compactionLevelInProgress = new AtomicInteger(0);
 
+    /**
+     * The number of compaction partitions that were in progress at the time when compaction was
+     * suspended. Once the compaction is resumed, this number of new files is started.
+     */
+    private final AtomicInteger compactionPartitionsInProgress = new AtomicInteger(0);
+
+    /**
+     * @param dbConfig                       MerkleDb config
+     * @param storeName                      name of the store to compact
+     * @param dataFileCollection             data file collection to compact
+     * @param index                          index to update during compaction
+     * @param reportDurationMetricFunction   function to report how long compaction took, in ms
+     * @param reportSavedSpaceMetricFunction function to report how much space was compacted, in Mb
+     * @param reportFileSizeByLevelMetricFunction function to report how much spaсе is used by the store by compaction level, in Mb
+     * @param updateTotalStatsFunction       A function that updates statistics of total usage of disk space and off-heap space
+     */
+    public DataFileCompactor(
+            final MerkleDbConfig dbConfig,
+            final String storeName,
+            final DataFileCollection dataFileCollection,
+            CASableLongIndex index,
+            @Nullable final BiConsumer<Integer, Long> reportDurationMetricFunction,
+            @Nullable final BiConsumer<Integer, Double> reportSavedSpaceMetricFunction,
+            @Nullable final BiConsumer<Integer, Double> reportFileSizeByLevelMetricFunction,
+            @Nullable Runnable updateTotalStatsFunction) {
+        this(
+                dbConfig,
+                storeName,
+                dataFileCollection,
+                index,
+                null,
+                reportDurationMetricFunction,
+                reportSavedSpaceMetricFunction,
+                reportFileSizeByLevelMetricFunction,
+                updateTotalStatsFunction);
+    }
+
     /**
      * @param dbConfig                       MerkleDb config
      * @param storeName                      name of the store to compact
      * @param dataFileCollection             data file collection to compact
      * @param index                          index to update during compaction
+     * @param compactionPolicy               policy to select files to compact, or null to use the default policy
+     *                                       from MerkleDb config
      * @param reportDurationMetricFunction   function to report how long compaction took, in ms
      * @param reportSavedSpaceMetricFunction function to report how much space was compacted, in Mb
      * @param reportFileSizeByLevelMetricFunction function to report how much spaсе is used by the store by compaction level, in Mb
@@ -156,11 +228,13 @@ public class DataFileCompactor {
             final String storeName,
             final DataFileCollection dataFileCollection,
             CASableLongIndex index,
+            @Nullable final CompactionPolicy compactionPolicy,
             @Nullable final BiConsumer<Integer, Long> reportDurationMetricFunction,
             @Nullable final BiConsumer<Integer, Double> reportSavedSpaceMetricFunction,
             @Nullable final BiConsumer<Integer, Double> reportFileSizeByLevelMetricFunction,
             @Nullable Runnable updateTotalStatsFunction) {
         this.dbConfig = dbConfig;
+        this.compactionPolicy = (compactionPolicy != null) ? compactionPolicy : createDefaultCompactionPolicy();
         this.storeName = storeName;
         this.dataFileCollection = dataFileCollection;
         this.index = index;
@@ -168,6 +242,39 @@ public class DataFileCompactor {
         this.reportSavedSpaceMetricFunction = reportSavedSpaceMetricFunction;
         this.reportFileSizeByLevelMetricFunction = reportFileSizeByLevelMetricFunction;
         this.updateTotalStatsFunction = updateTotalStatsFunction;
+        this.compactionPartitions = dbConfig.compactionPartitions();
+        this.snapshotCompactionLock = new Semaphore(compactionPartitions, true);
+    }
+
+    private CompactionPolicy createDefaultCompactionPolicy() {
+        if (dbConfig.compactionPolicy() == CompactionPolicyType.LEVELED) {
+            // Use getMinNumberOfFilesToCompact() rather than the config value, it may be overridden in tests
+            return (completedFiles, index, validKeyRange) ->
+                    compactionPlan(completedFiles, getMinNumberOfFilesToCompact(), dbConfig.maxCompactionLevel());
+        }
+        return CompactionPolicy.create(dbConfig.compactionPolicy(), dbConfig);
+    }
+
+    private static ExecutorService getPartitionExecutor(final MerkleDbConfig config) {
+        ExecutorService executor = partitionExecutor;
+        if (executor == null) {
+            synchronized (DataFileCompactor.class) {
+                executor = partitionExecutor;
+                if (executor == null) {
+                    // All stores may be compacted in parallel, each one in multiple partitions
+                    executor = Executors.newFixedThreadPool(
+                            config.compactionThreads() * config.compactionPartitions(),
+                            new ThreadConfiguration(getStaticThreadManager())
+                                    .setComponent(MERKLEDB_COMPONENT)
+                                    .setThreadName("Compaction partitions")
+                                    .setExceptionHandler((t, ex) -> logger.error(
+                                            EXCEPTION.getMarker(), "Uncaught exception during compaction", ex))
+                                    .buildFactory());
+                    partitionExecutor = executor;
+                }
+            }
+        }
+        return executor;
     }
 
     /**
@@ -192,24 +299,43 @@ public class DataFileCompactor {
             logger.debug(MERKLE_DB.getMarker(), "No files were available for merging [{}]", storeName);
             return Collections.emptyList();
         }
+        return compactSelectedFiles(index, filesToCompact, targetCompactionLevel);
+    }
 
+    /**
+     * Compacts the given files. Unlike {@link #compactFiles(CASableLongIndex, List, int)}, this
+     * method doesn't check the number of files to compact, as it's up to the compaction policy to
+     * decide if a compaction is worth running. For example, a single file may be compacted, if
+     * it contains mostly dead data items.
+     */
+    private synchronized List<Path> compactSelectedFiles(
+            final CASableLongIndex index,
+            final List<? extends DataFileReader> filesToCompact,
+            final int targetCompactionLevel)
+            throws IOException, InterruptedException {
         // create a merge time stamp, this timestamp is the newest time of the set of files we are
         // merging
         final Instant startTime = filesToCompact.stream()
                 .map(file -> file.getMetadata().getCreationDate())
                 .max(Instant::compareTo)
                 .orElseGet(Instant::now);
-        snapshotCompactionLock.acquire();
+        // Split the key range into partitions. Every partition is copied to its own file
+        final KeyRange keyRange = dataFileCollection.getValidKeyRange();
+        final long minKey = keyRange.getMinValidKey();
+        final long keyCount = keyRange.getMaxValidKey() - minKey + 1;
+        final int partitions = (int) Math.max(1, Math.min(compactionPartitions, keyCount / MIN_PARTITION_SIZE));
+
+        snapshotCompactionLock.acquire(compactionPartitions);
         try {
             currentCompactionStartTime.set(startTime);
             newCompactedFiles.clear();
-            startNewCompactionFile(targetCompactionLevel);
+            startNewCompactionFiles(targetCompactionLevel, partitions);
         } finally {
-            snapshotCompactionLock.release();
+            snapshotCompactionLock.release(compactionPartitions);
         }
 
         // We need a map to find readers by file index below. It doesn't have to be synchronized
-        // as it will be accessed in this thread only, so it can be a simple HashMap or alike.
+        // as it will only be read after it's populated, so it can be a simple HashMap or alike.
         // However, standard Java maps can only work with Integer, not int (yet), so auto-boxing
         // will put significant load on GC. Let's do something different
         int minFileIndex = Integer.MAX_VALUE;
@@ -219,62 +345,29 @@ public class DataFileCompactor {
             maxFileIndex = Math.max(maxFileIndex, r.getIndex());
         }
         final int firstIndexInc = minFileIndex;
-        final int lastIndexExc = maxFileIndex + 1;
-        final DataFileReader[] readers = new DataFileReader[lastIndexExc - firstIndexInc];
+        final DataFileReader[] readers = new DataFileReader[maxFileIndex + 1 - firstIndexInc];
         for (DataFileReader r : filesToCompact) {
             readers[r.getIndex() - firstIndexInc] = r;
         }
 
         boolean allDataItemsProcessed = false;
         try {
-            final KeyRange keyRange = dataFileCollection.getValidKeyRange();
-            index.forEach((path, dataLocation) -> {
-                if (!keyRange.withinRange(path)) {
-                    return;
-                }
-                final int fileIndex = DataFileCommon.fileIndexFromDataLocation(dataLocation);
-                if ((fileIndex < firstIndexInc) || (fileIndex >= lastIndexExc)) {
-                    return;
-                }
-                final DataFileReader reader = readers[fileIndex - firstIndexInc];
-                if (reader == null) {
-                    return;
-                }
-                final long fileOffset = DataFileCommon.byteOffsetFromDataLocation(dataLocation);
-                // Take the lock. If a snapshot is started in a different thread, this call
-                // will block until the snapshot is done. The current file will be flushed,
-                // and current data file writer and reader will point to a new file
-                snapshotCompactionLock.acquire();
-                try {
-                    final DataFileWriter newFileWriter = currentWriter.get();
-                    final BufferedData itemBytes = reader.readDataItem(fileOffset);
-                    assert itemBytes != null;
-                    long newLocation = newFileWriter.storeDataItem(itemBytes);
-                    // update the index
-                    index.putIfEqual(path, dataLocation, newLocation);
-                } catch (final ClosedByInterruptException e) {
-                    logger.info(
-                            MERKLE_DB.getMarker(),
-                            "Failed to copy data item {} / {} due to thread interruption",
-                            fileIndex,
-                            fileOffset,
-                            e);
-                    throw e;
-                } catch (final IOException z) {
-                    logger.error(EXCEPTION.getMarker(), "Failed to copy data item {} / {}", fileIndex, fileOffset, z);
-                    throw z;
-                } finally {
-                    snapshotCompactionLock.release();
-                }
-            });
+            if (keyRange.equals(INVALID_KEY_RANGE)) {
+                // No valid keys, all data items in the files to compact are dead, nothing to copy
+                logger.debug(MERKLE_DB.getMarker(), "No valid keys, skipping data items copy [{}]", storeName);
+            } else if (partitions == 1) {
+                compactPartition(index, 0, minKey, minKey + keyCount, readers, firstIndexInc, null);
+            } else {
+                compactPartitions(index, partitions, minKey, keyCount, readers, firstIndexInc);
+            }
             allDataItemsProcessed = true;
         } finally {
-            // Even if the thread is interrupted, make sure the new compacted file is properly closed
-            // and is included to future compactions
-            snapshotCompactionLock.acquire();
+            // Even if the thread is interrupted, make sure the new compacted files are properly closed
+            // and are included to future compactions
+            snapshotCompactionLock.acquire(compactionPartitions);
             try {
-                // Finish writing the last file. In rare cases, it may be an empty file
-                finishCurrentCompactionFile();
+                // Finish writing the last files. In rare cases, some of them may be empty
+                finishCurrentCompactionFiles();
                 // Clear compaction start time
                 currentCompactionStartTime.set(null);
                 if (allDataItemsProcessed) {
@@ -282,55 +375,196 @@ public class DataFileCompactor {
                     dataFileCollection.deleteFiles(filesToCompact);
                 }
             } finally {
-                snapshotCompactionLock.release();
+                snapshotCompactionLock.release(compactionPartitions);
             }
         }
 
         return newCompactedFiles;
     }
 
+    /**
+     * Copies data items in the given key range to the given partition's compaction file, if the
+     * items are located in one of the files to compact, and updates the index. This method may be
+     * called on multiple threads in parallel for different partitions.
+     *
+     * @param index index to update
+     * @param partition compaction partition
+     * @param fromKey the first key in the partition, inclusive
+     * @param toKey the last key in the partition, exclusive
+     * @param readers readers of the files to compact, by file index minus {@code firstIndexInc}
+     * @param firstIndexInc the min index of files to compact
+     * @param aborted a flag to stop copying, if another partition failed or the compaction thread
+     *                was interrupted, or null if compaction isn't split into partitions
+     * @throws IOException If an I/O error occurs
+     * @throws InterruptedException If the thread is interrupted
+     */
+    private void compactPartition(
+            final CASableLongIndex index,
+            final int partition,
+            final long fromKey,
+            final long toKey,
+            final DataFileReader[] readers,
+            final int firstIndexInc,
+            @Nullable final AtomicBoolean aborted)
+            throws IOException, InterruptedException {
+        index.forEach(fromKey, toKey, (path, dataLocation) -> {
+            final int fileIndex = DataFileCommon.fileIndexFromDataLocation(dataLocation);
+            if ((fileIndex < firstIndexInc) || (fileIndex >= firstIndexInc + readers.length)) {
+                return;
+            }
+            final DataFileReader reader = readers[fileIndex - firstIndexInc];
+            if (reader == null) {
+                return;
+            }
+            if ((aborted != null) && aborted.get()) {
+                throw new InterruptedException("Compaction partition " + partition + " is aborted");
+            }
+            final long fileOffset = DataFileCommon.byteOffsetFromDataLocation(dataLocation);
+            // Take the lock. If a snapshot is started in a different thread, this call
+            // will block until the snapshot is done. The current files will be flushed,
+            // and current data file writers and readers will point to new files
+            snapshotCompactionLock.acquire();
+            try {
+                final DataFileWriter newFileWriter = currentWriters.get()[partition];
+                final BufferedData itemBytes = reader.readDataItem(fileOffset);
+                assert itemBytes != null;
+                long newLocation = newFileWriter.storeDataItem(itemBytes);
+                // update the index. If the entry has been changed by a different thread since the
+                // item was read, the copy is dead right away, otherwise the original item is dead
+                if (index.putIfEqual(path, dataLocation, newLocation)) {
+                    dataFileCollection.markDataItemDead(dataLocation);
+                } else {
+                    dataFileCollection.markDataItemDead(newLocation);
+                }
+            } catch (final ClosedByInterruptException e) {
+                logger.info(
+                        MERKLE_DB.getMarker(),
+                        "Failed to copy data item {} / {} due to thread interruption",
+                        fileIndex,
+                        fileOffset,
+                        e);
+                throw e;
+            } catch (final IOException z) {
+                logger.error(EXCEPTION.getMarker(), "Failed to copy data item {} / {}", fileIndex, fileOffset, z);
+                throw z;
+            } finally {
+                snapshotCompactionLock.release();
+            }
+        });
+    }
+
+    /**
+     * Splits the given key range into partitions and runs {@link #compactPartition} for all of
+     * them in parallel. Waits for all partitions to complete, even if some of them fail or this
+     * thread is interrupted. Partition threads are never interrupted, as interrupting a thread,
+     * which reads from a file channel, would close the channel for all other threads, too.
+     *
+     * @throws IOException If an I/O error occurs in any partition
+     * @throws InterruptedException If the thread is interrupted
+     */
+    private void compactPartitions(
+            final CASableLongIndex index,
+            final int partitions,
+            final long minKey,
+            final long keyCount,
+            final DataFileReader[] readers,
+            final int firstIndexInc)
+            throws IOException, InterruptedException {
+        final ExecutorService executor = getPartitionExecutor(dbConfig);
+        final AtomicBoolean aborted = new AtomicBoolean(false);
+        final List<Future<Void>> futures = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            final int partition = i;
+            final long fromKey = minKey + keyCount * partition / partitions;
+            final long toKey = minKey + keyCount * (partition + 1) / partitions;
+            futures.add(executor.submit(() -> {
+                compactPartition(index, partition, fromKey, toKey, readers, firstIndexInc, aborted);
+                return null;
+            }));
+        }
+        Throwable error = null;
+        boolean interrupted = false;
+        for (final Future<Void> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (final InterruptedException e) {
+                    // Stop all partitions, but wait till they are complete
+                    interrupted = true;
+                    aborted.set(true);
+                } catch (final ExecutionException e) {
+                    aborted.set(true);
+                    // Partitions stopped because of the abort flag don't report the original error
+                    if ((error == null) || (error instanceof InterruptedException)) {
+                        error = e.getCause();
+                    }
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            throw new InterruptedException("Compaction of " + storeName + " is interrupted");
+        }
+        if (error instanceof IOException e) {
+            throw e;
+        } else if (error instanceof InterruptedException e) {
+            throw e;
+        } else if (error != null) {
+            throw new IOException("Failed to compact " + storeName, error);
+        }
+    }
+
     // visible for testing
     int getMinNumberOfFilesToCompact() {
         return dbConfig.minNumberOfFilesInCompaction();
     }
 
     /**
-     * Opens a new file for writing during compaction. This method is called, when compaction is
-     * started. If compaction is interrupted and resumed by data source snapshot using {@link
-     * #pauseCompaction()} and {@link #resumeCompaction()}, a new file is created for writing using
-     * this method before compaction is resumed.
+     * Opens new files for writing during compaction, one file per compaction partition. This method
+     * is called, when compaction is started. If compaction is interrupted and resumed by data source
+     * snapshot using {@link #pauseCompaction()} and {@link #resumeCompaction()}, new files are
+     * created for writing using this method before compaction is resumed.
      * <p>
      * This method must be called under snapshot/compaction lock.
      *
      * @throws IOException If an I/O error occurs
      */
-    private void startNewCompactionFile(int compactionLevel) throws IOException {
+    private void startNewCompactionFiles(final int compactionLevel, final int partitions) throws IOException {
         final Instant startTime = currentCompactionStartTime.get();
         assert startTime != null;
-        final DataFileWriter newFileWriter = dataFileCollection.newDataFile(startTime, compactionLevel);
-        currentWriter.set(newFileWriter);
-        final Path newFileCreated = newFileWriter.getPath();
-        newCompactedFiles.add(newFileCreated);
-        final DataFileMetadata newFileMetadata = newFileWriter.getMetadata();
-        final DataFileReader newFileReader = dataFileCollection.addNewDataFileReader(newFileCreated, newFileMetadata);
-        currentReader.set(newFileReader);
+        final DataFileWriter[] newFileWriters = new DataFileWriter[partitions];
+        final DataFileReader[] newFileReaders = new DataFileReader[partitions];
+        for (int i = 0; i < partitions; i++) {
+            final DataFileWriter newFileWriter = dataFileCollection.newDataFile(startTime, compactionLevel);
+            newFileWriters[i] = newFileWriter;
+            newCompactedFiles.add(newFileWriter.getPath());
+            newFileReaders[i] = dataFileCollection.addNewDataFileReader(newFileWriter);
+        }
+        currentWriters.set(newFileWriters);
+        currentReaders.set(newFileReaders);
     }
 
     /**
-     * Closes the current compaction file. This method is called in the end of compaction process,
-     * and also before a snapshot is taken to make sure the current file is fully written and safe
+     * Closes the current compaction files. This method is called in the end of compaction process,
+     * and also before a snapshot is taken to make sure the current files are fully written and safe
      * to include to snapshots.
      * <p>
      * This method must be called under snapshot/compaction lock.
      *
      * @throws IOException If an I/O error occurs
      */
-    private void finishCurrentCompactionFile() throws IOException {
-        currentWriter.get().finishWriting();
-        currentWriter.set(null);
-        // Now include the file in future compactions
-        currentReader.get().setFileCompleted();
-        currentReader.set(null);
+    private void finishCurrentCompactionFiles() throws IOException {
+        for (final DataFileWriter writer : currentWriters.get()) {
+            writer.finishWriting();
+            dataFileCollection.updateCompressionStats(writer);
+        }
+        currentWriters.set(null);
+        // Now include the files in future compactions
+        for (final DataFileReader reader : currentReaders.get()) {
+            reader.setFileCompleted();
+        }
+        currentReaders.set(null);
     }
 
     /**
@@ -351,16 +585,17 @@ public class DataFileCompactor {
      * @see #resumeCompaction()
      */
     public void pauseCompaction() throws IOException {
-        snapshotCompactionLock.acquireUninterruptibly();
-        // Check if compaction is currently in progress. If so, flush and close the current file, so
-        // it's included to the snapshot
-        final DataFileWriter compactionWriter = currentWriter.get();
-        if (compactionWriter != null) {
+        snapshotCompactionLock.acquireUninterruptibly(compactionPartitions);
+        // Check if compaction is currently in progress. If so, flush and close the current files, so
+        // they are included to the snapshot
+        final DataFileWriter[] compactionWriters = currentWriters.get();
+        if (compactionWriters != null) {
             compactionWasInProgress.set(true);
-            compactionLevelInProgress.set(compactionWriter.getMetadata().getCompactionLevel());
-            finishCurrentCompactionFile();
-            // Don't start a new compaction file here, as it would be included to snapshots, but
-            // it shouldn't, as it isn't fully written yet. Instead, a new file will be started
+            compactionLevelInProgress.set(compactionWriters[0].getMetadata().getCompactionLevel());
+            compactionPartitionsInProgress.set(compactionWriters.length);
+            finishCurrentCompactionFiles();
+            // Don't start new compaction files here, as they would be included to snapshots, but
+            // they shouldn't, as they aren't fully written yet. Instead, new files will be started
             // right after snapshot is taken, in resumeCompaction()
         }
         // Don't release the lock here, it will be done later in resumeCompaction(). If there is no
@@ -382,17 +617,18 @@ public class DataFileCompactor {
     public void resumeCompaction() throws IOException {
         try {
             if (compactionWasInProgress.getAndSet(false)) {
-                assert currentWriter.get() == null;
-                assert currentReader.get() == null;
-                startNewCompactionFile(compactionLevelInProgress.getAndSet(0));
+                assert currentWriters.get() == null;
+                assert currentReaders.get() == null;
+                startNewCompactionFiles(
+                        compactionLevelInProgress.getAndSet(0), compactionPartitionsInProgress.getAndSet(0));
             }
         } finally {
-            snapshotCompactionLock.release();
+            snapshotCompactionLock.release(compactionPartitions);
         }
     }
 
     /**
-     * Compact data files in the collection according to the compaction algorithm.
+     * Compact data files in the collection according to the compaction policy.
      *
      * @throws IOException          if there was a problem merging
      * @throws InterruptedException if the merge thread was interrupted
@@ -401,8 +637,8 @@ public class DataFileCompactor {
     public boolean compact() throws IOException, InterruptedException {
         final List<DataFileReader> completedFiles = dataFileCollection.getAllCompletedFiles();
         reportFileSizeByLevel(completedFiles);
-        final List<DataFileReader> filesToCompact =
-                compactionPlan(completedFiles, getMinNumberOfFilesToCompact(), dbConfig.maxCompactionLevel());
+        final List<DataFileReader> filesToCompact = compactionPolicy.selectFilesToCompact(
+                completedFiles, index, dataFileCollection.getValidKeyRange());
         if (filesToCompact.isEmpty()) {
             logger.debug(MERKLE_DB.getMarker(), "[{}] No need to compact, as the compaction plan is empty", storeName);
             return false;
@@ -411,7 +647,8 @@ public class DataFileCompactor {
         final int filesCount = filesToCompact.size();
         logger.info(MERKLE_DB.getMarker(), "[{}] Starting compaction", storeName);
 
-        final int targetCompactionLevel = getTargetCompactionLevel(filesToCompact, filesCount);
+        final int targetCompactionLevel =
+                compactionPolicy.getTargetCompactionLevel(filesToCompact, dbConfig.maxCompactionLevel());
 
         final long start = System.currentTimeMillis();
 
@@ -423,7 +660,7 @@ public class DataFileCompactor {
                 filesCount,
                 formatSizeBytes(filesToCompactSize));
 
-        final List<Path> newFilesCreated = compactFiles(index, filesToCompact, targetCompactionLevel);
+        final List<Path> newFilesCreated = compactSelectedFiles(index, filesToCompact, targetCompactionLevel);
 
         final long end = System.currentTimeMillis();
         final long tookMillis = end - start;
@@ -476,19 +713,6 @@ public class DataFileCompactor {
         }
     }
 
-    /**
-     * The target compaction level should not exceed the maxCompactionLevel configuration parameter.
-     * We need a limit on compaction levels for two reasons:
-     *  - To ensure a reasonably predictable frequency for full compactions, even for data that changes infrequently.
-     *  - We maintain metrics for each level, and there should be a cap on the number of these metrics.
-     */
-    private int getTargetCompactionLevel(List<? extends DataFileReader> filesToCompact, int filesCount) {
-        int highestExistingCompactionLevel =
-                filesToCompact.get(filesCount - 1).getMetadata().getCompactionLevel();
-
-        return Math.min(highestExistingCompactionLevel + 1, dbConfig.maxCompactionLevel());
-    }
-
     /**
      * This method creates a compaction plan (a set of files to be compacted). The plan is organized by compaction levels
      * in ascending order. If there are not enough files to compact, then no files are compacted and the plan will be empty.
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2024 Hedera Hashgraph, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.swirlds.merkledb.files;
+
+/**
+ * Data file compression types. Type IDs are stored in data file metadata, so they must never be
+ * changed or reused.
+ *
+ * <p>Compressed data files store data items in blocks, each block is compressed separately. Data
+ * item locations in such files point to a block and an offset of the item within the uncompressed
+ * block, so a random read only needs to decompress a single block. See {@link DataFileReader} for
+ * details about the file format.
+ */
+public enum DataFileCompression {
+
+    /** Data items are stored as is, this is the default */
+    NONE(0),
+
+    /**
+     * Data item blocks are compressed using Deflate from {@code java.util.zip} at the fastest
+     * compression level. Blocks, which don't compress, are stored uncompressed.
+     */
+    DEFLATE(1);
+
+    private final int id;
+
+    DataFileCompression(final int id) {
+        this.id = id;
+    }
+
+    /**
+     * Compression type ID.
+     *
+     * @return compression type ID
+     */
+    public int id() {
+        return id;
+    }
+
+    /**
+     * Returns a compression type by its ID.
+     *
+     * @param id compression type ID
+     * @return compression type
+     * @throws IllegalArgumentException if the ID is unknown
+     */
+    public static DataFileCompression valueOf(final int id) {
+        for (final DataFileCompression type : values()) {
+            if (type.id == id) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown data file compression type: " + id);
+    }
+}
@@ -17,6 +17,8 @@
 package com.swirlds.merkledb.files;
 
 import static com.hedera.pbj.runtime.ProtoParserTools.TAG_FIELD_OFFSET;
+import static com.swirlds.merkledb.files.DataFileCommon.FIELD_DATAFILE_BLOCKS;
+import static com.swirlds.merkledb.files.DataFileCommon.FIELD_DATAFILE_BLOCK_INDEX;
 import static com.swirlds.merkledb.files.DataFileCommon.FIELD_DATAFILE_ITEMS;
 import static com.swirlds.merkledb.files.DataFileCommon.FIELD_DATAFILE_METADATA;
 
@@ -37,6 +39,9 @@ import java.util.Objects;
  * loop and you can then read the data items info for current item with getDataItemsKey, getDataItemsDataLocation and
  * getDataItemData.
  *
+ * <p>In compressed files, every block is read and decompressed once, and then data items in the
+ * block are iterated over one by one.
+ *
  * <p>It is designed to be used from a single thread.
  *
  * @see DataFileReader for definition of file structure
@@ -61,6 +66,15 @@ public final class DataFileIterator implements AutoCloseable {
     /** True if this iterator has been closed */
     private boolean closed = false;
 
+    /** Codec to decompress blocks in compressed files, null for files without compression */
+    private final DataFileBlockCodec blockCodec;
+    /** Current decompressed block, or null if no block has been read yet */
+    private BufferedData currentBlock = null;
+    /** Number of the current block, zero being the first block, -1 being before start */
+    private int currentBlockNumber = -1;
+    /** The offset in bytes from start of the current block to the beginning of the current item */
+    private int currentDataItemBlockPosition = 0;
+
     /**
      * Create a new DataFileIterator on an existing file.
      *
@@ -80,6 +94,7 @@ public final class DataFileIterator implements AutoCloseable {
                 Files.newInputStream(path, StandardOpenOption.READ), dbConfig.iteratorInputBufferBytes());
         this.in = new ReadableStreamingData(inputStream);
         this.in.limit(Files.size(path));
+        this.blockCodec = metadata.isCompressed() ? new DataFileBlockCodec() : null;
     }
 
     /**
@@ -108,6 +123,10 @@ public final class DataFileIterator implements AutoCloseable {
         if (!closed) {
             closed = true;
             dataItemBuffer = null;
+            currentBlock = null;
+            if (blockCodec != null) {
+                blockCodec.close();
+            }
             inputStream.close();
         }
     }
@@ -130,6 +149,11 @@ public final class DataFileIterator implements AutoCloseable {
             return false;
         }
 
+        if ((currentBlock != null) && currentBlock.hasRemaining()) {
+            readBlockDataItem();
+            return true;
+        }
+
         while (in.hasRemaining()) {
             currentDataItemFilePosition = in.position();
             final int tag = in.readVarInt(false);
@@ -139,9 +163,17 @@ public final class DataFileIterator implements AutoCloseable {
                 dataItemBuffer = fillBuffer(currentDataItemSize);
                 currentDataItem++;
                 return true;
-            } else if (fieldNum == FIELD_DATAFILE_METADATA.number()) {
-                final int metadataSize = in.readVarInt(false);
-                in.skip(metadataSize);
+            } else if (fieldNum == FIELD_DATAFILE_BLOCKS.number()) {
+                final int blockSize = in.readVarInt(false);
+                readBlock(blockSize);
+                if (currentBlock.hasRemaining()) {
+                    readBlockDataItem();
+                    return true;
+                }
+            } else if ((fieldNum == FIELD_DATAFILE_METADATA.number())
+                    || (fieldNum == FIELD_DATAFILE_BLOCK_INDEX.number())) {
+                final int fieldSize = in.readVarInt(false);
+                in.skip(fieldSize);
             } else {
                 throw new IllegalArgumentException("Unknown data file field: " + fieldNum);
             }
@@ -167,6 +199,10 @@ public final class DataFileIterator implements AutoCloseable {
      * @return current data item location
      */
     public long getDataItemDataLocation() {
+        if (currentBlock != null) {
+            final long byteOffset = DataFileCommon.blockByteOffset(currentBlockNumber, currentDataItemBlockPosition);
+            return DataFileCommon.dataLocation(metadata.getIndex(), byteOffset);
+        }
         return DataFileCommon.dataLocation(metadata.getIndex(), currentDataItemFilePosition);
     }
 
@@ -237,6 +273,46 @@ public final class DataFileIterator implements AutoCloseable {
         return dataItemBuffer;
     }
 
+    /**
+     * Reads a compressed block of the given size from the file and decompresses it to {@link
+     * #currentBlock}.
+     *
+     * @param blockSize encoded block size
+     * @throws IOException if the block can't be read or decompressed
+     */
+    private void readBlock(final int blockSize) throws IOException {
+        final byte[] encoded = blockCodec.getInputBuffer(blockSize);
+        final long bytesRead = in.readBytes(encoded, 0, blockSize);
+        if (bytesRead != blockSize) {
+            throw new IOException("Couldn't read " + blockSize + " bytes, block [" + (currentBlockNumber + 1) + "]");
+        }
+        final int size = blockCodec.decode(encoded, 0, blockSize);
+        currentBlock = BufferedData.wrap(blockCodec.getDecoded(), 0, size);
+        currentBlockNumber++;
+    }
+
+    /**
+     * Reads the next data item from the current block to {@link #dataItemBuffer}.
+     *
+     * @throws IOException if the data item is malformed
+     */
+    private void readBlockDataItem() throws IOException {
+        currentDataItemBlockPosition = Math.toIntExact(currentBlock.position());
+        final int tag = currentBlock.readVarInt(false);
+        if ((tag >> TAG_FIELD_OFFSET) != FIELD_DATAFILE_ITEMS.number()) {
+            throw new IOException("Malformed file [" + path + "], unexpected field in block: " + tag);
+        }
+        final int dataItemSize = currentBlock.readVarInt(false);
+        if (dataItemBuffer == null || dataItemBuffer.capacity() < dataItemSize) {
+            resizeBuffer(dataItemSize);
+        }
+        dataItemBuffer.position(0);
+        dataItemBuffer.limit(dataItemSize);
+        currentBlock.readBytes(dataItemBuffer);
+        dataItemBuffer.position(0);
+        currentDataItem++;
+    }
+
     /**
      * Resizes the dataItemBuffer, or creates it if necessary, such that it is large enough
      * to read the bytes provided.
@@ -17,12 +17,16 @@
 package com.swirlds.merkledb.files;
 
 import static com.hedera.pbj.runtime.ProtoParserTools.TAG_FIELD_OFFSET;
+import static com.swirlds.merkledb.files.DataFileCommon.FIELD_DATAFILEMETADATA_BLOCK_INDEX_OFFSET;
 import static com.swirlds.merkledb.files.DataFileCommon.FIELD_DATAFILEMETADATA_COMPACTION_LEVEL;
+import static com.swirlds.merkledb.files.DataFileCommon.FIELD_DATAFILEMETADATA_COMPRESSION;
 import static com.swirlds.merkledb.files.DataFileCommon.FIELD_DATAFILEMETADATA_CREATION_NANOS;
 import static com.swirlds.merkledb.files.DataFileCommon.FIELD_DATAFILEMETADATA_CREATION_SECONDS;
 import static com.swirlds.merkledb.files.DataFileCommon.FIELD_DATAFILEMETADATA_INDEX;
 import static com.swirlds.merkledb.files.DataFileCommon.FIELD_DATAFILEMETADATA_ITEMS_COUNT;
 import static com.swirlds.merkledb.files.DataFileCommon.FIELD_DATAFILEMETADATA_ITEM_VERSION;
+import static com.swirlds.merkledb.files.DataFileCommon.FIELD_DATAFILE_BLOCKS;
+import static com.swirlds.merkledb.files.DataFileCommon.FIELD_DATAFILE_BLOCK_INDEX;
 import static com.swirlds.merkledb.files.DataFileCommon.FIELD_DATAFILE_ITEMS;
 import static com.swirlds.merkledb.files.DataFileCommon.FIELD_DATAFILE_METADATA;
 
@@ -65,8 +69,18 @@ public final class DataFileMetadata {
     /** The level of compaction this file has. See {@link DataFileCompactor}*/
     private final byte compactionLevel;
 
+    /** Data item compression in this file */
+    private final DataFileCompression compression;
+
+    /**
+     * Offset of the block index in compressed files, in bytes. Similar to {@link #itemsCount}, for
+     * new files this field is updated right before the file is finished writing.
+     */
+    private volatile long blockIndexOffset;
+
     // Set in writeTo()
     private long dataItemCountHeaderOffset = 0;
+    private long blockIndexOffsetHeaderOffset = 0;
 
     /**
      * Create a new DataFileMetadata with complete set of data
@@ -78,11 +92,31 @@ public final class DataFileMetadata {
      */
     public DataFileMetadata(
             final long itemsCount, final int index, final Instant creationDate, final int compactionLevel) {
+        this(itemsCount, index, creationDate, compactionLevel, DataFileCompression.NONE);
+    }
+
+    /**
+     * Create a new DataFileMetadata with complete set of data
+     *
+     * @param itemsCount The number of data items the file contains
+     * @param index The file index, in a data file collection
+     * @param creationDate The creation data of this file, this is critical as it is used when
+     *     merging two files to know which files data is newer.
+     * @param compactionLevel The level of compaction
+     * @param compression Data item compression in the file
+     */
+    public DataFileMetadata(
+            final long itemsCount,
+            final int index,
+            final Instant creationDate,
+            final int compactionLevel,
+            final DataFileCompression compression) {
         this.itemsCount = itemsCount;
         this.index = index;
         this.creationDate = creationDate;
         assert compactionLevel >= 0 && compactionLevel < MAX_COMPACTION_LEVEL;
         this.compactionLevel = (byte) compactionLevel;
+        this.compression = Objects.requireNonNull(compression);
     }
 
     /**
@@ -98,6 +132,8 @@ public final class DataFileMetadata {
         int creationNanos = 0;
         long itemsCount = 0;
         byte compactionLevel = 0;
+        DataFileCompression compression = DataFileCompression.NONE;
+        long blockIndexOffset = 0;
 
         // Read values from the file, skipping all data items
         try (final ReadableStreamingData in = new ReadableStreamingData(file)) {
@@ -126,6 +162,10 @@ public final class DataFileMetadata {
                                 final int compactionLevelInt = in.readVarInt(false);
                                 assert compactionLevelInt < MAX_COMPACTION_LEVEL;
                                 compactionLevel = (byte) compactionLevelInt;
+                            } else if (metadataFieldNum == FIELD_DATAFILEMETADATA_COMPRESSION.number()) {
+                                compression = DataFileCompression.valueOf(in.readVarInt(false));
+                            } else if (metadataFieldNum == FIELD_DATAFILEMETADATA_BLOCK_INDEX_OFFSET.number()) {
+                                blockIndexOffset = in.readLong();
                             } else {
                                 throw new IllegalArgumentException(
                                         "Unknown data file metadata field: " + metadataFieldNum);
@@ -135,7 +175,9 @@ public final class DataFileMetadata {
                         in.limit(oldLimit);
                     }
                     break;
-                } else if (fieldNum == FIELD_DATAFILE_ITEMS.number()) {
+                } else if ((fieldNum == FIELD_DATAFILE_ITEMS.number())
+                        || (fieldNum == FIELD_DATAFILE_BLOCKS.number())
+                        || (fieldNum == FIELD_DATAFILE_BLOCK_INDEX.number())) {
                     // Just skip it. By default, metadata is written to the very beginning of the file,
                     // so this code should never be executed. However, with other implementations data
                     // items may come first, this code must be ready to handle it
@@ -152,6 +194,8 @@ public final class DataFileMetadata {
         this.creationDate = Instant.ofEpochSecond(creationSeconds, creationNanos);
         this.itemsCount = itemsCount;
         this.compactionLevel = compactionLevel;
+        this.compression = compression;
+        this.blockIndexOffset = blockIndexOffset;
     }
 
     void writeTo(final BufferedData out) {
@@ -175,6 +219,13 @@ public final class DataFileMetadata {
             ProtoWriterTools.writeTag(out, FIELD_DATAFILEMETADATA_COMPACTION_LEVEL);
             out.writeVarInt(compactionLevel, false);
         }
+        if (isCompressed()) {
+            ProtoWriterTools.writeTag(out, FIELD_DATAFILEMETADATA_COMPRESSION);
+            out.writeVarInt(compression.id(), false);
+            blockIndexOffsetHeaderOffset = out.position();
+            ProtoWriterTools.writeTag(out, FIELD_DATAFILEMETADATA_BLOCK_INDEX_OFFSET);
+            out.writeLong(0); // will be updated later
+        }
     }
 
     /**
@@ -199,6 +250,49 @@ public final class DataFileMetadata {
         out.writeLong(count);
     }
 
+    /**
+     * Get data item compression in the file.
+     *
+     * @return data file compression
+     */
+    public DataFileCompression getCompression() {
+        return compression;
+    }
+
+    /**
+     * Checks if data items in the file are stored in compressed blocks.
+     *
+     * @return true if the file is compressed
+     */
+    public boolean isCompressed() {
+        return compression != DataFileCompression.NONE;
+    }
+
+    /**
+     * Get the offset of the block index in a compressed file. If this method is called before the
+     * corresponding file is completely written by {@link DataFileWriter}, the return value is 0.
+     *
+     * @return block index offset in bytes
+     */
+    long getBlockIndexOffset() {
+        return blockIndexOffset;
+    }
+
+    /**
+     * Updates the offset of the block index in a compressed file. This method must be called after
+     * metadata is written to a file using {@link #writeTo(BufferedData)}.
+     *
+     * <p>This method is called by {@link DataFileWriter} right before the file is finished writing.
+     */
+    void updateBlockIndexOffset(final BufferedData out, final long offset) {
+        assert isCompressed();
+        this.blockIndexOffset = offset;
+        assert blockIndexOffsetHeaderOffset != 0;
+        out.position(blockIndexOffsetHeaderOffset);
+        ProtoWriterTools.writeTag(out, FIELD_DATAFILEMETADATA_BLOCK_INDEX_OFFSET);
+        out.writeLong(offset);
+    }
+
     /** Get the files index, out of a set of data files */
     public int getIndex() {
         return index;
@@ -235,6 +329,14 @@ public final class DataFileMetadata {
                     FIELD_DATAFILEMETADATA_COMPACTION_LEVEL, ProtoConstants.WIRE_TYPE_VARINT_OR_ZIGZAG);
             size += ProtoWriterTools.sizeOfVarInt32(compactionLevel);
         }
+        if (isCompressed()) {
+            size += ProtoWriterTools.sizeOfTag(
+                    FIELD_DATAFILEMETADATA_COMPRESSION, ProtoConstants.WIRE_TYPE_VARINT_OR_ZIGZAG);
+            size += ProtoWriterTools.sizeOfVarInt32(compression.id());
+            size += ProtoWriterTools.sizeOfTag(
+                    FIELD_DATAFILEMETADATA_BLOCK_INDEX_OFFSET, ProtoConstants.WIRE_TYPE_FIXED_64_BIT);
+            size += Long.BYTES;
+        }
         return size;
     }
 
@@ -267,6 +369,7 @@ public final class DataFileMetadata {
         return itemsCount == that.itemsCount
                 && index == that.index
                 && compactionLevel == that.compactionLevel
+                && compression == that.compression
                 && Objects.equals(this.creationDate, that.creationDate);
     }
 
@@ -275,6 +378,6 @@ public final class DataFileMetadata {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(itemsCount, index, creationDate, compactionLevel);
+        return Objects.hash(itemsCount, index, creationDate, compactionLevel, compression);
     }
 }
@@ -17,29 +17,47 @@
 package com.swirlds.merkledb.files;
 
 import static com.hedera.pbj.runtime.ProtoParserTools.TAG_FIELD_OFFSET;
+import static com.swirlds.common.threading.manager.AdHocThreadManager.getStaticThreadManager;
+import static com.swirlds.logging.legacy.LogMarker.EXCEPTION;
+import static com.swirlds.merkledb.MerkleDb.MERKLEDB_COMPONENT;
+import static com.swirlds.merkledb.files.DataFileCommon.FIELD_DATAFILE_BLOCKS;
 import static com.swirlds.merkledb.files.DataFileCommon.FIELD_DATAFILE_ITEMS;
 
 import com.hedera.pbj.runtime.ProtoConstants;
 import com.hedera.pbj.runtime.ProtoWriterTools;
 import com.hedera.pbj.runtime.io.buffer.BufferedData;
+import com.swirlds.common.threading.framework.config.ThreadConfiguration;
 import com.swirlds.merkledb.collections.IndexedObject;
 import com.swirlds.merkledb.config.MerkleDbConfig;
+import com.swirlds.merkledb.utilities.MemoryUtils;
 import com.swirlds.merkledb.utilities.MerkleDbFileUtils;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
 import java.nio.channels.ClosedByInterruptException;
 import java.nio.channels.ClosedChannelException;
+import java.nio.channels.CompletionHandler;
 import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 /**
  * The aim for a DataFileReader is to facilitate fast highly concurrent random reading of items from
@@ -65,16 +83,73 @@ import java.util.concurrent.atomic.AtomicReferenceArray;
  *     // Data item version. May not be needed
  *     uint64 itemVersion = 5;
  *
- *     // Data items
+ *     // Compaction level
+ *     uint32 compactionLevel = 6;
+ *
+ *     // Compression type, see DataFileCompression. Only present in compressed files
+ *     uint32 compression = 7;
+ *
+ *     // Block index offset in the file. Only present in compressed files
+ *     fixed64 blockIndexOffset = 8;
+ *
+ *     // Data items, in files without compression
  *     repeated bytes items = 11;
+ *
+ *     // Compressed blocks of data items, in compressed files. Every block is an uncompressed
+ *     // block size varint followed by compressed bytes. Uncompressed blocks contain data items
+ *     // in the same format as the "items" field above
+ *     repeated bytes blocks = 12;
+ *
+ *     // Offsets of all blocks in the file, in compressed files. The last offset is the end of
+ *     // the last block
+ *     repeated fixed64 blockIndex = 13;
  * }
  * </pre>
+ *
+ * <p>In compressed files, data item offsets in data locations are block numbers combined with
+ * item offsets in uncompressed blocks. To read a data item, only the block that contains it is
+ * read and decompressed. The last decompressed block is cached per thread, so sequential reads
+ * of items in the same block, e.g. during compaction, decompress the block once.
  */
 public final class DataFileReader implements AutoCloseable, Comparable<DataFileReader>, IndexedObject {
 
+    private static final Logger logger = LogManager.getLogger(DataFileReader.class);
+
     private static final ThreadLocal<ByteBuffer> BUFFER_CACHE = new ThreadLocal<>();
     private static final ThreadLocal<BufferedData> BUFFEREDDATA_CACHE = new ThreadLocal<>();
 
+    /** The last block decompressed by the current thread, see {@link #readBlockDataItem(long)} */
+    private static final ThreadLocal<BlockCache> BLOCK_CACHE = ThreadLocal.withInitial(BlockCache::new);
+
+    /** Source of unique reader IDs, which identify readers in {@link #BLOCK_CACHE} */
+    private static final AtomicLong READER_IDS = new AtomicLong(0);
+
+    /**
+     * Buffer size to read data item tag and size. If the whole item is small and fits into this
+     * buffer, there is no need to make an extra file read
+     */
+    private static final int PRE_READ_BUF_SIZE = 2048;
+
+    /**
+     * Buffer size to read data item tag and size in async reads. Async read buffers aren't reused,
+     * so this size is smaller than {@link #PRE_READ_BUF_SIZE}, but still large enough to fit most
+     * leaf records and buckets in a single read
+     */
+    private static final int ASYNC_PRE_READ_BUF_SIZE = 512;
+
+    /**
+     * Max size of a single memory mapped region of a data file. Larger files are mapped in
+     * multiple chunks. Data items, which span across chunk boundaries, are read using file
+     * channels
+     */
+    private static final long MAPPED_CHUNK_SIZE = 1L << 30;
+
+    /** Max size of a data item header in a data file: tag and size varints, up to 5 bytes each */
+    private static final int MAX_DATA_ITEM_HEADER_SIZE = 10;
+
+    /** Thread pool to complete async reads, shared by all data file readers. Created lazily */
+    private static volatile ExecutorService asyncReadExecutor = null;
+
     private final MerkleDbConfig dbConfig;
 
     /** Max number of file channels to use for reading */
@@ -119,6 +194,58 @@ public final class DataFileReader implements AutoCloseable, Comparable<DataFileR
      */
     private final AtomicLong fileSizeBytes = new AtomicLong(0);
 
+    /**
+     * Asynchronous file channel used by {@link #readDataItemAsync(long)}. Opened lazily on the
+     * first async read, and closed when this reader is closed.
+     */
+    private final AtomicReference<AsynchronousFileChannel> asyncFileChannel = new AtomicReference<>();
+
+    /**
+     * Memory mapped chunks of this file, each up to {@link #MAPPED_CHUNK_SIZE} bytes. The file is
+     * mapped in {@link #setFileCompleted()}, if enabled in MerkleDb config. Null if the file isn't
+     * mapped, or if this reader is closed. The chunks must only be accessed between {@link
+     * #acquireMappedChunks()} and {@link #releaseMappedChunks()}, as they are explicitly unmapped
+     * when the reader is closed.
+     */
+    private volatile MappedByteBuffer[] mappedChunks = null;
+
+    /**
+     * Number of threads currently reading from {@link #mappedChunks}. The sign bit is set, when
+     * this reader is closed. No threads can start reading from the chunks after that, and the
+     * chunks are unmapped by the last thread done reading, or in {@link #close()}, if there are
+     * no such threads.
+     */
+    private final AtomicInteger mappedChunksUsers = new AtomicInteger(0);
+
+    /**
+     * Number of data items in this file, which are no longer referenced from the index. Updated
+     * using {@link #markDataItemDead()}, when an index entry is moved away from this file. Items,
+     * which became dead before the file was loaded from disk, aren't counted, so for such files
+     * the number is a lower bound.
+     */
+    private final LongAdder deadItemCount = new LongAdder();
+
+    /**
+     * Unique ID of this reader. Thread block caches refer to readers by ID rather than by reference,
+     * so closed readers aren't retained by the caches. File indexes can't be used here, as they are
+     * only unique within a single data file collection.
+     */
+    private final long readerId = READER_IDS.incrementAndGet();
+
+    /**
+     * Offsets of all blocks in this file, if the file is compressed. Loaded from the file when an
+     * existing file is opened, or in {@link #setFileCompleted()} for files written by this process.
+     * Null for files, which aren't compressed, or are still being written.
+     */
+    private volatile long[] blockOffsets = null;
+
+    /**
+     * The writer of this file, if the file is compressed and is still being written. Blocks and
+     * data items not yet written to the file are read using the writer. Set to null in {@link
+     * #setFileCompleted()}, after {@link #blockOffsets} are loaded.
+     */
+    private volatile DataFileWriter writer = null;
+
     /**
      * Open an existing data file, reading the metadata from the file
      *
@@ -138,6 +265,26 @@ public final class DataFileReader implements AutoCloseable, Comparable<DataFileR
      */
     public DataFileReader(final MerkleDbConfig dbConfig, final Path path, final DataFileMetadata metadata)
             throws IOException {
+        this(dbConfig, path, metadata, null);
+    }
+
+    /**
+     * Open a data file, which is being written by the given writer. Until the file is completed,
+     * data items in compressed files are read using the writer.
+     *
+     * @param dbConfig MerkleDb config
+     * @param writer the writer of the data file
+     */
+    DataFileReader(final MerkleDbConfig dbConfig, final DataFileWriter writer) throws IOException {
+        this(dbConfig, writer.getPath(), writer.getMetadata(), writer);
+    }
+
+    private DataFileReader(
+            final MerkleDbConfig dbConfig,
+            final Path path,
+            final DataFileMetadata metadata,
+            final DataFileWriter writer)
+            throws IOException {
         this.dbConfig = dbConfig;
         maxFileChannels = dbConfig.maxFileChannelsPerFileReader();
         threadsPerFileChannel = dbConfig.maxThreadsPerFileChannel();
@@ -149,6 +296,15 @@ public final class DataFileReader implements AutoCloseable, Comparable<DataFileR
         this.path = path;
         this.metadata = metadata;
         openNewFileChannel(0);
+        if (metadata.isCompressed()) {
+            if (writer != null) {
+                this.writer = writer;
+            } else {
+                // Existing files are complete, load the block index right away, so data items can be
+                // read before the file is marked as completed
+                blockOffsets = readBlockIndex();
+            }
+        }
     }
 
     /**
@@ -165,10 +321,21 @@ public final class DataFileReader implements AutoCloseable, Comparable<DataFileR
      * is created for an existing file, it's usually marked as completed immediately. If the reader
      * is created for a new file, which is still being written in a different thread, it's marked as
      * completed right after the file is fully written and the writer is closed.
+     *
+     * <p>Completed files are never modified. If {@link MerkleDbConfig#mmapCompletedFiles()} is
+     * enabled, the file is memory mapped here, and all subsequent reads are served from the
+     * mapped memory.
      */
     public void setFileCompleted() {
         try {
             fileSizeBytes.set(fileChannels.get(0).size());
+            if (metadata.isCompressed() && (blockOffsets == null)) {
+                blockOffsets = readBlockIndex();
+                writer = null;
+            }
+            if (dbConfig.mmapCompletedFiles()) {
+                mapFile();
+            }
         } catch (final IOException e) {
             throw new UncheckedIOException("Failed to update data file reader size", e);
         } finally {
@@ -194,6 +361,56 @@ public final class DataFileReader implements AutoCloseable, Comparable<DataFileR
         return metadata;
     }
 
+    /**
+     * Marks a data item in this file as no longer referenced from the index.
+     */
+    void markDataItemDead() {
+        deadItemCount.increment();
+    }
+
+    /**
+     * Marks the given number of data items in this file as no longer referenced from the index.
+     *
+     * @param count the number of data items
+     */
+    void markDataItemsDead(final long count) {
+        deadItemCount.add(count);
+    }
+
+    /**
+     * Marks all data items in this file as no longer referenced from the index.
+     */
+    void markAllDataItemsDead() {
+        deadItemCount.add(getLiveItemCount());
+    }
+
+    /**
+     * Get the estimated number of data items in this file, which are still referenced from the
+     * index. For files written after the file collection was loaded, the number is exact, except
+     * rare races between compaction and flushes, which make it an upper bound.
+     *
+     * @return live data item count
+     */
+    public long getLiveItemCount() {
+        return Math.max(0, metadata.getDataItemCount() - deadItemCount.sum());
+    }
+
+    /**
+     * Get the estimated number of bytes, which would be reclaimed by compacting this file. Data
+     * items are assumed to be of the same size. This method should only be called for completed
+     * files, see {@link #getSize()}.
+     *
+     * @return reclaimable size in bytes
+     */
+    public long getReclaimableSize() {
+        final long itemCount = metadata.getDataItemCount();
+        if (itemCount == 0) {
+            return 0;
+        }
+        final long deadItems = Math.min(itemCount, deadItemCount.sum());
+        return (long) ((double) getSize() * deadItems / itemCount);
+    }
+
     /**
      * Get the path to this data file.
      *
@@ -225,9 +442,99 @@ public final class DataFileReader implements AutoCloseable, Comparable<DataFileR
      */
     public BufferedData readDataItem(final long dataLocation) throws IOException {
         final long byteOffset = DataFileCommon.byteOffsetFromDataLocation(dataLocation);
+        if (metadata.isCompressed()) {
+            return readBlockDataItem(byteOffset);
+        }
+        final MappedByteBuffer[] mapped = acquireMappedChunks();
+        if (mapped != null) {
+            try {
+                final BufferedData dataItem = readMapped(mapped, byteOffset, true);
+                if (dataItem != null) {
+                    return dataItem;
+                }
+            } finally {
+                releaseMappedChunks();
+            }
+        }
         return read(byteOffset);
     }
 
+    /**
+     * Read data item from file at dataLocation asynchronously. Unlike {@link #readDataItem(long)},
+     * the calling thread isn't blocked, and many async reads may be in flight for the same file
+     * at the same time. Data item bytes returned in the future are not reused by the reader, they
+     * can be used by the caller as long as needed.
+     *
+     * <p>If this reader is closed, the returned future is completed with {@code null}, same as
+     * {@link #readDataItem(long)} returns {@code null} in this case. Callers are expected to
+     * retry with a new reader.
+     *
+     * <p>If this file is memory mapped or compressed, the data item is read in the calling
+     * thread, and the returned future is already completed.
+     *
+     * @param dataLocation data item location, which combines data file index and offset in the file
+     * @return a future with data item bytes
+     */
+    public CompletableFuture<BufferedData> readDataItemAsync(final long dataLocation) {
+        final long byteOffset = DataFileCommon.byteOffsetFromDataLocation(dataLocation);
+        if (metadata.isCompressed()) {
+            try {
+                final BufferedData dataItem = readBlockDataItem(byteOffset);
+                if (dataItem == null) {
+                    return CompletableFuture.completedFuture(null);
+                }
+                // Data item bytes are in a buffer reused by this thread, make a copy
+                final byte[] bytes = new byte[Math.toIntExact(dataItem.remaining())];
+                dataItem.readBytes(bytes);
+                return CompletableFuture.completedFuture(BufferedData.wrap(bytes));
+            } catch (final IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        final MappedByteBuffer[] mapped = acquireMappedChunks();
+        if (mapped != null) {
+            try {
+                final BufferedData dataItem = readMapped(mapped, byteOffset, false);
+                if (dataItem != null) {
+                    return CompletableFuture.completedFuture(dataItem);
+                }
+            } finally {
+                releaseMappedChunks();
+            }
+        }
+        final AsynchronousFileChannel channel;
+        try {
+            channel = getAsyncFileChannel();
+        } catch (final IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (channel == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        final ByteBuffer headerBuffer = ByteBuffer.allocate(ASYNC_PRE_READ_BUF_SIZE);
+        return readFullyAsync(channel, headerBuffer, byteOffset).thenCompose(header -> {
+            final BufferedData headerData = BufferedData.wrap(header);
+            final int tag = headerData.getVarInt(0, false);
+            assert tag
+                    == ((FIELD_DATAFILE_ITEMS.number() << TAG_FIELD_OFFSET)
+                            | ProtoConstants.WIRE_TYPE_DELIMITED.ordinal());
+            final int sizeOfTag = ProtoWriterTools.sizeOfUnsignedVarInt32(tag);
+            final int size = headerData.getVarInt(sizeOfTag, false);
+            final int sizeOfSize = ProtoWriterTools.sizeOfUnsignedVarInt32(size);
+            // Check if the whole data item is already read in the header
+            if (header.limit() >= sizeOfTag + sizeOfSize + size) {
+                return CompletableFuture.completedFuture(
+                        BufferedData.wrap(header.array(), sizeOfTag + sizeOfSize, size));
+            }
+            // Otherwise read it separately
+            return readFullyAsync(channel, ByteBuffer.allocate(size), byteOffset + sizeOfTag + sizeOfSize)
+                    .thenApply(data -> {
+                        assert data.limit() == size : "Failed to read all data item bytes";
+                        return BufferedData.wrap(data);
+                    });
+        });
+    }
+
     /**
      * Get the size of this file in bytes. This method should only be called for files available to
      * merging (compaction), i.e. after they are fully written.
@@ -238,6 +545,35 @@ public final class DataFileReader implements AutoCloseable, Comparable<DataFileR
         return fileSizeBytes.get();
     }
 
+    /**
+     * Checks if this file is memory mapped. Only completed files may be mapped, see {@link
+     * MerkleDbConfig#mmapCompletedFiles()}.
+     *
+     * @return true if data items are read from the mapped memory
+     */
+    public boolean isMapped() {
+        return mappedChunks != null;
+    }
+
+    /**
+     * Checks if data items in this file are stored in compressed blocks, see {@link
+     * DataFileCompression}.
+     *
+     * @return true if the file is compressed
+     */
+    public boolean isCompressed() {
+        return metadata.isCompressed();
+    }
+
+    /**
+     * Get the number of bytes of this file mapped to memory.
+     *
+     * @return mapped size in bytes, or zero if the file isn't memory mapped
+     */
+    public long getMappedSize() {
+        return isMapped() ? getSize() : 0;
+    }
+
     /** Equals for use when comparing in collections, based on matching file paths */
     @Override
     public boolean equals(final Object o) {
@@ -297,12 +633,27 @@ public final class DataFileReader implements AutoCloseable, Comparable<DataFileR
     @Override
     public void close() throws IOException {
         open.set(false);
+        // No threads can start reading mapped chunks after this point. If some threads are still
+        // reading, the chunks are unmapped by the last of them
+        if (mappedChunksUsers.getAndUpdate(users -> users | Integer.MIN_VALUE) == 0) {
+            unmapChunks();
+        }
+        writer = null;
+        // Blocks cached by other threads are dropped when they read from a different reader
+        final BlockCache blockCache = BLOCK_CACHE.get();
+        if (blockCache.readerId == readerId) {
+            BLOCK_CACHE.remove();
+        }
         for (int i = 0; i < maxFileChannels; i++) {
             final FileChannel fileChannel = fileChannels.getAndSet(i, null);
             if (fileChannel != null) {
                 fileChannel.close();
             }
         }
+        final AsynchronousFileChannel asyncChannel = asyncFileChannel.getAndSet(null);
+        if (asyncChannel != null) {
+            asyncChannel.close();
+        }
     }
 
     // =================================================================================================================
@@ -356,6 +707,387 @@ public final class DataFileReader implements AutoCloseable, Comparable<DataFileR
         }
     }
 
+    /**
+     * Maps this file to memory in chunks of up to {@link #MAPPED_CHUNK_SIZE} bytes. If mapping
+     * fails, a warning is logged, and the file is read using file channels as usual.
+     */
+    private void mapFile() {
+        final FileChannel fileChannel = fileChannels.get(0);
+        final long size = fileSizeBytes.get();
+        if ((fileChannel == null) || (size == 0)) {
+            return;
+        }
+        final int chunkCount = (int) ((size + MAPPED_CHUNK_SIZE - 1) / MAPPED_CHUNK_SIZE);
+        final MappedByteBuffer[] chunks = new MappedByteBuffer[chunkCount];
+        try {
+            for (int i = 0; i < chunkCount; i++) {
+                final long chunkOffset = i * MAPPED_CHUNK_SIZE;
+                final long chunkSize = Math.min(MAPPED_CHUNK_SIZE, size - chunkOffset);
+                chunks[i] = fileChannel.map(MapMode.READ_ONLY, chunkOffset, chunkSize);
+            }
+        } catch (final IOException e) {
+            logger.warn(EXCEPTION.getMarker(), "Failed to memory map data file {}, using file channels", path, e);
+            return;
+        }
+        mappedChunks = chunks;
+        if (!isOpen()) {
+            // This reader was closed in parallel, and the chunks may not be unmapped in close()
+            unmapChunks();
+        }
+    }
+
+    /**
+     * Get memory mapped chunks of this file to read from. The chunks aren't unmapped, until
+     * {@link #releaseMappedChunks()} is called, even if this reader is closed in the meantime.
+     *
+     * @return the mapped chunks, or null if the file isn't mapped or this reader is closed. The
+     *     chunks must be released, only if not null
+     */
+    MappedByteBuffer[] acquireMappedChunks() {
+        if (mappedChunks == null) {
+            return null;
+        }
+        int users;
+        do {
+            users = mappedChunksUsers.get();
+            if (users < 0) {
+                // This reader is closed
+                return null;
+            }
+        } while (!mappedChunksUsers.compareAndSet(users, users + 1));
+        final MappedByteBuffer[] mapped = mappedChunks;
+        if (mapped == null) {
+            releaseMappedChunks();
+        }
+        return mapped;
+    }
+
+    /**
+     * Releases memory mapped chunks acquired with {@link #acquireMappedChunks()}. If this reader
+     * is closed, and this is the last thread reading from the chunks, they are unmapped.
+     */
+    void releaseMappedChunks() {
+        if (mappedChunksUsers.decrementAndGet() == Integer.MIN_VALUE) {
+            unmapChunks();
+        }
+    }
+
+    /**
+     * Unmaps memory mapped chunks of this file, if this reader is closed, and no threads are
+     * reading from the chunks. Mapped memory is released immediately rather than when the chunks
+     * are garbage collected.
+     */
+    private synchronized void unmapChunks() {
+        if (mappedChunksUsers.get() != Integer.MIN_VALUE) {
+            return;
+        }
+        final MappedByteBuffer[] chunks = mappedChunks;
+        mappedChunks = null;
+        if (chunks != null) {
+            for (final MappedByteBuffer chunk : chunks) {
+                MemoryUtils.closeMmapBuffer(chunk);
+            }
+        }
+    }
+
+    /**
+     * Reads a data item from memory mapped file chunks. Data item bytes are copied from the mapped
+     * memory, since the chunks are unmapped when this reader is closed, while the caller may still
+     * use the data item.
+     *
+     * @param mapped memory mapped chunks of this file
+     * @param byteOffsetInFile data item offset in the file
+     * @param reuseBuffer if true, data item bytes are copied to a reused per thread buffer, same
+     *     as in {@link #read(long)}, otherwise to a new buffer, which may be used as long as needed
+     * @return data item bytes, or null if the data item spans across chunk boundaries and should
+     *     be read using file channels
+     */
+    private static BufferedData readMapped(
+            final MappedByteBuffer[] mapped, final long byteOffsetInFile, final boolean reuseBuffer) {
+        final int chunkIndex = (int) (byteOffsetInFile / MAPPED_CHUNK_SIZE);
+        final MappedByteBuffer chunk = mapped[chunkIndex];
+        final int offsetInChunk = (int) (byteOffsetInFile % MAPPED_CHUNK_SIZE);
+        final int available = chunk.limit() - offsetInChunk;
+        if ((available < MAX_DATA_ITEM_HEADER_SIZE) && (chunkIndex < mapped.length - 1)) {
+            return null;
+        }
+        // Reading the header touches the first page of the data item. For cold pages, this is
+        // where page faults are taken
+        final BufferedData header = BufferedData.wrap(chunk.slice(offsetInChunk, available));
+        final int tag = header.getVarInt(0, false);
+        assert tag
+                == ((FIELD_DATAFILE_ITEMS.number() << TAG_FIELD_OFFSET)
+                        | ProtoConstants.WIRE_TYPE_DELIMITED.ordinal());
+        final int sizeOfTag = ProtoWriterTools.sizeOfUnsignedVarInt32(tag);
+        final int size = header.getVarInt(sizeOfTag, false);
+        final int sizeOfSize = ProtoWriterTools.sizeOfUnsignedVarInt32(size);
+        if (sizeOfTag + sizeOfSize + size > available) {
+            return null;
+        }
+        final int dataOffsetInChunk = offsetInChunk + sizeOfTag + sizeOfSize;
+        if (!reuseBuffer) {
+            final byte[] bytes = new byte[size];
+            chunk.get(dataOffsetInChunk, bytes, 0, size);
+            return BufferedData.wrap(bytes);
+        }
+        ByteBuffer readBB = BUFFER_CACHE.get();
+        BufferedData readBuf = BUFFEREDDATA_CACHE.get();
+        if ((readBuf == null) || (readBB.capacity() < size)) {
+            readBB = ByteBuffer.allocate(Math.max(PRE_READ_BUF_SIZE, size));
+            BUFFER_CACHE.set(readBB);
+            readBuf = BufferedData.wrap(readBB);
+            BUFFEREDDATA_CACHE.set(readBuf);
+        }
+        chunk.get(dataOffsetInChunk, readBB.array(), 0, size);
+        readBuf.position(0);
+        readBuf.limit(size);
+        return readBuf;
+    }
+
+    /**
+     * Reads a data item from a compressed file. The block, which contains the data item, is read and
+     * decompressed, unless it's the last block decompressed by the current thread. If the file is
+     * still being written, and the block is not written to the file yet, the item is read using
+     * the file writer.
+     *
+     * @param byteOffset data item offset, which combines block number and offset in the block
+     * @return data item bytes. This is a reused per thread buffer, so it can be used until the
+     *     thread reads another data item from a compressed file. Null if this reader is closed
+     * @throws IOException if there was a problem reading or decompressing the block
+     */
+    private BufferedData readBlockDataItem(final long byteOffset) throws IOException {
+        final int blockNumber = DataFileCommon.blockNumberFromByteOffset(byteOffset);
+        final int offsetInBlock = DataFileCommon.offsetInBlockFromByteOffset(byteOffset);
+        final BlockCache cache = BLOCK_CACHE.get();
+        if ((cache.readerId != readerId) || (cache.blockNumber != blockNumber)) {
+            final long blockStart;
+            final long blockEnd;
+            final long[] offsets = blockOffsets;
+            if (offsets != null) {
+                blockStart = offsets[blockNumber];
+                blockEnd = offsets[blockNumber + 1];
+            } else {
+                final DataFileWriter currentWriter = writer;
+                if (currentWriter == null) {
+                    if (blockOffsets != null) {
+                        // The file has just been completed in a different thread
+                        return readBlockDataItem(byteOffset);
+                    }
+                    if (!isOpen()) {
+                        return null;
+                    }
+                    throw new IllegalStateException("Block index isn't loaded for data file " + path);
+                }
+                final BufferedData dataItem = currentWriter.readCurrentBlockDataItem(blockNumber, offsetInBlock);
+                if (dataItem != null) {
+                    return dataItem;
+                }
+                blockStart = currentWriter.getBlockStart(blockNumber);
+                blockEnd = currentWriter.getBlockEnd(blockNumber);
+                if (blockStart < 0) {
+                    throw new IOException("Block " + blockNumber + " not found in data file " + path);
+                }
+            }
+            cache.readerId = 0;
+            if (!readBlock(cache.codec, blockStart, blockEnd)) {
+                return null;
+            }
+            cache.readerId = readerId;
+            cache.blockNumber = blockNumber;
+        }
+        final byte[] block = cache.codec.getDecoded();
+        final BufferedData blockData = BufferedData.wrap(block);
+        final int tag = blockData.getVarInt(offsetInBlock, false);
+        assert tag
+                == ((FIELD_DATAFILE_ITEMS.number() << TAG_FIELD_OFFSET)
+                        | ProtoConstants.WIRE_TYPE_DELIMITED.ordinal());
+        final int sizeOfTag = ProtoWriterTools.sizeOfUnsignedVarInt32(tag);
+        final int size = blockData.getVarInt(offsetInBlock + sizeOfTag, false);
+        final int sizeOfSize = ProtoWriterTools.sizeOfUnsignedVarInt32(size);
+        return BufferedData.wrap(block, offsetInBlock + sizeOfTag + sizeOfSize, size);
+    }
+
+    /**
+     * Reads a compressed block from the file and decompresses it using the given codec.
+     *
+     * @param codec the codec to decompress the block
+     * @param blockStart block offset in the file
+     * @param blockEnd block end offset in the file, exclusive
+     * @return true if the block is decompressed, or false if this reader is closed
+     * @throws IOException if there was a problem reading or decompressing the block
+     */
+    private boolean readBlock(final DataFileBlockCodec codec, final long blockStart, final long blockEnd)
+            throws IOException {
+        final int length = Math.toIntExact(blockEnd - blockStart);
+        final byte[] encoded = codec.getInputBuffer(length);
+        final int chunkIndex = (int) (blockStart / MAPPED_CHUNK_SIZE);
+        final int offsetInChunk = (int) (blockStart % MAPPED_CHUNK_SIZE);
+        boolean blockRead = false;
+        final MappedByteBuffer[] mapped = acquireMappedChunks();
+        if (mapped != null) {
+            try {
+                if (offsetInChunk + length <= mapped[chunkIndex].limit()) {
+                    mapped[chunkIndex].get(offsetInChunk, encoded, 0, length);
+                    blockRead = true;
+                }
+            } finally {
+                releaseMappedChunks();
+            }
+        }
+        if (!blockRead && !readFully(ByteBuffer.wrap(encoded, 0, length), blockStart)) {
+            return false;
+        }
+        final BufferedData header = BufferedData.wrap(encoded);
+        final int tag = header.getVarInt(0, false);
+        assert tag
+                == ((FIELD_DATAFILE_BLOCKS.number() << TAG_FIELD_OFFSET)
+                        | ProtoConstants.WIRE_TYPE_DELIMITED.ordinal());
+        final int sizeOfTag = ProtoWriterTools.sizeOfUnsignedVarInt32(tag);
+        final int size = header.getVarInt(sizeOfTag, false);
+        final int sizeOfSize = ProtoWriterTools.sizeOfUnsignedVarInt32(size);
+        codec.decode(encoded, sizeOfTag + sizeOfSize, size);
+        return true;
+    }
+
+    /**
+     * Reads the block index of this compressed file.
+     *
+     * @return offsets of all blocks in the file, followed by the end offset of the last block
+     * @throws IOException if there was a problem reading the index
+     */
+    private long[] readBlockIndex() throws IOException {
+        final long indexOffset = metadata.getBlockIndexOffset();
+        final ByteBuffer headerBuffer = ByteBuffer.allocate(MAX_DATA_ITEM_HEADER_SIZE);
+        if (!readFully(headerBuffer, indexOffset)) {
+            throw new ClosedChannelException();
+        }
+        final BufferedData header = BufferedData.wrap(headerBuffer.array());
+        final int tag = header.getVarInt(0, false);
+        final int sizeOfTag = ProtoWriterTools.sizeOfUnsignedVarInt32(tag);
+        final int size = header.getVarInt(sizeOfTag, false);
+        final int sizeOfSize = ProtoWriterTools.sizeOfUnsignedVarInt32(size);
+        final ByteBuffer indexBuffer = ByteBuffer.allocate(size);
+        if (!readFully(indexBuffer, indexOffset + sizeOfTag + sizeOfSize)) {
+            throw new ClosedChannelException();
+        }
+        final long[] offsets = new long[size / Long.BYTES];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = indexBuffer.getLong(i * Long.BYTES);
+        }
+        return offsets;
+    }
+
+    /**
+     * Reads bytes from the file to the given buffer, starting at the given offset, until the buffer
+     * is full or the end of file is reached.
+     *
+     * @param buffer the buffer to read to
+     * @param byteOffsetInFile offset to start reading at
+     * @return true if the bytes are read, or false if this reader is closed
+     * @throws IOException if there was a problem reading
+     */
+    private boolean readFully(final ByteBuffer buffer, final long byteOffsetInFile) throws IOException {
+        final int position = buffer.position();
+        // See read(long) for details about retries
+        for (int retries = 3; retries > 0; retries--) {
+            final int fcIndex = leaseFileChannel();
+            final FileChannel fileChannel = fileChannels.get(fcIndex);
+            if (fileChannel == null) {
+                return false;
+            }
+            try {
+                buffer.position(position);
+                MerkleDbFileUtils.completelyRead(fileChannel, buffer, byteOffsetInFile);
+                return true;
+            } catch (final ClosedByInterruptException e) {
+                throw e;
+            } catch (final ClosedChannelException e) {
+                reopenFileChannel(fcIndex, fileChannel);
+            } finally {
+                releaseFileChannel();
+            }
+        }
+        throw new IOException("Failed to read from file, file channel keeps getting closed");
+    }
+
+    /**
+     * Returns an asynchronous file channel to read data, opening it if needed. This method is
+     * safe to call from multiple threads. If this reader is already closed, returns null.
+     *
+     * @return An asynchronous file channel, or null if this reader is closed
+     * @throws IOException
+     *      If an I/O error occurs
+     */
+    private AsynchronousFileChannel getAsyncFileChannel() throws IOException {
+        AsynchronousFileChannel channel = asyncFileChannel.get();
+        if ((channel == null) && isOpen()) {
+            channel = AsynchronousFileChannel.open(
+                    path, Set.of(StandardOpenOption.READ), getAsyncReadExecutor(dbConfig.batchReadThreads()));
+            if (!asyncFileChannel.compareAndSet(null, channel)) {
+                channel.close();
+                channel = asyncFileChannel.get();
+            } else if (!isOpen()) {
+                // This reader was closed in parallel, make sure the channel isn't leaked
+                asyncFileChannel.set(null);
+                channel.close();
+                return null;
+            }
+        }
+        return channel;
+    }
+
+    /**
+     * Reads from an asynchronous file channel to the given buffer, starting at the given offset,
+     * until the buffer is full or the end of file is reached. The returned future is completed
+     * with the buffer flipped, i.e. ready to read from.
+     */
+    private static CompletableFuture<ByteBuffer> readFullyAsync(
+            final AsynchronousFileChannel channel, final ByteBuffer buffer, final long offset) {
+        final CompletableFuture<ByteBuffer> result = new CompletableFuture<>();
+        channel.read(buffer, offset, offset, new CompletionHandler<Integer, Long>() {
+            @Override
+            public void completed(final Integer bytesRead, final Long readOffset) {
+                if ((bytesRead < 0) || !buffer.hasRemaining()) {
+                    result.complete(buffer.flip());
+                } else {
+                    final long nextOffset = readOffset + bytesRead;
+                    try {
+                        channel.read(buffer, nextOffset, nextOffset, this);
+                    } catch (final RuntimeException e) {
+                        result.completeExceptionally(e);
+                    }
+                }
+            }
+
+            @Override
+            public void failed(final Throwable e, final Long readOffset) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    private static ExecutorService getAsyncReadExecutor(final int threads) {
+        ExecutorService executor = asyncReadExecutor;
+        if (executor == null) {
+            synchronized (DataFileReader.class) {
+                executor = asyncReadExecutor;
+                if (executor == null) {
+                    executor = Executors.newFixedThreadPool(
+                            threads,
+                            new ThreadConfiguration(getStaticThreadManager())
+                                    .setComponent(MERKLEDB_COMPONENT)
+                                    .setThreadName("Async reads")
+                                    .setExceptionHandler((t, ex) -> logger.error(
+                                            EXCEPTION.getMarker(), "Uncaught exception during async reads", ex))
+                                    .buildFactory());
+                    asyncReadExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
     /**
      * Returns an index of an opened file channel to read data and increments the lease count.
      * Opens a new file channel, if possible, when the lease count per channel is greater than
@@ -397,9 +1129,6 @@ public final class DataFileReader implements AutoCloseable, Comparable<DataFileR
      * @throws ClosedChannelException if the file was closed
      */
     private BufferedData read(final long byteOffsetInFile) throws IOException {
-        // Buffer size to read data item tag and size. If the whole item is small and
-        // fits into this buffer, there is no need to make an extra file read
-        final int PRE_READ_BUF_SIZE = 2048;
         ByteBuffer readBB = BUFFER_CACHE.get();
         BufferedData readBuf = BUFFEREDDATA_CACHE.get();
         if (readBuf == null) {
@@ -475,4 +1204,14 @@ public final class DataFileReader implements AutoCloseable, Comparable<DataFileR
     int getFileChannelsCount() {
         return fileChannelsCount.get();
     }
+
+    /** The last block decompressed by a thread, see {@link #BLOCK_CACHE} */
+    private static final class BlockCache {
+        /** Codec to decompress blocks, also holds the last decompressed block */
+        private final DataFileBlockCodec codec = new DataFileBlockCodec();
+        /** ID of the reader, which the last block was read from, or 0 if no block is cached */
+        private long readerId = 0;
+        /** The last block number */
+        private int blockNumber = -1;
+    }
 }
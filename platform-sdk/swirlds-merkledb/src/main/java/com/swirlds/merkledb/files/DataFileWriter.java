@@ -16,6 +16,8 @@
 
 package com.swirlds.merkledb.files;
 
+import static com.swirlds.merkledb.files.DataFileCommon.FIELD_DATAFILE_BLOCKS;
+import static com.swirlds.merkledb.files.DataFileCommon.FIELD_DATAFILE_BLOCK_INDEX;
 import static com.swirlds.merkledb.files.DataFileCommon.FIELD_DATAFILE_ITEMS;
 import static com.swirlds.merkledb.files.DataFileCommon.PAGE_SIZE;
 import static com.swirlds.merkledb.files.DataFileCommon.createDataFilePath;
@@ -32,6 +34,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.function.Consumer;
 
 /**
@@ -44,6 +47,12 @@ import java.util.function.Consumer;
  * <p>At the end of the file it is padded till a 4096 byte page boundary then a footer page is
  * written by DataFileMetadata.
  *
+ * <p>If the file is compressed, data items are first written to an in-memory block. When the next
+ * data item doesn't fit into the block, the block is compressed and written to the file, and the
+ * item is written to a new block. Items from the current block can be read before the block is
+ * written to the file using {@link #readCurrentBlockDataItem(int, int)}. In the end of the file,
+ * block offsets are written as a block index.
+ *
  * <p>Protobuf schema: see {@link DataFileReader} for details.
  */
 public final class DataFileWriter {
@@ -77,6 +86,26 @@ public final class DataFileWriter {
      */
     private long dataItemCount = 0;
 
+    /** Max uncompressed block size, if the file is compressed */
+    private final int blockSize;
+    /** Compressed block encoder, or null if the file isn't compressed */
+    private DataFileBlockCodec blockCodec;
+    /** The current uncompressed block. Its size may exceed {@link #blockSize} for large items */
+    private byte[] currentBlock;
+    /** Data items in the current block, wrapped over {@link #currentBlock} */
+    private BufferedData currentBlockData;
+    /** The number of blocks written to the file so far, also the current block number */
+    private int blockCount = 0;
+    /**
+     * Offsets of written blocks in the file. The offset at index {@link #blockCount} is where the
+     * next block starts, so every written block is between two subsequent offsets
+     */
+    private long[] blockOffsets;
+    /** Total size of uncompressed blocks written so far */
+    private long uncompressedBlocksSize = 0;
+    /** Total size of compressed blocks written so far */
+    private long compressedBlocksSize = 0;
+
     /**
      * Create a new data file in the given directory, in append mode. Puts the object into "writing"
      * mode (i.e. creates a lock file. So you'd better start writing data and be sure to finish it
@@ -94,12 +123,47 @@ public final class DataFileWriter {
             final Instant creationTime,
             final int compactionLevel)
             throws IOException {
+        this(filePrefix, dataFileDir, index, creationTime, compactionLevel, DataFileCompression.NONE, 0);
+    }
+
+    /**
+     * Create a new data file in the given directory, in append mode, optionally compressed.
+     *
+     * @param filePrefix string prefix for all files, must not contain "_" chars
+     * @param dataFileDir the path to directory to create the data file in
+     * @param index the index number for this file
+     * @param creationTime the time stamp for the creation time for this file
+     * @param compactionLevel the compaction level of this file
+     * @param compression data item compression
+     * @param blockSize max uncompressed block size, if compressed, up to {@link
+     *     DataFileCommon#MAX_COMPRESSED_BLOCK_SIZE}
+     */
+    public DataFileWriter(
+            final String filePrefix,
+            final Path dataFileDir,
+            final int index,
+            final Instant creationTime,
+            final int compactionLevel,
+            final DataFileCompression compression,
+            final int blockSize)
+            throws IOException {
         this.path = createDataFilePath(filePrefix, dataFileDir, index, creationTime, DataFileCommon.FILE_EXTENSION);
         metadata = new DataFileMetadata(
                 0, // data item count will be updated later in finishWriting()
                 index,
                 creationTime,
-                compactionLevel);
+                compactionLevel,
+                compression);
+        this.blockSize = blockSize;
+        if (metadata.isCompressed()) {
+            if ((blockSize <= 0) || (blockSize > DataFileCommon.MAX_COMPRESSED_BLOCK_SIZE)) {
+                throw new IllegalArgumentException("Wrong compressed block size: " + blockSize);
+            }
+            blockCodec = new DataFileBlockCodec();
+            currentBlock = new byte[blockSize];
+            currentBlockData = BufferedData.wrap(currentBlock);
+            blockOffsets = new long[64];
+        }
         Files.createFile(path);
         writeHeader();
     }
@@ -162,6 +226,10 @@ public final class DataFileWriter {
      * @throws IOException if there was a problem appending data to file
      */
     public synchronized long storeDataItem(final BufferedData dataItem) throws IOException {
+        if (metadata.isCompressed()) {
+            final int size = Math.toIntExact(dataItem.remaining());
+            return storeDataItemInBlock(o -> o.writeBytes(dataItem), size);
+        }
         // find offset for the start of this new data item, we assume we always write data in a
         // whole number of blocks
         final long currentWritingMmapPos = writingPbjData.position();
@@ -193,6 +261,9 @@ public final class DataFileWriter {
      */
     public synchronized long storeDataItem(final Consumer<BufferedData> dataItemWriter, final int dataItemSize)
             throws IOException {
+        if (metadata.isCompressed()) {
+            return storeDataItemInBlock(dataItemWriter, dataItemSize);
+        }
         // find offset for the start of this new data item, we assume we always write data in a
         // whole number of blocks
         final long currentWritingMmapPos = writingPbjData.position();
@@ -220,6 +291,14 @@ public final class DataFileWriter {
      * @throws IOException if there was a problem sealing file or opening again as read only
      */
     public synchronized void finishWriting() throws IOException {
+        if (metadata.isCompressed()) {
+            writeCurrentBlock();
+            writeBlockIndex();
+            blockCodec.close();
+            blockCodec = null;
+            currentBlock = null;
+            currentBlockData = null;
+        }
         // total file size is where the current writing pos is
         final long totalFileSize = mmapPositionInFile + writingPbjData.position();
         // update data item count in the metadata and in the file
@@ -236,4 +315,147 @@ public final class DataFileWriter {
             mmapPositionInFile = totalFileSize;
         }
     }
+
+    /**
+     * Get the total size of uncompressed data item blocks written to this file so far. Zero for
+     * files, which aren't compressed.
+     *
+     * @return uncompressed blocks size, in bytes
+     */
+    public synchronized long getUncompressedBlocksSize() {
+        return uncompressedBlocksSize;
+    }
+
+    /**
+     * Get the total size of compressed data item blocks written to this file so far. Zero for
+     * files, which aren't compressed.
+     *
+     * @return compressed blocks size, in bytes
+     */
+    public synchronized long getCompressedBlocksSize() {
+        return compressedBlocksSize;
+    }
+
+    /**
+     * Get the offset of a block, which is already written to this compressed file.
+     *
+     * @param blockNumber the block number
+     * @return block offset in the file, or -1 if the block isn't written to the file yet
+     */
+    synchronized long getBlockStart(final int blockNumber) {
+        return (blockNumber < blockCount) ? blockOffsets[blockNumber] : -1;
+    }
+
+    /**
+     * Get the end offset, exclusive, of a block, which is already written to this compressed file.
+     *
+     * @param blockNumber the block number
+     * @return block end offset in the file, or -1 if the block isn't written to the file yet
+     */
+    synchronized long getBlockEnd(final int blockNumber) {
+        return (blockNumber < blockCount) ? blockOffsets[blockNumber + 1] : -1;
+    }
+
+    /**
+     * Reads a data item from the current block of this compressed file, which is not written to
+     * the file yet. The returned bytes are a copy, they aren't affected by subsequent writes.
+     *
+     * @param blockNumber the block number
+     * @param offsetInBlock the data item offset in the block
+     * @return data item bytes, or null if the block is already written to the file
+     */
+    synchronized BufferedData readCurrentBlockDataItem(final int blockNumber, final int offsetInBlock) {
+        if ((currentBlockData == null) || (blockNumber != blockCount)) {
+            return null;
+        }
+        final BufferedData header = BufferedData.wrap(currentBlock);
+        final int tag = header.getVarInt(offsetInBlock, false);
+        final int sizeOfTag = ProtoWriterTools.sizeOfUnsignedVarInt32(tag);
+        final int size = header.getVarInt(offsetInBlock + sizeOfTag, false);
+        final int sizeOfSize = ProtoWriterTools.sizeOfUnsignedVarInt32(size);
+        final int itemStart = offsetInBlock + sizeOfTag + sizeOfSize;
+        return BufferedData.wrap(Arrays.copyOfRange(currentBlock, itemStart, itemStart + size));
+    }
+
+    /**
+     * Stores a data item in the current block of this compressed file. If the item doesn't fit
+     * into the block, the block is written to the file first.
+     */
+    private long storeDataItemInBlock(final Consumer<BufferedData> dataItemWriter, final int dataItemSize)
+            throws IOException {
+        final int sizeInBlock = ProtoWriterTools.sizeOfDelimited(FIELD_DATAFILE_ITEMS, dataItemSize);
+        if ((currentBlockData.position() > 0) && (currentBlockData.remaining() < sizeInBlock)) {
+            writeCurrentBlock();
+        }
+        if (currentBlockData.remaining() < sizeInBlock) {
+            // A single item larger than the block size, the block is empty at this point
+            currentBlock = new byte[sizeInBlock];
+            currentBlockData = BufferedData.wrap(currentBlock);
+        }
+        // The block is written to the file as soon as it's full, so the item offset is always
+        // less than the block size
+        final int offsetInBlock = Math.toIntExact(currentBlockData.position());
+        ProtoWriterTools.writeDelimited(currentBlockData, FIELD_DATAFILE_ITEMS, dataItemSize, dataItemWriter);
+        dataItemCount++;
+        return DataFileCommon.dataLocation(
+                metadata.getIndex(), DataFileCommon.blockByteOffset(blockCount, offsetInBlock));
+    }
+
+    /**
+     * Compresses the current block, writes it to the file, and starts a new block. No-op if the
+     * current block is empty.
+     */
+    private void writeCurrentBlock() throws IOException {
+        final int uncompressedSize = Math.toIntExact(currentBlockData.position());
+        if (uncompressedSize == 0) {
+            return;
+        }
+        if (blockCount >= DataFileCommon.MAX_COMPRESSED_BLOCKS - 1) {
+            throw new IOException("Too many blocks in compressed data file " + path);
+        }
+        final int encodedSize = blockCodec.encode(currentBlock, uncompressedSize);
+        final byte[] encoded = blockCodec.getEncoded();
+        final long byteOffset = mmapPositionInFile + writingPbjData.position();
+        if (writingPbjData.remaining() < ProtoWriterTools.sizeOfDelimited(FIELD_DATAFILE_BLOCKS, encodedSize)) {
+            moveWritingBuffer(byteOffset);
+        }
+        try {
+            ProtoWriterTools.writeDelimited(
+                    writingPbjData, FIELD_DATAFILE_BLOCKS, encodedSize, o -> o.writeBytes(encoded, 0, encodedSize));
+        } catch (final BufferOverflowException e) {
+            throw new IOException(DataFileCommon.ERROR_DATAITEM_TOO_LARGE, e);
+        }
+        if (blockCount + 1 >= blockOffsets.length) {
+            blockOffsets = Arrays.copyOf(blockOffsets, blockOffsets.length * 2);
+        }
+        blockOffsets[blockCount] = byteOffset;
+        blockOffsets[blockCount + 1] = mmapPositionInFile + writingPbjData.position();
+        blockCount++;
+        uncompressedBlocksSize += uncompressedSize;
+        compressedBlocksSize += encodedSize;
+        // Start a new block. If the previous block was enlarged for a large data item, shrink it back
+        if (currentBlock.length != blockSize) {
+            currentBlock = new byte[blockSize];
+        }
+        currentBlockData = BufferedData.wrap(currentBlock);
+    }
+
+    /**
+     * Writes offsets of all blocks in this compressed file, and updates the block index offset in
+     * the file metadata. The index contains {@link #blockCount} + 1 offsets, the last one is the
+     * end of the last block.
+     */
+    private void writeBlockIndex() throws IOException {
+        final int indexSize = (blockCount + 1) * Long.BYTES;
+        final long byteOffset = mmapPositionInFile + writingPbjData.position();
+        if (writingPbjData.remaining() < ProtoWriterTools.sizeOfDelimited(FIELD_DATAFILE_BLOCK_INDEX, indexSize)) {
+            moveWritingBuffer(byteOffset);
+        }
+        ProtoWriterTools.writeDelimited(writingPbjData, FIELD_DATAFILE_BLOCK_INDEX, indexSize, o -> {
+            for (int i = 0; i <= blockCount; i++) {
+                o.writeLong(blockOffsets[i]);
+            }
+        });
+        metadata.updateBlockIndexOffset(writingHeaderPbjData, byteOffset);
+    }
 }
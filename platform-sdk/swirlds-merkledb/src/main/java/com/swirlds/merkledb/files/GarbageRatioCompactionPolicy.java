@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2024 Hedera Hashgraph, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.swirlds.merkledb.files;
+
+import com.swirlds.merkledb.KeyRange;
+import com.swirlds.merkledb.collections.CASableLongIndex;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A compaction policy, which selects files with a high ratio of dead data items, i.e. items that
+ * are no longer referenced from the index. Compacting such files frees the most disk space per
+ * byte copied, regardless of file sizes and compaction levels.
+ *
+ * <p>Live item counts are tracked per file, as index entries are moved away from files, see {@link
+ * DataFileReader#getLiveItemCount()}. Files with the most reclaimable bytes are selected first, up
+ * to the configured max number of files. Items, which became dead before a file was loaded from
+ * disk, aren't tracked, so garbage in files loaded at startup is underestimated.
+ *
+ * <p>Files with mostly new data, e.g. small files just flushed to disk, may never reach the
+ * garbage threshold. If no files are above the threshold, this policy falls back to {@link
+ * LeveledCompactionPolicy}, so the number of files doesn't grow unbounded.
+ */
+public class GarbageRatioCompactionPolicy implements CompactionPolicy {
+
+    /** Min ratio of dead data items in a file to compact it, from 0.0 to 1.0 */
+    private final double garbageRatioThreshold;
+
+    /** Max number of files to compact at once */
+    private final int maxFilesToCompact;
+
+    /** The policy to use, if no files are above the garbage threshold */
+    private final CompactionPolicy fallbackPolicy;
+
+    /**
+     * Creates a new garbage ratio compaction policy.
+     *
+     * @param garbageRatioThreshold min ratio of dead data items in a file to compact it
+     * @param maxFilesToCompact max number of files to compact at once
+     * @param minNumberOfFilesToCompact min number of files to compact by the fallback policy
+     * @param maxCompactionLevel max compaction level
+     */
+    public GarbageRatioCompactionPolicy(
+            final double garbageRatioThreshold,
+            final int maxFilesToCompact,
+            final int minNumberOfFilesToCompact,
+            final int maxCompactionLevel) {
+        if ((garbageRatioThreshold <= 0) || (garbageRatioThreshold > 1)) {
+            throw new IllegalArgumentException("Garbage ratio threshold must be in (0, 1] range");
+        }
+        if (maxFilesToCompact <= 0) {
+            throw new IllegalArgumentException("Max number of files to compact must be positive");
+        }
+        this.garbageRatioThreshold = garbageRatioThreshold;
+        this.maxFilesToCompact = maxFilesToCompact;
+        this.fallbackPolicy = new LeveledCompactionPolicy(minNumberOfFilesToCompact, maxCompactionLevel);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @NonNull
+    @Override
+    public List<DataFileReader> selectFilesToCompact(
+            @NonNull final List<DataFileReader> completedFiles,
+            @NonNull final CASableLongIndex index,
+            @NonNull final KeyRange validKeyRange) {
+        if (completedFiles.isEmpty()) {
+            return completedFiles;
+        }
+        final List<DataFileReader> filesToCompact = new ArrayList<>();
+        for (final DataFileReader file : completedFiles) {
+            final long itemCount = file.getMetadata().getDataItemCount();
+            final double garbageRatio =
+                    (itemCount == 0) ? 1.0 : 1.0 - Math.min(1.0, (double) file.getLiveItemCount() / itemCount);
+            if (garbageRatio >= garbageRatioThreshold) {
+                filesToCompact.add(file);
+            }
+        }
+        if (filesToCompact.isEmpty()) {
+            return fallbackPolicy.selectFilesToCompact(completedFiles, index, validKeyRange);
+        }
+        // The most reclaimable space first. The sort is stable, so files with the same reclaimable
+        // space stay in the file index order
+        filesToCompact.sort(Comparator.comparingLong(DataFileReader::getReclaimableSize).reversed());
+        return (filesToCompact.size() > maxFilesToCompact)
+                ? new ArrayList<>(filesToCompact.subList(0, maxFilesToCompact))
+                : filesToCompact;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2024 Hedera Hashgraph, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.swirlds.merkledb.files;
+
+import com.swirlds.merkledb.KeyRange;
+import com.swirlds.merkledb.collections.CASableLongIndex;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.List;
+
+/**
+ * The default compaction policy. Files are grouped by compaction level. Compaction is started, when
+ * there are enough files at level 0, and then includes all subsequent levels, which would have
+ * enough files, if a file from the previous level was added to them. See {@link
+ * DataFileCompactor#compactionPlan(List, int, int)} for details.
+ */
+public class LeveledCompactionPolicy implements CompactionPolicy {
+
+    /** Min number of files at level 0 to start a compaction */
+    private final int minNumberOfFilesToCompact;
+
+    /** Max compaction level */
+    private final int maxCompactionLevel;
+
+    /**
+     * Creates a new leveled compaction policy.
+     *
+     * @param minNumberOfFilesToCompact min number of files at level 0 to start a compaction
+     * @param maxCompactionLevel max compaction level
+     */
+    public LeveledCompactionPolicy(final int minNumberOfFilesToCompact, final int maxCompactionLevel) {
+        this.minNumberOfFilesToCompact = minNumberOfFilesToCompact;
+        this.maxCompactionLevel = maxCompactionLevel;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @NonNull
+    @Override
+    public List<DataFileReader> selectFilesToCompact(
+            @NonNull final List<DataFileReader> completedFiles,
+            @NonNull final CASableLongIndex index,
+            @NonNull final KeyRange validKeyRange) {
+        return DataFileCompactor.compactionPlan(completedFiles, minNumberOfFilesToCompact, maxCompactionLevel);
+    }
+}
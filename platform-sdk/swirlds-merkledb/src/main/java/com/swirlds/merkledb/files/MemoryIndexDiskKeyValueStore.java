@@ -22,13 +22,17 @@ import com.hedera.pbj.runtime.io.buffer.BufferedData;
 import com.swirlds.merkledb.FileStatisticAware;
 import com.swirlds.merkledb.KeyRange;
 import com.swirlds.merkledb.Snapshotable;
+import com.swirlds.merkledb.collections.CASableLongIndex.LongAction;
 import com.swirlds.merkledb.collections.LongList;
 import com.swirlds.merkledb.config.MerkleDbConfig;
+import com.swirlds.merkledb.files.DataFileCollection.BatchReadCallback;
 import com.swirlds.merkledb.files.DataFileCollection.LoadedDataCallback;
+import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.LongSummaryStatistics;
 import java.util.function.Consumer;
 import org.apache.logging.log4j.LogManager;
@@ -97,10 +101,65 @@ public class MemoryIndexDiskKeyValueStore implements AutoCloseable, Snapshotable
      * @param max max valid key, inclusive
      */
     public void updateValidKeyRange(final long min, final long max) {
+        // Data items for all keys, which are no longer in the valid range, become dead
+        final long oldMin = index.getMinValidIndex();
+        final long oldMax = index.getMaxValidIndex();
+        if (oldMin >= 0) {
+            if (min < 0) {
+                // No keys left, no need to look them up in the index
+                fileCollection.markAllDataItemsDead();
+            } else {
+                markDataItemsDead(oldMin, Math.min(min, oldMax + 1));
+                markDataItemsDead(Math.max(max + 1, oldMin), oldMax + 1);
+            }
+        }
         // By calling `updateMinValidIndex` we compact the index if it's applicable.
         index.updateValidRange(min, max);
     }
 
+    /**
+     * Marks data items for all keys in the given range as dead. Keys in a range are usually
+     * written to the same files, so dead items are counted in runs by file, and every file is
+     * updated once per run rather than once per key.
+     */
+    private void markDataItemsDead(final long fromKey, final long toKey) {
+        if (fromKey >= toKey) {
+            return;
+        }
+        final DeadItemRun run = new DeadItemRun();
+        try {
+            index.forEach(fromKey, toKey, run);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        run.flush();
+    }
+
+    /**
+     * Counts consecutive dead data items in the same file.
+     */
+    private final class DeadItemRun implements LongAction<RuntimeException> {
+        private int fileIndex = -1;
+        private long count = 0;
+
+        @Override
+        public void handle(final long key, final long dataLocation) {
+            final int locationFileIndex = DataFileCommon.fileIndexFromDataLocation(dataLocation);
+            if (locationFileIndex != fileIndex) {
+                flush();
+                fileIndex = locationFileIndex;
+            }
+            count++;
+        }
+
+        void flush() {
+            if (count > 0) {
+                fileCollection.markDataItemsDead(fileIndex, count);
+                count = 0;
+            }
+        }
+    }
+
     /**
      * Start a writing session ready for calls to put(). Make sure to update the valid key range
      * using {@link #updateValidKeyRange(long, long)} before this method is called.
@@ -122,8 +181,10 @@ public class MemoryIndexDiskKeyValueStore implements AutoCloseable, Snapshotable
     public void put(final long key, final Consumer<BufferedData> dataItemWriter, final int dataItemSize)
             throws IOException {
         final long dataLocation = fileCollection.storeDataItem(dataItemWriter, dataItemSize);
-        // store data location in index
-        index.put(key, dataLocation);
+        // store data location in index. The old location is replaced atomically, so if it's moved by
+        // a concurrent compaction, only the location actually replaced here is marked as dead
+        final long oldDataLocation = index.getAndSet(key, dataLocation);
+        fileCollection.markDataItemDead(oldDataLocation);
     }
 
     /**
@@ -179,6 +240,38 @@ public class MemoryIndexDiskKeyValueStore implements AutoCloseable, Snapshotable
         return fileCollection.readDataItemUsingIndex(index, key);
     }
 
+    /**
+     * Get values for a batch of keys by reading them from disk. Reads are grouped by data file,
+     * sorted by file offsets, and run in parallel. See {@link
+     * DataFileCollection#readDataItemsUsingIndex(LongList, long[], BatchReadCallback)} for details.
+     * The callback is called exactly once for every key, with {@code null} bytes if the key is out
+     * of the valid key range or not found.
+     *
+     * @param keys The keys to find and read values for
+     * @param callback The callback to pass values to, may be called from multiple threads
+     * @throws IOException If there was a problem reading the values from files
+     */
+    public void getAll(@NonNull final long[] keys, @NonNull final BatchReadCallback callback) throws IOException {
+        final long[] keysInRange = new long[keys.length];
+        final int[] keyIndices = new int[keys.length];
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (checkKeyInRange(keys[i])) {
+                keysInRange[count] = keys[i];
+                keyIndices[count] = i;
+                count++;
+            } else {
+                callback.dataItemRead(i, null);
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+        final long[] toRead = (count == keys.length) ? keysInRange : Arrays.copyOf(keysInRange, count);
+        fileCollection.readDataItemsUsingIndex(
+                index, toRead, (i, dataItem) -> callback.dataItemRead(keyIndices[i], dataItem));
+    }
+
     /**
      * Close all files being used
      *
@@ -202,6 +295,70 @@ public class MemoryIndexDiskKeyValueStore implements AutoCloseable, Snapshotable
         return fileCollection.getAllCompletedFilesSizeStatistics();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getMappedFilesSize() {
+        return fileCollection.getMappedFilesSize();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long[] getReclaimableSizeByLevel(final int maxCompactionLevel) {
+        return fileCollection.getReclaimableSizeByLevel(maxCompactionLevel);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getMappedReadsCount() {
+        return fileCollection.getMappedReadsCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getMappedReadsTimeNanos() {
+        return fileCollection.getMappedReadsTimeNanos();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getCompressedReadsCount() {
+        return fileCollection.getCompressedReadsCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getCompressedReadsTimeNanos() {
+        return fileCollection.getCompressedReadsTimeNanos();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getUncompressedBytesWritten() {
+        return fileCollection.getUncompressedBytesWritten();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getCompressedBytesWritten() {
+        return fileCollection.getCompressedBytesWritten();
+    }
+
     public DataFileCollection getFileCollection() {
         return fileCollection;
     }
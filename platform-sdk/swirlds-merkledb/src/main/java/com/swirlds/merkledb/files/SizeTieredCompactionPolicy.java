@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2024 Hedera Hashgraph, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.swirlds.merkledb.files;
+
+import com.swirlds.merkledb.KeyRange;
+import com.swirlds.merkledb.collections.CASableLongIndex;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A compaction policy, which groups files of similar sizes into tiers, regardless of their
+ * compaction levels. Files are sorted by size, and a file is added to the current tier, if its size
+ * is within {@link #TIER_LOW} .. {@link #TIER_HIGH} of the tier's average file size. All files
+ * smaller than {@link #SMALL_FILE_SIZE} are put to a single tier. The smallest tier with enough
+ * files is compacted.
+ *
+ * <p>Every data item is copied about once per tier, so write amplification is logarithmic in the
+ * data size. However, dead data items in large files may stay on disk for a long time, until
+ * there are enough other large files to compact.
+ */
+public class SizeTieredCompactionPolicy implements CompactionPolicy {
+
+    /** Min ratio of a file size to the tier average size to add the file to the tier */
+    static final double TIER_LOW = 0.5;
+
+    /** Max ratio of a file size to the tier average size to add the file to the tier */
+    static final double TIER_HIGH = 1.5;
+
+    /** All files smaller than this size, in bytes, are in the same tier */
+    static final long SMALL_FILE_SIZE = 16L * 1024 * 1024;
+
+    /** Min number of files in a tier to compact it */
+    private final int minNumberOfFilesToCompact;
+
+    /**
+     * Creates a new size-tiered compaction policy.
+     *
+     * @param minNumberOfFilesToCompact min number of files in a tier to compact it
+     */
+    public SizeTieredCompactionPolicy(final int minNumberOfFilesToCompact) {
+        this.minNumberOfFilesToCompact = minNumberOfFilesToCompact;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @NonNull
+    @Override
+    public List<DataFileReader> selectFilesToCompact(
+            @NonNull final List<DataFileReader> completedFiles,
+            @NonNull final CASableLongIndex index,
+            @NonNull final KeyRange validKeyRange) {
+        if (completedFiles.size() < minNumberOfFilesToCompact) {
+            return Collections.emptyList();
+        }
+        final List<DataFileReader> filesBySize = new ArrayList<>(completedFiles);
+        filesBySize.sort(Comparator.comparingLong(DataFileReader::getSize));
+
+        // Tiers are built in ascending size order, so the first tier with enough files is the smallest
+        List<DataFileReader> tier = new ArrayList<>();
+        long tierTotalSize = 0;
+        for (final DataFileReader file : filesBySize) {
+            final long fileSize = file.getSize();
+            if (!tier.isEmpty() && !fitsTier(fileSize, tierTotalSize / tier.size())) {
+                if (tier.size() >= minNumberOfFilesToCompact) {
+                    return tier;
+                }
+                tier = new ArrayList<>();
+                tierTotalSize = 0;
+            }
+            tier.add(file);
+            tierTotalSize += fileSize;
+        }
+        return (tier.size() >= minNumberOfFilesToCompact) ? tier : Collections.emptyList();
+    }
+
+    private static boolean fitsTier(final long fileSize, final long tierAverageSize) {
+        if ((fileSize < SMALL_FILE_SIZE) && (tierAverageSize < SMALL_FILE_SIZE)) {
+            return true;
+        }
+        return (fileSize >= tierAverageSize * TIER_LOW) && (fileSize <= tierAverageSize * TIER_HIGH);
+    }
+}
@@ -31,6 +31,7 @@ import com.hedera.pbj.runtime.io.buffer.Bytes;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -337,6 +338,49 @@ public sealed class Bucket implements Closeable permits ParsedBucket {
         out.writeBytes(bucketData);
     }
 
+    /**
+     * Calls the given action for every entry key in this bucket.
+     *
+     * @param action the action to call for every key
+     */
+    public void forEachKey(final Consumer<Bytes> action) {
+        bucketData.resetPosition();
+        while (bucketData.hasRemaining()) {
+            final int tag = bucketData.readVarInt(false);
+            final int fieldNum = tag >> TAG_FIELD_OFFSET;
+            if (fieldNum == FIELD_BUCKET_INDEX.number()) {
+                bucketData.skip(Integer.BYTES);
+            } else if (fieldNum == FIELD_BUCKET_ENTRIES.number()) {
+                final int entrySize = bucketData.readVarInt(false);
+                final long nextEntryOffset = bucketData.position() + entrySize;
+                final long oldLimit = bucketData.limit();
+                bucketData.limit(nextEntryOffset);
+                try {
+                    while (bucketData.hasRemaining()) {
+                        final int entryTag = bucketData.readVarInt(false);
+                        final int entryFieldNum = entryTag >> TAG_FIELD_OFFSET;
+                        if (entryFieldNum == FIELD_BUCKETENTRY_HASHCODE.number()) {
+                            bucketData.skip(Integer.BYTES);
+                        } else if (entryFieldNum == FIELD_BUCKETENTRY_VALUE.number()) {
+                            bucketData.skip(Long.BYTES);
+                        } else if (entryFieldNum == FIELD_BUCKETENTRY_KEYBYTES.number()) {
+                            final int entryKeyBytesSize = bucketData.readVarInt(false);
+                            action.accept(bucketData.getBytes(bucketData.position(), entryKeyBytesSize));
+                            bucketData.skip(entryKeyBytesSize);
+                        } else {
+                            throw new IllegalArgumentException("Unknown bucket entry field: " + entryFieldNum);
+                        }
+                    }
+                } finally {
+                    bucketData.limit(oldLimit);
+                    bucketData.position(nextEntryOffset);
+                }
+            } else {
+                throw new IllegalArgumentException("Unknown bucket field: " + fieldNum);
+            }
+        }
+    }
+
     // =================================================================================================================
     // Private API
 
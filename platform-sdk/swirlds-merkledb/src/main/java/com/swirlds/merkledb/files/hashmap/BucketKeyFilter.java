@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2024 Hedera Hashgraph, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.swirlds.merkledb.files.hashmap;
+
+import static com.swirlds.common.utility.NonCryptographicHashing.hash64;
+
+import com.hedera.pbj.runtime.io.buffer.Bytes;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * An in-memory blocked Bloom filter for {@link HalfDiskHashMap} keys. The filter has one block per
+ * bucket, all bits for a key are set in the block of the bucket the key belongs to. Blocks are
+ * sized for the average number of entries per bucket. When a bucket is updated, its block is
+ * rebuilt from scratch, so deleted keys don't pollute the filter over time.
+ *
+ * <p>Keys are hashed using their full bytes rather than key hash codes. All keys in a bucket share
+ * the lower bits of their hash codes, so hash codes don't provide enough entropy to distinguish
+ * keys within a bucket.
+ *
+ * <p>Filter lookups are thread safe. Filter updates must be done on a single thread, and readers
+ * must never observe a block without bits of a key, which is in the map. This is why a bucket
+ * update is done in two steps: before the bucket index is updated, the new block is merged into
+ * the old block, and after the index is updated, the block is replaced with the new block.
+ */
+final class BucketKeyFilter {
+
+    /** The version number for format of filter files */
+    private static final int FILE_FORMAT_VERSION = 1;
+
+    /** Max number of bits to set per key */
+    private static final int MAX_HASH_COUNT = 8;
+
+    /** Number of buckets, and therefore blocks, in the filter */
+    private final int numOfBuckets;
+
+    /** Number of filter bits per key, the filter is sized using this number */
+    private final int bitsPerKey;
+
+    /** Number of longs per block */
+    private final int wordsPerBlock;
+
+    /** Number of bits per block */
+    private final int bitsPerBlock;
+
+    /** Number of bits to set per key */
+    private final int hashCount;
+
+    /** Filter bits, blocks are stored one after another */
+    private final AtomicLongArray words;
+
+    /**
+     * Creates a new empty filter.
+     *
+     * @param numOfBuckets number of buckets in the map
+     * @param bitsPerKey number of filter bits per key
+     * @param expectedKeysPerBucket expected average number of keys in a bucket
+     */
+    BucketKeyFilter(final int numOfBuckets, final int bitsPerKey, final long expectedKeysPerBucket) {
+        if ((numOfBuckets <= 0) || (bitsPerKey <= 0) || (expectedKeysPerBucket <= 0)) {
+            throw new IllegalArgumentException("Key filter parameters must be positive");
+        }
+        this.numOfBuckets = numOfBuckets;
+        this.bitsPerKey = bitsPerKey;
+        wordsPerBlock = Math.toIntExact((expectedKeysPerBucket * bitsPerKey + Long.SIZE - 1) / Long.SIZE);
+        bitsPerBlock = wordsPerBlock * Long.SIZE;
+        if ((long) numOfBuckets * wordsPerBlock > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Key filter is too large: " + numOfBuckets + " buckets, "
+                    + wordsPerBlock + " longs per bucket");
+        }
+        hashCount = Math.max(1, Math.min(MAX_HASH_COUNT, (int) Math.round(bitsPerKey * Math.log(2))));
+        words = new AtomicLongArray(numOfBuckets * wordsPerBlock);
+    }
+
+    /**
+     * Checks if the given key may be in the given bucket. If this method returns false, the key is
+     * definitely not in the bucket.
+     *
+     * @param bucketIndex bucket index
+     * @param keyBytes the key
+     * @return false if the key is not in the bucket, true if it may be in the bucket
+     */
+    boolean mightContain(final int bucketIndex, @NonNull final Bytes keyBytes) {
+        final long hash = keyHash(keyBytes);
+        final int blockOffset = bucketIndex * wordsPerBlock;
+        final int h1 = (int) hash;
+        final int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            final int bit = bitInBlock(h1 + i * h2);
+            if ((words.get(blockOffset + (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Builds a filter block for all keys in the given bucket. The block isn't stored in the
+     * filter, see {@link #mergeBlock(int, long[])} and {@link #setBlock(int, long[])}.
+     *
+     * @param bucket the bucket
+     * @return the block
+     */
+    long[] buildBlock(@NonNull final Bucket bucket) {
+        final long[] block = new long[wordsPerBlock];
+        bucket.forEachKey(keyBytes -> {
+            final long hash = keyHash(keyBytes);
+            final int h1 = (int) hash;
+            final int h2 = (int) (hash >>> 32) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                final int bit = bitInBlock(h1 + i * h2);
+                block[bit >>> 6] |= 1L << bit;
+            }
+        });
+        return block;
+    }
+
+    /**
+     * Merges the given block into the block for the given bucket. After this call, the filter
+     * contains both old and new keys of the bucket.
+     *
+     * @param bucketIndex bucket index
+     * @param block the block to merge
+     */
+    void mergeBlock(final int bucketIndex, @NonNull final long[] block) {
+        final int blockOffset = bucketIndex * wordsPerBlock;
+        for (int i = 0; i < wordsPerBlock; i++) {
+            words.set(blockOffset + i, words.get(blockOffset + i) | block[i]);
+        }
+    }
+
+    /**
+     * Replaces the block for the given bucket with the given block.
+     *
+     * @param bucketIndex bucket index
+     * @param block the block to set
+     */
+    void setBlock(final int bucketIndex, @NonNull final long[] block) {
+        final int blockOffset = bucketIndex * wordsPerBlock;
+        for (int i = 0; i < wordsPerBlock; i++) {
+            words.set(blockOffset + i, block[i]);
+        }
+    }
+
+    /** Size of this filter in memory, in bytes. */
+    long getSizeInBytes() {
+        return (long) words.length() * Long.BYTES;
+    }
+
+    /**
+     * Writes this filter to the given file. The filter must not be updated while it's written.
+     *
+     * @param file the file to write to
+     * @throws IOException if an I/O error occurs
+     */
+    void writeToFile(@NonNull final Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(FILE_FORMAT_VERSION);
+            out.writeInt(numOfBuckets);
+            out.writeInt(bitsPerKey);
+            out.writeInt(wordsPerBlock);
+            for (int i = 0; i < words.length(); i++) {
+                out.writeLong(words.get(i));
+            }
+        }
+    }
+
+    /**
+     * Loads filter bits from the given file. If the file was written by a filter with different
+     * parameters, nothing is loaded.
+     *
+     * @param file the file to load from
+     * @return true if the filter is loaded, false if filter parameters don't match
+     * @throws IOException if an I/O error occurs
+     */
+    boolean loadFromFile(@NonNull final Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if ((in.readInt() != FILE_FORMAT_VERSION)
+                    || (in.readInt() != numOfBuckets)
+                    || (in.readInt() != bitsPerKey)
+                    || (in.readInt() != wordsPerBlock)) {
+                return false;
+            }
+            for (int i = 0; i < words.length(); i++) {
+                words.set(i, in.readLong());
+            }
+            return true;
+        }
+    }
+
+    // =================================================================================================================
+    // Private methods
+
+    private int bitInBlock(final int hash) {
+        return (int) (((hash & 0xFFFFFFFFL) * bitsPerBlock) >>> 32);
+    }
+
+    /** Computes a 64-bit hash of the given key bytes. */
+    static long keyHash(@NonNull final Bytes keyBytes) {
+        final long length = keyBytes.length();
+        long hash = length;
+        long i = 0;
+        for (; i + Long.BYTES <= length; i += Long.BYTES) {
+            hash = hash64(hash, keyBytes.getLong(i));
+        }
+        long tail = 0;
+        for (; i < length; i++) {
+            tail = (tail << 8) | (keyBytes.getByte(i) & 0xFF);
+        }
+        return hash64(hash, tail);
+    }
+}
@@ -40,14 +40,18 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.LongSummaryStatistics;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.eclipse.collections.api.tuple.primitive.IntObjectPair;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
 import org.eclipse.collections.impl.map.mutable.primitive.IntObjectHashMap;
 
 /**
@@ -72,6 +76,8 @@ public class HalfDiskHashMap implements AutoCloseable, Snapshotable, FileStatist
     private static final String METADATA_FILENAME_SUFFIX = "_metadata.hdhm";
     /** Bucket index file name suffix with extension */
     private static final String BUCKET_INDEX_FILENAME_SUFFIX = "_bucket_index.ll";
+    /** Key filter file name suffix with extension */
+    private static final String KEY_FILTER_FILENAME_SUFFIX = "_key_filter.bf";
     /**
      * A marker to indicate that a value should be deleted from the map, or that there is
      * no old value to compare against in putIfEqual/deleteIfEqual
@@ -112,6 +118,22 @@ public class HalfDiskHashMap implements AutoCloseable, Snapshotable, FileStatist
 
     /** Bucket pool used by this HDHM */
     private final ReusableBucketPool bucketPool;
+    /** Whether to write the bucket index as a delta in snapshots, see {@link LongList#writeDeltaToFile} */
+    private final boolean indexDeltaSnapshots;
+    /** Max percent of changed bucket index chunks to write a delta rather than a full file */
+    private final int indexDeltaMaxDirtyChunksPercent;
+
+    /**
+     * In-memory filter to answer lookups of missing keys without reading buckets from disk, or
+     * null if key filters are disabled
+     */
+    @Nullable
+    private final BucketKeyFilter keyFilter;
+    /** Number of lookups answered by the key filter without reading buckets */
+    private final LongAdder keyFilterNegatives = new LongAdder();
+    /** Number of lookups passed by the key filter, but the key wasn't found in the bucket */
+    private final LongAdder keyFilterFalsePositives = new LongAdder();
+
     /** Store for session data during a writing transaction */
     private IntObjectHashMap<BucketMutation> oneTransactionsData = null;
 
@@ -204,12 +226,15 @@ public class HalfDiskHashMap implements AutoCloseable, Snapshotable, FileStatist
             throws IOException {
         this.mapSize = mapSize;
         this.storeName = storeName;
+        this.indexDeltaSnapshots = config.indexDeltaSnapshots();
+        this.indexDeltaMaxDirtyChunksPercent = config.indexDeltaMaxDirtyChunksPercent();
         Path indexFile = storeDir.resolve(storeName + BUCKET_INDEX_FILENAME_SUFFIX);
         // create bucket pool
         this.bucketPool = new ReusableBucketPool(Bucket::new);
         // load or create new
         LoadedDataCallback loadedDataCallback;
-        if (Files.exists(storeDir)) {
+        final boolean hasExistingData = Files.exists(storeDir);
+        if (hasExistingData) {
             // load metadata
             Path metaDataFile = storeDir.resolve(storeName + METADATA_FILENAME_SUFFIX);
             boolean loadedLegacyMetadata = false;
@@ -247,12 +272,12 @@ public class HalfDiskHashMap implements AutoCloseable, Snapshotable, FileStatist
             final boolean forceIndexRebuilding = config.indexRebuildingEnforced();
             if (Files.exists(indexFile) && !forceIndexRebuilding) {
                 bucketIndexToBucketLocation =
-                        preferDiskBasedIndex ? new LongListDisk(indexFile) : new LongListOffHeap(indexFile);
+                        preferDiskBasedIndex ? createDiskIndex(indexFile, config) : new LongListOffHeap(indexFile);
                 loadedDataCallback = null;
             } else {
                 // create new index and setup call back to rebuild
                 bucketIndexToBucketLocation =
-                        preferDiskBasedIndex ? new LongListDisk(indexFile) : new LongListOffHeap();
+                        preferDiskBasedIndex ? createDiskIndex(indexFile, config) : new LongListOffHeap();
                 loadedDataCallback = (dataLocation, bucketData) -> {
                     final Bucket bucket = bucketPool.getBucket();
                     bucket.readFrom(bucketData);
@@ -263,7 +288,8 @@ public class HalfDiskHashMap implements AutoCloseable, Snapshotable, FileStatist
             // create store dir
             Files.createDirectories(storeDir);
             // create new index
-            bucketIndexToBucketLocation = preferDiskBasedIndex ? new LongListDisk(indexFile) : new LongListOffHeap();
+            bucketIndexToBucketLocation =
+                    preferDiskBasedIndex ? createDiskIndex(indexFile, config) : new LongListOffHeap();
             // calculate number of entries we can store in a disk page
             final int minimumBuckets = (int) (mapSize / GOOD_AVERAGE_BUCKET_ENTRY_COUNT);
             // numOfBuckets is the nearest power of two greater than minimumBuckets with a min of 2
@@ -284,6 +310,46 @@ public class HalfDiskHashMap implements AutoCloseable, Snapshotable, FileStatist
         fileCollection = new DataFileCollection(
                 // Need: propagate MerkleDb config from the database
                 config, storeDir, storeName, legacyStoreName, loadedDataCallback);
+        // create key filter, load it from disk or rebuild from buckets
+        keyFilter = createKeyFilter(config.keyFilterBitsPerKey());
+        if ((keyFilter != null) && hasExistingData) {
+            final Path keyFilterFile = storeDir.resolve(storeName + KEY_FILTER_FILENAME_SUFFIX);
+            final boolean keyFilterLoaded = (loadedDataCallback == null)
+                    && Files.exists(keyFilterFile)
+                    && keyFilter.loadFromFile(keyFilterFile);
+            if (!keyFilterLoaded) {
+                rebuildKeyFilter();
+            }
+        }
+    }
+
+    private static LongList createDiskIndex(final Path indexFile, final MerkleDbConfig config) throws IOException {
+        return new LongListDisk(indexFile, config.longListDiskPageCacheSize(), config.longListDiskReadAheadPages());
+    }
+
+    @Nullable
+    private BucketKeyFilter createKeyFilter(final int bitsPerKey) {
+        if (bitsPerKey == 0) {
+            return null;
+        }
+        try {
+            return new BucketKeyFilter(numOfBuckets, bitsPerKey, GOOD_AVERAGE_BUCKET_ENTRY_COUNT);
+        } catch (final IllegalArgumentException e) {
+            logger.warn(MERKLE_DB.getMarker(), "Key filter is disabled for HalfDiskHashMap [{}]", storeName, e);
+            return null;
+        }
+    }
+
+    private void rebuildKeyFilter() throws IOException {
+        assert keyFilter != null;
+        logger.info(MERKLE_DB.getMarker(), "Rebuilding key filter for HalfDiskHashMap [{}]", storeName);
+        for (int bucketIndex = 0; bucketIndex < numOfBuckets; bucketIndex++) {
+            try (final Bucket bucket = readBucket(bucketIndex)) {
+                if (bucket != null) {
+                    keyFilter.setBlock(bucketIndex, keyFilter.buildBlock(bucket));
+                }
+            }
+        }
     }
 
     private void writeMetadata(final Path dir) throws IOException {
@@ -301,11 +367,20 @@ public class HalfDiskHashMap implements AutoCloseable, Snapshotable, FileStatist
         // create snapshot directory if needed
         Files.createDirectories(snapshotDirectory);
         // write index to file
-        bucketIndexToBucketLocation.writeToFile(snapshotDirectory.resolve(storeName + BUCKET_INDEX_FILENAME_SUFFIX));
+        final Path indexFile = snapshotDirectory.resolve(storeName + BUCKET_INDEX_FILENAME_SUFFIX);
+        if (indexDeltaSnapshots) {
+            bucketIndexToBucketLocation.writeDeltaToFile(indexFile, indexDeltaMaxDirtyChunksPercent);
+        } else {
+            bucketIndexToBucketLocation.writeToFile(indexFile);
+        }
         // snapshot files
         fileCollection.snapshot(snapshotDirectory);
         // write metadata
         writeMetadata(snapshotDirectory);
+        // write key filter
+        if (keyFilter != null) {
+            keyFilter.writeToFile(snapshotDirectory.resolve(storeName + KEY_FILTER_FILENAME_SUFFIX));
+        }
     }
 
     /**
@@ -326,6 +401,70 @@ public class HalfDiskHashMap implements AutoCloseable, Snapshotable, FileStatist
         return fileCollection.getAllCompletedFilesSizeStatistics();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getMappedFilesSize() {
+        return fileCollection.getMappedFilesSize();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long[] getReclaimableSizeByLevel(final int maxCompactionLevel) {
+        return fileCollection.getReclaimableSizeByLevel(maxCompactionLevel);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getMappedReadsCount() {
+        return fileCollection.getMappedReadsCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getMappedReadsTimeNanos() {
+        return fileCollection.getMappedReadsTimeNanos();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getCompressedReadsCount() {
+        return fileCollection.getCompressedReadsCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getCompressedReadsTimeNanos() {
+        return fileCollection.getCompressedReadsTimeNanos();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getUncompressedBytesWritten() {
+        return fileCollection.getUncompressedBytesWritten();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getCompressedBytesWritten() {
+        return fileCollection.getCompressedBytesWritten();
+    }
+
     /**
      * Close this HalfDiskHashMap's data files. Once closed this HalfDiskHashMap can not be reused.
      * You should make sure you call close before system exit otherwise any files being written
@@ -654,14 +793,27 @@ public class HalfDiskHashMap implements AutoCloseable, Snapshotable, FileStatist
         protected boolean exec() {
             try (bucket) {
                 final int bucketIndex = bucket.getBucketIndex();
+                // Readers may check the filter and then read the bucket using either the old or the new bucket
+                // location, so the filter must contain both old and new keys until the index is updated
+                final long[] keyFilterBlock = keyFilter != null ? keyFilter.buildBlock(bucket) : null;
+                if (keyFilterBlock != null) {
+                    keyFilter.mergeBlock(bucketIndex, keyFilterBlock);
+                }
+                // The old location is read and replaced in one atomic step. Compaction may move the bucket
+                // concurrently, and only the location actually replaced here must be marked dead
+                final long oldBucketLocation;
                 if (bucket.isEmpty()) {
                     // bucket is missing or empty, remove it from the index
-                    bucketIndexToBucketLocation.remove(bucketIndex);
+                    oldBucketLocation = bucketIndexToBucketLocation.getAndRemove(bucketIndex);
                 } else {
                     // save bucket
                     final long bucketLocation = fileCollection.storeDataItem(bucket::writeTo, bucket.sizeInBytes());
                     // update bucketIndexToBucketLocation
-                    bucketIndexToBucketLocation.put(bucketIndex, bucketLocation);
+                    oldBucketLocation = bucketIndexToBucketLocation.getAndSet(bucketIndex, bucketLocation);
+                }
+                fileCollection.markDataItemDead(oldBucketLocation);
+                if (keyFilterBlock != null) {
+                    keyFilter.setBlock(bucketIndex, keyFilterBlock);
                 }
                 next.send();
                 return true;
@@ -722,12 +874,86 @@ public class HalfDiskHashMap implements AutoCloseable, Snapshotable, FileStatist
             throw new IllegalArgumentException("Can not get a null key");
         }
         final int bucketIndex = computeBucketIndex(keyHashCode);
+        if (keyFilter != null && !keyFilter.mightContain(bucketIndex, keyBytes)) {
+            keyFilterNegatives.increment();
+            return notFoundValue;
+        }
+        long value = notFoundValue;
         try (final Bucket bucket = readBucket(bucketIndex)) {
             if (bucket != null) {
-                return bucket.findValue(keyHashCode, keyBytes, notFoundValue);
+                value = bucket.findValue(keyHashCode, keyBytes, notFoundValue);
+            }
+        }
+        if (keyFilter != null && value == notFoundValue) {
+            keyFilterFalsePositives.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Get values for a batch of keys from this map. Keys are grouped by bucket, so every bucket
+     * is read from disk once, even if multiple keys in the batch belong to it. Buckets are read
+     * in parallel, see {@link DataFileCollection#readDataItemsUsingIndex(LongList, long[],
+     * DataFileCollection.BatchReadCallback)} for details.
+     *
+     * @param keys the keys to get values for
+     * @param keyHashCodes the key hash codes, must be of the same size as {@code keys}
+     * @param notFoundValue the value to use for keys not found in the map
+     * @return an array of values retrieved from the map, in the same order as the keys. Values for
+     *     the keys not stored in the map are set to {@code notFoundValue}
+     * @throws IOException If there was a problem reading from the map
+     */
+    public long[] getAll(final List<Bytes> keys, final int[] keyHashCodes, final long notFoundValue)
+            throws IOException {
+        if (keys.size() != keyHashCodes.length) {
+            throw new IllegalArgumentException("Number of keys and key hash codes don't match");
+        }
+        final long[] values = new long[keys.size()];
+        Arrays.fill(values, notFoundValue);
+        // Group keys by bucket index
+        final IntObjectHashMap<IntArrayList> keysByBucket = new IntObjectHashMap<>();
+        for (int i = 0; i < keyHashCodes.length; i++) {
+            if (keys.get(i) == null) {
+                throw new IllegalArgumentException("Can not get a null key");
             }
+            final int bucketIndex = computeBucketIndex(keyHashCodes[i]);
+            if (keyFilter != null && !keyFilter.mightContain(bucketIndex, keys.get(i))) {
+                keyFilterNegatives.increment();
+                continue;
+            }
+            keysByBucket.getIfAbsentPut(bucketIndex, IntArrayList::new).add(i);
+        }
+        final long[] bucketIndices = new long[keysByBucket.size()];
+        final IntArrayList[] bucketKeys = new IntArrayList[keysByBucket.size()];
+        int bucketCount = 0;
+        for (final IntObjectPair<IntArrayList> pair : keysByBucket.keyValuesView()) {
+            bucketIndices[bucketCount] = pair.getOne();
+            bucketKeys[bucketCount] = pair.getTwo();
+            bucketCount++;
         }
-        return notFoundValue;
+        fileCollection.readDataItemsUsingIndex(bucketIndexToBucketLocation, bucketIndices, (i, bucketData) -> {
+            if (bucketData == null) {
+                return;
+            }
+            try (final Bucket bucket = bucketPool.getBucket()) {
+                bucket.readFrom(bucketData);
+                final IntArrayList keyIndices = bucketKeys[i];
+                for (int k = 0; k < keyIndices.size(); k++) {
+                    final int keyIndex = keyIndices.get(k);
+                    values[keyIndex] = bucket.findValue(keyHashCodes[keyIndex], keys.get(keyIndex), notFoundValue);
+                }
+            }
+        });
+        if (keyFilter != null) {
+            for (final IntArrayList keyIndices : bucketKeys) {
+                for (int k = 0; k < keyIndices.size(); k++) {
+                    if (values[keyIndices.get(k)] == notFoundValue) {
+                        keyFilterFalsePositives.increment();
+                    }
+                }
+            }
+        }
+        return values;
     }
 
     private Bucket readBucket(final int bucketIndex) throws IOException {
@@ -766,6 +992,21 @@ public class HalfDiskHashMap implements AutoCloseable, Snapshotable, FileStatist
         return bucketIndexToBucketLocation;
     }
 
+    /** Whether this map uses an in-memory key filter. */
+    public boolean isKeyFilterEnabled() {
+        return keyFilter != null;
+    }
+
+    /** Number of lookups answered by the key filter without reading buckets from disk. */
+    public long getKeyFilterNegativeCount() {
+        return keyFilterNegatives.sum();
+    }
+
+    /** Number of lookups passed by the key filter, where the key wasn't found in the map. */
+    public long getKeyFilterFalsePositiveCount() {
+        return keyFilterFalsePositives.sum();
+    }
+
     // =================================================================================================================
     // Private API
 
@@ -30,6 +30,7 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -197,6 +198,16 @@ public final class ParsedBucket extends Bucket {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void forEachKey(final Consumer<Bytes> action) {
+        for (final BucketEntry entry : entries) {
+            action.accept(entry.getKeyBytes());
+        }
+    }
+
     // =================================================================================================================
     // Private API
 
@@ -83,6 +83,11 @@ public class MemoryUtils {
         UNSAFE.putLongVolatile(null, address + offset, value);
     }
 
+    public static long getAndSetLong(@NonNull final ByteBuffer buffer, final long offset, final long value) {
+        final long address = bufferAddress(buffer);
+        return UNSAFE.getAndSetLong(null, address + offset, value);
+    }
+
     public static boolean compareAndSwapLong(
             @NonNull final ByteBuffer buffer, final long offset, final long expected, final long value) {
         final long address = bufferAddress(buffer);
@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2024 Hedera Hashgraph, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.swirlds.merkledb;
+
+import static com.swirlds.virtualmap.datasource.VirtualDataSource.INVALID_PATH;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.hedera.pbj.runtime.io.buffer.Bytes;
+import com.swirlds.virtualmap.datasource.VirtualLeafBytes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class LeafRecordCacheTest {
+
+    private static Bytes key(final int i) {
+        return Bytes.wrap(new byte[] {(byte) (i >>> 24), (byte) (i >>> 16), (byte) (i >>> 8), (byte) i});
+    }
+
+    private static VirtualLeafBytes leaf(final int i, final long path) {
+        return new VirtualLeafBytes(path, key(i), i, Bytes.wrap(new byte[16]));
+    }
+
+    @Test
+    void invalidSize() {
+        assertThrows(IllegalArgumentException.class, () -> new LeafRecordCache(0, 1024), "Should have thrown");
+        assertThrows(IllegalArgumentException.class, () -> new LeafRecordCache(1024, 0), "Should have thrown");
+    }
+
+    @Test
+    void keyAndPathViews() {
+        final LeafRecordCache cache = new LeafRecordCache(100, 1024 * 1024);
+        final VirtualLeafBytes leaf = leaf(1, 10);
+        cache.put(1, leaf);
+        assertSame(leaf, cache.get(key(1), 1), "Record should be found by key");
+        assertSame(leaf, cache.get(10), "Record should be found by path");
+
+        // Replace the record with the same key at a different path
+        final VirtualLeafBytes moved = leaf(1, 11);
+        cache.put(1, moved);
+        assertSame(moved, cache.get(key(1), 1), "Replaced record should be found by key");
+        assertNull(cache.get(10), "Old path should not be cached");
+        assertSame(moved, cache.get(11), "Replaced record should be found by new path");
+        assertEquals(1, cache.getRecordCount(), "Wrong record count");
+
+        cache.invalidate(key(1));
+        assertNull(cache.get(key(1), 1), "Invalidated record should not be found by key");
+        assertNull(cache.get(11), "Invalidated record should not be found by path");
+        assertEquals(0, cache.getRecordCount(), "Wrong record count");
+        assertEquals(0, cache.getSizeInBytes(), "Wrong cache size");
+    }
+
+    @Test
+    void recordsWithoutValues() {
+        final LeafRecordCache cache = new LeafRecordCache(100, 1024 * 1024);
+        cache.put(1, new VirtualLeafBytes(INVALID_PATH, key(1), 1, null));
+        cache.put(2, new VirtualLeafBytes(20, key(2), 2, null));
+        final VirtualLeafBytes missing = cache.get(key(1), 1);
+        assertNotNull(missing, "Negative lookup result should be cached");
+        assertEquals(INVALID_PATH, missing.path(), "Wrong cached path");
+        assertEquals(20, cache.get(key(2), 2).path(), "Wrong cached path");
+        assertNull(cache.get(20), "Records without values should not be cached by path");
+    }
+
+    @Test
+    void boundedByRecordCount() {
+        final int maxRecords = 64;
+        final LeafRecordCache cache = new LeafRecordCache(maxRecords, Long.MAX_VALUE);
+        for (int i = 0; i < maxRecords * 10; i++) {
+            if (i >= maxRecords) {
+                // Make new keys more frequent than the initially cached ones, so they are admitted
+                cache.get(key(i), i);
+                cache.get(key(i), i);
+            }
+            cache.put(i, leaf(i, i));
+            assertTrue(cache.getRecordCount() <= maxRecords, "Too many records in the cache");
+        }
+        assertEquals(maxRecords, cache.getRecordCount(), "Cache should be full");
+        assertTrue(cache.getEvictions() > 0, "Some records should be evicted");
+    }
+
+    @Test
+    void boundedBySize() {
+        final long maxBytes = 16 * 1024;
+        final LeafRecordCache cache = new LeafRecordCache(Integer.MAX_VALUE, maxBytes);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, leaf(i, i));
+            assertTrue(cache.getSizeInBytes() <= maxBytes, "Cache is too large");
+        }
+        assertTrue(cache.getRecordCount() > 0, "Cache should not be empty");
+    }
+
+    @Test
+    void admissionPolicy() {
+        final int maxRecords = 16;
+        final LeafRecordCache cache = new LeafRecordCache(maxRecords, Long.MAX_VALUE);
+        for (int i = 0; i < maxRecords; i++) {
+            cache.put(i, leaf(i, i));
+            for (int j = 0; j < 5; j++) {
+                assertNotNull(cache.get(key(i), i), "Record should be cached");
+            }
+        }
+        // A cold key should not evict hot records
+        final int cold = 1000;
+        cache.put(cold, leaf(cold, cold));
+        assertNull(cache.get(key(cold), cold), "Cold record should not be admitted");
+        assertEquals(0, cache.getEvictions(), "No records should be evicted");
+
+        // Once the key is requested often enough, it's admitted
+        for (int j = 0; j < 10; j++) {
+            cache.get(key(cold), cold);
+        }
+        cache.put(cold, leaf(cold, cold));
+        assertNotNull(cache.get(key(cold), cold), "Hot record should be admitted");
+        assertEquals(1, cache.getEvictions(), "One record should be evicted");
+        assertEquals(maxRecords, cache.getRecordCount(), "Cache should be full");
+    }
+
+    @Test
+    void concurrentUpdates() throws Exception {
+        final int maxRecords = 64;
+        final int keyCount = 256;
+        final LeafRecordCache cache = new LeafRecordCache(maxRecords, Long.MAX_VALUE);
+        final int threadCount = 8;
+        final CyclicBarrier barrier = new CyclicBarrier(threadCount);
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threadCount; t++) {
+                final Random random = new Random(t);
+                futures.add(executor.submit(() -> {
+                    barrier.await();
+                    for (int i = 0; i < 100_000; i++) {
+                        final int k = random.nextInt(keyCount);
+                        switch (random.nextInt(4)) {
+                            case 0 -> cache.invalidate(key(k));
+                            case 1 -> cache.get(key(k), k);
+                            default -> cache.put(k, leaf(k, k));
+                        }
+                        assertTrue(cache.getRecordCount() <= maxRecords, "Too many records in the cache");
+                    }
+                    return null;
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Both views and the cache size must be consistent with each other
+        int cached = 0;
+        for (int k = 0; k < keyCount; k++) {
+            final VirtualLeafBytes byKey = cache.get(key(k), k);
+            assertSame(byKey, cache.get(k), "Key and path views should have the same record");
+            if (byKey != null) {
+                cached++;
+            }
+        }
+        assertEquals(cached, cache.getRecordCount(), "Wrong record count");
+        final LeafRecordCache single = new LeafRecordCache(1, Long.MAX_VALUE);
+        single.put(0, leaf(0, 0));
+        assertEquals(cached * single.getSizeInBytes(), cache.getSizeInBytes(), "Wrong cache size");
+    }
+
+    @Test
+    void hitsAndMisses() {
+        final LeafRecordCache cache = new LeafRecordCache(100, 1024 * 1024);
+        cache.put(1, leaf(1, 1));
+        cache.get(key(1), 1);
+        cache.get(1);
+        cache.get(key(2), 2);
+        assertEquals(2, cache.getHits(), "Wrong number of hits");
+        assertEquals(1, cache.getMisses(), "Wrong number of misses");
+    }
+}
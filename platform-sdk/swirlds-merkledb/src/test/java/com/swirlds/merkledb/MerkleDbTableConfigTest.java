@@ -21,7 +21,11 @@ import com.hedera.pbj.runtime.io.stream.WritableStreamingData;
 import com.swirlds.common.config.singleton.ConfigurationHolder;
 import com.swirlds.common.constructable.ConstructableRegistry;
 import com.swirlds.common.crypto.DigestType;
+import com.swirlds.common.io.streams.SerializableDataInputStream;
+import com.swirlds.common.io.streams.SerializableDataOutputStream;
 import com.swirlds.merkledb.config.MerkleDbConfig;
+import com.swirlds.merkledb.files.CompactionPolicyType;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import org.junit.jupiter.api.Assertions;
@@ -66,4 +70,57 @@ class MerkleDbTableConfigTest {
         // default MerkleDbConfig values
         Assertions.assertEquals(0, restored.getHashesRamToDiskThreshold());
     }
+
+    @Test
+    void compactionPolicyTest() throws IOException {
+        final MerkleDbTableConfig tableConfig = new MerkleDbTableConfig((short) 1, DigestType.SHA_384);
+        // Not set by default, MerkleDb config value is used
+        Assertions.assertNull(tableConfig.getCompactionPolicy());
+        tableConfig.compactionPolicy(CompactionPolicyType.GARBAGE_RATIO);
+
+        final ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        try (final WritableStreamingData out = new WritableStreamingData(bout)) {
+            tableConfig.writeTo(out);
+        }
+        final MerkleDbTableConfig restored;
+        try (final ReadableStreamingData in = new ReadableStreamingData(bout.toByteArray())) {
+            restored = new MerkleDbTableConfig(in);
+        }
+        Assertions.assertEquals(CompactionPolicyType.GARBAGE_RATIO, restored.getCompactionPolicy());
+        Assertions.assertEquals(tableConfig, restored);
+
+        final ByteArrayOutputStream legacyBout = new ByteArrayOutputStream();
+        try (final SerializableDataOutputStream out = new SerializableDataOutputStream(legacyBout)) {
+            tableConfig.serialize(out);
+        }
+        final MerkleDbTableConfig legacyRestored = new MerkleDbTableConfig();
+        try (final SerializableDataInputStream in =
+                new SerializableDataInputStream(new ByteArrayInputStream(legacyBout.toByteArray()))) {
+            legacyRestored.deserialize(in, tableConfig.getVersion());
+        }
+        Assertions.assertEquals(tableConfig, legacyRestored);
+        Assertions.assertEquals(tableConfig, tableConfig.copy());
+    }
+
+    @Test
+    void defaultCompactionPolicyKeepsOriginalVersionTest() throws IOException {
+        final MerkleDbTableConfig tableConfig = new MerkleDbTableConfig((short) 1, DigestType.SHA_384);
+        // Configs without a compaction policy must stay readable by nodes that don't support policies
+        Assertions.assertEquals(1, tableConfig.getVersion());
+
+        final ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        try (final SerializableDataOutputStream out = new SerializableDataOutputStream(bout)) {
+            tableConfig.serialize(out);
+        }
+        final byte[] arr = bout.toByteArray();
+        final MerkleDbTableConfig restored = new MerkleDbTableConfig();
+        try (final SerializableDataInputStream in = new SerializableDataInputStream(new ByteArrayInputStream(arr))) {
+            restored.deserialize(in, 1);
+            Assertions.assertEquals(0, in.available(), "No compaction policy should be written");
+        }
+        Assertions.assertEquals(tableConfig, restored);
+
+        tableConfig.compactionPolicy(CompactionPolicyType.SIZE_TIERED);
+        Assertions.assertEquals(2, tableConfig.getVersion());
+    }
 }
@@ -18,10 +18,12 @@ package com.swirlds.merkledb.collections;
 
 import static com.swirlds.base.units.UnitConstants.BYTES_TO_MEBIBYTES;
 import static com.swirlds.base.units.UnitConstants.MEBIBYTES_TO_BYTES;
+import static com.swirlds.merkledb.collections.AbstractLongList.DELTA_BASE_FILE_SUFFIX;
 import static com.swirlds.merkledb.collections.AbstractLongList.FILE_HEADER_SIZE_V2;
 import static com.swirlds.merkledb.test.fixtures.MerkleDbTestUtils.checkDirectMemoryIsCleanedUpToLessThanBaseUsage;
 import static com.swirlds.merkledb.test.fixtures.MerkleDbTestUtils.getDirectMemoryUsedBytes;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -30,6 +32,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongUnaryOperator;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
@@ -188,6 +191,19 @@ abstract class AbstractLongListTest<T extends AbstractLongList<?>> {
                 "putIfEqual did not put when it should have");
     }
 
+    @Test
+    void testGetAndSet() {
+        try (final AbstractLongList<?> list = createLongList()) {
+            list.updateValidRange(0, 100);
+            assertEquals(LongList.IMPERMISSIBLE_VALUE, list.getAndSet(10, 42), "No previous value expected");
+            assertEquals(42, list.getAndSet(10, 43), "Previous value should be returned");
+            assertEquals(43, list.get(10), "New value should be stored");
+            assertEquals(43, list.getAndRemove(10), "Previous value should be returned on remove");
+            assertEquals(LongList.IMPERMISSIBLE_VALUE, list.get(10), "Value should be removed");
+            assertEquals(LongList.IMPERMISSIBLE_VALUE, list.getAndRemove(10), "No previous value expected");
+        }
+    }
+
     @Test
     @Order(5)
     void chunkSizeFactoryWorks() {
@@ -198,6 +214,75 @@ abstract class AbstractLongListTest<T extends AbstractLongList<?>> {
         checkNumLongsPerChunk(subject2mbChunks, expectedNum);
     }
 
+    @Test
+    @Order(5)
+    void writeDeltaToFileAndReadBack(@TempDir final Path tempDir) throws IOException {
+        final int size = 5_000;
+        try (final T list = createFullyParameterizedLongListWith(100, 10_000)) {
+            list.updateValidRange(0, size - 1);
+            for (int i = 0; i < size; i++) {
+                list.put(i, i + 1);
+            }
+            // no base file yet, a full file is written
+            final Path file1 = Files.createDirectories(tempDir.resolve("1")).resolve("list.ll");
+            list.writeDeltaToFile(file1, 50);
+            assertFalse(Files.exists(baseFile(file1)), "Full file must not have a base file");
+
+            // change two chunks out of fifty
+            list.put(150, 1_000_150);
+            list.remove(4_999);
+            final Path file2 = Files.createDirectories(tempDir.resolve("2")).resolve("list.ll");
+            list.writeDeltaToFile(file2, 50);
+            assertTrue(Files.exists(baseFile(file2)), "Delta file must have a base file");
+            assertTrue(Files.size(file2) < Files.size(file1) / 10, "Delta file must only contain changed chunks");
+
+            // deltas are cumulative, so older snapshots can be deleted
+            list.put(3_210, 7);
+            final Path file3 = Files.createDirectories(tempDir.resolve("3")).resolve("list.ll");
+            list.writeDeltaToFile(file3, 50);
+            Files.delete(file1);
+            Files.delete(file2);
+            Files.delete(baseFile(file2));
+            final LongUnaryOperator expected =
+                    i -> switch ((int) i) {
+                        case 150 -> 1_000_150;
+                        case 3_210 -> 7;
+                        case 4_999 -> LongList.IMPERMISSIBLE_VALUE;
+                        default -> i + 1;
+                    };
+            try (final LongList loaded = createLongListFromFile(file3)) {
+                checkContent(loaded, size, expected);
+                // a list loaded from a delta file continues to write deltas against the same base file
+                final Path file4 = Files.createDirectories(tempDir.resolve("4")).resolve("list.ll");
+                loaded.writeDeltaToFile(file4, 50);
+                assertTrue(Files.isSameFile(baseFile(file3), baseFile(file4)), "Base file must be reused");
+            }
+
+            // too many changed chunks, the delta chain is compacted to a new full file
+            for (int i = 0; i < size; i++) {
+                list.put(i, i + 2);
+            }
+            final Path file5 = Files.createDirectories(tempDir.resolve("5")).resolve("list.ll");
+            list.writeDeltaToFile(file5, 50);
+            assertFalse(Files.exists(baseFile(file5)), "Compacted file must not have a base file");
+            assertEquals(0, list.dirtyChunksPercent(), "Dirty chunks must be reset after compaction");
+            try (final LongList loaded = createLongListFromFile(file5)) {
+                checkContent(loaded, size, i -> i + 2);
+            }
+        }
+    }
+
+    private static Path baseFile(final Path file) {
+        return file.resolveSibling(file.getFileName() + DELTA_BASE_FILE_SUFFIX);
+    }
+
+    private static void checkContent(final LongList list, final int size, final LongUnaryOperator expected) {
+        assertEquals(size, list.size(), "Unexpected list size");
+        for (int i = 0; i < size; i++) {
+            assertEquals(expected.applyAsLong(i), list.get(i), "Unexpected value at index " + i);
+        }
+    }
+
     @SuppressWarnings("resource")
     @Test
     @Order(6)
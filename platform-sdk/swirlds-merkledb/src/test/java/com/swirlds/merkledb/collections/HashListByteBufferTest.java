@@ -19,8 +19,10 @@ package com.swirlds.merkledb.collections;
 import static com.swirlds.merkledb.test.fixtures.MerkleDbTestUtils.checkDirectMemoryIsCleanedUpToLessThanBaseUsage;
 import static com.swirlds.merkledb.test.fixtures.MerkleDbTestUtils.getDirectMemoryUsedBytes;
 import static com.swirlds.merkledb.test.fixtures.MerkleDbTestUtils.hash;
+import static com.swirlds.merkledb.utilities.HashTools.HASH_SIZE_BYTES;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -31,6 +33,9 @@ import com.swirlds.common.crypto.Hash;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.AfterEach;
@@ -203,6 +208,82 @@ class HashListByteBufferTest {
         hashList.close();
     }
 
+    // ------------------------------------------------------
+    // Testing truncate
+    // ------------------------------------------------------
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    @DisplayName("Truncate removes hashes at and above the new size and drops their buffers")
+    void truncateRemovesHashesAboveNewSize(final boolean offHeap) throws IOException {
+        final HashListByteBuffer hashList = new HashListByteBuffer(10, 100, offHeap);
+        for (int i = 0; i < 95; i++) {
+            hashList.put(i, hash(i));
+        }
+        hashList.truncate(35);
+        assertEquals(35, hashList.size(), "Size should be the truncated size");
+        if (offHeap) {
+            assertEquals(
+                    4L * 10 * HASH_SIZE_BYTES,
+                    hashList.getOffHeapConsumption(),
+                    "Buffers above the new size should be dropped");
+        }
+        for (int i = 0; i < 35; i++) {
+            assertEquals(hash(i), hashList.get(i), "Hashes below the new size should be kept");
+        }
+        for (int i = 35; i < 40; i++) {
+            assertNotEquals(hash(i), hashList.get(i), "Hashes in the last buffer kept should be cleared");
+        }
+        for (int i = 40; i < 100; i++) {
+            assertNull(hashList.get(i), "Hashes in dropped buffers should be null");
+        }
+        // the list grows again after truncation
+        hashList.put(93, hash(93));
+        assertEquals(hash(93), hashList.get(93), "Hash put after truncation should be gettable");
+        assertEquals(94, hashList.size(), "Size should grow again after truncation");
+        // close
+        hashList.close();
+    }
+
+    @Test
+    @DisplayName("Get doesn't fail when buffers are dropped by a concurrent truncate")
+    void getConcurrentlyWithTruncate() throws Exception {
+        final HashListByteBuffer hashList = new HashListByteBuffer(10, 100, true);
+        final AtomicBoolean done = new AtomicBoolean(false);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Thread reader = new Thread(() -> {
+            final Random random = new Random(1);
+            try {
+                while (!done.get()) {
+                    final int index = random.nextInt(100);
+                    final Hash hash = hashList.get(index);
+                    // hashes in truncated buffers may be returned, null, or cleared, but never wrong
+                    if ((hash != null) && !hash.equals(hash(index)) && (index < 35)) {
+                        throw new AssertionError("Wrong hash at index " + index);
+                    }
+                }
+            } catch (final Throwable e) {
+                failure.set(e);
+            }
+        });
+        reader.start();
+        try {
+            for (int round = 0; round < 2_000; round++) {
+                for (int i = 0; i < 100; i++) {
+                    hashList.put(i, hash(i));
+                }
+                hashList.truncate(35);
+            }
+        } finally {
+            done.set(true);
+            reader.join();
+        }
+        if (failure.get() != null) {
+            fail("Concurrent get failed", failure.get());
+        }
+        hashList.close();
+    }
+
     // ------------------------------------------------------
     // Larger tests that hammer things more
     // ------------------------------------------------------
@@ -0,0 +1,266 @@
+/*
+ * Copyright (C) 2024 Hedera Hashgraph, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.swirlds.merkledb.collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.swirlds.merkledb.utilities.MerkleDbFileUtils;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LongListDiskPageCacheTest {
+
+    /** 8KiB chunks, two cache pages per chunk */
+    private static final int NUM_LONGS_PER_CHUNK = 1024;
+
+    private static final int SAMPLE_SIZE = 20_000;
+
+    private static final long MAX_LONGS = 100_000;
+
+    /** Four pages, much smaller than the list */
+    private static final long CACHE_SIZE = 4L * LongListDiskPageCache.PAGE_SIZE;
+
+    private static LongListDisk createList(final int readAheadPages) {
+        return new LongListDisk(NUM_LONGS_PER_CHUNK, MAX_LONGS, 0, CACHE_SIZE, readAheadPages);
+    }
+
+    @Test
+    void randomReadsAndWrites() {
+        final Random random = new Random(42);
+        final long[] expected = new long[SAMPLE_SIZE];
+        try (final LongListDisk list = createList(2)) {
+            for (int i = 0; i < 200_000; i++) {
+                final int index = random.nextInt(SAMPLE_SIZE);
+                if (random.nextInt(3) == 0) {
+                    final long value = random.nextLong(1, Long.MAX_VALUE);
+                    list.put(index, value);
+                    expected[index] = value;
+                } else if ((random.nextInt(10) == 0) && (expected[index] != 0)) {
+                    final long value = random.nextLong(1, Long.MAX_VALUE);
+                    assertFalse(list.putIfEqual(index, expected[index] + 1, value), "Old value should not match");
+                    assertTrue(list.putIfEqual(index, expected[index], value), "Old value should match");
+                    expected[index] = value;
+                } else {
+                    assertEquals(expected[index], list.get(index, 0), "Wrong value at index " + index);
+                }
+            }
+        }
+    }
+
+    @Test
+    void sequentialScans() {
+        try (final LongListDisk list = createList(16)) {
+            for (int i = 0; i < SAMPLE_SIZE; i++) {
+                list.put(i, i + 1);
+            }
+            for (int i = 0; i < SAMPLE_SIZE; i++) {
+                assertEquals(i + 1, list.get(i), "Wrong value at index " + i);
+            }
+            // update values, which are likely to be in the cache after the scan
+            for (int i = SAMPLE_SIZE - 1000; i < SAMPLE_SIZE; i++) {
+                list.put(i, i + 2);
+            }
+            for (int i = SAMPLE_SIZE - 2000; i < SAMPLE_SIZE; i++) {
+                assertEquals(i < SAMPLE_SIZE - 1000 ? i + 1 : i + 2, list.get(i), "Wrong value at index " + i);
+            }
+            // check that reading past the end of the file works
+            assertEquals(-1, list.get(SAMPLE_SIZE + 10, -1), "Values past the end should not be found");
+        }
+    }
+
+    @Test
+    void validRangeUpdates() {
+        try (final LongListDisk list = createList(16)) {
+            for (int i = 0; i < SAMPLE_SIZE; i++) {
+                list.put(i, i + 1);
+            }
+            // load the first chunks into the cache
+            for (int i = 0; i < 3 * NUM_LONGS_PER_CHUNK; i++) {
+                assertEquals(i + 1, list.get(i), "Wrong value at index " + i);
+            }
+            final int minValidIndex = 2 * NUM_LONGS_PER_CHUNK + 500;
+            list.updateValidRange(minValidIndex, SAMPLE_SIZE - 1);
+            for (int i = 0; i < 3 * NUM_LONGS_PER_CHUNK; i++) {
+                assertEquals(
+                        i < minValidIndex ? -1 : i + 1, list.get(i, -1), "Wrong value after cleanup at index " + i);
+            }
+            // released chunks are reused for new indices
+            for (int i = SAMPLE_SIZE; i < SAMPLE_SIZE + 2 * NUM_LONGS_PER_CHUNK; i++) {
+                assertEquals(-1, list.get(i, -1), "No value expected at index " + i);
+                list.put(i, i + 3);
+            }
+            for (int i = SAMPLE_SIZE; i < SAMPLE_SIZE + 2 * NUM_LONGS_PER_CHUNK; i++) {
+                assertEquals(i + 3, list.get(i), "Wrong value at index " + i);
+            }
+        }
+    }
+
+    @Test
+    void pinnedChunks() {
+        try (final LongListDisk list = createList(2)) {
+            for (int i = 0; i < SAMPLE_SIZE; i++) {
+                list.put(i, i + 1);
+            }
+            assertTrue(list.pinChunk(1), "Chunk should be pinned");
+            assertFalse(list.pinChunk(1), "Chunk is already pinned");
+            assertFalse(list.pinChunk(2), "At most half of the cache can be pinned");
+            assertFalse(list.pinChunk(90), "Missing chunks can't be pinned");
+            // thrash the rest of the cache
+            final Random random = new Random(7);
+            for (int i = 0; i < 10_000; i++) {
+                final int index = random.nextInt(SAMPLE_SIZE);
+                assertEquals(index + 1, list.get(index), "Wrong value at index " + index);
+            }
+            list.put(NUM_LONGS_PER_CHUNK + 1, 42);
+            assertEquals(42, list.get(NUM_LONGS_PER_CHUNK + 1), "Pinned pages should be updated");
+            list.unpinChunk(1);
+            assertTrue(list.pinChunk(2), "Chunk should be pinned after another chunk is unpinned");
+            // released chunks are unpinned
+            list.updateValidRange(3 * NUM_LONGS_PER_CHUNK, SAMPLE_SIZE - 1);
+            assertTrue(list.pinChunk(4), "Released chunk should be unpinned");
+        }
+    }
+
+    @Test
+    void concurrentPinsAndWrites() throws InterruptedException {
+        try (final LongListDisk list = createList(2)) {
+            for (int i = 0; i < SAMPLE_SIZE; i++) {
+                list.put(i, i + 1);
+            }
+            final AtomicBoolean done = new AtomicBoolean(false);
+            // pinned chunk loads don't block writers, and writes during loads must not be lost
+            final Thread writer = new Thread(() -> {
+                final Random random = new Random(3);
+                for (int i = 0; i < 50_000; i++) {
+                    final int index = NUM_LONGS_PER_CHUNK + random.nextInt(NUM_LONGS_PER_CHUNK);
+                    list.put(index, index + 1 + (long) SAMPLE_SIZE * random.nextInt(1000));
+                }
+                done.set(true);
+            });
+            writer.start();
+            final Random random = new Random(5);
+            while (!done.get()) {
+                final boolean pinned = list.pinChunk(1);
+                for (int i = 0; i < 100; i++) {
+                    final int index = NUM_LONGS_PER_CHUNK + random.nextInt(NUM_LONGS_PER_CHUNK);
+                    assertEquals(
+                            (index + 1) % SAMPLE_SIZE, list.get(index) % SAMPLE_SIZE, "Wrong value at index " + index);
+                }
+                if (pinned) {
+                    list.unpinChunk(1);
+                }
+            }
+            writer.join();
+            // all pins must be released
+            assertTrue(list.pinChunk(2), "Chunk should be pinned");
+        }
+    }
+
+    @Test
+    void concurrentReadsAndWrites() throws InterruptedException {
+        try (final LongListDisk list = createList(4)) {
+            for (int i = 0; i < SAMPLE_SIZE; i++) {
+                list.put(i, i + 1);
+            }
+            final AtomicBoolean done = new AtomicBoolean(false);
+            final Thread writer = new Thread(() -> {
+                final Random random = new Random(1);
+                for (int i = 0; i < 50_000; i++) {
+                    final int index = random.nextInt(SAMPLE_SIZE);
+                    // values are always index + 1 modulo SAMPLE_SIZE, so readers can validate them
+                    list.put(index, index + 1 + (long) SAMPLE_SIZE * random.nextInt(1000));
+                }
+                done.set(true);
+            });
+            writer.start();
+            IntStream.range(0, 4).parallel().forEach(t -> {
+                final Random random = new Random(t);
+                while (!done.get()) {
+                    final int index = random.nextInt(SAMPLE_SIZE);
+                    assertEquals(
+                            (index + 1) % SAMPLE_SIZE, list.get(index) % SAMPLE_SIZE, "Wrong value at index " + index);
+                }
+            });
+            writer.join();
+        }
+    }
+
+    @Test
+    void writesDontInvalidateLoadsOfOtherPages(@TempDir final Path tempDir) throws Exception {
+        final int numPages = 16;
+        final int longsPerPage = LongListDiskPageCache.PAGE_SIZE / Long.BYTES;
+        try (final FileChannel fileChannel = FileChannel.open(
+                tempDir.resolve("pageCache.ll"),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            final ByteBuffer data = ByteBuffer.allocate(numPages * LongListDiskPageCache.PAGE_SIZE)
+                    .order(ByteOrder.nativeOrder());
+            for (int i = 0; i < numPages * longsPerPage; i++) {
+                data.putLong(i + 1);
+            }
+            data.flip();
+            MerkleDbFileUtils.completelyWrite(fileChannel, data, 0);
+
+            final LongListDiskPageCache pageCache =
+                    new LongListDiskPageCache(fileChannel, (long) numPages * LongListDiskPageCache.PAGE_SIZE, 1);
+            final AtomicBoolean done = new AtomicBoolean(false);
+            // keep writing to the first page, while the other pages are loaded
+            final Thread writer = new Thread(() -> {
+                final ByteBuffer value = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.nativeOrder());
+                try {
+                    for (long i = 1; !done.get(); i++) {
+                        value.putLong(0, i);
+                        value.clear();
+                        MerkleDbFileUtils.completelyWrite(fileChannel, value, 0);
+                        pageCache.update(0, i);
+                    }
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.start();
+            try {
+                for (int page = 1; page < numPages; page++) {
+                    for (int i = 0; i < longsPerPage; i++) {
+                        final long index = (long) page * longsPerPage + i;
+                        assertEquals(index + 1, pageCache.get(index * Long.BYTES), "Wrong value at index " + index);
+                    }
+                }
+            } finally {
+                done.set(true);
+                writer.join();
+            }
+            assertTrue(
+                    pageCache.getCachedPageCount() >= numPages - 1,
+                    "Pages should be cached, even if other pages are written concurrently");
+            pageCache.close();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2024 Hedera Hashgraph, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.swirlds.merkledb.files;
+
+import static com.swirlds.merkledb.files.DataFileCommon.NON_EXISTENT_DATA_LOCATION;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.swirlds.config.extensions.test.fixtures.TestConfigBuilder;
+import com.swirlds.merkledb.KeyRange;
+import com.swirlds.merkledb.collections.CASableLongIndex;
+import com.swirlds.merkledb.config.MerkleDbConfig;
+import java.util.List;
+import java.util.function.LongToIntFunction;
+import org.junit.jupiter.api.Test;
+
+class CompactionPolicyTest {
+
+    private static final long MB = 1024 * 1024;
+
+    private static DataFileReader reader(final int index, final int level, final long size, final long itemCount) {
+        final DataFileReader reader = mock(DataFileReader.class);
+        final DataFileMetadata metadata = mock(DataFileMetadata.class);
+        when(reader.getIndex()).thenReturn(index);
+        when(reader.getSize()).thenReturn(size);
+        when(reader.getMetadata()).thenReturn(metadata);
+        when(metadata.getCompactionLevel()).thenReturn(level);
+        when(metadata.getDataItemCount()).thenReturn(itemCount);
+        return reader;
+    }
+
+    /** Creates an index, which maps every key to a file using the given function */
+    private static CASableLongIndex index(final LongToIntFunction keyToFileIndex) {
+        final CASableLongIndex index = mock(CASableLongIndex.class);
+        when(index.get(anyLong())).thenAnswer(invocation -> {
+            final long key = invocation.getArgument(0);
+            final int fileIndex = keyToFileIndex.applyAsInt(key);
+            return (fileIndex < 0) ? NON_EXISTENT_DATA_LOCATION : DataFileCommon.dataLocation(fileIndex, 0);
+        });
+        return index;
+    }
+
+    @Test
+    void createFromConfig() {
+        final MerkleDbConfig dbConfig = new TestConfigBuilder()
+                .withValue("merkleDb.compactionPolicy", "GARBAGE_RATIO")
+                .getOrCreateConfig()
+                .getConfigData(MerkleDbConfig.class);
+        assertEquals(CompactionPolicyType.GARBAGE_RATIO, dbConfig.compactionPolicy());
+        assertTrue(CompactionPolicy.create(CompactionPolicyType.LEVELED, dbConfig) instanceof LeveledCompactionPolicy);
+        assertTrue(CompactionPolicy.create(CompactionPolicyType.SIZE_TIERED, dbConfig)
+                instanceof SizeTieredCompactionPolicy);
+        assertTrue(CompactionPolicy.create(CompactionPolicyType.GARBAGE_RATIO, dbConfig)
+                instanceof GarbageRatioCompactionPolicy);
+        for (final CompactionPolicyType type : CompactionPolicyType.values()) {
+            assertEquals(type, CompactionPolicyType.valueOf(type.id()));
+        }
+        assertThrows(IllegalArgumentException.class, () -> CompactionPolicyType.valueOf(0));
+    }
+
+    @Test
+    void targetCompactionLevel() {
+        final CompactionPolicy policy = new LeveledCompactionPolicy(2, 3);
+        assertEquals(1, policy.getTargetCompactionLevel(List.of(reader(1, 0, MB, 1), reader(2, 0, MB, 1)), 3));
+        assertEquals(3, policy.getTargetCompactionLevel(List.of(reader(1, 0, MB, 1), reader(2, 2, MB, 1)), 3));
+        assertEquals(3, policy.getTargetCompactionLevel(List.of(reader(1, 3, MB, 1), reader(2, 3, MB, 1)), 3));
+    }
+
+    @Test
+    void sizeTieredSmallFiles() {
+        final CompactionPolicy policy = new SizeTieredCompactionPolicy(3);
+        final CASableLongIndex index = index(key -> -1);
+        final KeyRange keyRange = KeyRange.INVALID_KEY_RANGE;
+        final DataFileReader small1 = reader(1, 0, MB, 1);
+        final DataFileReader small2 = reader(2, 1, 3 * MB, 1);
+        final DataFileReader large = reader(3, 2, 1024 * MB, 1);
+        assertTrue(policy.selectFilesToCompact(List.of(small1, small2, large), index, keyRange).isEmpty());
+
+        // All files below the small file threshold are in the same tier, regardless of their sizes
+        final DataFileReader small3 = reader(4, 0, 10 * MB, 1);
+        final List<DataFileReader> result =
+                policy.selectFilesToCompact(List.of(small1, small2, large, small3), index, keyRange);
+        assertEquals(List.of(small1, small2, small3), result);
+    }
+
+    @Test
+    void sizeTieredLargeFiles() {
+        final CompactionPolicy policy = new SizeTieredCompactionPolicy(2);
+        final CASableLongIndex index = index(key -> -1);
+        final KeyRange keyRange = KeyRange.INVALID_KEY_RANGE;
+        final DataFileReader file1 = reader(1, 1, 100 * MB, 1);
+        final DataFileReader file2 = reader(2, 1, 400 * MB, 1);
+        final DataFileReader file3 = reader(3, 2, 1000 * MB, 1);
+        // Sizes differ too much, no tier has enough files
+        assertTrue(policy.selectFilesToCompact(List.of(file1, file2, file3), index, keyRange).isEmpty());
+
+        // The smallest tier with enough files is selected
+        final DataFileReader file4 = reader(4, 1, 1200 * MB, 1);
+        final DataFileReader file5 = reader(5, 1, 450 * MB, 1);
+        assertEquals(
+                List.of(file2, file5),
+                policy.selectFilesToCompact(List.of(file1, file2, file3, file4, file5), index, keyRange));
+    }
+
+    /** Creates a reader with the given number of live items, with file size proportional to item count */
+    private static DataFileReader reader(final int index, final long itemCount, final long liveItemCount) {
+        final DataFileReader reader = reader(index, 0, itemCount * 1024, itemCount);
+        when(reader.getLiveItemCount()).thenReturn(liveItemCount);
+        when(reader.getReclaimableSize()).thenReturn((itemCount - liveItemCount) * 1024);
+        return reader;
+    }
+
+    @Test
+    void garbageRatio() {
+        final CompactionPolicy policy = new GarbageRatioCompactionPolicy(0.5, 32, 8, 5);
+        final CASableLongIndex index = index(key -> -1);
+        final KeyRange keyRange = new KeyRange(0, 9999);
+        // File 1 is 10% dead, file 2 is 10% dead, file 3 is 90% dead, file 4 is 100% dead
+        final DataFileReader file1 = reader(1, 10_000, 9_000);
+        final DataFileReader file2 = reader(2, 1_000, 900);
+        final DataFileReader file3 = reader(3, 1_000, 100);
+        final DataFileReader file4 = reader(4, 100, 0);
+        // Files with the most reclaimable bytes come first
+        assertEquals(
+                List.of(file3, file4),
+                policy.selectFilesToCompact(List.of(file1, file2, file3, file4), index, keyRange));
+        // A single file with enough garbage is compacted, too
+        assertEquals(List.of(file3), policy.selectFilesToCompact(List.of(file1, file2, file3), index, keyRange));
+    }
+
+    @Test
+    void garbageRatioMaxFiles() {
+        final CompactionPolicy policy = new GarbageRatioCompactionPolicy(0.5, 2, 8, 5);
+        final CASableLongIndex index = index(key -> -1);
+        final KeyRange keyRange = new KeyRange(0, 9999);
+        final DataFileReader file1 = reader(1, 1_000, 400);
+        final DataFileReader file2 = reader(2, 1_000, 0);
+        final DataFileReader file3 = reader(3, 100, 0);
+        final DataFileReader file4 = reader(4, 1_000, 200);
+        assertEquals(
+                List.of(file2, file4),
+                policy.selectFilesToCompact(List.of(file1, file2, file3, file4), index, keyRange));
+    }
+
+    @Test
+    void garbageRatioFallback() {
+        final CompactionPolicy policy = new GarbageRatioCompactionPolicy(0.5, 32, 2, 5);
+        final CASableLongIndex index = index(key -> (key < 5000) ? 1 : 2);
+        final KeyRange keyRange = new KeyRange(0, 9999);
+        final DataFileReader file1 = reader(1, 5000, 5000);
+        final DataFileReader file2 = reader(2, 5000, 4000);
+        // Not enough garbage, but there are enough files to compact at level 0
+        assertEquals(List.of(file1, file2), policy.selectFilesToCompact(List.of(file1, file2), index, keyRange));
+        assertTrue(policy.selectFilesToCompact(List.of(file1), index, keyRange).isEmpty());
+    }
+
+    @Test
+    void garbageRatioEmptyFile() {
+        final CompactionPolicy policy = new GarbageRatioCompactionPolicy(0.9, 32, 8, 5);
+        final DataFileReader file1 = reader(1, 0, 0);
+        assertEquals(
+                List.of(file1),
+                policy.selectFilesToCompact(List.of(file1), index(key -> -1), KeyRange.INVALID_KEY_RANGE));
+    }
+
+    @Test
+    void garbageRatioInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new GarbageRatioCompactionPolicy(0, 1000, 8, 5));
+        assertThrows(IllegalArgumentException.class, () -> new GarbageRatioCompactionPolicy(1.5, 1000, 8, 5));
+        assertThrows(IllegalArgumentException.class, () -> new GarbageRatioCompactionPolicy(0.5, 0, 8, 5));
+    }
+}
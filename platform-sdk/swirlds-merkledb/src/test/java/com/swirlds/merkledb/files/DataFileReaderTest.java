@@ -16,13 +16,26 @@
 
 package com.swirlds.merkledb.files;
 
+import static com.swirlds.merkledb.files.DataFileCompactor.INITIAL_COMPACTION_LEVEL;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static org.mockito.MockitoAnnotations.openMocks;
 
+import com.hedera.pbj.runtime.io.buffer.BufferedData;
 import com.swirlds.common.config.singleton.ConfigurationHolder;
+import com.swirlds.common.io.utility.LegacyTemporaryFileBuilder;
+import com.swirlds.config.extensions.test.fixtures.TestConfigBuilder;
 import com.swirlds.merkledb.config.MerkleDbConfig;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -30,6 +43,8 @@ import org.mockito.Mock;
 
 class DataFileReaderTest {
 
+    private static final Path PROC_SELF_MAPS = Path.of("/proc/self/maps");
+
     private final MerkleDbConfig dbConfig = ConfigurationHolder.getConfigData(MerkleDbConfig.class);
 
     @Mock
@@ -130,6 +145,226 @@ class DataFileReaderTest {
         assertEquals(2, dataFileReader.leaseFileChannel());
     }
 
+    @Test
+    void testReadFromMappedFile() throws IOException {
+        final MerkleDbConfig mmapConfig = new TestConfigBuilder()
+                .withValue("merkleDb.mmapCompletedFiles", true)
+                .getOrCreateConfig()
+                .getConfigData(MerkleDbConfig.class);
+        final Path tmpDir = LegacyTemporaryFileBuilder.buildTemporaryDirectory("testReadFromMappedFile");
+        final DataFileWriter writer = new DataFileWriter("test", tmpDir, 0, Instant.now(), INITIAL_COMPACTION_LEVEL);
+        final int count = 1000;
+        final long[] dataLocations = new long[count];
+        for (int i = 0; i < count; i++) {
+            final int fi = i;
+            // Some items are larger than a single read buffer
+            final int longs = (i % 100 == 0) ? 1000 : 2;
+            dataLocations[i] = writer.storeDataItem(
+                    o -> {
+                        for (int j = 0; j < longs; j++) {
+                            o.writeLong(fi + j);
+                        }
+                    },
+                    longs * Long.BYTES);
+        }
+        writer.finishWriting();
+
+        final DataFileReader reader = new DataFileReader(mmapConfig, writer.getPath(), writer.getMetadata());
+        assertFalse(reader.isMapped(), "Files must not be mapped until completed");
+        reader.setFileCompleted();
+        assertTrue(reader.isMapped(), "Completed file must be mapped");
+        assertEquals(Files.size(writer.getPath()), reader.getMappedSize());
+        for (int i = 0; i < count; i++) {
+            final BufferedData itemBytes = reader.readDataItem(dataLocations[i]);
+            final int longs = (i % 100 == 0) ? 1000 : 2;
+            assertEquals(longs * Long.BYTES, itemBytes.remaining());
+            for (int j = 0; j < longs; j++) {
+                assertEquals(i + j, itemBytes.readLong());
+            }
+        }
+
+        reader.close();
+        assertFalse(reader.isMapped(), "Closed file must not be mapped");
+        assertEquals(0, reader.getMappedSize());
+        assertNull(reader.readDataItem(dataLocations[0]), "Closed reader must not return data");
+        Files.delete(writer.getPath());
+    }
+
+    @Test
+    void testClosedReaderUnmapsFile() throws IOException {
+        assumeTrue(Files.exists(PROC_SELF_MAPS), "Memory mappings can only be checked on Linux");
+        final MerkleDbConfig mmapConfig = new TestConfigBuilder()
+                .withValue("merkleDb.mmapCompletedFiles", true)
+                .getOrCreateConfig()
+                .getConfigData(MerkleDbConfig.class);
+        final Path tmpDir = LegacyTemporaryFileBuilder.buildTemporaryDirectory("testClosedReaderUnmapsFile");
+        final DataFileWriter writer = new DataFileWriter("test", tmpDir, 0, Instant.now(), INITIAL_COMPACTION_LEVEL);
+        final int count = 100;
+        final long[] dataLocations = new long[count];
+        for (int i = 0; i < count; i++) {
+            final int fi = i;
+            dataLocations[i] = writer.storeDataItem(
+                    o -> {
+                        o.writeLong(fi);
+                        o.writeLong(fi + 1);
+                    },
+                    2 * Long.BYTES);
+        }
+        writer.finishWriting();
+        final Path filePath = writer.getPath().toRealPath();
+
+        final DataFileReader reader = new DataFileReader(mmapConfig, writer.getPath(), writer.getMetadata());
+        reader.setFileCompleted();
+        assertTrue(reader.isMapped(), "Completed file must be mapped");
+        assertTrue(isMapped(filePath), "Completed file must be mapped");
+        final BufferedData[] asyncItems = new BufferedData[count];
+        for (int i = 0; i < count; i++) {
+            asyncItems[i] = reader.readDataItemAsync(dataLocations[i]).join();
+        }
+
+        // Mapped memory must not be released while it's being read
+        assertNotNull(reader.acquireMappedChunks(), "Mapped chunks must be available to read");
+        reader.close();
+        assertNull(reader.acquireMappedChunks(), "Mapped chunks must not be available in closed readers");
+        assertTrue(isMapped(filePath), "File must not be unmapped while its chunks are being read");
+        reader.releaseMappedChunks();
+        assertFalse(reader.isMapped(), "Closed file must not be mapped");
+        assertFalse(isMapped(filePath), "Closed file must be unmapped, once its chunks are released");
+
+        // Data items read before the reader was closed must still be available
+        for (int i = 0; i < count; i++) {
+            assertEquals(2 * Long.BYTES, asyncItems[i].remaining());
+            assertEquals(i, asyncItems[i].readLong());
+            assertEquals(i + 1, asyncItems[i].readLong());
+        }
+        Files.delete(writer.getPath());
+    }
+
+    /** Checks if the given file is mapped to memory of the current process */
+    private static boolean isMapped(final Path filePath) throws IOException {
+        try (final Stream<String> mappings = Files.lines(PROC_SELF_MAPS)) {
+            return mappings.anyMatch(mapping -> mapping.endsWith(filePath.toString()));
+        }
+    }
+
+    @Test
+    void testReadDataItemAsync() throws IOException {
+        final Path tmpDir = LegacyTemporaryFileBuilder.buildTemporaryDirectory("testReadDataItemAsync");
+        final DataFileWriter writer = new DataFileWriter("test", tmpDir, 0, Instant.now(), INITIAL_COMPACTION_LEVEL);
+        final int count = 1000;
+        final long[] dataLocations = new long[count];
+        for (int i = 0; i < count; i++) {
+            final int fi = i;
+            // Some items are larger than a single async header read
+            final int longs = (i % 100 == 0) ? 1000 : 2;
+            dataLocations[i] = writer.storeDataItem(
+                    o -> {
+                        for (int j = 0; j < longs; j++) {
+                            o.writeLong(fi + j);
+                        }
+                    },
+                    longs * Long.BYTES);
+        }
+        writer.finishWriting();
+
+        final DataFileReader reader = new DataFileReader(dbConfig, writer.getPath(), writer.getMetadata());
+        reader.setFileCompleted();
+        final List<CompletableFuture<BufferedData>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            futures.add(reader.readDataItemAsync(dataLocations[i]));
+        }
+        for (int i = 0; i < count; i++) {
+            final BufferedData asyncItem = futures.get(i).join();
+            final BufferedData syncItem = reader.readDataItem(dataLocations[i]);
+            assertArrayEquals(toBytes(syncItem), toBytes(asyncItem), "Async read must return the same bytes");
+        }
+        // Async reads don't reuse buffers, so all items must still be valid after other reads
+        for (int i = 0; i < count; i++) {
+            assertDataItem(i, futures.get(i).join());
+        }
+
+        // A read past the end of the file fails to parse the data item header
+        final long missingLocation = DataFileCommon.dataLocation(0, reader.getSize() + 100);
+        final CompletableFuture<BufferedData> failedRead = reader.readDataItemAsync(missingLocation);
+        assertThrows(CompletionException.class, failedRead::join, "Failed async read must complete exceptionally");
+
+        reader.close();
+        assertNull(reader.readDataItemAsync(dataLocations[0]).join(), "Closed reader must not return data");
+        Files.delete(writer.getPath());
+    }
+
+    @Test
+    void testReadFromCompressedFile() throws IOException {
+        final Path tmpDir = LegacyTemporaryFileBuilder.buildTemporaryDirectory("testReadFromCompressedFile");
+        final DataFileWriter writer = new DataFileWriter(
+                "test", tmpDir, 0, Instant.now(), INITIAL_COMPACTION_LEVEL, DataFileCompression.DEFLATE, 4096);
+        final DataFileReader reader = new DataFileReader(dbConfig, writer);
+        assertTrue(reader.isCompressed(), "File must be compressed");
+        final int count = 1000;
+        final long[] dataLocations = new long[count];
+        for (int i = 0; i < count; i++) {
+            final int fi = i;
+            // Some items are larger than a single block
+            final int longs = (i % 100 == 0) ? 1000 : 2;
+            dataLocations[i] = writer.storeDataItem(
+                    o -> {
+                        for (int j = 0; j < longs; j++) {
+                            o.writeLong(fi + j);
+                        }
+                    },
+                    longs * Long.BYTES);
+            // Items must be readable while the file is being written, both from the current block and
+            // from blocks already written to the file
+            assertDataItem(fi, reader.readDataItem(dataLocations[i]));
+            assertDataItem(fi / 2, reader.readDataItem(dataLocations[fi / 2]));
+        }
+        writer.finishWriting();
+        assertTrue(writer.getCompressedBlocksSize() < writer.getUncompressedBlocksSize(), "Data must be compressed");
+        assertDataItem(count - 1, reader.readDataItem(dataLocations[count - 1]));
+
+        reader.setFileCompleted();
+        for (int i = 0; i < count; i++) {
+            assertDataItem(i, reader.readDataItem(dataLocations[i]));
+            assertDataItem(i, reader.readDataItemAsync(dataLocations[i]).join());
+        }
+        reader.close();
+
+        // Compression settings must be loaded from the file
+        final DataFileReader fileReader = new DataFileReader(dbConfig, writer.getPath());
+        assertEquals(DataFileCompression.DEFLATE, fileReader.getMetadata().getCompression());
+        assertEquals(count, fileReader.getMetadata().getDataItemCount());
+        // Existing files must be readable before they are marked as completed, e.g. while they are loaded
+        for (int i = 0; i < count; i += 10) {
+            assertDataItem(i, fileReader.readDataItem(dataLocations[i]));
+        }
+        fileReader.setFileCompleted();
+        try (final DataFileIterator iterator = fileReader.createIterator()) {
+            int i = 0;
+            while (iterator.next()) {
+                assertEquals(dataLocations[i], iterator.getDataItemDataLocation());
+                assertDataItem(i, iterator.getDataItemData());
+                i++;
+            }
+            assertEquals(count, i);
+        }
+        fileReader.close();
+        Files.delete(writer.getPath());
+    }
+
+    private static byte[] toBytes(final BufferedData itemBytes) {
+        final byte[] bytes = new byte[Math.toIntExact(itemBytes.remaining())];
+        itemBytes.getBytes(itemBytes.position(), bytes);
+        return bytes;
+    }
+
+    private static void assertDataItem(final int i, final BufferedData itemBytes) {
+        final int longs = (i % 100 == 0) ? 1000 : 2;
+        assertEquals(longs * Long.BYTES, itemBytes.remaining());
+        for (int j = 0; j < longs; j++) {
+            assertEquals(i + j, itemBytes.readLong());
+        }
+    }
+
     @AfterEach
     public void tearDown() {
         file.deleteOnExit();
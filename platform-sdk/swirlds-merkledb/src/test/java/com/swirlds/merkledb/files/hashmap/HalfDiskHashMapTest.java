@@ -18,16 +18,22 @@ package com.swirlds.merkledb.files.hashmap;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.hedera.pbj.runtime.io.buffer.Bytes;
 import com.swirlds.common.config.singleton.ConfigurationHolder;
 import com.swirlds.common.io.streams.SerializableDataInputStream;
+import com.swirlds.config.extensions.test.fixtures.TestConfigBuilder;
 import com.swirlds.merkledb.config.MerkleDbConfig;
 import com.swirlds.merkledb.files.DataFileCompactor;
 import com.swirlds.merkledb.test.fixtures.ExampleLongKeyFixedSize;
 import com.swirlds.merkledb.test.fixtures.files.FilesTestType;
 import com.swirlds.virtualmap.VirtualKey;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -183,6 +189,70 @@ class HalfDiskHashMapTest {
         checkData(testType, map, 600, 400, 1);
     }
 
+    @ParameterizedTest
+    @EnumSource(FilesTestType.class)
+    void keyFilter(FilesTestType testType) throws Exception {
+        final MerkleDbConfig filterConfig = new TestConfigBuilder()
+                .withValue("merkleDb.keyFilterBitsPerKey", 10)
+                .getOrCreateConfig()
+                .getConfigData(MerkleDbConfig.class);
+        final int count = 10_000;
+        final Path storeDir = tempDirPath.resolve("KeyFilter_" + testType.name());
+        final HalfDiskHashMap map = new HalfDiskHashMap(filterConfig, count, storeDir, "keyFilter", null, false);
+        assertTrue(map.isKeyFilterEnabled(), "Key filter should be enabled");
+        createSomeData(testType, map, 0, count, 1);
+        // delete some keys, they must not be found after the filter is updated
+        map.startWriting();
+        for (int i = 0; i < count; i += 10) {
+            final VirtualKey key = testType.createVirtualLongKey(i);
+            map.delete(testType.keySerializer.toBytes(key), key.hashCode());
+        }
+        map.endWriting();
+        checkKeyFilterData(testType, map, count);
+        // lookups of missing keys should mostly be answered by the filter
+        final long negatives = map.getKeyFilterNegativeCount();
+        final long falsePositives = map.getKeyFilterFalsePositiveCount();
+        assertTrue(negatives > 0, "Some missing keys should be filtered");
+        assertTrue(falsePositives < (negatives + falsePositives) / 10, "Too many false positives");
+        // batched lookups use the filter, too
+        final List<Bytes> keys = new ArrayList<>();
+        final int[] keyHashCodes = new int[count];
+        for (int i = 0; i < count; i++) {
+            final VirtualKey key = testType.createVirtualLongKey(count + i);
+            keys.add(testType.keySerializer.toBytes(key));
+            keyHashCodes[i] = key.hashCode();
+        }
+        final long[] values = map.getAll(keys, keyHashCodes, -1);
+        for (final long value : values) {
+            assertEquals(-1, value, "Missing keys should not be found");
+        }
+        assertTrue(map.getKeyFilterNegativeCount() > negatives, "Batched lookups should be filtered");
+        // the filter is saved in a snapshot, and rebuilt if not found
+        final Path snapshotDir = tempDirPath.resolve("KeyFilterSnapshot_" + testType.name());
+        map.snapshot(snapshotDir);
+        map.close();
+        try (final HalfDiskHashMap loaded =
+                new HalfDiskHashMap(filterConfig, count, snapshotDir, "keyFilter", null, false)) {
+            checkKeyFilterData(testType, loaded, count);
+        }
+        Files.delete(snapshotDir.resolve("keyFilter_key_filter.bf"));
+        try (final HalfDiskHashMap rebuilt =
+                new HalfDiskHashMap(filterConfig, count, snapshotDir, "keyFilter", null, false)) {
+            checkKeyFilterData(testType, rebuilt, count);
+            assertTrue(rebuilt.getKeyFilterNegativeCount() > 0, "Rebuilt filter should filter missing keys");
+        }
+    }
+
+    private static void checkKeyFilterData(FilesTestType testType, HalfDiskHashMap map, int count)
+            throws IOException {
+        for (int i = 0; i < count * 2; i++) {
+            final VirtualKey key = testType.createVirtualLongKey(i);
+            final long expected = (i < count) && (i % 10 != 0) ? i : -1;
+            assertEquals(
+                    expected, map.get(testType.keySerializer.toBytes(key), key.hashCode(), -1), "Wrong value " + i);
+        }
+    }
+
     @Test
     void testOverwritesWithCollision() throws IOException {
         final FilesTestType testType = FilesTestType.fixed;
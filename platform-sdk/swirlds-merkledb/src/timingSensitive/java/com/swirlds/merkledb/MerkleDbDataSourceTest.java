@@ -22,6 +22,7 @@ import static com.swirlds.merkledb.test.fixtures.MerkleDbTestUtils.checkDirectMe
 import static com.swirlds.merkledb.test.fixtures.MerkleDbTestUtils.getDirectMemoryUsedBytes;
 import static com.swirlds.merkledb.test.fixtures.MerkleDbTestUtils.hash;
 import static com.swirlds.merkledb.test.fixtures.MerkleDbTestUtils.shuffle;
+import static com.swirlds.merkledb.utilities.HashTools.HASH_SIZE_BYTES;
 import static com.swirlds.virtualmap.datasource.VirtualDataSource.INVALID_PATH;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -32,11 +33,17 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import com.hedera.pbj.runtime.io.buffer.Bytes;
 import com.swirlds.base.function.CheckedConsumer;
 import com.swirlds.base.units.UnitConstants;
 import com.swirlds.common.constructable.ConstructableRegistry;
+import com.swirlds.common.crypto.DigestType;
 import com.swirlds.common.crypto.Hash;
 import com.swirlds.common.io.utility.LegacyTemporaryFileBuilder;
+import com.swirlds.config.api.ConfigurationBuilder;
+import com.swirlds.config.extensions.sources.SimpleConfigSource;
+import com.swirlds.merkledb.collections.HashListByteBuffer;
+import com.swirlds.merkledb.config.MerkleDbConfig;
 import com.swirlds.merkledb.test.fixtures.ExampleByteArrayVirtualValue;
 import com.swirlds.merkledb.test.fixtures.TestType;
 import com.swirlds.metrics.api.IntegerGauge;
@@ -57,8 +64,11 @@ import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
 import org.junit.jupiter.api.AfterEach;
@@ -74,6 +84,7 @@ class MerkleDbDataSourceTest {
 
     private static final int COUNT = 10_000;
     private static final Random RANDOM = new Random(1234);
+    private static final int TIERED_DIRTY_HASHES = 10;
 
     private static Path testDirectory;
 
@@ -244,6 +255,72 @@ class MerkleDbDataSourceTest {
         });
     }
 
+    @ParameterizedTest
+    @EnumSource(TestType.class)
+    void loadLeavesAndHashesInBatches(final TestType testType) throws IOException {
+        final int count = 10_000;
+        final KeySerializer keySerializer = testType.dataType().getKeySerializer();
+        final ValueSerializer valueSerializer = testType.dataType().getValueSerializer();
+        // Some hashes in RAM, some on disk
+        createAndApplyDataSource(testDirectory, "testBatches", testType, count * 2, count, dataSource -> {
+            dataSource.saveRecords(
+                    count,
+                    count * 2,
+                    IntStream.rangeClosed(0, count * 2).mapToObj(MerkleDbDataSourceTest::createVirtualInternalRecord),
+                    IntStream.rangeClosed(count, count * 2)
+                            .mapToObj(i -> testType.dataType().createVirtualLeafRecord(i))
+                            .map(r -> r.toBytes(keySerializer, valueSerializer)),
+                    Stream.empty());
+            // Existing keys, a few repeated keys, and some keys that don't exist
+            final List<Bytes> keys = new ArrayList<>();
+            final IntArrayList keyHashCodes = new IntArrayList();
+            final IntArrayList expected = new IntArrayList();
+            for (int i = count - 100; i < count * 2 + 100; i += 3) {
+                final VirtualKey key = testType.dataType().createVirtualLongKey(i);
+                keys.add(keySerializer.toBytes(key));
+                keyHashCodes.add(key.hashCode());
+                expected.add(i);
+            }
+            for (int j = 0; j < 10; j++) {
+                keys.add(keys.get(j));
+                keyHashCodes.add(keyHashCodes.get(j));
+                expected.add(expected.get(j));
+            }
+            // Run it twice: with an empty and with a populated leaf record cache
+            for (int run = 0; run < 2; run++) {
+                final List<VirtualLeafBytes> leaves = dataSource.loadLeafRecords(keys, keyHashCodes.toArray());
+                assertEquals(keys.size(), leaves.size(), "Wrong number of loaded leaves");
+                for (int j = 0; j < keys.size(); j++) {
+                    final int i = expected.get(j);
+                    if ((i < count) || (i > count * 2)) {
+                        assertNull(leaves.get(j), "No leaf expected for key " + i);
+                    } else {
+                        assertEqualsAndPrint(
+                                testType.dataType()
+                                        .createVirtualLeafRecord(i)
+                                        .toBytes(keySerializer, valueSerializer),
+                                leaves.get(j));
+                    }
+                }
+            }
+            // Paths in RAM, on disk, and beyond the last leaf path
+            final long[] paths = LongStream.range(count - 100, count * 2 + 100).toArray();
+            final Hash[] hashes = dataSource.loadHashes(paths);
+            assertEquals(paths.length, hashes.length, "Wrong number of loaded hashes");
+            for (int j = 0; j < paths.length; j++) {
+                if (paths[j] > count * 2) {
+                    assertNull(hashes[j], "No hash expected for path " + paths[j]);
+                } else {
+                    assertEquals(hash((int) paths[j]), hashes[j], "Wrong hash for path " + paths[j]);
+                }
+            }
+            assertThrows(
+                    IllegalArgumentException.class,
+                    () -> dataSource.loadHashes(new long[] {0, -1}),
+                    "Loading a negative path should fail");
+        });
+    }
+
     @ParameterizedTest
     @EnumSource(TestType.class)
     void updateLeaves(final TestType testType) throws IOException, InterruptedException {
@@ -395,6 +472,61 @@ class MerkleDbDataSourceTest {
         });
     }
 
+    @ParameterizedTest
+    @EnumSource(TestType.class)
+    void parallelFlush(final TestType testType) throws IOException {
+        final int count = 1000;
+        final KeySerializer keySerializer = testType.dataType().getKeySerializer();
+        final ValueSerializer valueSerializer = testType.dataType().getValueSerializer();
+        final MerkleDbConfig config = ConfigurationBuilder.create()
+                .withSources(new SimpleConfigSource("merkleDb.parallelFlush", true))
+                .withConfigDataType(MerkleDbConfig.class)
+                .build()
+                .getConfigData(MerkleDbConfig.class);
+        final MerkleDb database = MerkleDb.getInstance(testDirectory.resolve("parallelFlush" + testType), config);
+        final MerkleDbTableConfig tableConfig = new MerkleDbTableConfig((short) 1, DigestType.SHA_384)
+                .maxNumberOfKeys(count * 10L)
+                .hashesRamToDiskThreshold(0);
+        final MerkleDbDataSource dataSource = database.createDataSource("test", tableConfig, false);
+        try {
+            // create some leaves
+            dataSource.saveRecords(
+                    count,
+                    count * 2,
+                    IntStream.range(0, count * 2).mapToObj(MerkleDbDataSourceTest::createVirtualInternalRecord),
+                    IntStream.range(count, count * 2)
+                            .mapToObj(i -> testType.dataType().createVirtualLeafRecord(i))
+                            .map(r -> r.toBytes(keySerializer, valueSerializer)),
+                    Stream.empty());
+            IntStream.range(count, count * 2)
+                    .forEach(i -> assertLeaf(testType, keySerializer, valueSerializer, dataSource, i, i));
+
+            // update some leaves and delete the last ones in the same flush
+            dataSource.saveRecords(
+                    count,
+                    count * 2 - 11,
+                    Stream.empty(),
+                    IntStream.range(count, count + count / 2)
+                            .mapToObj(i -> testType.dataType().createVirtualLeafRecord(i, i, i + 10_000))
+                            .map(r -> r.toBytes(keySerializer, valueSerializer)),
+                    IntStream.range(count * 2 - 10, count * 2)
+                            .mapToObj(i -> testType.dataType().createVirtualLeafRecord(i))
+                            .map(r -> r.toBytes(keySerializer, valueSerializer)));
+            IntStream.range(count, count + count / 2)
+                    .forEach(i ->
+                            assertLeaf(testType, keySerializer, valueSerializer, dataSource, i, i, i, i + 10_000));
+            IntStream.range(count + count / 2, count * 2 - 10)
+                    .forEach(i -> assertLeaf(testType, keySerializer, valueSerializer, dataSource, i, i));
+            for (int i = count * 2 - 10; i < count * 2; i++) {
+                final VirtualKey key = testType.dataType().createVirtualLongKey(i);
+                assertNull(dataSource.loadLeafRecord(keySerializer.toBytes(key), key.hashCode()));
+            }
+            IntStream.range(0, count * 2 - 10).forEach(i -> assertHash(dataSource, i, i));
+        } finally {
+            dataSource.close();
+        }
+    }
+
     @Test
     void preservesInterruptStatusWhenInterruptedSavingRecords() throws IOException {
         createAndApplyDataSource(testDirectory, "test6", TestType.fixed_fixed, 1000, dataSource -> {
@@ -536,6 +668,157 @@ class MerkleDbDataSourceTest {
         });
     }
 
+    @Test
+    void adaptiveHashesThresholdGrowsAndShrinks() throws IOException {
+        final int count = 1000;
+        final String tableName = "adaptiveHashes";
+        final Path dbPath = testDirectory.resolve("adaptiveHashesThresholdGrowsAndShrinks");
+        final Path snapshotDbPath = testDirectory.resolve("adaptiveHashesThresholdGrowsAndShrinks_SNAPSHOT");
+        final MerkleDb database = MerkleDb.getInstance(dbPath, hashesTieringConfig(1500, 400));
+        final MerkleDbDataSource dataSource = database.createDataSource(tableName, hashesTableConfig(count), false);
+        try {
+            // the threshold moves towards the RAM budget by at most 400 paths per flush
+            final long[] growingThresholds = {500, 900, 1300, 1500, 1500};
+            for (int flush = 0; flush < growingThresholds.length; flush++) {
+                saveTieredHashes(dataSource, count, flush);
+                assertEquals(
+                        growingThresholds[flush],
+                        dataSource.getCurrentHashesRamToDiskThreshold(),
+                        "Unexpected threshold after flush " + flush);
+                assertTieredHashes(dataSource, count, flush);
+            }
+            database.snapshot(snapshotDbPath, dataSource);
+        } finally {
+            dataSource.close();
+        }
+
+        // reopen with a smaller RAM budget, hashes are moved back to disk
+        final MerkleDbDataSource reopened =
+                MerkleDb.getInstance(snapshotDbPath, hashesTieringConfig(500, 400)).getDataSource(tableName, false);
+        try {
+            assertEquals(1500, reopened.getCurrentHashesRamToDiskThreshold(), "Threshold should be restored");
+            assertTieredHashes(reopened, count, 4);
+            final long[] shrinkingThresholds = {1100, 700, 500, 500};
+            for (int i = 0; i < shrinkingThresholds.length; i++) {
+                final int flush = 5 + i;
+                saveTieredHashes(reopened, count, flush);
+                assertEquals(
+                        shrinkingThresholds[i],
+                        reopened.getCurrentHashesRamToDiskThreshold(),
+                        "Unexpected threshold after flush " + flush);
+                assertTieredHashes(reopened, count, flush);
+                // hashes above a lowered threshold are released from RAM in the next flush
+                final long releasedAbove = i == 0 ? 1500 : shrinkingThresholds[i - 1];
+                assertEquals(
+                        releasedAbove,
+                        ((HashListByteBuffer) reopened.getHashStoreRam()).size(),
+                        "Hashes above the previous threshold should be released from RAM");
+            }
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void adaptiveHashesThresholdRestoredFromSnapshot() throws IOException {
+        final int count = 1000;
+        final String tableName = "adaptiveHashes";
+        final Path dbPath = testDirectory.resolve("adaptiveHashesThresholdRestoredFromSnapshot");
+        final Path snapshotDbPath = testDirectory.resolve("adaptiveHashesThresholdRestoredFromSnapshot_SNAPSHOT");
+        final MerkleDbConfig config = hashesTieringConfig(1500, 400);
+        final MerkleDbDataSource dataSource =
+                MerkleDb.getInstance(dbPath, config).createDataSource(tableName, hashesTableConfig(count), false);
+        try {
+            saveTieredHashes(dataSource, count, 0);
+            saveTieredHashes(dataSource, count, 1);
+            assertEquals(900, dataSource.getCurrentHashesRamToDiskThreshold(), "Threshold should be in between");
+            dataSource.getDatabase().snapshot(snapshotDbPath, dataSource);
+        } finally {
+            dataSource.close();
+        }
+
+        final MerkleDbDataSource restored =
+                MerkleDb.getInstance(snapshotDbPath, config).getDataSource(tableName, false);
+        try {
+            assertEquals(
+                    900,
+                    restored.getCurrentHashesRamToDiskThreshold(),
+                    "Threshold should be restored, not reset to the table config or the target");
+            assertTieredHashes(restored, count, 1);
+            // the migration continues from the restored threshold
+            saveTieredHashes(restored, count, 2);
+            assertEquals(1300, restored.getCurrentHashesRamToDiskThreshold(), "Migration should continue");
+            assertTieredHashes(restored, count, 2);
+        } finally {
+            restored.close();
+        }
+    }
+
+    @Test
+    void adaptiveHashesBudgetIsSharedByDataSources() throws IOException {
+        final int count = 1000;
+        final MerkleDb database = MerkleDb.getInstance(
+                testDirectory.resolve("adaptiveHashesBudgetIsSharedByDataSources"), hashesTieringConfig(1500, 10_000));
+        final MerkleDbDataSource first = database.createDataSource("adaptiveHashes1", hashesTableConfig(count), false);
+        final MerkleDbDataSource second =
+                database.createDataSource("adaptiveHashes2", hashesTableConfig(count), false);
+        final MerkleDbDataSource diskOnly = database.createDataSource(
+                "diskOnlyHashes", hashesTableConfig(count).hashesRamToDiskThreshold(0), false);
+        try {
+            assertNull(diskOnly.getHashStoreRam(), "Tables with threshold 0 must not keep hashes in RAM");
+            saveTieredHashes(first, count, 0);
+            saveTieredHashes(second, count, 0);
+            saveTieredHashes(diskOnly, count, 0);
+            // the budget is split between the two adaptive data sources
+            assertEquals(750, first.getCurrentHashesRamToDiskThreshold(), "Budget should be shared");
+            assertEquals(750, second.getCurrentHashesRamToDiskThreshold(), "Budget should be shared");
+            assertEquals(0, diskOnly.getCurrentHashesRamToDiskThreshold(), "Explicit threshold 0 must be kept");
+            assertTieredHashes(first, count, 0);
+            assertTieredHashes(diskOnly, count, 0);
+        } finally {
+            first.close();
+            second.close();
+            diskOnly.close();
+        }
+    }
+
+    @Test
+    void loadHashesConcurrentlyWithHashesMigration() throws Exception {
+        final int count = 2000;
+        final String tableName = "adaptiveHashes";
+        final Path dbPath = testDirectory.resolve("loadHashesConcurrentlyWithHashesMigration");
+        final Path snapshotDbPath = testDirectory.resolve("loadHashesConcurrentlyWithHashesMigration_SNAPSHOT");
+        final MerkleDbDataSource dataSource = MerkleDb.getInstance(dbPath, hashesTieringConfig(count * 2, 100))
+                .createDataSource(tableName, hashesTableConfig(count), false);
+        try {
+            saveTieredHashes(dataSource, count, 0);
+            // 39 flushes to move all hashes to RAM, 100 per flush
+            loadHashesConcurrently(dataSource, count, ds -> {
+                for (int flush = 1; flush <= 45; flush++) {
+                    saveTieredHashes(ds, count, flush);
+                }
+            });
+            assertEquals(count * 2, dataSource.getCurrentHashesRamToDiskThreshold(), "All hashes should be in RAM");
+            dataSource.getDatabase().snapshot(snapshotDbPath, dataSource);
+        } finally {
+            dataSource.close();
+        }
+
+        final MerkleDbDataSource reopened = MerkleDb.getInstance(snapshotDbPath, hashesTieringConfig(count / 2, 100))
+                .getDataSource(tableName, false);
+        try {
+            // 30 flushes to move hashes back to disk
+            loadHashesConcurrently(reopened, count, ds -> {
+                for (int flush = 46; flush <= 80; flush++) {
+                    saveTieredHashes(ds, count, flush);
+                }
+            });
+            assertEquals(count / 2, reopened.getCurrentHashesRamToDiskThreshold(), "Hashes should be moved to disk");
+        } finally {
+            reopened.close();
+        }
+    }
+
     @Test
     void preservesInterruptStatusWhenInterruptedClosing() throws IOException {
         createAndApplyDataSource(testDirectory, "test8", TestType.fixed_fixed, 1000, dataSource -> {
@@ -793,6 +1076,90 @@ class MerkleDbDataSourceTest {
                 0L, MerkleDbDataSource::getCountOfOpenDatabases, Duration.ofSeconds(1), "Expected no open dbs");
     }
 
+    private static MerkleDbConfig hashesTieringConfig(final long ramBudgetHashes, final int maxMigratedPerFlush) {
+        return ConfigurationBuilder.create()
+                .withSources(new SimpleConfigSource("merkleDb.hashesRamBudget", ramBudgetHashes * HASH_SIZE_BYTES)
+                        .withValue("merkleDb.hashesMaxMigratedPerFlush", maxMigratedPerFlush))
+                .withConfigDataType(MerkleDbConfig.class)
+                .build()
+                .getConfigData(MerkleDbConfig.class);
+    }
+
+    private static MerkleDbTableConfig hashesTableConfig(final int count) {
+        // any threshold other than 0 (disk only) and Long.MAX_VALUE (RAM only) is adjusted to the RAM budget
+        return new MerkleDbTableConfig((short) 1, DigestType.SHA_384)
+                .maxNumberOfKeys(count * 10L)
+                .hashesRamToDiskThreshold(100);
+    }
+
+    /**
+     * Save hashes for a tree with the given number of leaves. The first flush saves all hashes, every other
+     * flush only updates the hashes of the first {@link #TIERED_DIRTY_HASHES} paths.
+     */
+    private static void saveTieredHashes(final MerkleDbDataSource dataSource, final int count, final int flush)
+            throws IOException {
+        final int dirtyHashes = (flush == 0) ? count * 2 + 1 : TIERED_DIRTY_HASHES;
+        dataSource.saveRecords(
+                count,
+                count * 2,
+                IntStream.range(0, dirtyHashes).mapToObj(i -> new VirtualHashRecord(i, tieredHash(i, flush))),
+                Stream.empty(),
+                Stream.empty());
+    }
+
+    private static void assertTieredHashes(final MerkleDbDataSource dataSource, final int count, final int flush)
+            throws IOException {
+        for (int i = 0; i <= count * 2; i++) {
+            assertEquals(tieredHash(i, flush), dataSource.loadHash(i), "Wrong hash for path " + i);
+        }
+    }
+
+    private static Hash tieredHash(final int path, final int flush) {
+        return hash(path < TIERED_DIRTY_HASHES ? path + flush * 10_000 : path);
+    }
+
+    /**
+     * Run the given flushes while other threads load hashes, which don't change in these flushes, and check them.
+     */
+    private static void loadHashesConcurrently(
+            final MerkleDbDataSource dataSource,
+            final int count,
+            final CheckedConsumer<MerkleDbDataSource, Exception> flushes)
+            throws Exception {
+        final AtomicBoolean done = new AtomicBoolean(false);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final Random random = new Random(t);
+            final Thread reader = new Thread(() -> {
+                try {
+                    while (!done.get()) {
+                        final int path = TIERED_DIRTY_HASHES + random.nextInt(count * 2 + 1 - TIERED_DIRTY_HASHES);
+                        final Hash hash = dataSource.loadHash(path);
+                        if (!hash(path).equals(hash)) {
+                            throw new AssertionError("Wrong hash for path " + path + ": " + hash);
+                        }
+                    }
+                } catch (final Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        try {
+            flushes.accept(dataSource);
+        } finally {
+            done.set(true);
+            for (final Thread reader : readers) {
+                reader.join();
+            }
+        }
+        if (failure.get() != null) {
+            fail("Hash read concurrently with a migration failed", failure.get());
+        }
+    }
+
     public static VirtualHashRecord createVirtualInternalRecord(final int i) {
         return createVirtualInternalRecord(i, i);
     }
@@ -17,6 +17,7 @@
 package com.swirlds.merkledb;
 
 import static com.swirlds.common.test.fixtures.AssertionUtils.assertEventuallyEquals;
+import static com.swirlds.merkledb.test.fixtures.TestType.fixed_fixed;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import com.swirlds.common.constructable.ConstructableRegistry;
@@ -26,11 +27,18 @@ import com.swirlds.common.io.utility.LegacyTemporaryFileBuilder;
 import com.swirlds.config.api.ConfigurationBuilder;
 import com.swirlds.config.extensions.sources.SimpleConfigSource;
 import com.swirlds.merkledb.config.MerkleDbConfig;
+import com.swirlds.virtualmap.datasource.VirtualLeafBytes;
+import com.swirlds.virtualmap.serialize.KeySerializer;
+import com.swirlds.virtualmap.serialize.ValueSerializer;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
@@ -408,6 +416,66 @@ public class MerkleDbTest {
         dataSource.close();
     }
 
+    @Test
+    @DisplayName("Read-only instance from snapshot")
+    void testOpenReadOnly() throws IOException {
+        final MerkleDb instance = MerkleDb.getDefaultInstance();
+        final String tableName = "tablero";
+        final MerkleDbDataSource dataSource = instance.createDataSource(tableName, fixedConfig(), false);
+        final KeySerializer keySerializer = fixed_fixed.dataType().getKeySerializer();
+        final ValueSerializer valueSerializer = fixed_fixed.dataType().getValueSerializer();
+        dataSource.saveRecords(
+                10,
+                19,
+                Stream.empty(),
+                IntStream.range(10, 20)
+                        .mapToObj(i -> fixed_fixed.dataType().createVirtualLeafRecord(i))
+                        .map(r -> r.toBytes(keySerializer, valueSerializer)),
+                Stream.empty());
+        final Path snapshotDir = LegacyTemporaryFileBuilder.buildTemporaryFile();
+        instance.snapshot(snapshotDir, dataSource);
+
+        final Path readOnlyDir = LegacyTemporaryFileBuilder.buildTemporaryFile();
+        final MerkleDb readOnlyInstance = MerkleDb.openReadOnly(snapshotDir, readOnlyDir);
+        Assertions.assertTrue(readOnlyInstance.isReadOnly());
+        Assertions.assertThrows(
+                IllegalStateException.class,
+                () -> MerkleDb.openReadOnly(snapshotDir, readOnlyDir),
+                "Target folder is already used");
+        final MerkleDbDataSource readOnlyDataSource = readOnlyInstance.getDataSource(tableName, true);
+        Assertions.assertNotSame(dataSource, readOnlyDataSource);
+
+        // Point lookups
+        final VirtualLeafBytes leaf =
+                fixed_fixed.dataType().createVirtualLeafRecord(15).toBytes(keySerializer, valueSerializer);
+        Assertions.assertEquals(leaf, readOnlyDataSource.loadLeafRecord(15));
+        Assertions.assertEquals(15, readOnlyDataSource.findKey(leaf.keyBytes(), leaf.keyHashCode()));
+
+        // Range scans, paths out of the leaf path range are skipped
+        final List<VirtualLeafBytes> leaves = new ArrayList<>();
+        readOnlyDataSource.forEachLeafRecord(0, 14, leaves::add);
+        Assertions.assertEquals(5, leaves.size());
+        for (int i = 0; i < leaves.size(); i++) {
+            Assertions.assertEquals(dataSource.loadLeafRecord(10 + i), leaves.get(i));
+        }
+
+        // Writes are rejected
+        Assertions.assertThrows(
+                IllegalStateException.class,
+                () -> readOnlyDataSource.saveRecords(10, 19, Stream.empty(), Stream.empty(), Stream.empty()));
+        Assertions.assertThrows(
+                IllegalStateException.class, () -> readOnlyInstance.createDataSource("tablerw", fixedConfig(), false));
+        Assertions.assertThrows(
+                IllegalStateException.class,
+                () -> readOnlyInstance.snapshot(LegacyTemporaryFileBuilder.buildTemporaryFile(), readOnlyDataSource));
+
+        // The live data source is still writable
+        dataSource.saveRecords(10, 19, Stream.empty(), Stream.empty(), Stream.empty());
+
+        readOnlyDataSource.close();
+        dataSource.close();
+    }
+
     @Test
     @DisplayName("Double snapshots")
     void testDoubleSnapshot() throws IOException {
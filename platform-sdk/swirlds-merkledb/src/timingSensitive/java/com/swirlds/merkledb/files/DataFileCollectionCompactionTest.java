@@ -17,11 +17,13 @@
 package com.swirlds.merkledb.files;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.hedera.pbj.runtime.io.buffer.BufferedData;
 import com.swirlds.common.config.singleton.ConfigurationHolder;
+import com.swirlds.config.extensions.test.fixtures.TestConfigBuilder;
 import com.swirlds.merkledb.collections.CASableLongIndex;
 import com.swirlds.merkledb.collections.LongList;
 import com.swirlds.merkledb.collections.LongListOffHeap;
@@ -672,6 +674,92 @@ class DataFileCollectionCompactionTest {
         }
     }
 
+    @Test
+    @DisplayName("Compaction split into multiple partitions")
+    void testPartitionedCompaction() throws Exception {
+        final int partitions = 4;
+        final MerkleDbConfig partitionedConfig = new TestConfigBuilder()
+                .withValue("merkleDb.compactionPartitions", partitions)
+                .getOrCreateConfig()
+                .getConfigData(MerkleDbConfig.class);
+        final int numFiles = 10;
+        final int numValues = 10_000;
+        final String storeName = "testPartitionedCompaction";
+        final Path testDir = tempFileDir.resolve(storeName);
+        final LongListOffHeap index = new LongListOffHeap();
+        index.updateValidRange(0, numValues - 1);
+        final DataFileCollection store = new DataFileCollection(partitionedConfig, testDir, storeName, null);
+        final DataFileCompactor compactor =
+                new DataFileCompactor(partitionedConfig, storeName, store, index, null, null, null, null);
+        try {
+            // Every file updates all keys, only values from the last file are live
+            for (int i = 0; i < numFiles; i++) {
+                store.startWriting();
+                for (int j = 0; j < numValues; j++) {
+                    index.put(j, storeDataItem(store, new long[] {j, i}));
+                }
+                store.endWriting(0, numValues - 1).setFileCompleted();
+            }
+            final List<Path> newFiles = compactor.compactFiles(index, getFilesToMerge(store), 1);
+            assertEquals(partitions, newFiles.size(), "Every partition should be compacted to its own file");
+            assertEquals(partitions, store.getAllCompletedFiles().size(), "Compacted files should be deleted");
+            for (int j = 0; j < numValues; j++) {
+                final long[] dataItem = readDataItem(store, index.get(j));
+                assertNotNull(dataItem);
+                assertEquals(j, dataItem[0]);
+                assertEquals(numFiles - 1, dataItem[1]);
+            }
+        } finally {
+            store.close();
+            index.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Compaction with invalid key range")
+    void testCompactionWithInvalidKeyRange() throws Exception {
+        final int numFiles = 3;
+        final int numValues = 100;
+        final String storeName = "testCompactionWithInvalidKeyRange";
+        final Path testDir = tempFileDir.resolve(storeName);
+        final LongListOffHeap index = new LongListOffHeap();
+        index.updateValidRange(0, numValues - 1);
+        final DataFileCollection store = new DataFileCollection(config, testDir, storeName, null);
+        final DataFileCompactor compactor =
+                new DataFileCompactor(config, storeName, store, index, null, null, null, null) {
+                    @Override
+                    int getMinNumberOfFilesToCompact() {
+                        return 2;
+                    }
+                };
+        try {
+            for (int i = 0; i < numFiles; i++) {
+                store.startWriting();
+                for (int j = 0; j < numValues; j++) {
+                    index.put(j, storeDataItem(store, new long[] {j, i}));
+                }
+                store.endWriting(0, numValues - 1).setFileCompleted();
+            }
+            // All keys are removed, e.g. after the last leaf is deleted from a virtual map
+            index.updateValidRange(-1, -1);
+            store.startWriting();
+            store.endWriting(-1, -1).setFileCompleted();
+
+            final List<DataFileReader> filesToMerge = getFilesToMerge(store);
+            final List<Path> newFiles = compactor.compactFiles(index, filesToMerge, 1);
+            for (final DataFileReader file : filesToMerge) {
+                assertFalse(Files.exists(file.getPath()), "Compacted file should be deleted");
+            }
+            assertEquals(newFiles.size(), store.getAllCompletedFiles().size(), "Only compacted files should remain");
+            for (final DataFileReader file : store.getAllCompletedFiles()) {
+                assertEquals(0, file.getMetadata().getDataItemCount(), "No data items should be copied");
+            }
+        } finally {
+            store.close();
+            index.close();
+        }
+    }
+
     private static List<DataFileReader> getFilesToMerge(DataFileCollection store) {
         return store.getAllCompletedFiles();
     }
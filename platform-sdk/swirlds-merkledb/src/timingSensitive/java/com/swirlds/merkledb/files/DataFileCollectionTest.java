@@ -22,6 +22,7 @@ import static com.swirlds.merkledb.test.fixtures.MerkleDbTestUtils.getDirectMemo
 import static com.swirlds.merkledb.test.fixtures.files.DataFileCollectionTestUtils.checkData;
 import static com.swirlds.merkledb.test.fixtures.files.DataFileCollectionTestUtils.getVariableSizeDataForI;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -37,6 +38,7 @@ import static org.mockito.Mockito.when;
 import com.hedera.pbj.runtime.io.buffer.BufferedData;
 import com.swirlds.base.units.UnitConstants;
 import com.swirlds.common.config.singleton.ConfigurationHolder;
+import com.swirlds.config.extensions.test.fixtures.TestConfigBuilder;
 import com.swirlds.merkledb.KeyRange;
 import com.swirlds.merkledb.collections.CASableLongIndex;
 import com.swirlds.merkledb.collections.ImmutableIndexedObjectListUsingArray;
@@ -57,12 +59,14 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.core.Logger;
 import org.junit.jupiter.api.AfterEach;
@@ -710,6 +714,69 @@ class DataFileCollectionTest {
         }
     }
 
+    @Test
+    void readDataItemsUsingIndexAsync() throws Exception {
+        final int maxReadsInFlight = 4;
+        final MerkleDbConfig asyncConfig = new TestConfigBuilder()
+                .withValue("merkleDb.asyncFileReads", true)
+                .withValue("merkleDb.maxAsyncReadsInFlight", maxReadsInFlight)
+                .getOrCreateConfig()
+                .getConfigData(MerkleDbConfig.class);
+        final DataFileCollection fileCollection = new DataFileCollection(
+                asyncConfig, tempFileDir.resolve("readDataItemsUsingIndexAsync"), "test", null);
+        final LongListHeap index = new LongListHeap(5000);
+        index.updateValidRange(0, 1100);
+        populateDataFileCollection(FilesTestType.variable, fileCollection, index);
+
+        // Keys 1000 and above aren't in the index
+        final List<Long> keyList =
+                LongStream.range(0, 1100).boxed().collect(Collectors.toCollection(ArrayList::new));
+        Collections.shuffle(keyList, new Random(1234));
+        final long[] keys = keyList.stream().mapToLong(Long::longValue).toArray();
+        final long[][] dataItems = new long[keys.length][];
+        final AtomicInteger callbacks = new AtomicInteger();
+        final AtomicInteger callbacksInFlight = new AtomicInteger();
+        final AtomicInteger maxCallbacksInFlight = new AtomicInteger();
+        fileCollection.readDataItemsUsingIndex(index, keys, (keyIndex, dataItem) -> {
+            maxCallbacksInFlight.accumulateAndGet(callbacksInFlight.incrementAndGet(), Math::max);
+            callbacks.incrementAndGet();
+            dataItems[keyIndex] = (dataItem != null) ? toLongs(dataItem) : null;
+            callbacksInFlight.decrementAndGet();
+        });
+        assertEquals(keys.length, callbacks.get(), "Callback must be called exactly once per key");
+        // Read permits are only released after callbacks are called
+        assertTrue(
+                maxCallbacksInFlight.get() <= maxReadsInFlight,
+                "No more than " + maxReadsInFlight + " reads may be in flight");
+        for (int i = 0; i < keys.length; i++) {
+            final BufferedData expected = fileCollection.readDataItemUsingIndex(index, keys[i]);
+            if (keys[i] < 1000) {
+                assertArrayEquals(toLongs(expected), dataItems[i], "Async read must match sync read");
+            } else {
+                assertNull(dataItems[i], "Keys not in the index must be read as null");
+            }
+        }
+
+        // Failures in callbacks must be propagated to the caller
+        assertThrows(
+                IOException.class,
+                () -> fileCollection.readDataItemsUsingIndex(index, keys, (keyIndex, dataItem) -> {
+                    if (keyIndex == keys.length / 2) {
+                        throw new IOException("Test failure");
+                    }
+                }),
+                "Batch read must fail, if a data item can't be processed");
+        fileCollection.close();
+    }
+
+    private static long[] toLongs(final BufferedData dataItem) {
+        final long[] longs = new long[Math.toIntExact(dataItem.remaining() / Long.BYTES)];
+        for (int i = 0; i < longs.length; i++) {
+            longs[i] = dataItem.getLong(dataItem.position() + (long) i * Long.BYTES);
+        }
+        return longs;
+    }
+
     /**
      * This test emulates scenario in which compaction is interrupted by thread interruption. This event shouldn't be
      * reported as an error in the logs.
@@ -34,8 +34,12 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
@@ -303,4 +307,110 @@ class MemoryIndexDiskKeyValueStoreTest {
         deleteDirectoryAndContents(tempDir);
         deleteDirectoryAndContents(tempSnapshotDir);
     }
+
+    @ParameterizedTest
+    @EnumSource(FilesTestType.class)
+    void liveItemCounts(final FilesTestType testType) throws Exception {
+        final Path tempDir = testDirectory.resolve("LiveItemCountsTest");
+        final LongListOffHeap index = new LongListOffHeap();
+        final String storeName = "LiveItemCountsTest";
+        final MerkleDbConfig dbConfig = ConfigurationHolder.getConfigData(MerkleDbConfig.class);
+        final MemoryIndexDiskKeyValueStore store =
+                new MemoryIndexDiskKeyValueStore(dbConfig, tempDir, storeName, null, null, index);
+        // 100 items in the first file, then 40 of them are overwritten in the second file
+        writeBatch(testType, store, 0, 100, 99, 1234);
+        writeBatch(testType, store, 0, 40, 99, 5678);
+        final List<DataFileReader> files = store.fileCollection.getAllCompletedFiles();
+        assertEquals(2, files.size(), "unexpected # of files");
+        final DataFileReader file1 = files.get(0);
+        final DataFileReader file2 = files.get(1);
+        assertEquals(60, file1.getLiveItemCount(), "unexpected live items in file 1");
+        assertEquals(40, file2.getLiveItemCount(), "unexpected live items in file 2");
+        assertEquals(file1.getSize() * 40 / 100, file1.getReclaimableSize(), 1, "unexpected reclaimable size #1");
+        assertEquals(0, file2.getReclaimableSize(), "unexpected reclaimable size #2");
+
+        // Keys 0-9 from file 2 and keys 90-99 from file 1 are removed
+        store.updateValidKeyRange(10, 89);
+        assertEquals(50, file1.getLiveItemCount(), "unexpected live items in file 1 after range update");
+        assertEquals(30, file2.getLiveItemCount(), "unexpected live items in file 2 after range update");
+        assertEquals(
+                file1.getReclaimableSize() + file2.getReclaimableSize(),
+                store.getReclaimableSizeByLevel(dbConfig.maxCompactionLevel())[0],
+                "unexpected reclaimable size at level 0");
+
+        // Only live items are copied during compaction, and they are all live in the new file
+        final DataFileCompactor dataFileCompactor =
+                new DataFileCompactor(dbConfig, storeName, store.fileCollection, index, null, null, null, null) {
+                    @Override
+                    int getMinNumberOfFilesToCompact() {
+                        return 1;
+                    }
+                };
+        dataFileCompactor.compact();
+        final List<DataFileReader> compactedFiles = store.fileCollection.getAllCompletedFiles();
+        assertEquals(1, compactedFiles.size(), "unexpected # of files after compaction");
+        assertEquals(80, compactedFiles.get(0).getMetadata().getDataItemCount(), "unexpected # of items");
+        assertEquals(80, compactedFiles.get(0).getLiveItemCount(), "unexpected live items after compaction");
+        assertEquals(0, compactedFiles.get(0).getReclaimableSize(), "unexpected reclaimable size");
+
+        store.close();
+        index.close();
+        deleteDirectoryAndContents(tempDir);
+    }
+
+    @ParameterizedTest
+    @EnumSource(FilesTestType.class)
+    void liveItemCountsWithConcurrentCompaction(final FilesTestType testType) throws Exception {
+        final Path tempDir = testDirectory.resolve("LiveItemCountsConcurrentTest");
+        final LongListOffHeap index = new LongListOffHeap();
+        final String storeName = "LiveItemCountsConcurrentTest";
+        final MerkleDbConfig dbConfig = ConfigurationHolder.getConfigData(MerkleDbConfig.class);
+        final MemoryIndexDiskKeyValueStore store =
+                new MemoryIndexDiskKeyValueStore(dbConfig, tempDir, storeName, null, null, index);
+        final int keyCount = 5_000;
+        for (int i = 0; i < 4; i++) {
+            writeBatch(testType, store, 0, keyCount, keyCount - 1, i);
+        }
+        final DataFileCompactor dataFileCompactor =
+                new DataFileCompactor(dbConfig, storeName, store.fileCollection, index, null, null, null, null) {
+                    @Override
+                    int getMinNumberOfFilesToCompact() {
+                        return 2;
+                    }
+                };
+
+        // Compact in the background, while the same keys are updated in the foreground
+        final AtomicBoolean flushesDone = new AtomicBoolean(false);
+        final ExecutorService compactionExecutor = Executors.newSingleThreadExecutor();
+        final Future<Void> compaction = compactionExecutor.submit(() -> {
+            while (!flushesDone.get()) {
+                dataFileCompactor.compact();
+            }
+            return null;
+        });
+        for (int i = 0; i < 20; i++) {
+            writeBatch(testType, store, (i * 250) % (keyCount * 3 / 4), keyCount / 4, keyCount - 1, 100 + i);
+        }
+        flushesDone.set(true);
+        compaction.get(1, TimeUnit.MINUTES);
+        compactionExecutor.shutdown();
+
+        // Every file's live item count must match the number of index entries pointing to the file
+        final Map<Integer, Long> expectedLiveItems = new HashMap<>();
+        index.forEach((key, dataLocation) ->
+                expectedLiveItems.merge(DataFileCommon.fileIndexFromDataLocation(dataLocation), 1L, Long::sum));
+        long totalLiveItems = 0;
+        for (final DataFileReader file : store.fileCollection.getAllCompletedFiles()) {
+            assertEquals(
+                    expectedLiveItems.getOrDefault(file.getIndex(), 0L),
+                    file.getLiveItemCount(),
+                    "unexpected live items in file " + file.getIndex());
+            totalLiveItems += file.getLiveItemCount();
+        }
+        assertEquals(keyCount, totalLiveItems, "every key should have exactly one live data item");
+
+        store.close();
+        index.close();
+        deleteDirectoryAndContents(tempDir);
+    }
 }
@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2024 Hedera Hashgraph, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.swirlds.platform.core.jmh;
+
+import static com.swirlds.common.units.DataUnit.UNIT_BYTES;
+import static com.swirlds.common.units.DataUnit.UNIT_MEGABYTES;
+
+import com.swirlds.common.constructable.ConstructableRegistry;
+import com.swirlds.common.constructable.ConstructableRegistryException;
+import com.swirlds.common.io.utility.FileUtils;
+import com.swirlds.platform.event.AncientMode;
+import com.swirlds.platform.event.PlatformEvent;
+import com.swirlds.platform.event.preconsensus.PcesFile;
+import com.swirlds.platform.event.preconsensus.PcesFileManager;
+import com.swirlds.platform.event.preconsensus.PcesMultiFileIterator;
+import com.swirlds.platform.event.preconsensus.PcesMutableFile;
+import com.swirlds.platform.system.BasicSoftwareVersion;
+import com.swirlds.platform.system.StaticSoftwareVersion;
+import com.swirlds.platform.test.fixtures.event.TestingEventBuilder;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Replays a synthetic directory of preconsensus event files, reading files one at a time and ahead in parallel.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class PcesReplayBenchmark {
+
+    @Param({"0"})
+    public long seed;
+
+    /**
+     * The total size of the event files.
+     */
+    @Param({"2048"})
+    public int totalMegabytes;
+
+    @Param({"10"})
+    public int fileMegabytes;
+
+    /**
+     * The number of files read ahead in parallel, 0 to read files one at a time.
+     */
+    @Param({"0", "2", "4", "8"})
+    public int prefetchFiles;
+
+    /**
+     * The number of distinct events written to the files, repeated until the files are full.
+     */
+    private static final int EVENT_POOL_SIZE = 1024;
+
+    private Path directory;
+    private final List<PcesFile> files = new ArrayList<>();
+    private ExecutorService prefetchExecutor;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, ConstructableRegistryException {
+        final Random random = new Random(seed);
+        final List<PlatformEvent> events = new ArrayList<>();
+        for (int i = 0; i < EVENT_POOL_SIZE; i++) {
+            events.add(new TestingEventBuilder(random)
+                    .setAppTransactionCount(20)
+                    .setSystemTransactionCount(10)
+                    .setSelfParent(new TestingEventBuilder(random).build())
+                    .setOtherParent(new TestingEventBuilder(random).build())
+                    .build());
+        }
+        StaticSoftwareVersion.setSoftwareVersion(
+                new BasicSoftwareVersion(events.getFirst().getSoftwareVersion().major()));
+        ConstructableRegistry.getInstance().registerConstructables("com.swirlds.platform.system");
+
+        directory = Files.createTempDirectory("pces-replay-benchmark");
+        final long fileBytes = (long) UNIT_MEGABYTES.convertTo(fileMegabytes, UNIT_BYTES);
+        final int fileCount = Math.max(1, totalMegabytes / fileMegabytes);
+        int eventIndex = 0;
+        for (int sequenceNumber = 0; sequenceNumber < fileCount; sequenceNumber++) {
+            final PcesFile file = PcesFile.of(
+                    AncientMode.GENERATION_THRESHOLD,
+                    Instant.now(),
+                    sequenceNumber,
+                    0,
+                    Long.MAX_VALUE - 1,
+                    0,
+                    directory);
+            final PcesMutableFile mutableFile = file.getMutableFile();
+            while (mutableFile.fileSize() < fileBytes) {
+                mutableFile.writeEvent(events.get(eventIndex));
+                eventIndex = (eventIndex + 1) % EVENT_POOL_SIZE;
+            }
+            mutableFile.close();
+            files.add(file);
+        }
+
+        if (prefetchFiles > 0) {
+            prefetchExecutor = Executors.newFixedThreadPool(prefetchFiles);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (prefetchExecutor != null) {
+            prefetchExecutor.close();
+        }
+        FileUtils.deleteDirectory(directory);
+        StaticSoftwareVersion.reset();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void replay(final Blackhole bh) throws IOException {
+        final PcesMultiFileIterator iterator = new PcesMultiFileIterator(
+                PcesFileManager.NO_LOWER_BOUND,
+                files.iterator(),
+                AncientMode.GENERATION_THRESHOLD,
+                prefetchExecutor,
+                prefetchFiles);
+        while (iterator.hasNext()) {
+            bh.consume(iterator.next());
+        }
+    }
+}
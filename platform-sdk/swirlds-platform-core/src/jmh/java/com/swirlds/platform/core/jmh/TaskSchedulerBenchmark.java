@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2024 Hedera Hashgraph, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.swirlds.platform.core.jmh;
+
+import com.swirlds.common.context.PlatformContext;
+import com.swirlds.common.test.fixtures.platform.TestPlatformContextBuilder;
+import com.swirlds.common.wiring.model.WiringModel;
+import com.swirlds.common.wiring.model.WiringModelBuilder;
+import com.swirlds.common.wiring.schedulers.TaskScheduler;
+import com.swirlds.common.wiring.schedulers.builders.RingBufferWaitStrategy;
+import com.swirlds.common.wiring.schedulers.builders.TaskSchedulerType;
+import com.swirlds.common.wiring.wires.input.BindableInputWire;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the throughput of the sequential task scheduler types, with small tasks inserted by one or more producer
+ * threads (use the JMH {@code -t} option for more than one). The wait strategy only applies to ring buffer schedulers.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+public class TaskSchedulerBenchmark {
+
+    @Param({"SEQUENTIAL", "SEQUENTIAL_THREAD", "SEQUENTIAL_RING_BUFFER"})
+    public TaskSchedulerType type;
+
+    @Param({"PARK", "YIELD", "SPIN"})
+    public RingBufferWaitStrategy waitStrategy;
+
+    @Param({"1000"})
+    public long capacity;
+
+    /**
+     * The number of tasks inserted by each benchmark invocation.
+     */
+    private static final int TASK_COUNT = 10_000;
+
+    private WiringModel model;
+    private TaskScheduler<Void> scheduler;
+    private BindableInputWire<Long, Void> inputWire;
+    private final AtomicLong handled = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final PlatformContext platformContext = TestPlatformContextBuilder.create().build();
+        model = WiringModelBuilder.create(platformContext).build();
+        scheduler = model.schedulerBuilder("benchmark")
+                .withType(type)
+                .withWaitStrategy(waitStrategy)
+                .withUnhandledTaskCapacity(capacity)
+                .withFlushingEnabled(true)
+                .build()
+                .cast();
+        inputWire = scheduler.buildInputWire("tasks");
+        inputWire.bindConsumer(handled::lazySet);
+        model.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        model.stop();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @OperationsPerInvocation(TASK_COUNT)
+    public void insertAndHandle(final Blackhole bh) {
+        for (long i = 0; i < TASK_COUNT; i++) {
+            inputWire.put(i);
+        }
+        scheduler.flush();
+        bh.consume(handled.get());
+    }
+}
@@ -244,7 +244,7 @@ public class Browser {
                     Time.getCurrent(),
                     FileSystemManager.create(configuration),
                     nodeId);
-            final var cryptography = CryptographyFactory.create();
+            final var cryptography = CryptographyFactory.create(configuration);
             CryptographyHolder.set(cryptography);
             final KeysAndCerts keysAndCerts = initNodeSecurity(appDefinition.getConfigAddressBook(), configuration)
                     .get(nodeId);
@@ -58,7 +58,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -168,9 +167,9 @@ public class ConsensusImpl extends ThreadSafeConsensusInfo implements Consensus
     /**
      * recently added events. this list is used for recalculating metadata once a new round is
      * decided. as soon as events reach consensus or become stale, they are discarded from this
-     * list.
+     * list. An array list is used, since it is mostly iterated, and events are removed in a single compacting pass.
      */
-    private final List<EventImpl> recentEvents = new LinkedList<>();
+    private final List<EventImpl> recentEvents = new ArrayList<>();
     /** stores all round information */
     private final ConsensusRounds rounds;
     /**
@@ -346,8 +345,11 @@ public class ConsensusImpl extends ThreadSafeConsensusInfo implements Consensus
     @Nullable
     private ConsensusRound recalculateAndVote() {
         rounds.recalculating();
-        for (final Iterator<EventImpl> iterator = recentEvents.iterator(); iterator.hasNext(); ) {
-            final EventImpl insertedEvent = iterator.next();
+        // events that are kept are moved to the front of the list, the rest of the list is removed at the end
+        int keptCount = 0;
+        final int size = recentEvents.size();
+        for (int index = 0; index < size; index++) {
+            final EventImpl insertedEvent = recentEvents.get(index);
 
             if (rounds.isLastDecidedJudge(insertedEvent)
                     && round(insertedEvent.getSelfParent()) == ConsensusConstants.ROUND_NEGATIVE_INFINITY
@@ -361,27 +363,32 @@ public class ConsensusImpl extends ThreadSafeConsensusInfo implements Consensus
                 // - its metadata will be unchanged
                 // - it will not vote
                 // - it will never decide a round
+                recentEvents.set(keptCount++, insertedEvent);
                 continue;
             }
 
             if (insertedEvent.isConsensus() || isAncient(insertedEvent.getBaseEvent())) {
-                insertedEvent.clearMetadata();
+                // the event is removed from the recent events, so its metadata is never recalculated
+                insertedEvent.clearMetadata(false);
 
                 // all events that are consensus or ancient have a round of -infinity
                 insertedEvent.setRoundCreated(ConsensusConstants.ROUND_NEGATIVE_INFINITY);
-                iterator.remove();
                 continue;
             }
 
             // for all other events, we need to recalculate its round and metadata
-            insertedEvent.clearMetadata();
+            recentEvents.set(keptCount++, insertedEvent);
+            insertedEvent.clearMetadata(true);
             insertedEvent.setRoundCreated(ConsensusConstants.ROUND_UNDEFINED);
 
             final ConsensusRound consensusRound = calculateAndVote(insertedEvent);
             if (consensusRound != null) {
+                // the events after this one are kept as they are
+                recentEvents.subList(keptCount, index + 1).clear();
                 return consensusRound;
             }
         }
+        recentEvents.subList(keptCount, size).clear();
         return null;
     }
 
@@ -16,6 +16,7 @@
 
 package com.swirlds.platform;
 
+import static com.swirlds.common.threading.manager.AdHocThreadManager.getStaticThreadManager;
 import static com.swirlds.common.utility.CompareTo.isLessThan;
 import static com.swirlds.logging.legacy.LogMarker.STARTUP;
 import static com.swirlds.logging.legacy.LogMarker.STATE_TO_DISK;
@@ -33,6 +34,7 @@ import com.swirlds.common.io.IOIterator;
 import com.swirlds.common.notification.NotificationEngine;
 import com.swirlds.common.platform.NodeId;
 import com.swirlds.common.stream.RunningEventHashOverride;
+import com.swirlds.common.threading.framework.config.ThreadConfiguration;
 import com.swirlds.common.utility.AutoCloseableWrapper;
 import com.swirlds.platform.builder.PlatformBuildingBlocks;
 import com.swirlds.platform.builder.PlatformComponentBuilder;
@@ -89,6 +91,8 @@ import java.io.UncheckedIOException;
 import java.time.Duration;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.LongSupplier;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -454,15 +458,30 @@ public class SwirldsPlatform implements Platform {
     private void replayPreconsensusEvents() {
         platformWiring.getStatusActionSubmitter().submitStatusAction(new StartedReplayingEventsAction());
 
-        final IOIterator<PlatformEvent> iterator =
-                initialPcesFiles.getEventIterator(initialAncientThreshold, startingRound);
+        final int prefetchFileCount = platformContext
+                .getConfiguration()
+                .getConfigData(PcesConfig.class)
+                .replayPrefetchFiles();
 
         logger.info(
                 STARTUP.getMarker(),
                 "replaying preconsensus event stream starting at generation {}",
                 initialAncientThreshold);
 
-        platformWiring.getPcesReplayerIteratorInput().inject(iterator);
+        // The replayer is a direct component, so inject() only returns once all events are replayed
+        try (final ExecutorService prefetchExecutor = prefetchFileCount > 0
+                ? Executors.newFixedThreadPool(
+                        prefetchFileCount,
+                        new ThreadConfiguration(getStaticThreadManager())
+                                .setComponent("platform")
+                                .setThreadName("pces-replay-reader")
+                                .setDaemon(true)
+                                .buildFactory())
+                : null) {
+            final IOIterator<PlatformEvent> iterator = initialPcesFiles.getEventIterator(
+                    initialAncientThreshold, startingRound, prefetchExecutor, prefetchFileCount);
+            platformWiring.getPcesReplayerIteratorInput().inject(iterator);
+        }
 
         // We have to wait for all the PCES transactions to reach the ISS detector before telling it that PCES replay is
         // done. The PCES replay will flush the intake pipeline, but we have to flush the hasher
@@ -20,6 +20,7 @@ import static com.swirlds.common.units.DataUnit.UNIT_BYTES;
 import static com.swirlds.common.units.DataUnit.UNIT_MEGABYTES;
 import static com.swirlds.logging.legacy.LogMarker.EXCEPTION;
 
+import com.swirlds.base.time.Time;
 import com.swirlds.common.context.PlatformContext;
 import com.swirlds.common.utility.LongRunningAverage;
 import com.swirlds.platform.consensus.EventWindow;
@@ -30,6 +31,8 @@ import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.Objects;
@@ -144,6 +147,38 @@ public class DefaultPcesWriter implements PcesWriter {
      */
     private final Deque<Long> flushRequests = new ArrayDeque<>();
 
+    /**
+     * If true then flushes are made durable with an fsync, and fsyncs are coalesced into group commits. See
+     * {@link PcesConfig#groupCommitEnabled()}.
+     */
+    private final boolean groupCommitEnabled;
+
+    /**
+     * The maximum amount of time a flush request waits for a group commit.
+     */
+    private final Duration groupCommitWindow;
+
+    /**
+     * The time when the oldest flush request not yet covered by a group commit became ready to be flushed, or null if
+     * there is no such flush request.
+     */
+    private Instant pendingGroupCommitStart = null;
+
+    /**
+     * The number of events written to the current file since the last group commit.
+     */
+    private long eventsSinceLastGroupCommit = 0;
+
+    private final Time time;
+
+    private final PcesMetrics metrics;
+
+    /**
+     * If positive, new files are preallocated in segments of this many bytes and written through a memory mapped
+     * buffer. See {@link PcesConfig#mappedSegmentFiles()}.
+     */
+    private final long segmentSize;
+
     /**
      * Constructor
      *
@@ -163,8 +198,17 @@ public class DefaultPcesWriter implements PcesWriter {
         bootstrapSpanOverlapFactor = config.bootstrapSpanOverlapFactor();
         spanOverlapFactor = config.spanOverlapFactor();
         minimumSpan = config.minimumSpan();
+        groupCommitEnabled = config.groupCommitEnabled();
+        groupCommitWindow = config.groupCommitWindow();
+        // A file is closed once it reaches the preferred size, so it usually ends with an event past that size. Add
+        // some slack for that event, so most files fit into a single segment.
+        segmentSize = config.mappedSegmentFiles()
+                ? (long) UNIT_MEGABYTES.convertTo(preferredFileSizeMegabytes + 1, UNIT_BYTES)
+                : 0;
 
         this.fileManager = fileManager;
+        time = platformContext.getTime();
+        metrics = new PcesMetrics(platformContext.getMetrics());
 
         fileType = platformContext
                         .getConfiguration()
@@ -200,11 +244,18 @@ public class DefaultPcesWriter implements PcesWriter {
             }
         }
 
-        if (flushRequired) {
-            if (currentMutableFile == null) {
-                logger.error(EXCEPTION.getMarker(), "Flush required, but no file is open. This should never happen");
+        if (flushRequired && currentMutableFile == null) {
+            logger.error(EXCEPTION.getMarker(), "Flush required, but no file is open. This should never happen");
+        }
+
+        if (groupCommitEnabled) {
+            if (flushRequired && pendingGroupCommitStart == null) {
+                pendingGroupCommitStart = time.now();
             }
+            return groupCommitIfDue(time.now());
+        }
 
+        if (flushRequired) {
             try {
                 currentMutableFile.flush();
             } catch (final IOException e) {
@@ -217,6 +268,45 @@ public class DefaultPcesWriter implements PcesWriter {
         return flushRequired;
     }
 
+    /**
+     * Perform a group commit if there is a pending flush request, which has waited for at least the group commit
+     * window.
+     *
+     * @param now the current time
+     * @return true if a group commit was performed, otherwise false
+     */
+    private boolean groupCommitIfDue(@NonNull final Instant now) {
+        if (pendingGroupCommitStart == null
+                || Duration.between(pendingGroupCommitStart, now).compareTo(groupCommitWindow) < 0) {
+            return false;
+        }
+        groupCommit();
+        return true;
+    }
+
+    /**
+     * Force all events written to the current file to the storage device. All events written so far become durable.
+     */
+    private void groupCommit() {
+        if (currentMutableFile != null) {
+            final long start = time.nanoTime();
+            try {
+                currentMutableFile.sync();
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            metrics.getPreconsensusEventSyncLatencyMicros().update((time.nanoTime() - start) / 1_000.0);
+            metrics.getPreconsensusEventSyncBatchSize().update(eventsSinceLastGroupCommit);
+        }
+        if (pendingGroupCommitStart != null) {
+            final Duration lag = Duration.between(pendingGroupCommitStart, time.now());
+            metrics.getPreconsensusEventDurabilityLagMillis().update(lag.toMillis());
+        }
+        eventsSinceLastGroupCommit = 0;
+        pendingGroupCommitStart = null;
+        lastFlushedEvent = lastWrittenEvent;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -243,6 +333,7 @@ public class DefaultPcesWriter implements PcesWriter {
             final boolean fileClosed = prepareOutputStream(event);
             currentMutableFile.writeEvent(event);
             lastWrittenEvent = event.getStreamSequenceNumber();
+            eventsSinceLastGroupCommit++;
 
             final boolean flushPerformed = processFlushRequests();
 
@@ -285,6 +376,18 @@ public class DefaultPcesWriter implements PcesWriter {
         return processFlushRequests() ? lastFlushedEvent : null;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Nullable
+    public Long checkGroupCommit(@NonNull final Instant now) {
+        if (!groupCommitEnabled) {
+            return null;
+        }
+        return groupCommitIfDue(now) ? lastFlushedEvent : null;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -336,6 +439,10 @@ public class DefaultPcesWriter implements PcesWriter {
             if (!bootstrapMode) {
                 averageSpanUtilization.add(previousSpan);
             }
+            if (groupCommitEnabled) {
+                // events in the file must be durable before they are reported as flushed
+                groupCommit();
+            }
             currentMutableFile.close();
             lastFlushedEvent = lastWrittenEvent;
 
@@ -402,7 +509,7 @@ public class DefaultPcesWriter implements PcesWriter {
 
             currentMutableFile = fileManager
                     .getNextFileDescriptor(nonAncientBoundary, upperBound)
-                    .getMutableFile();
+                    .getMutableFile(segmentSize);
         }
 
         return fileClosed;
@@ -87,6 +87,21 @@ import java.time.Duration;
  *                                             time, pause PCES replay until the system is able to catch up.
  * @param limitReplayFrequency                 if true, then directly limit the replay frequency of preconsensus events
  * @param maxEventReplayFrequency              the maximum number of events that can be replayed per second
+ * @param groupCommitEnabled                   if true, then flushes are made durable with an fsync of the current file,
+ *                                             and fsyncs are coalesced. A single fsync covers all events written before
+ *                                             it, and flush requests wait for up to {@code groupCommitWindow} to be
+ *                                             covered by the same fsync. If false, then flushes only push buffered
+ *                                             events to the operating system, which isn't durable on power loss.
+ * @param groupCommitWindow                    the maximum amount of time a flush request waits for an fsync when group
+ *                                             commits are enabled. Larger values mean fewer fsyncs, but higher latency
+ *                                             for rounds waiting for their keystone events to become durable.
+ * @param mappedSegmentFiles                   if true, then new files are preallocated in segments of
+ *                                             {@code preferredFileSizeMegabytes} and written through a memory mapped
+ *                                             buffer. Closed files end with an index of event offsets, which allows
+ *                                             readers to skip ancient events without parsing them.
+ * @param replayPrefetchFiles                  the number of files that are read and deserialized in parallel ahead of
+ *                                             the events being replayed. Events are still replayed in file order. If
+ *                                             0, then files are read one at a time on the replay thread.
  */
 @ConfigData("event.preconsensus")
 public record PcesConfig(
@@ -109,4 +124,8 @@ public record PcesConfig(
         @ConfigProperty(defaultValue = "1m") Duration suspiciousRoundDurabilityDuration,
         @ConfigProperty(defaultValue = "1ms") Duration replayHealthThreshold,
         @ConfigProperty(defaultValue = "true") boolean limitReplayFrequency,
-        @ConfigProperty(defaultValue = "5000") int maxEventReplayFrequency) {}
+        @ConfigProperty(defaultValue = "5000") int maxEventReplayFrequency,
+        @ConfigProperty(defaultValue = "false") boolean groupCommitEnabled,
+        @ConfigProperty(defaultValue = "2ms") Duration groupCommitWindow,
+        @ConfigProperty(defaultValue = "false") boolean mappedSegmentFiles,
+        @Min(0) @ConfigProperty(defaultValue = "4") int replayPrefetchFiles) {}
@@ -403,6 +403,19 @@ public final class PcesFile implements Comparable<PcesFile> {
         return new PcesMutableFile(this);
     }
 
+    /**
+     * Get an object that can be used to write events to this file. Throws if there already exists a file on disk with
+     * the same path.
+     *
+     * @param segmentSize if positive, the file is preallocated in segments of this many bytes and written through a
+     *                    memory mapped buffer. Otherwise, the file is written through a stream.
+     * @return a writer for this file
+     */
+    @NonNull
+    public PcesMutableFile getMutableFile(final long segmentSize) throws IOException {
+        return new PcesMutableFile(this, segmentSize);
+    }
+
     /**
      * Delete a file (permanently). Automatically deletes parent directories if empty up until the root directory is
      * reached, which is never deleted.
@@ -17,6 +17,8 @@
 package com.swirlds.platform.event.preconsensus;
 
 import com.hedera.hapi.platform.event.GossipEvent;
+import com.hedera.pbj.runtime.ParseException;
+import com.hedera.pbj.runtime.io.buffer.BufferedData;
 import com.swirlds.common.io.IOIterator;
 import com.swirlds.common.io.extendable.ExtendableInputStream;
 import com.swirlds.common.io.extendable.extensions.CountingStreamExtension;
@@ -25,6 +27,7 @@ import com.swirlds.platform.event.AncientMode;
 import com.swirlds.platform.event.EventSerializationUtils;
 import com.swirlds.platform.event.PlatformEvent;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.BufferedInputStream;
 import java.io.EOFException;
 import java.io.FileInputStream;
@@ -72,6 +75,11 @@ public class PcesFileIterator implements IOIterator<PlatformEvent> {
             if (fileVersion == null) {
                 throw new IOException("unsupported file version: " + fileVersionNumber);
             }
+            if (fileVersion == PcesFileVersion.INDEXED_SEGMENTS && lowerBound > fileDescriptor.getLowerBound()) {
+                // Skip events that are known to be ancient without parsing them
+                final long offset = PcesMappedSegment.findFirstEventOffset(fileDescriptor.getPath(), lowerBound);
+                stream.skipNBytes(offset - PcesMappedSegment.FIRST_EVENT_OFFSET);
+            }
         } catch (final EOFException e) {
             // Empty file. Possible if the node crashed right after it created this file.
             stream.close();
@@ -99,8 +107,13 @@ public class PcesFileIterator implements IOIterator<PlatformEvent> {
                                     throw new IOException("GossipEvent read from the file is malformed", e);
                                 }
                             }
+                            case INDEXED_SEGMENTS -> readSegmentEvent();
                         };
-                if (candidate.getAncientIndicator(fileType) >= lowerBound) {
+                if (candidate == null) {
+                    // The end of events, the rest of the file is either preallocated space or the index
+                    stream.close();
+                    streamClosed = true;
+                } else if (candidate.getAncientIndicator(fileType) >= lowerBound) {
                     next = candidate;
                 }
             } catch (final EOFException e) {
@@ -115,6 +128,35 @@ public class PcesFileIterator implements IOIterator<PlatformEvent> {
         }
     }
 
+    /**
+     * Read the next event from a file in the {@link PcesFileVersion#INDEXED_SEGMENTS} format.
+     *
+     * @return the next event, or null if there are no more events in the file
+     */
+    @Nullable
+    private PlatformEvent readSegmentEvent() throws IOException {
+        final int size = stream.readInt();
+        if (size == 0) {
+            return null;
+        }
+        // Pages of a memory mapped file may reach the disk in any order, so if the node crashed, the last event may
+        // be torn rather than truncated. It's treated the same way as a partial event.
+        if (size < 0) {
+            throw new EOFException("Malformed event size: " + size);
+        }
+        final byte[] bytes = stream.readNBytes(size);
+        if (bytes.length < size) {
+            throw new EOFException("Partial event");
+        }
+        try {
+            return new PlatformEvent(GossipEvent.PROTOBUF.parse(BufferedData.wrap(bytes)));
+        } catch (final ParseException | NullPointerException e) {
+            final EOFException eofException = new EOFException("Torn event");
+            eofException.addSuppressed(e);
+            throw eofException;
+        }
+    }
+
     /**
      * If true then this file contained a partial event. If false then the last event in the file was fully written when
      * the file was closed.
@@ -23,11 +23,13 @@ import com.swirlds.common.utility.RandomAccessDeque;
 import com.swirlds.common.utility.UnmodifiableIterator;
 import com.swirlds.platform.event.AncientMode;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.Objects;
+import java.util.concurrent.Executor;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -171,6 +173,27 @@ public class PcesFileTracker {
         return new PcesMultiFileIterator(lowerBound, getFileIterator(lowerBound, startingRound), fileType);
     }
 
+    /**
+     * Get an iterator that walks over all events starting with a specified lower bound. Files are read and
+     * deserialized in parallel ahead of the events being returned, see
+     * {@link PcesMultiFileIterator#PcesMultiFileIterator(long, Iterator, AncientMode, Executor, int)}.
+     *
+     * @param lowerBound        the desired lower bound, see {@link #getEventIterator(long, long)}
+     * @param startingRound     the round to start iterating from
+     * @param prefetchExecutor  reads files ahead, if null then files are read one at a time by the calling thread
+     * @param prefetchFileCount the maximum number of files read ahead at the same time
+     * @return an iterator that walks over events
+     */
+    @NonNull
+    public PcesMultiFileIterator getEventIterator(
+            final long lowerBound,
+            final long startingRound,
+            @Nullable final Executor prefetchExecutor,
+            final int prefetchFileCount) {
+        return new PcesMultiFileIterator(
+                lowerBound, getFileIterator(lowerBound, startingRound), fileType, prefetchExecutor, prefetchFileCount);
+    }
+
     /**
      * Get an iterator that walks over all event files currently being tracked, in order.
      * <p>
@@ -25,7 +25,12 @@ public enum PcesFileVersion {
     /** The original version of the file format. */
     ORIGINAL(1),
     /** The version of the file format that serializes events as protobuf. */
-    PROTOBUF_EVENTS(2);
+    PROTOBUF_EVENTS(2),
+    /**
+     * The version of the file format that serializes events as protobuf into preallocated segments. The events are
+     * followed by an empty event, and closed files end with an index of event offsets, see {@link PcesMappedSegment}.
+     */
+    INDEXED_SEGMENTS(3);
 
     private final int versionNumber;
 
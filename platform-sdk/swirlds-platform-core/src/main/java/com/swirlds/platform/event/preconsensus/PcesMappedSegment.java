@@ -0,0 +1,293 @@
+/*
+ * Copyright (C) 2024 Hedera Hashgraph, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.swirlds.platform.event.preconsensus;
+
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import com.hedera.hapi.platform.event.GossipEvent;
+import com.hedera.pbj.runtime.io.buffer.BufferedData;
+import com.swirlds.merkledb.utilities.MemoryUtils;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Writes a preconsensus event file in the {@link PcesFileVersion#INDEXED_SEGMENTS} format. The file is preallocated
+ * in segments of a fixed size and written through a memory mapped buffer, so appending an event is a memory copy, and
+ * the size of the file only changes when a new segment is needed.
+ * <p>
+ * File layout:
+ * <pre>
+ * int version
+ * (int size, GossipEvent bytes)*    events, the same way as in the PROTOBUF_EVENTS format
+ * int 0                             end of events
+ * (long prefixMax, long offset)*    index entries
+ * int indexEntryCount
+ * int INDEX_MAGIC
+ * </pre>
+ * An index entry is added every {@link #INDEX_INTERVAL} events. It contains the offset of an event and the highest
+ * ancient indicator of all events before it, so the entries are sorted by both fields. Everything after the end of
+ * events is only written when the file is closed. If the node crashes before that, the preallocated space after the
+ * last event is filled with zeros, which is read as the end of events, and the file has no index.
+ */
+final class PcesMappedSegment {
+
+    /**
+     * The magic number at the very end of a file with an index.
+     */
+    static final int INDEX_MAGIC = 0x50434958;
+
+    /**
+     * An index entry is added every this many events.
+     */
+    static final int INDEX_INTERVAL = 16;
+
+    /**
+     * The offset of the first event in the file, right after the file version.
+     */
+    static final long FIRST_EVENT_OFFSET = Integer.BYTES;
+
+    /**
+     * The size of an index entry, in bytes.
+     */
+    private static final int INDEX_ENTRY_BYTES = 2 * Long.BYTES;
+
+    /**
+     * The size of the trailer without index entries: end of events, the number of entries, and the magic number.
+     */
+    private static final int TRAILER_BYTES = 3 * Integer.BYTES;
+
+    private final Path path;
+    private final FileChannel channel;
+
+    /**
+     * The file is extended by this many bytes at a time.
+     */
+    private final long segmentSize;
+
+    /**
+     * Maps the whole preallocated file. Replaced with a larger mapping when the file is extended.
+     */
+    private MappedByteBuffer buffer;
+
+    /**
+     * A view of {@link #buffer}, its position is the write position in the file.
+     */
+    private BufferedData data;
+
+    /**
+     * The size of the file, the write position while the file is open.
+     */
+    private long size;
+
+    private long eventCount;
+
+    /**
+     * The highest ancient indicator of all events written so far.
+     */
+    private long highestAncientIndicator = Long.MIN_VALUE;
+
+    /**
+     * Index entries written so far, two longs (prefix max ancient indicator and offset) per entry.
+     */
+    private long[] index = new long[2 * 64];
+
+    private int indexEntryCount;
+
+    /**
+     * Create a new file and preallocate its first segment.
+     *
+     * @param path        the path of the file, must not exist
+     * @param segmentSize the number of bytes to preallocate at a time
+     */
+    PcesMappedSegment(@NonNull final Path path, final long segmentSize) throws IOException {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("Segment size must be positive: " + segmentSize);
+        }
+        this.path = Objects.requireNonNull(path);
+        this.segmentSize = segmentSize;
+        channel = FileChannel.open(path, CREATE_NEW, READ, WRITE);
+        map(segmentSize);
+        data.writeInt(PcesFileVersion.INDEXED_SEGMENTS.getVersionNumber());
+        size = data.position();
+    }
+
+    /**
+     * Map the first {@code mappedSize} bytes of the file, extending it if needed. The previous mapping, if any, is
+     * released. Dirty pages of the previous mapping stay in the page cache, nothing is lost.
+     */
+    private void map(final long mappedSize) throws IOException {
+        if (mappedSize > Integer.MAX_VALUE) {
+            throw new IOException("File " + path + " is too large to be mapped: " + mappedSize);
+        }
+        final MappedByteBuffer newBuffer = channel.map(MapMode.READ_WRITE, 0, mappedSize);
+        final long position = data == null ? 0 : data.position();
+        if (buffer != null) {
+            MemoryUtils.closeMmapBuffer(buffer);
+        }
+        buffer = newBuffer;
+        data = BufferedData.wrap(newBuffer);
+        data.position(position);
+    }
+
+    /**
+     * Make sure the given number of bytes can be written at the current position, preallocating new segments if
+     * needed.
+     */
+    private void ensureCapacity(final long bytes) throws IOException {
+        final long required = data.position() + bytes;
+        if (required > data.capacity()) {
+            final long segments = (required + segmentSize - 1) / segmentSize;
+            map(segments * segmentSize);
+        }
+    }
+
+    /**
+     * Write an event to the file.
+     *
+     * @param event            the event to write
+     * @param ancientIndicator the ancient indicator of the event, in the ancient mode of the file
+     */
+    void writeEvent(@NonNull final GossipEvent event, final long ancientIndicator) throws IOException {
+        final int eventSize = GossipEvent.PROTOBUF.measureRecord(event);
+        ensureCapacity(Integer.BYTES + (long) eventSize);
+        if (eventCount % INDEX_INTERVAL == 0) {
+            addIndexEntry(highestAncientIndicator, data.position());
+        }
+        data.writeInt(eventSize);
+        GossipEvent.PROTOBUF.write(event, data);
+        size = data.position();
+        eventCount++;
+        highestAncientIndicator = Math.max(highestAncientIndicator, ancientIndicator);
+    }
+
+    private void addIndexEntry(final long prefixMaxAncientIndicator, final long offset) {
+        if (2 * (indexEntryCount + 1) > index.length) {
+            index = Arrays.copyOf(index, index.length * 2);
+        }
+        index[2 * indexEntryCount] = prefixMaxAncientIndicator;
+        index[2 * indexEntryCount + 1] = offset;
+        indexEntryCount++;
+    }
+
+    /**
+     * Force all events written so far to the storage device.
+     */
+    void sync() {
+        buffer.force();
+    }
+
+    /**
+     * Get the size of the file, in bytes. While the file is open, this is the number of bytes written so far, not
+     * the preallocated size.
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Write the end of events and the index, force the file to the storage device, and truncate the preallocated
+     * space that isn't used.
+     */
+    void close() throws IOException {
+        ensureCapacity(TRAILER_BYTES + (long) indexEntryCount * INDEX_ENTRY_BYTES);
+        data.writeInt(0);
+        for (int i = 0; i < 2 * indexEntryCount; i++) {
+            data.writeLong(index[i]);
+        }
+        data.writeInt(indexEntryCount);
+        data.writeInt(INDEX_MAGIC);
+        size = data.position();
+        buffer.force();
+        MemoryUtils.closeMmapBuffer(buffer);
+        buffer = null;
+        data = null;
+        channel.truncate(size);
+        channel.close();
+    }
+
+    /**
+     * Find the offset of the first event in a file that may have an ancient indicator greater than or equal to the
+     * lower bound. All events before this offset are known to be ancient. If the file has no valid index, e.g. if the
+     * node crashed while the file was being written, then the offset of the first event in the file is returned.
+     *
+     * @param path       the path of a file in the {@link PcesFileVersion#INDEXED_SEGMENTS} format
+     * @param lowerBound the lower bound of the events to read
+     * @return the offset of the event to start reading from
+     */
+    static long findFirstEventOffset(@NonNull final Path path, final long lowerBound) throws IOException {
+        try (final FileChannel channel = FileChannel.open(path, READ)) {
+            final long fileSize = channel.size();
+            if (fileSize < FIRST_EVENT_OFFSET + TRAILER_BYTES) {
+                return FIRST_EVENT_OFFSET;
+            }
+            final ByteBuffer tail = readFully(channel, fileSize - 2 * Integer.BYTES, 2 * Integer.BYTES);
+            final int entryCount = tail.getInt(0);
+            final long entriesSize = (long) entryCount * INDEX_ENTRY_BYTES;
+            final long entriesOffset = fileSize - 2 * Integer.BYTES - entriesSize;
+            final long endOfEvents = entriesOffset - Integer.BYTES;
+            if (tail.getInt(Integer.BYTES) != INDEX_MAGIC || entryCount <= 0 || endOfEvents < FIRST_EVENT_OFFSET) {
+                return FIRST_EVENT_OFFSET;
+            }
+            final ByteBuffer entries = readFully(channel, entriesOffset, (int) entriesSize);
+
+            // The last entry with all previous events below the lower bound
+            int low = 0;
+            int high = entryCount - 1;
+            int found = -1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                if (entries.getLong(mid * INDEX_ENTRY_BYTES) < lowerBound) {
+                    found = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            if (found < 0) {
+                return FIRST_EVENT_OFFSET;
+            }
+            final long offset = entries.getLong(found * INDEX_ENTRY_BYTES + Long.BYTES);
+            if (offset < FIRST_EVENT_OFFSET || offset >= endOfEvents) {
+                // Should never happen in a file written by this class
+                return FIRST_EVENT_OFFSET;
+            }
+            return offset;
+        }
+    }
+
+    @NonNull
+    private static ByteBuffer readFully(@NonNull final FileChannel channel, final long offset, final int length)
+            throws IOException {
+        final ByteBuffer buf = ByteBuffer.allocate(length);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, offset + buf.position()) < 0) {
+                throw new EOFException("Unexpected end of file at " + (offset + buf.position()));
+            }
+        }
+        return buf;
+    }
+}
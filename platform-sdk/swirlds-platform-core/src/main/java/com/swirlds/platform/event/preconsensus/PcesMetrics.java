@@ -83,6 +83,28 @@ public class PcesMetrics {
             .withDescription("The age of the oldest preconsensus event file, in seconds.");
     private final LongGauge preconsensusEventFileOldestSeconds;
 
+    private static final RunningAverageMetric.Config PRECONSENSUS_EVENT_SYNC_BATCH_SIZE_CONFIG =
+            new RunningAverageMetric.Config(CATEGORY, "preconsensusEventSyncBatchSize")
+                    .withUnit("count")
+                    .withDescription("The average number of preconsensus events made durable by a single fsync. "
+                            + "Only updated if group commits are enabled.");
+    private final RunningAverageMetric preconsensusEventSyncBatchSize;
+
+    private static final RunningAverageMetric.Config PRECONSENSUS_EVENT_SYNC_LATENCY_CONFIG =
+            new RunningAverageMetric.Config(CATEGORY, "preconsensusEventSyncLatencyMicros")
+                    .withUnit("microseconds")
+                    .withDescription("The average time of a single preconsensus event file fsync, in microseconds. "
+                            + "Only updated if group commits are enabled.");
+    private final RunningAverageMetric preconsensusEventSyncLatencyMicros;
+
+    private static final RunningAverageMetric.Config PRECONSENSUS_EVENT_DURABILITY_LAG_CONFIG =
+            new RunningAverageMetric.Config(CATEGORY, "preconsensusEventDurabilityLagMillis")
+                    .withUnit("milliseconds")
+                    .withDescription("The average time between a preconsensus event flush request becoming ready "
+                            + "and the events becoming durable, in milliseconds. Only updated if group commits "
+                            + "are enabled.");
+    private final RunningAverageMetric preconsensusEventDurabilityLagMillis;
+
     /**
      * Construct preconsensus event metrics.
      *
@@ -100,6 +122,9 @@ public class PcesMetrics {
         preconsensusEventFileYoungestIdentifier =
                 metrics.getOrCreate(PRECONSENSUS_EVENT_FILE_YOUNGEST_IDENTIFIER_CONFIG);
         preconsensusEventFileOldestSeconds = metrics.getOrCreate(PRECONSENSUS_EVENT_FILE_OLDEST_SECONDS_CONFIG);
+        preconsensusEventSyncBatchSize = metrics.getOrCreate(PRECONSENSUS_EVENT_SYNC_BATCH_SIZE_CONFIG);
+        preconsensusEventSyncLatencyMicros = metrics.getOrCreate(PRECONSENSUS_EVENT_SYNC_LATENCY_CONFIG);
+        preconsensusEventDurabilityLagMillis = metrics.getOrCreate(PRECONSENSUS_EVENT_DURABILITY_LAG_CONFIG);
     }
 
     /**
@@ -164,4 +189,26 @@ public class PcesMetrics {
     public LongGauge getPreconsensusEventFileOldestSeconds() {
         return preconsensusEventFileOldestSeconds;
     }
+
+    /**
+     * Get the metric tracking the average number of events made durable by a single fsync.
+     */
+    public RunningAverageMetric getPreconsensusEventSyncBatchSize() {
+        return preconsensusEventSyncBatchSize;
+    }
+
+    /**
+     * Get the metric tracking the average fsync time, in microseconds.
+     */
+    public RunningAverageMetric getPreconsensusEventSyncLatencyMicros() {
+        return preconsensusEventSyncLatencyMicros;
+    }
+
+    /**
+     * Get the metric tracking the average time between a flush request becoming ready and the events becoming durable,
+     * in milliseconds.
+     */
+    public RunningAverageMetric getPreconsensusEventDurabilityLagMillis() {
+        return preconsensusEventDurabilityLagMillis;
+    }
 }
@@ -20,10 +20,20 @@ import com.swirlds.common.io.IOIterator;
 import com.swirlds.platform.event.AncientMode;
 import com.swirlds.platform.event.PlatformEvent;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 /**
  * Iterates over events from a sequence of preconsensus event files.
@@ -37,6 +47,40 @@ public class PcesMultiFileIterator implements IOIterator<PlatformEvent> {
     private PlatformEvent next;
     private int truncatedFileCount = 0;
 
+    /**
+     * Reads files ahead of the events being returned, or null if files are read one at a time by the calling thread.
+     */
+    @Nullable
+    private final Executor prefetchExecutor;
+
+    /**
+     * The maximum number of files read ahead at the same time.
+     */
+    private final int prefetchFileCount;
+
+    /**
+     * Files being read ahead, in file order.
+     */
+    private final Deque<Future<PrefetchedFile>> prefetchedFiles = new ArrayDeque<>();
+
+    /**
+     * The file currently being returned when files are read ahead.
+     */
+    private PrefetchedFile currentFile;
+
+    /**
+     * Iterates over the events of {@link #currentFile}.
+     */
+    private Iterator<PlatformEvent> currentFileEvents;
+
+    /**
+     * The events of a file that was read ahead.
+     *
+     * @param events          the events in the file, in file order
+     * @param hasPartialEvent true if the file ended with a partial event
+     */
+    private record PrefetchedFile(@NonNull List<PlatformEvent> events, boolean hasPartialEvent) {}
+
     /**
      * Create an iterator that walks over events in a series of event files.
      *
@@ -49,16 +93,46 @@ public class PcesMultiFileIterator implements IOIterator<PlatformEvent> {
             final long lowerBound,
             @NonNull final Iterator<PcesFile> fileIterator,
             @NonNull final AncientMode fileType) {
+        this(lowerBound, fileIterator, fileType, null, 0);
+    }
+
+    /**
+     * Create an iterator that walks over events in a series of event files, reading and deserializing several files in
+     * parallel ahead of the events being returned. Events are still returned in file order.
+     *
+     * @param lowerBound        the minimum ancient indicator of events to return, events with lower ancient
+     *                          indicators are not returned
+     * @param fileIterator      an iterator that walks over event files
+     * @param fileType          the type of file to read
+     * @param prefetchExecutor  reads files ahead, if null then files are read one at a time by the calling thread
+     * @param prefetchFileCount the maximum number of files read ahead at the same time, if 0 then files are read one
+     *                          at a time by the calling thread
+     */
+    public PcesMultiFileIterator(
+            final long lowerBound,
+            @NonNull final Iterator<PcesFile> fileIterator,
+            @NonNull final AncientMode fileType,
+            @Nullable final Executor prefetchExecutor,
+            final int prefetchFileCount) {
 
         this.fileIterator = Objects.requireNonNull(fileIterator);
         this.lowerBound = lowerBound;
         this.fileType = Objects.requireNonNull(fileType);
+        if (prefetchFileCount < 0) {
+            throw new IllegalArgumentException("Prefetch file count must not be negative: " + prefetchFileCount);
+        }
+        this.prefetchExecutor = prefetchFileCount > 0 ? prefetchExecutor : null;
+        this.prefetchFileCount = prefetchFileCount;
     }
 
     /**
      * Find the next event that should be returned.
      */
     private void findNext() throws IOException {
+        if (prefetchExecutor != null) {
+            findNextPrefetched();
+            return;
+        }
         while (next == null) {
             if (currentIterator == null || !currentIterator.hasNext()) {
                 if (currentIterator != null && currentIterator.hasPartialEvent()) {
@@ -76,6 +150,81 @@ public class PcesMultiFileIterator implements IOIterator<PlatformEvent> {
         }
     }
 
+    /**
+     * Find the next event that should be returned, when files are read ahead.
+     */
+    private void findNextPrefetched() throws IOException {
+        while (next == null) {
+            if (currentFileEvents != null && currentFileEvents.hasNext()) {
+                next = currentFileEvents.next();
+                break;
+            }
+            if (currentFile != null && currentFile.hasPartialEvent()) {
+                truncatedFileCount++;
+            }
+            currentFile = null;
+            currentFileEvents = null;
+
+            while (prefetchedFiles.size() < prefetchFileCount && fileIterator.hasNext()) {
+                final PcesFile file = fileIterator.next();
+                final FutureTask<PrefetchedFile> task = new FutureTask<>(() -> readFile(file));
+                prefetchExecutor.execute(task);
+                prefetchedFiles.add(task);
+            }
+
+            final Future<PrefetchedFile> nextFile = prefetchedFiles.poll();
+            if (nextFile == null) {
+                break;
+            }
+            currentFile = awaitFile(nextFile);
+            currentFileEvents = currentFile.events().iterator();
+        }
+    }
+
+    /**
+     * Read all events from a file that aren't below the lower bound.
+     *
+     * @param file the file to read
+     * @return the events in the file
+     */
+    @NonNull
+    private PrefetchedFile readFile(@NonNull final PcesFile file) throws IOException {
+        final PcesFileIterator iterator = new PcesFileIterator(file, lowerBound, fileType);
+        final List<PlatformEvent> events = new ArrayList<>();
+        while (iterator.hasNext()) {
+            events.add(iterator.next());
+        }
+        return new PrefetchedFile(events, iterator.hasPartialEvent());
+    }
+
+    /**
+     * Wait for a file that is being read ahead.
+     *
+     * @param future the future of the file
+     * @return the events in the file
+     */
+    @NonNull
+    private static PrefetchedFile awaitFile(@NonNull final Future<PrefetchedFile> future) throws IOException {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while reading preconsensus event files", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof final IOException ioException) {
+                throw ioException;
+            } else if (cause instanceof final UncheckedIOException uncheckedIOException) {
+                throw uncheckedIOException.getCause();
+            } else if (cause instanceof final RuntimeException runtimeException) {
+                throw runtimeException;
+            } else if (cause instanceof final Error error) {
+                throw error;
+            }
+            throw new IOException("unable to read preconsensus event file", cause);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
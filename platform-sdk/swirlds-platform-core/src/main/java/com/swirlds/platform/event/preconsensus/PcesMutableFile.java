@@ -22,6 +22,7 @@ import com.swirlds.common.io.extendable.extensions.CountingStreamExtension;
 import com.swirlds.common.io.streams.SerializableDataOutputStream;
 import com.swirlds.platform.event.PlatformEvent;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.BufferedOutputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -49,16 +50,43 @@ public class PcesMutableFile {
     private long highestAncientIdentifierInFile;
 
     /**
-     * The output stream to write to.
+     * The output stream to write to. Null if the file is written through a memory mapped segment.
      */
+    @Nullable
     private final SerializableDataOutputStream out;
 
+    /**
+     * The underlying file stream, used to force written data to the storage device. Null if the file is written
+     * through a memory mapped segment.
+     */
+    @Nullable
+    private final FileOutputStream fileOut;
+
+    /**
+     * Writes the file in the {@link PcesFileVersion#INDEXED_SEGMENTS} format. Null if the file is written through a
+     * stream.
+     */
+    @Nullable
+    private final PcesMappedSegment segment;
+
     /**
      * Create a new preconsensus event file that can be written to.
      *
      * @param descriptor a description of the file
      */
     PcesMutableFile(@NonNull final PcesFile descriptor) throws IOException {
+        this(descriptor, 0);
+    }
+
+    /**
+     * Create a new preconsensus event file that can be written to.
+     *
+     * @param descriptor  a description of the file
+     * @param segmentSize if positive, the file is preallocated in segments of this many bytes and written through a
+     *                    memory mapped buffer, see {@link PcesMappedSegment}. Otherwise, the file is written through a
+     *                    stream in the current file format.
+     */
+    PcesMutableFile(@NonNull final PcesFile descriptor, final long segmentSize) throws IOException {
         if (Files.exists(descriptor.getPath())) {
             throw new IOException("File " + descriptor.getPath() + " already exists");
         }
@@ -67,11 +95,17 @@ public class PcesMutableFile {
 
         this.descriptor = descriptor;
         counter = new CountingStreamExtension(false);
-        out = new SerializableDataOutputStream(new ExtendableOutputStream(
-                new BufferedOutputStream(
-                        new FileOutputStream(descriptor.getPath().toFile())),
-                counter));
-        out.writeInt(PcesFileVersion.currentVersionNumber());
+        if (segmentSize > 0) {
+            segment = new PcesMappedSegment(descriptor.getPath(), segmentSize);
+            fileOut = null;
+            out = null;
+        } else {
+            segment = null;
+            fileOut = new FileOutputStream(descriptor.getPath().toFile());
+            out = new SerializableDataOutputStream(
+                    new ExtendableOutputStream(new BufferedOutputStream(fileOut), counter));
+            out.writeInt(PcesFileVersion.currentVersionNumber());
+        }
         highestAncientIdentifierInFile = descriptor.getLowerBound();
     }
 
@@ -95,7 +129,11 @@ public class PcesMutableFile {
             throw new IllegalStateException("Cannot write event " + event.getHash() + " with ancient indicator "
                     + event.getAncientIndicator(descriptor.getFileType()) + " to file " + descriptor);
         }
-        out.writePbjRecord(event.getGossipEvent(), GossipEvent.PROTOBUF);
+        if (segment != null) {
+            segment.writeEvent(event.getGossipEvent(), event.getAncientIndicator(descriptor.getFileType()));
+        } else {
+            out.writePbjRecord(event.getGossipEvent(), GossipEvent.PROTOBUF);
+        }
         highestAncientIdentifierInFile =
                 Math.max(highestAncientIdentifierInFile, event.getAncientIndicator(descriptor.getFileType()));
     }
@@ -127,17 +165,38 @@ public class PcesMutableFile {
     }
 
     /**
-     * Flush the file.
+     * Flush the file. Buffered data is passed to the operating system, but may not be written to the storage device
+     * yet, see {@link #sync()}.
      */
     public void flush() throws IOException {
-        out.flush();
+        if (out != null) {
+            // Events written to a memory mapped segment are already visible to the operating system
+            out.flush();
+        }
+    }
+
+    /**
+     * Flush the file and force all its data to the storage device. Once this method returns, all events written to the
+     * file are durable even on power loss.
+     */
+    public void sync() throws IOException {
+        if (segment != null) {
+            segment.sync();
+        } else {
+            out.flush();
+            fileOut.getChannel().force(false);
+        }
     }
 
     /**
      * Close the file.
      */
     public void close() throws IOException {
-        out.close();
+        if (segment != null) {
+            segment.close();
+        } else {
+            out.close();
+        }
     }
 
     /**
@@ -146,7 +205,7 @@ public class PcesMutableFile {
      * @return the size of the file in bytes
      */
     public long fileSize() {
-        return counter.getCount();
+        return segment != null ? segment.size() : counter.getCount();
     }
 
     /**
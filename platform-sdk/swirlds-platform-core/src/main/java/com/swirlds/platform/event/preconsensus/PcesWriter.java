@@ -21,6 +21,7 @@ import com.swirlds.platform.consensus.EventWindow;
 import com.swirlds.platform.event.PlatformEvent;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
+import java.time.Instant;
 
 /**
  * This object is responsible for writing preconsensus events to disk.
@@ -69,6 +70,19 @@ public interface PcesWriter {
     @Nullable
     Long submitFlushRequest(@NonNull Long sequenceNumber);
 
+    /**
+     * Check if a pending group commit is due, and perform it if so. Only has an effect if group commits are enabled,
+     * see {@link PcesConfig#groupCommitEnabled()}. Called periodically, so flush requests are honored within the group
+     * commit window even if no new events or flush requests are received.
+     *
+     * @param now the current time
+     * @return the sequence number of the last event durably written to the stream, or null if this method call didn't
+     * result in any additional events being durably written to the stream
+     */
+    @InputWireLabel("heartbeat")
+    @Nullable
+    Long checkGroupCommit(@NonNull Instant now);
+
     /**
      * Let the event writer know the current non-ancient event boundary. Ancient events will be ignored if added to the
      * event writer.
@@ -63,10 +63,21 @@ public class EventImpl implements Clearable {
     private Instant preliminaryConsensusTimestamp;
     /** lastSee[m] is the last ancestor created by m (memoizes function from Swirlds-TR-2020-01) */
     private EventImpl[] lastSee;
+    /**
+     * the number of memoized elements in lastSee, 0 if not memoized. The array may be kept when metadata is cleared,
+     * so it can be reused when the metadata is recalculated after a round is decided, see
+     * {@link #clearMetadata(boolean)}
+     */
+    private int lastSeeSize;
     /**
      * stronglySeeP[m] is strongly-seen witness in parent round by m (memoizes function from Swirlds-TR-2020-01)
      */
     private EventImpl[] stronglySeeP;
+    /**
+     * the number of memoized elements in stronglySeeP, 0 if not memoized. The array is reused the same way as
+     * lastSee
+     */
+    private int stronglySeePSize;
     /**
      * The first witness that's a self-ancestor in the self round (memoizes function from Swirlds-TR-2020-01)
      */
@@ -261,7 +272,8 @@ public class EventImpl implements Clearable {
      * @param n number of members in the initial address book
      */
     public void initLastSee(final int n) {
-        lastSee = n == 0 ? null : new EventImpl[n];
+        lastSee = reuseOrCreate(lastSee, n);
+        lastSeeSize = n;
     }
 
     /**
@@ -269,7 +281,7 @@ public class EventImpl implements Clearable {
      *     Swirlds-TR-2020-01)
      */
     public int sizeLastSee() {
-        return lastSee == null ? 0 : lastSee.length;
+        return lastSeeSize;
     }
 
     /**
@@ -285,8 +297,8 @@ public class EventImpl implements Clearable {
      * @return strongly-seen witness in parent round (memoizes stronglySeeP function from
      *     Swirlds-TR-2020-01)
      */
-    public EventImpl[] getStronglySeeP() {
-        return stronglySeeP;
+    public @Nullable EventImpl[] getStronglySeeP() {
+        return stronglySeePSize == 0 ? null : stronglySeeP;
     }
 
     /**
@@ -307,7 +319,8 @@ public class EventImpl implements Clearable {
      * @param n number of members in AddressBook
      */
     public void initStronglySeeP(final int n) {
-        stronglySeeP = n == 0 ? null : new EventImpl[n];
+        stronglySeeP = reuseOrCreate(stronglySeeP, n);
+        stronglySeePSize = n;
     }
 
     /**
@@ -315,7 +328,24 @@ public class EventImpl implements Clearable {
      *     Swirlds-TR-2020-01)
      */
     public int sizeStronglySeeP() {
-        return stronglySeeP == null ? 0 : stronglySeeP.length;
+        return stronglySeePSize;
+    }
+
+    /**
+     * Get an array of n elements, all null, for memoized metadata. An existing array of the right size is reused, since
+     * the metadata of recent events is recalculated every time a round is decided.
+     *
+     * @param array the current array, may be null
+     * @param n     the number of elements, 0 to keep the current array for later reuse
+     * @return the array to use
+     */
+    private static @Nullable EventImpl[] reuseOrCreate(@Nullable final EventImpl[] array, final int n) {
+        if (array == null || (n != 0 && array.length != n)) {
+            return n == 0 ? null : new EventImpl[n];
+        }
+        // drop references to other events, so they can be garbage collected while the array waits to be reused
+        Arrays.fill(array, null);
+        return array;
     }
 
     /**
@@ -447,8 +477,19 @@ public class EventImpl implements Clearable {
 
     /** Clear all metadata used to calculate consensus, this metadata changes with every round */
     public void clearMetadata() {
+        clearMetadata(false);
+    }
+
+    /**
+     * Clear all metadata used to calculate consensus, this metadata changes with every round
+     *
+     * @param keepArrays true to keep the memoized lastSee and stronglySeeP arrays, so they can be reused when the
+     *                   metadata is recalculated, false to release them. Arrays should only be kept for events whose
+     *                   metadata will be recalculated, since each array holds an element per member.
+     */
+    public void clearMetadata(final boolean keepArrays) {
         clearJudgeFlags();
-        clearNonJudgeMetadata();
+        clearNonJudgeMetadata(keepArrays);
     }
 
     private void clearJudgeFlags() {
@@ -458,9 +499,16 @@ public class EventImpl implements Clearable {
         isJudge = false;
     }
 
-    private void clearNonJudgeMetadata() {
-        initLastSee(0);
-        initStronglySeeP(0);
+    private void clearNonJudgeMetadata(final boolean keepArrays) {
+        if (keepArrays) {
+            initLastSee(0);
+            initStronglySeeP(0);
+        } else {
+            lastSee = null;
+            lastSeeSize = 0;
+            stronglySeeP = null;
+            stronglySeePSize = 0;
+        }
         setFirstSelfWitnessS(null);
         setFirstWitnessS(null);
         setRecTimes(null);
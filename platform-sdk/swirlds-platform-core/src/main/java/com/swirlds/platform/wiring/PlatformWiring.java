@@ -704,6 +704,13 @@ public class PlatformWiring {
                         .getConfigData(PcesConfig.class)
                         .roundDurabilityBufferHeartbeatPeriod())
                 .solderTo(roundDurabilityBufferWiring.getInputWire(RoundDurabilityBuffer::checkForStaleRounds), OFFER);
+        final PcesConfig pcesConfig = platformContext.getConfiguration().getConfigData(PcesConfig.class);
+        if (pcesConfig.groupCommitEnabled()) {
+            // Pending group commits must be performed even if no new events or flush requests are received
+            final Duration groupCommitWindow = pcesConfig.groupCommitWindow();
+            model.buildHeartbeatWire(groupCommitWindow.isZero() ? Duration.ofMillis(1) : groupCommitWindow)
+                    .solderTo(pcesWriterWiring.getInputWire(PcesWriter::checkGroupCommit), OFFER);
+        }
 
         stateSnapshotManagerWiring
                 .getTransformedOutput(StateSnapshotManager::extractOldestMinimumGenerationOnDisk)
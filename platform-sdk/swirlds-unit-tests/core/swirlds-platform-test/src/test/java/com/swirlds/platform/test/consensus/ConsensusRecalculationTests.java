@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2024 Hedera Hashgraph, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.swirlds.platform.test.consensus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.swirlds.common.context.PlatformContext;
+import com.swirlds.common.crypto.Hash;
+import com.swirlds.common.test.fixtures.WeightGenerators;
+import com.swirlds.common.test.fixtures.platform.TestPlatformContextBuilder;
+import com.swirlds.platform.ConsensusImpl;
+import com.swirlds.platform.event.PlatformEvent;
+import com.swirlds.platform.internal.ConsensusRound;
+import com.swirlds.platform.metrics.NoOpConsensusMetrics;
+import com.swirlds.platform.test.event.emitter.EventEmitter;
+import com.swirlds.platform.test.event.emitter.ShuffledEventEmitter;
+import com.swirlds.platform.test.event.emitter.StandardEventEmitter;
+import com.swirlds.platform.test.event.source.EventSourceFactory;
+import com.swirlds.platform.test.fixtures.event.generator.StandardGraphGenerator;
+import com.swirlds.platform.test.fixtures.event.source.EventSource;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+@DisplayName("Consensus Recalculation Tests")
+class ConsensusRecalculationTests {
+
+    /**
+     * The metadata of recent events is recalculated every time a round is decided. The memoized arrays of events that
+     * stay in the recent events are reused, and those of consensus and ancient events are released. Feeding the same
+     * graph in a different topological order recalculates different events after each round, so both orders must
+     * still produce the same consensus rounds.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {4, 10, 39})
+    void recalculationAcrossRoundsKeepsConsensusOrder(final int numNodes) {
+        final long seed = 0;
+        final int numEvents = 5_000;
+
+        final PlatformContext platformContext =
+                TestPlatformContextBuilder.create().build();
+        final List<EventSource<?>> eventSources =
+                EventSourceFactory.newStandardEventSources(WeightGenerators.balancedNodeWeights(numNodes));
+        final StandardGraphGenerator generator = new StandardGraphGenerator(platformContext, seed, eventSources);
+        final StandardGraphGenerator shuffledGenerator = generator.cleanCopy();
+
+        final List<ConsensusRound> rounds =
+                calculateConsensus(platformContext, new StandardEventEmitter(generator), numEvents);
+        final List<ConsensusRound> shuffledRounds =
+                calculateConsensus(platformContext, new ShuffledEventEmitter(shuffledGenerator, seed), numEvents);
+
+        // the shuffled emitter doesn't emit exactly the same events, so only the rounds decided by both are compared
+        final int commonRounds = Math.min(rounds.size(), shuffledRounds.size());
+        assertTrue(commonRounds >= 5, "Consensus should be recalculated across several rounds");
+        for (int i = 0; i < commonRounds; i++) {
+            final ConsensusRound round = rounds.get(i);
+            final ConsensusRound shuffledRound = shuffledRounds.get(i);
+            assertEquals(round.getRoundNum(), shuffledRound.getRoundNum(), "Rounds should be decided in order");
+            assertEquals(
+                    eventHashes(round),
+                    eventHashes(shuffledRound),
+                    "Round " + round.getRoundNum() + " should have the same consensus events in the same order");
+        }
+    }
+
+    private static List<ConsensusRound> calculateConsensus(
+            final PlatformContext platformContext, final EventEmitter<?> emitter, final int numEvents) {
+        final ConsensusImpl consensus = new ConsensusImpl(
+                platformContext,
+                new NoOpConsensusMetrics(),
+                emitter.getGraphGenerator().getAddressBook());
+        final List<ConsensusRound> rounds = new ArrayList<>();
+        for (int i = 0; i < numEvents; i++) {
+            rounds.addAll(consensus.addEvent(emitter.emitEvent()));
+        }
+        return rounds;
+    }
+
+    private static List<Hash> eventHashes(final ConsensusRound round) {
+        return round.getConsensusEvents().stream().map(PlatformEvent::getHash).toList();
+    }
+}
@@ -588,4 +588,72 @@ class PcesReadWriteTests {
         assertFalse(iterator.hasNext());
         assertThrows(NoSuchElementException.class, iterator::next);
     }
+
+    @ParameterizedTest
+    @MethodSource("buildArguments")
+    @DisplayName("Mapped Segment Test")
+    void mappedSegmentTest(@NonNull final AncientMode ancientMode) throws IOException {
+        final Random random = RandomUtils.getRandomPrintSeed();
+
+        final int numEvents = 200;
+
+        final StandardGraphGenerator generator = new StandardGraphGenerator(
+                ancientMode == GENERATION_THRESHOLD ? DEFAULT_PLATFORM_CONTEXT : BIRTH_ROUND_PLATFORM_CONTEXT,
+                random.nextLong(),
+                new StandardEventSource(),
+                new StandardEventSource(),
+                new StandardEventSource(),
+                new StandardEventSource());
+
+        final List<PlatformEvent> events = new ArrayList<>();
+        for (int i = 0; i < numEvents; i++) {
+            events.add(generator.generateEvent().getBaseEvent());
+        }
+
+        long upperBound = Long.MIN_VALUE;
+        for (final PlatformEvent event : events) {
+            upperBound = Math.max(upperBound, event.getAncientIndicator(ancientMode));
+        }
+
+        final long middle = upperBound / 2;
+
+        // Small segments, so the file has to be extended several times
+        final long segmentSize = 4096;
+
+        final PcesFile file = PcesFile.of(ancientMode, Instant.now(), 0, 0, upperBound, 0, testDirectory);
+        final PcesMutableFile mutableFile = file.getMutableFile(segmentSize);
+        for (final PlatformEvent event : events) {
+            mutableFile.writeEvent(event);
+        }
+        mutableFile.close();
+        assertEquals(Files.size(file.getPath()), mutableFile.fileSize(), "Preallocated space should be truncated");
+
+        final List<PlatformEvent> deserializedEvents = new ArrayList<>();
+        file.iterator(Long.MIN_VALUE).forEachRemaining(deserializedEvents::add);
+        assertEquals(events, deserializedEvents);
+
+        // The index is used to skip ancient events
+        final List<PlatformEvent> nonAncientEvents = events.stream()
+                .filter(event -> event.getAncientIndicator(ancientMode) >= middle)
+                .toList();
+        final List<PlatformEvent> deserializedNonAncientEvents = new ArrayList<>();
+        file.iterator(middle).forEachRemaining(deserializedNonAncientEvents::add);
+        assertEquals(nonAncientEvents, deserializedNonAncientEvents);
+
+        // A file that was never closed has no index, and ends with preallocated space
+        final PcesFile unclosedFile = PcesFile.of(ancientMode, Instant.now(), 1, 0, upperBound, 0, testDirectory);
+        final PcesMutableFile unclosedMutableFile = unclosedFile.getMutableFile(segmentSize);
+        for (final PlatformEvent event : events) {
+            unclosedMutableFile.writeEvent(event);
+        }
+        unclosedMutableFile.sync();
+        assertEquals(0, Files.size(unclosedFile.getPath()) % segmentSize, "File should be preallocated in segments");
+
+        final PcesFileIterator iterator = unclosedFile.iterator(middle);
+        final List<PlatformEvent> recoveredEvents = new ArrayList<>();
+        iterator.forEachRemaining(recoveredEvents::add);
+        assertEquals(nonAncientEvents, recoveredEvents);
+        assertFalse(iterator.hasPartialEvent());
+        unclosedMutableFile.close();
+    }
 }
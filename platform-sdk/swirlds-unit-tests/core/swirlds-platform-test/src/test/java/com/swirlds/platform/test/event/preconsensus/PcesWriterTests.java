@@ -81,6 +81,8 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.AfterAll;
@@ -142,6 +144,17 @@ class PcesWriterTests {
         assertFalse(eventsIterator.hasNext());
         assertEquals(truncatedFileCount, eventsIterator.getTruncatedFileCount());
 
+        // Files read ahead in parallel should yield the same events in the same order
+        try (final ExecutorService prefetchExecutor = Executors.newFixedThreadPool(3)) {
+            final PcesMultiFileIterator prefetchingIterator = pcesFiles.getEventIterator(0, 0, prefetchExecutor, 3);
+            for (final PlatformEvent event : events) {
+                assertTrue(prefetchingIterator.hasNext());
+                assertEquals(event, prefetchingIterator.next());
+            }
+            assertFalse(prefetchingIterator.hasNext());
+            assertEquals(truncatedFileCount, prefetchingIterator.getTruncatedFileCount());
+        }
+
         // Make sure things look good when iterating starting in the middle of the stream that was written
         final long startingLowerBound = lastAncientIdentifier / 2;
         final IOIterator<PlatformEvent> eventsIterator2 = pcesFiles.getEventIterator(startingLowerBound, 0);
@@ -358,6 +371,78 @@ class PcesWriterTests {
         writer.closeCurrentMutableFile();
     }
 
+    @ParameterizedTest
+    @MethodSource("buildArguments")
+    @DisplayName("Group Commit Test")
+    void groupCommitTest(@NonNull final AncientMode ancientMode) throws IOException {
+        final Random random = RandomUtils.getRandomPrintSeed();
+
+        final Configuration configuration = new TestConfigBuilder()
+                .withValue(PcesConfig_.DATABASE_DIRECTORY, testDirectory)
+                .withValue(FileSystemManagerConfig_.ROOT_PATH, testDirectory)
+                .withValue(PcesConfig_.PREFERRED_FILE_SIZE_MEGABYTES, 5)
+                .withValue(PcesConfig_.GROUP_COMMIT_ENABLED, true)
+                .withValue(PcesConfig_.GROUP_COMMIT_WINDOW, "1s")
+                .withValue(TransactionConfig_.MAX_TRANSACTION_BYTES_PER_EVENT, Integer.MAX_VALUE)
+                .withValue(TransactionConfig_.MAX_TRANSACTION_COUNT_PER_EVENT, Integer.MAX_VALUE)
+                .withValue(TransactionConfig_.TRANSACTION_MAX_BYTES, Integer.MAX_VALUE)
+                .withValue(EventConfig_.USE_BIRTH_ROUND_ANCIENT_THRESHOLD, ancientMode == BIRTH_ROUND_THRESHOLD)
+                .getOrCreateConfig();
+        final FakeTime time = new FakeTime();
+        final PlatformContext platformContext = TestPlatformContextBuilder.create()
+                .withConfiguration(configuration)
+                .withTime(time)
+                .build();
+
+        final StandardGraphGenerator generator = buildGraphGenerator(platformContext, random);
+        final PcesSequencer sequencer = new DefaultPcesSequencer();
+        final PcesFileTracker pcesFiles = new PcesFileTracker(ancientMode);
+
+        final PcesFileManager fileManager = new PcesFileManager(platformContext, pcesFiles, selfId, 0);
+        final DefaultPcesWriter writer = new DefaultPcesWriter(platformContext, fileManager);
+        final AtomicLong latestDurableSequenceNumber = new AtomicLong(-1);
+
+        final List<PlatformEvent> events = new LinkedList<>();
+        for (int i = 0; i < numEvents; i++) {
+            events.add(generator.generateEventWithoutIndex().getBaseEvent());
+        }
+
+        writer.beginStreamingNewEvents();
+
+        for (final PlatformEvent event : events) {
+            sequencer.assignStreamSequenceNumber(event);
+            passValueToDurabilityNexus(writer.writeEvent(event), latestDurableSequenceNumber);
+
+            if (random.nextInt(10) == 0) {
+                // flush requests are not honored until the group commit window elapses
+                assertNull(writer.submitFlushRequest(event.getStreamSequenceNumber()));
+                assertNull(writer.checkGroupCommit(time.now()));
+                assertTrue(latestDurableSequenceNumber.get() < event.getStreamSequenceNumber());
+
+                if (random.nextBoolean()) {
+                    // a single group commit covers all events written so far
+                    time.tick(Duration.ofSeconds(1));
+                    passValueToDurabilityNexus(writer.checkGroupCommit(time.now()), latestDurableSequenceNumber);
+                    assertEquals(event.getStreamSequenceNumber(), latestDurableSequenceNumber.get());
+                }
+            }
+        }
+
+        // no flush requests are pending, nothing to commit
+        time.tick(Duration.ofSeconds(1));
+        assertNull(writer.checkGroupCommit(time.now()));
+
+        passValueToDurabilityNexus(
+                writer.submitFlushRequest(events.getLast().getStreamSequenceNumber()), latestDurableSequenceNumber);
+        time.tick(Duration.ofSeconds(1));
+        passValueToDurabilityNexus(writer.checkGroupCommit(time.now()), latestDurableSequenceNumber);
+        assertEquals(events.getLast().getStreamSequenceNumber(), latestDurableSequenceNumber.get());
+
+        verifyStream(events, platformContext, 0, ancientMode);
+
+        writer.closeCurrentMutableFile();
+    }
+
     @ParameterizedTest
     @MethodSource("buildArguments")
     @DisplayName("Ancient Event Test")
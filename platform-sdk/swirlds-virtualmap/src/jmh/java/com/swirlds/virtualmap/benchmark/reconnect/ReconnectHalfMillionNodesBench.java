@@ -16,7 +16,11 @@
 
 package com.swirlds.virtualmap.benchmark.reconnect;
 
+import com.swirlds.common.config.singleton.ConfigurationHolder;
 import com.swirlds.common.constructable.ConstructableRegistryException;
+import com.swirlds.common.merkle.synchronization.config.ReconnectConfig;
+import com.swirlds.config.api.Configuration;
+import com.swirlds.virtualmap.config.VirtualMapReconnectMode;
 import com.swirlds.virtualmap.test.fixtures.TestKey;
 import com.swirlds.virtualmap.test.fixtures.TestValue;
 import java.io.FileNotFoundException;
@@ -27,6 +31,7 @@ import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
@@ -38,6 +43,22 @@ public class ReconnectHalfMillionNodesBench extends VirtualMapReconnectBenchBase
     private static final Map<TestKey, TestValue> testTeacherMap = new HashMap<>();
     private static final Map<TestKey, TestValue> testLearnerMap = new HashMap<>();
 
+    /** Whether reconnect streams are compressed. */
+    @Param({"false", "true"})
+    public boolean streamCompression;
+
+    /** Virtual map reconnect mode, see {@link VirtualMapReconnectMode}. */
+    @Param({VirtualMapReconnectMode.PUSH, VirtualMapReconnectMode.PULL_TOP_TO_BOTTOM})
+    public String reconnectMode;
+
+    /** Max number of contiguous paths in a single learner request, used in pull reconnect modes only. */
+    @Param({"1", "64"})
+    public int pullMaxRangeSize;
+
+    /** Simulated latency for every message sent by the teacher and the learner, in milliseconds. */
+    @Param({"0"})
+    public int latency;
+
     static {
         try {
             VirtualMapReconnectBenchBase.startup();
@@ -54,6 +75,11 @@ public class ReconnectHalfMillionNodesBench extends VirtualMapReconnectBenchBase
     @Setup(Level.Invocation)
     @Override
     public void setupEach() {
+        final Configuration configuration = buildConfiguration(reconnectMode, streamCompression, pullMaxRangeSize);
+        // Virtual maps read the reconnect mode from the global configuration
+        ConfigurationHolder.getInstance().setConfiguration(configuration);
+        reconnectConfig = configuration.getConfigData(ReconnectConfig.class);
+        latencyMilliseconds = latency;
         super.setupEach();
 
         testTeacherMap.entrySet().forEach(e -> teacherMap.put(e.getKey(), e.getValue()));
@@ -20,6 +20,7 @@ import static com.swirlds.common.test.fixtures.io.ResourceLoader.loadLog4jContex
 
 import com.swirlds.common.constructable.ClassConstructorPair;
 import com.swirlds.common.constructable.ConstructableRegistry;
+import com.swirlds.common.config.singleton.ConfigurationHolder;
 import com.swirlds.common.constructable.ConstructableRegistryException;
 import com.swirlds.common.merkle.MerkleInternal;
 import com.swirlds.common.merkle.synchronization.config.ReconnectConfig;
@@ -28,8 +29,11 @@ import com.swirlds.common.merkle.synchronization.task.QueryResponse;
 import com.swirlds.common.test.fixtures.merkle.dummy.DummyMerkleInternal;
 import com.swirlds.common.test.fixtures.merkle.dummy.DummyMerkleLeaf;
 import com.swirlds.common.test.fixtures.merkle.util.MerkleTestUtils;
+import com.swirlds.config.api.Configuration;
 import com.swirlds.config.extensions.test.fixtures.TestConfigBuilder;
 import com.swirlds.virtualmap.VirtualMap;
+import com.swirlds.virtualmap.config.VirtualMapConfig_;
+import com.swirlds.virtualmap.config.VirtualMapReconnectMode;
 import com.swirlds.virtualmap.datasource.VirtualDataSourceBuilder;
 import com.swirlds.virtualmap.internal.merkle.VirtualMapState;
 import com.swirlds.virtualmap.internal.merkle.VirtualRootNode;
@@ -57,12 +61,29 @@ public abstract class VirtualMapReconnectBenchBase {
     protected VirtualDataSourceBuilder teacherBuilder;
     protected VirtualDataSourceBuilder learnerBuilder;
 
-    protected final ReconnectConfig reconnectConfig = new TestConfigBuilder()
-            // This is lower than the default, helps test that is supposed to fail to finish faster.
-            .withValue(ReconnectConfig_.ASYNC_STREAM_TIMEOUT, "5s")
-            .withValue(ReconnectConfig_.MAX_ACK_DELAY, "1000ms")
-            .getOrCreateConfig()
-            .getConfigData(ReconnectConfig.class);
+    protected ReconnectConfig reconnectConfig =
+            buildConfiguration(VirtualMapReconnectMode.PUSH, false, 64).getConfigData(ReconnectConfig.class);
+
+    /**
+     * Simulated latency for every message sent by the teacher and the learner, in milliseconds.
+     */
+    protected int latencyMilliseconds = 0;
+
+    /**
+     * Build a configuration for a reconnect benchmark. The reconnect mode is only used by virtual maps
+     * created after the configuration is set to {@link ConfigurationHolder}.
+     */
+    protected static Configuration buildConfiguration(
+            final String reconnectMode, final boolean streamCompression, final int pullMaxRangeSize) {
+        return new TestConfigBuilder()
+                // This is lower than the default, helps test that is supposed to fail to finish faster.
+                .withValue(ReconnectConfig_.ASYNC_STREAM_TIMEOUT, "5s")
+                .withValue(ReconnectConfig_.MAX_ACK_DELAY, "1000ms")
+                .withValue(ReconnectConfig_.STREAM_COMPRESSION, streamCompression)
+                .withValue(ReconnectConfig_.PULL_MAX_RANGE_SIZE, pullMaxRangeSize)
+                .withValue(VirtualMapConfig_.RECONNECT_MODE, reconnectMode)
+                .getOrCreateConfig();
+    }
 
     protected VirtualDataSourceBuilder createBuilder() {
         return new InMemoryBuilder();
@@ -104,7 +125,8 @@ public abstract class VirtualMapReconnectBenchBase {
         final VirtualMap<TestKey, TestValue> copy = teacherMap.copy();
         final MerkleInternal learnerTree = createTreeForMap(learnerMap);
         try {
-            final var node = MerkleTestUtils.hashAndTestSynchronization(learnerTree, teacherTree, reconnectConfig);
+            final var node = MerkleTestUtils.hashAndTestSynchronization(
+                    learnerTree, teacherTree, latencyMilliseconds, reconnectConfig);
             node.release();
             final VirtualRoot root = learnerMap.getRight();
             Assertions.assertTrue(root.isHashed(), "Learner root node must be hashed");
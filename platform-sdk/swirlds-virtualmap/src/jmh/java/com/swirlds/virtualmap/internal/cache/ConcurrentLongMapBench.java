@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2024 Hedera Hashgraph, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.swirlds.virtualmap.internal.cache; // NOSONAR: Needed to benchmark internal classes
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares {@link ConcurrentLongMap} with {@link ConcurrentHashMap} of boxed keys, as used by
+ * {@link VirtualNodeCache} path indexes. Run with {@code -prof gc} to see allocation rates.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 10, time = 15)
+@Threads(4)
+public class ConcurrentLongMapBench {
+
+    @Param({"1000000"})
+    public int size;
+
+    @Param({"chm", "long"})
+    public String mapType;
+
+    private ConcurrentHashMap<Long, Object> chm;
+    private ConcurrentLongMap<Object> longMap;
+
+    private static final Object VALUE = new Object();
+
+    @Setup(Level.Iteration)
+    public void setupPerIteration() {
+        chm = new ConcurrentHashMap<>();
+        longMap = new ConcurrentLongMap<>();
+        for (long i = 0; i < size; i++) {
+            if ("chm".equals(mapType)) {
+                chm.put(i, VALUE);
+            } else {
+                longMap.put(i, VALUE);
+            }
+        }
+    }
+
+    @Benchmark
+    public void get(final Blackhole blackhole) {
+        final long path = ThreadLocalRandom.current().nextLong(size);
+        if ("chm".equals(mapType)) {
+            blackhole.consume(chm.get(path));
+        } else {
+            blackhole.consume(longMap.get(path));
+        }
+    }
+
+    /**
+     * Puts new paths and then removes them, similar to how paths are added to the cache and later
+     * purged, when the cache is released.
+     */
+    @Benchmark
+    public void computeAndPurge(final Blackhole blackhole) {
+        final long path = size + ThreadLocalRandom.current().nextLong(size);
+        if ("chm".equals(mapType)) {
+            blackhole.consume(chm.compute(path, (k, v) -> VALUE));
+            blackhole.consume(chm.compute(path, (k, v) -> null));
+        } else {
+            blackhole.consume(longMap.compute(path, (k, v) -> VALUE));
+            blackhole.consume(longMap.compute(path, (k, v) -> null));
+        }
+    }
+
+    @Benchmark
+    public void computeExisting(final Blackhole blackhole) {
+        final long path = ThreadLocalRandom.current().nextLong(size);
+        if ("chm".equals(mapType)) {
+            blackhole.consume(chm.compute(path, (k, v) -> VALUE));
+        } else {
+            blackhole.consume(longMap.compute(path, (k, v) -> VALUE));
+        }
+    }
+}
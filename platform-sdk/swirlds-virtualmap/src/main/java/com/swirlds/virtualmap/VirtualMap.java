@@ -460,7 +460,8 @@ public final class VirtualMap<K extends VirtualKey, V extends VirtualValue> exte
     /**
      * Puts the key/value pair into the map. The key must not be null, but the value
      * may be null. The previous value, if it existed, is returned. If the entry was already in the map,
-     * the value is replaced. If the mapping was not in the map, then a new entry is made.
+     * the value is replaced. If the mapping was not in the map, then a new entry is made. The value must
+     * not be changed in place after this call, use {@link #getForModify(VirtualKey)} to modify it.
      *
      * @param key
      * 		the key, cannot be null.
@@ -474,7 +475,8 @@ public final class VirtualMap<K extends VirtualKey, V extends VirtualValue> exte
     /**
      * Replace the given key with the given value. Only has an effect if the key already exists
      * in the map. Returns the value on success. Throws an IllegalStateException if the key doesn't
-     * exist in the map.
+     * exist in the map. The value must not be changed in place after this call, use {@link
+     * #getForModify(VirtualKey)} to modify it.
      *
      * @param key
      * 		The key. Cannot be null.
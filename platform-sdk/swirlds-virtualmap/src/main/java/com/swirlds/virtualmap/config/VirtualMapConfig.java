@@ -87,6 +87,23 @@ import java.time.Duration;
  * 		increase the amount of time required to make a fast copy by this amount of time.
  * @param maximumFlushThrottlePeriod
  * 		The maximum amount of time that any virtual map fast copy will be delayed due to a flush backlog.
+ * @param virtualHasherBatchHashing
+ *      If true, the virtual hasher hashes all internal nodes at the same rank of a task as a single batch,
+ *      see {@link com.swirlds.common.crypto.Cryptography#digestBatchSync}. Batches are larger when
+ *      {@link #virtualHasherChunkHeight()} is larger.
+ * @param speculativeHashing
+ *      If true, leaves updated in a mutable virtual map copy are hashed in background, while the copy is
+ *      still being modified. When the copy is hashed, these precomputed leaf hashes are used for all leaves
+ *      that haven't been changed since they were hashed in background. Values passed to put() or replace()
+ *      must not be changed in place afterwards, other than through getForModify().
+ * @param speculativeHashingBatchSize
+ *      The number of updated leaves to collect before they are submitted for background hashing. Only used
+ *      if {@link #speculativeHashing()} is true.
+ * @param reconnectCheckpoints
+ *      If true, when a learner reconnect fails, the nodes already flushed to disk during reconnect (see
+ *      {@link #reconnectFlushInterval()}) are preserved along with the list of verified subtrees. The next
+ *      reconnect of the same learner state is resumed from this checkpoint, and only subtrees that don't
+ *      match the teacher are transferred again.
  */
 @ConfigData("virtualMap")
 public record VirtualMapConfig(
@@ -109,7 +126,11 @@ public record VirtualMapConfig(
         @ConfigProperty(defaultValue = "2000000000") long familyThrottleThreshold,
         @ConfigProperty(defaultValue = "10000") int preferredFlushQueueSize,
         @ConfigProperty(defaultValue = "200ms") Duration flushThrottleStepSize,
-        @ConfigProperty(defaultValue = "5s") Duration maximumFlushThrottlePeriod) {
+        @ConfigProperty(defaultValue = "5s") Duration maximumFlushThrottlePeriod,
+        @ConfigProperty(defaultValue = "false") boolean virtualHasherBatchHashing,
+        @ConfigProperty(defaultValue = "false") boolean speculativeHashing,
+        @Min(1) @ConfigProperty(defaultValue = "1024") int speculativeHashingBatchSize,
+        @ConfigProperty(defaultValue = "false") boolean reconnectCheckpoints) {
 
     private static final double UNIT_FRACTION_PERCENT = 100.0;
 
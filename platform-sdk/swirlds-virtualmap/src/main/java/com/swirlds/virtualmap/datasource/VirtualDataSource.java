@@ -26,6 +26,8 @@ import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.stream.Stream;
 
 /**
@@ -138,6 +140,31 @@ public interface VirtualDataSource {
     @Nullable
     VirtualLeafBytes loadLeafRecord(final Bytes keyBytes, final int keyHashCode) throws IOException;
 
+    /**
+     * Load virtual record bytes for a batch of leaf nodes by keys. This method is functionally
+     * equivalent to calling {@link #loadLeafRecord(Bytes, int)} for every key in the batch, but
+     * data source implementations may batch and parallelize disk reads, which is much faster
+     * than individual lookups, e.g. when warming caches or during reconnects.
+     *
+     * @param keyBytes the key bytes for the leaves
+     * @param keyHashCodes the key hash codes, in the same order as the keys
+     * @return a list of leaf records in the same order as the keys. If no record is stored for a
+     *      key, the corresponding element in the list is null
+     * @throws IOException if there was a problem reading the leaf records
+     */
+    @NonNull
+    default List<VirtualLeafBytes> loadLeafRecords(
+            @NonNull final List<Bytes> keyBytes, @NonNull final int[] keyHashCodes) throws IOException {
+        if (keyBytes.size() != keyHashCodes.length) {
+            throw new IllegalArgumentException("Number of keys and key hash codes don't match");
+        }
+        final List<VirtualLeafBytes> result = new ArrayList<>(keyBytes.size());
+        for (int i = 0; i < keyHashCodes.length; i++) {
+            result.add(loadLeafRecord(keyBytes.get(i), keyHashCodes[i]));
+        }
+        return result;
+    }
+
     /**
      * Load virtual record bytes for a leaf node by path. If the path is outside the current
      * data source's leaf path range, this method returns {@code null}.
@@ -177,6 +204,25 @@ public interface VirtualDataSource {
     @Nullable
     Hash loadHash(final long path) throws IOException;
 
+    /**
+     * Load virtual node hashes for a batch of paths. This method is functionally equivalent to
+     * calling {@link #loadHash(long)} for every path in the batch, but data source implementations
+     * may batch and parallelize disk reads.
+     *
+     * @param paths virtual node paths
+     * @return an array of hashes in the same order as the paths. If no hash is stored for a path,
+     *      the corresponding element in the array is null
+     * @throws IOException If there was a problem loading the hashes from data source
+     */
+    @NonNull
+    default Hash[] loadHashes(@NonNull final long[] paths) throws IOException {
+        final Hash[] result = new Hash[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            result[i] = loadHash(paths[i]);
+        }
+        return result;
+    }
+
     /**
      * Load a virtual node hash by path and, if found, write it to the specified output stream. This
      * method helps avoid (de)serialization overhead during reconnects on the teacher side. Instead of
@@ -0,0 +1,379 @@
+/*
+ * Copyright (C) 2024 Hedera Hashgraph, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.swirlds.virtualmap.internal.cache;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A concurrent hash map with primitive {@code long} keys, optimized for use by the {@link VirtualNodeCache}
+ * path indexes.
+ * <p>
+ * Unlike {@link java.util.concurrent.ConcurrentHashMap}, this map doesn't box keys and doesn't allocate a node
+ * object per entry. Keys and values are stored in parallel arrays with open addressing and linear probing. The
+ * map is split into a fixed number of segments, each segment has its own arrays and its own lock. Writes lock a
+ * single segment. Reads are optimistic and lock-free, unless they overlap with a write to the same segment.
+ * <p>
+ * Null values are not supported. Similar to {@link java.util.concurrent.ConcurrentHashMap#compute}, if a
+ * remapping function returns null, the entry is removed.
+ *
+ * @param <V>
+ * 		The type of values
+ */
+final class ConcurrentLongMap<V> {
+
+    /**
+     * Default number of segments. Must be a power of two.
+     */
+    private static final int DEFAULT_SEGMENTS = 64;
+
+    /**
+     * Initial capacity of every segment. Must be a power of two.
+     */
+    private static final int INITIAL_SEGMENT_CAPACITY = 16;
+
+    /**
+     * Segments. The upper bits of a key hash select the segment, the lower bits select the slot in the segment.
+     */
+    private final Segment<V>[] segments;
+
+    /**
+     * Number of bits to shift a key hash to get a segment index.
+     */
+    private final int segmentShift;
+
+    /**
+     * A function to compute a new value for a key, given the current value, see {@link #compute}.
+     *
+     * @param <V>
+     * 		The type of values
+     */
+    @FunctionalInterface
+    interface Remapping<V> {
+        /**
+         * @param key
+         * 		The key
+         * @param value
+         * 		The current value, or null if there is no value for the key
+         * @return the new value, or null to remove the entry
+         */
+        V apply(long key, V value);
+    }
+
+    /**
+     * An action to run for every entry in the map, see {@link #forEach}.
+     *
+     * @param <V>
+     * 		The type of values
+     * @param <E>
+     * 		The type of exception the action may throw
+     */
+    @FunctionalInterface
+    interface EntryAction<V, E extends Exception> {
+        void accept(long key, V value) throws E;
+    }
+
+    /**
+     * Create a new map with the default number of segments.
+     */
+    ConcurrentLongMap() {
+        this(DEFAULT_SEGMENTS);
+    }
+
+    /**
+     * Create a new map.
+     *
+     * @param segmentCount
+     * 		The number of segments, which limits the number of concurrent writers. Must be a power of two.
+     */
+    @SuppressWarnings("unchecked")
+    ConcurrentLongMap(final int segmentCount) {
+        if ((segmentCount <= 0) || (Integer.bitCount(segmentCount) != 1)) {
+            throw new IllegalArgumentException("Segment count must be a positive power of two: " + segmentCount);
+        }
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>();
+        }
+        segmentShift = Integer.SIZE - Integer.numberOfTrailingZeros(segmentCount);
+    }
+
+    /**
+     * Gets the value for the given key. This method doesn't block, unless there is a concurrent write
+     * to the same segment.
+     *
+     * @param key
+     * 		The key
+     * @return the value, or null if the key is not in the map
+     */
+    V get(final long key) {
+        final int hash = hash(key);
+        final Segment<V> segment = segmentFor(hash);
+        final long stamp = segment.lock.tryOptimisticRead();
+        if (stamp != 0) {
+            final V value = segment.table.find(key, hash);
+            if (segment.lock.validate(stamp)) {
+                return value;
+            }
+        }
+        final long readStamp = segment.lock.readLock();
+        try {
+            return segment.table.find(key, hash);
+        } finally {
+            segment.lock.unlockRead(readStamp);
+        }
+    }
+
+    /**
+     * Puts a value for the given key, replacing the current value, if any.
+     *
+     * @param key
+     * 		The key
+     * @param value
+     * 		The value. Cannot be null
+     * @return the previous value, or null if the key was not in the map
+     */
+    V put(final long key, final V value) {
+        if (value == null) {
+            throw new NullPointerException("Null values are not supported");
+        }
+        final int hash = hash(key);
+        final Segment<V> segment = segmentFor(hash);
+        final long stamp = segment.lock.writeLock();
+        try {
+            final int slot = segment.table.slotOf(key, hash);
+            final V old = segment.table.valueAt(slot);
+            segment.set(slot, key, hash, value);
+            return old;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Computes a new value for the given key. The remapping function is called exactly once, while
+     * the segment containing the key is locked, so it must be fast and must not access this map.
+     *
+     * @param key
+     * 		The key
+     * @param remapping
+     * 		The function to compute the new value from the current value
+     * @return the new value, or null if the entry was removed
+     */
+    V compute(final long key, final Remapping<V> remapping) {
+        final int hash = hash(key);
+        final Segment<V> segment = segmentFor(hash);
+        final long stamp = segment.lock.writeLock();
+        try {
+            final int slot = segment.table.slotOf(key, hash);
+            final V newValue = remapping.apply(key, segment.table.valueAt(slot));
+            segment.set(slot, key, hash, newValue);
+            return newValue;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Gets the number of entries in this map. If the map is modified concurrently, the result is
+     * an estimate.
+     *
+     * @return the number of entries
+     */
+    int size() {
+        int size = 0;
+        for (final Segment<V> segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    /**
+     * Runs the given action for every entry in this map. Every segment is read locked while its entries
+     * are processed, so the action must not modify this map. Entries added or removed concurrently in
+     * other segments may or may not be visited.
+     *
+     * @param action
+     * 		The action to run
+     * @param <E>
+     * 		The type of exception the action may throw
+     * @throws E
+     * 		if the action throws
+     */
+    <E extends Exception> void forEach(final EntryAction<V, E> action) throws E {
+        for (final Segment<V> segment : segments) {
+            final long stamp = segment.lock.readLock();
+            try {
+                final Table<V> table = segment.table;
+                for (int i = 0; i < table.keys.length; i++) {
+                    final V value = table.valueAt(i);
+                    if (value != null) {
+                        action.accept(table.keys[i], value);
+                    }
+                }
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+    }
+
+    private Segment<V> segmentFor(final int hash) {
+        // Shifting an int by 32 is a no-op, so a single segment map needs a special case
+        return segments.length == 1 ? segments[0] : segments[hash >>> segmentShift];
+    }
+
+    /**
+     * Spreads key bits, so sequential keys (paths) are evenly distributed across segments and slots.
+     */
+    private static int hash(final long key) {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * A segment of the map. All writes are done under the write lock. Tables are never modified in
+     * place in a way that could make an optimistic reader loop forever: a reader always stops after
+     * probing all slots of the table.
+     */
+    private static final class Segment<V> {
+        private final StampedLock lock = new StampedLock();
+        private volatile Table<V> table = new Table<>(INITIAL_SEGMENT_CAPACITY);
+        private volatile int size = 0;
+
+        /**
+         * Sets, replaces, or removes (if value is null) the value in the given slot. Must be called
+         * under the write lock. The slot must be returned by {@link Table#slotOf(long, int)}.
+         */
+        @SuppressWarnings("NonAtomicOperationOnVolatileField")
+        void set(final int slot, final long key, final int hash, final V value) {
+            final Table<V> t = table;
+            final boolean exists = t.values[slot] != null;
+            if (value != null) {
+                if (exists) {
+                    t.values[slot] = value;
+                    return;
+                }
+                if ((size + 1) > t.maxSize) {
+                    final Table<V> resized = t.resize();
+                    resized.insert(key, hash, value);
+                    table = resized;
+                } else {
+                    t.keys[slot] = key;
+                    t.values[slot] = value;
+                }
+                size++;
+            } else if (exists) {
+                t.remove(slot);
+                size--;
+            }
+        }
+    }
+
+    /**
+     * Open addressing table with linear probing. An empty slot has a null value.
+     */
+    private static final class Table<V> {
+        private final long[] keys;
+        private final Object[] values;
+        private final int mask;
+        /** Max number of entries before the table is resized, 3/4 of the capacity */
+        private final int maxSize;
+
+        Table(final int capacity) {
+            keys = new long[capacity];
+            values = new Object[capacity];
+            mask = capacity - 1;
+            maxSize = capacity - (capacity >>> 2);
+        }
+
+        @SuppressWarnings("unchecked")
+        V valueAt(final int slot) {
+            return (V) values[slot];
+        }
+
+        /**
+         * Finds a value for the given key. May be called without a lock, in which case the result
+         * must be validated by the caller.
+         */
+        V find(final long key, final int hash) {
+            int slot = hash & mask;
+            for (int i = 0; i <= mask; i++) {
+                final V value = valueAt(slot);
+                if (value == null) {
+                    return null;
+                }
+                if (keys[slot] == key) {
+                    return value;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+
+        /**
+         * Returns the slot, which contains the given key, or the empty slot, where the key should be
+         * inserted. Must be called under the segment lock.
+         */
+        int slotOf(final long key, final int hash) {
+            int slot = hash & mask;
+            while ((values[slot] != null) && (keys[slot] != key)) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        void insert(final long key, final int hash, final V value) {
+            final int slot = slotOf(key, hash);
+            keys[slot] = key;
+            values[slot] = value;
+        }
+
+        /**
+         * Removes an entry from the given slot, shifting entries in the same probe sequence back,
+         * so no tombstones are needed.
+         */
+        void remove(int slot) {
+            int next = slot;
+            for (; ; ) {
+                next = (next + 1) & mask;
+                if (values[next] == null) {
+                    break;
+                }
+                final int home = hash(keys[next]) & mask;
+                // Move the entry to the freed slot, unless its home slot is cyclically in (slot, next]
+                final boolean stays =
+                        (slot <= next) ? ((slot < home) && (home <= next)) : ((slot < home) || (home <= next));
+                if (!stays) {
+                    keys[slot] = keys[next];
+                    values[slot] = values[next];
+                    slot = next;
+                }
+            }
+            values[slot] = null;
+        }
+
+        Table<V> resize() {
+            final Table<V> resized = new Table<>(keys.length * 2);
+            for (int i = 0; i < keys.length; i++) {
+                final V value = valueAt(i);
+                if (value != null) {
+                    resized.insert(keys[i], hash(keys[i]), value);
+                }
+            }
+            return resized;
+        }
+    }
+}
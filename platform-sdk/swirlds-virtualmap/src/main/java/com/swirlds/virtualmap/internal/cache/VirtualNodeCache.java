@@ -99,7 +99,8 @@ import org.apache.logging.log4j.Logger;
  * walk the links from mutation to mutation. The most recent mutation is first in the list, the oldest mutation
  * is last. There is at most one mutation per cache per entry in one of these indexes. If a leaf value is modified
  * twice in a single cache, only a single mutation exists recording the most recent change. There is no need to
- * keep track of multiple mutations per cache instance for the same leaf or internal node.
+ * keep track of multiple mutations per cache instance for the same leaf or internal node. Path indexes are
+ * {@link ConcurrentLongMap}s, which store paths as primitive longs, to avoid boxing and per-entry allocations.
  * <p>
  * If there is one non-obvious gotcha that you *MUST* be aware of to use this class, it is that a record
  * (leaf or internal) *MUST NOT BE REUSED ACROSS CACHE INSTANCES*. If I create a leaf record, and put it
@@ -216,14 +217,14 @@ public final class VirtualNodeCache<K extends VirtualKey, V extends VirtualValue
      * <p>
      * <strong>ONE PER CHAIN OF CACHES</strong>.
      */
-    private final Map<Long, Mutation<Long, K>> pathToDirtyLeafIndex;
+    private final ConcurrentLongMap<Mutation<Long, K>> pathToDirtyLeafIndex;
 
     /**
      * A shared index of paths to internals, via {@link Mutation}s. Works the same as {@link #keyToDirtyLeafIndex}.
      * <p>
      * <strong>ONE PER CHAIN OF CACHES</strong>.
      */
-    private final Map<Long, Mutation<Long, Hash>> pathToDirtyHashIndex;
+    private final ConcurrentLongMap<Mutation<Long, Hash>> pathToDirtyHashIndex;
 
     /**
      * Whether this instance is released. A released cache is often the last in the
@@ -318,8 +319,8 @@ public final class VirtualNodeCache<K extends VirtualKey, V extends VirtualValue
      */
     public VirtualNodeCache() {
         this.keyToDirtyLeafIndex = new ConcurrentHashMap<>();
-        this.pathToDirtyLeafIndex = new ConcurrentHashMap<>();
-        this.pathToDirtyHashIndex = new ConcurrentHashMap<>();
+        this.pathToDirtyLeafIndex = new ConcurrentLongMap<>();
+        this.pathToDirtyHashIndex = new ConcurrentLongMap<>();
         this.releaseLock = new ReentrantLock();
         this.lastReleased = new AtomicLong(-1L);
     }
@@ -1164,7 +1165,7 @@ public final class VirtualNodeCache<K extends VirtualKey, V extends VirtualValue
     private <V1> void updatePaths(
             final V1 value,
             final long path,
-            final Map<Long, Mutation<Long, V1>> index,
+            final ConcurrentLongMap<Mutation<Long, V1>> index,
             final ConcurrentArray<Mutation<Long, V1>> dirtyPaths) {
         index.compute(path, (key, mutation) -> {
             // If there is no mutation or the mutation isn't for this version, then we need to create a new mutation.
@@ -1299,6 +1300,33 @@ public final class VirtualNodeCache<K extends VirtualKey, V extends VirtualValue
                 }));
     }
 
+    /**
+     * Same as {@link #purge(ConcurrentArray, Map)}, but for path indexes.
+     *
+     * @param index
+     * 		The index to look through for entries to purge
+     * @param <V>
+     * 		The value type referenced by the mutation list
+     */
+    private static <V> void purge(
+            final ConcurrentArray<Mutation<Long, V>> array, final ConcurrentLongMap<Mutation<Long, V>> index) {
+        array.parallelTraverse(
+                getCleaningPool(),
+                element -> index.compute(element.key, (key, mutation) -> {
+                    if (mutation == null || element.equals(mutation)) {
+                        // Already removed for a more recent mutation
+                        return null;
+                    }
+                    for (Mutation<Long, V> m = mutation; m.next != null; m = m.next) {
+                        if (element.equals(m.next)) {
+                            m.next = null;
+                            break;
+                        }
+                    }
+                    return mutation;
+                }));
+    }
+
     /**
      * Node cache contains lists of hash and leaf mutations for every cache version. When caches
      * are merged, the lists are merged, too. To make merges very fast, duplicates aren't removed
@@ -1373,6 +1401,38 @@ public final class VirtualNodeCache<K extends VirtualKey, V extends VirtualValue
         }
     }
 
+    /**
+     * Same as {@link #setMapSnapshotAndArray(Map, Map, ConcurrentArray)}, but for path indexes.
+     *
+     * @param src
+     * 		Map that contains the original mutations
+     * @param dst
+     * 		Map that acts as the destination of mutations
+     * @param <L2>
+     * 		Value type
+     */
+    private <L2> void setMapSnapshotAndArray(
+            final ConcurrentLongMap<Mutation<Long, L2>> src,
+            final ConcurrentLongMap<Mutation<Long, L2>> dst,
+            final ConcurrentArray<Mutation<Long, L2>> array) {
+        final long accepted = fastCopyVersion.get();
+        final long rejected = lastReleased.get();
+        src.forEach((path, value) -> {
+            Mutation<Long, L2> mutation = value;
+
+            while (mutation != null && mutation.version > accepted) {
+                mutation = mutation.next;
+            }
+
+            if (mutation == null || mutation.version <= rejected) {
+                return;
+            }
+
+            dst.put(path, mutation);
+            array.add(mutation);
+        });
+    }
+
     /**
      * Serialize the {@link #pathToDirtyHashIndex}.
      *
@@ -1384,12 +1444,12 @@ public final class VirtualNodeCache<K extends VirtualKey, V extends VirtualValue
      * 		If something fails.
      */
     private void serializePathToDirtyHashIndex(
-            final Map<Long, Mutation<Long, Hash>> map, final SerializableDataOutputStream out) throws IOException {
+            final ConcurrentLongMap<Mutation<Long, Hash>> map, final SerializableDataOutputStream out)
+            throws IOException {
         assert snapshot.get() : "Only snapshots can be serialized";
         out.writeInt(map.size());
-        for (final Map.Entry<Long, Mutation<Long, Hash>> entry : map.entrySet()) {
-            out.writeLong(entry.getKey());
-            final Mutation<Long, Hash> mutation = entry.getValue();
+        map.forEach((path, mutation) -> {
+            out.writeLong(path);
             assert mutation != null : "Mutations cannot be null in a snapshot";
             assert mutation.version <= this.fastCopyVersion.get()
                     : "Trying to serialize pathToDirtyInternalIndex with a version ahead";
@@ -1398,7 +1458,7 @@ public final class VirtualNodeCache<K extends VirtualKey, V extends VirtualValue
             if (!mutation.isDeleted()) {
                 out.writeSerializable(mutation.value, true);
             }
-        }
+        });
     }
 
     /**
@@ -1412,7 +1472,7 @@ public final class VirtualNodeCache<K extends VirtualKey, V extends VirtualValue
      * 		In case of trouble.
      */
     private void deserializePathToDirtyHashIndex(
-            final Map<Long, Mutation<Long, Hash>> map, final SerializableDataInputStream in, final int version)
+            final ConcurrentLongMap<Mutation<Long, Hash>> map, final SerializableDataInputStream in, final int version)
             throws IOException {
         final int sizeOfMap = in.readInt();
         for (int index = 0; index < sizeOfMap; index++) {
@@ -1445,12 +1505,12 @@ public final class VirtualNodeCache<K extends VirtualKey, V extends VirtualValue
      * 		If something fails.
      */
     private void serializePathToDirtyLeafIndex(
-            final Map<Long, Mutation<Long, K>> map, final SerializableDataOutputStream out) throws IOException {
+            final ConcurrentLongMap<Mutation<Long, K>> map, final SerializableDataOutputStream out)
+            throws IOException {
         assert snapshot.get() : "Only snapshots can be serialized";
         out.writeInt(map.size());
-        for (final Map.Entry<Long, Mutation<Long, K>> entry : map.entrySet()) {
-            out.writeLong(entry.getKey());
-            final Mutation<Long, K> mutation = entry.getValue();
+        map.forEach((path, mutation) -> {
+            out.writeLong(path);
             assert mutation != null : "Mutations cannot be null in a snapshot";
             assert mutation.version <= this.fastCopyVersion.get()
                     : "Trying to serialize pathToDirtyLeafIndex with a version ahead";
@@ -1458,7 +1518,7 @@ public final class VirtualNodeCache<K extends VirtualKey, V extends VirtualValue
             out.writeSerializable(mutation.value, true);
             out.writeLong(mutation.version);
             out.writeBoolean(mutation.isDeleted());
-        }
+        });
     }
 
     /**
@@ -1472,10 +1532,11 @@ public final class VirtualNodeCache<K extends VirtualKey, V extends VirtualValue
      * 		In case of trouble.
      */
     private void deserializePathToDirtyLeafIndex(
-            final Map<Long, Mutation<Long, K>> map, final SerializableDataInputStream in) throws IOException {
+            final ConcurrentLongMap<Mutation<Long, K>> map, final SerializableDataInputStream in)
+            throws IOException {
         final int sizeOfMap = in.readInt();
         for (int index = 0; index < sizeOfMap; index++) {
-            final Long path = in.readLong();
+            final long path = in.readLong();
             final K key = in.readSerializable();
             final long mutationVersion = in.readLong();
             final boolean deleted = in.readBoolean();
@@ -1639,11 +1700,11 @@ public final class VirtualNodeCache<K extends VirtualKey, V extends VirtualValue
                 .append("\n");
         //noinspection unchecked
         builder.append(toDebugStringIndex(
-                        "pathToDirtyLeafIndex", (Map<Object, Mutation>) (Object) pathToDirtyLeafIndex))
+                        "pathToDirtyLeafIndex", (ConcurrentLongMap<Mutation>) (Object) pathToDirtyLeafIndex))
                 .append("\n");
         //noinspection unchecked
         builder.append(toDebugStringIndex(
-                        "pathToDirtyHashIndex", (Map<Object, Mutation>) (Object) pathToDirtyHashIndex))
+                        "pathToDirtyHashIndex", (ConcurrentLongMap<Mutation>) (Object) pathToDirtyHashIndex))
                 .append("\n");
         //noinspection unchecked
         builder.append(toDebugStringArray("dirtyLeaves", (ConcurrentArray<Mutation>) (Object) dirtyLeaves));
@@ -1681,27 +1742,40 @@ public final class VirtualNodeCache<K extends VirtualKey, V extends VirtualValue
         final StringBuilder builder = new StringBuilder();
         builder.append(indexName).append(":\n");
 
-        index.forEach((key, mutation) -> {
-            builder.append("\t").append(key).append(":==> ");
-            while (mutation != null) {
-                builder.append("[")
-                        .append(mutation.key)
-                        .append(",")
-                        .append(mutation.value)
-                        .append(",")
-                        .append(mutation.isDeleted() ? "D," : "")
-                        .append("V")
-                        .append(mutation.version)
-                        .append(mutation.version == this.fastCopyVersion.get() ? "*" : "")
-                        .append("]->");
-                mutation = mutation.next;
-            }
-            builder.append("\n");
-        });
+        index.forEach((key, mutation) -> toDebugStringMutations(builder, key, mutation));
 
         return builder.toString();
     }
 
+    private String toDebugStringIndex(
+            final String indexName, @SuppressWarnings("rawtypes") final ConcurrentLongMap<Mutation> index) {
+        final StringBuilder builder = new StringBuilder();
+        builder.append(indexName).append(":\n");
+
+        index.forEach((key, mutation) -> toDebugStringMutations(builder, key, mutation));
+
+        return builder.toString();
+    }
+
+    private void toDebugStringMutations(
+            final StringBuilder builder, final Object key, @SuppressWarnings("rawtypes") Mutation mutation) {
+        builder.append("\t").append(key).append(":==> ");
+        while (mutation != null) {
+            builder.append("[")
+                    .append(mutation.key)
+                    .append(",")
+                    .append(mutation.value)
+                    .append(",")
+                    .append(mutation.isDeleted() ? "D," : "")
+                    .append("V")
+                    .append(mutation.version)
+                    .append(mutation.version == this.fastCopyVersion.get() ? "*" : "")
+                    .append("]->");
+            mutation = mutation.next;
+        }
+        builder.append("\n");
+    }
+
     private String toDebugStringArray(
             final String name, @SuppressWarnings("rawtypes") final ConcurrentArray<Mutation> arr) {
         final StringBuilder builder = new StringBuilder();
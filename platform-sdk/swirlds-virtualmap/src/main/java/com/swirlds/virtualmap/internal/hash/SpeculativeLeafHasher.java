@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2024 Hedera Hashgraph, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.swirlds.virtualmap.internal.hash;
+
+import static com.swirlds.logging.legacy.LogMarker.EXCEPTION;
+
+import com.swirlds.common.crypto.CryptographyHolder;
+import com.swirlds.common.crypto.Hash;
+import com.swirlds.virtualmap.VirtualKey;
+import com.swirlds.virtualmap.VirtualValue;
+import com.swirlds.virtualmap.datasource.VirtualLeafRecord;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Hashes leaves of a mutable virtual map copy in background, while the copy is still being modified.
+ * When the copy becomes immutable and is hashed by {@link VirtualHasher}, leaf hashes computed here
+ * are reused for all leaves that haven't been changed since they were hashed.
+ *
+ * <p>Leaf hashes depend on leaf paths, keys, and values. A precomputed hash is only used, if the
+ * leaf record to hash is the same record object that was hashed in background, and it still has the
+ * same path and the same value object. This covers leaf moves (path changes) and {@link
+ * VirtualLeafRecord#setValue(VirtualValue)} calls. Values returned to callers for modification
+ * can be changed in place at any time until the copy is made immutable, so such values are never
+ * hashed speculatively, see {@link #leafOpenedForModify(VirtualLeafRecord)}.
+ *
+ * <p>Values passed to {@code put()} or {@code replace()} must not be changed in place afterwards, other
+ * than through {@code getForModify()}. Such changes can't be detected, and a stale precomputed hash would
+ * be used for the leaf. When assertions are enabled, every precomputed hash is checked against the leaf
+ * before it's used.
+ *
+ * <p>Internal node hashes are not computed speculatively. They depend on the tree shape (first and
+ * last leaf paths), which changes with every added or removed leaf, so they would be invalidated
+ * too often to be worth it.
+ *
+ * <p>All "leaf*" methods must be called on the thread that modifies the virtual map copy. {@link
+ * #getLeafHash(VirtualLeafRecord)} may be called from any thread, but only after {@link #close()}.
+ *
+ * @param <K>
+ * 		The {@link VirtualKey} type
+ * @param <V>
+ * 		The {@link VirtualValue} type
+ */
+public final class SpeculativeLeafHasher<K extends VirtualKey, V extends VirtualValue> {
+
+    private static final Logger logger = LogManager.getLogger(SpeculativeLeafHasher.class);
+
+    /**
+     * A leaf record to hash in background, along with the path and the value the record had when
+     * it was submitted for hashing.
+     */
+    private final class Entry {
+
+        private final VirtualLeafRecord<K, V> leaf;
+
+        private final long path;
+
+        private final V value;
+
+        private volatile Hash hash;
+
+        Entry(final VirtualLeafRecord<K, V> leaf) {
+            this.leaf = leaf;
+            this.path = leaf.getPath();
+            this.value = leaf.getValue();
+        }
+
+        boolean matches(final VirtualLeafRecord<K, V> other) {
+            return (leaf == other) && (path == other.getPath()) && (value == other.getValue());
+        }
+    }
+
+    /**
+     * The number of leaves to collect before they are submitted for hashing as a single task.
+     */
+    private final int batchSize;
+
+    /**
+     * Last submitted entries by leaf path. Modified by the map modifying thread only, but read by
+     * hashing threads, when the copy is hashed.
+     */
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Values returned for modification. They can be changed in place at any time, so leaves
+     * with these values are never hashed in background.
+     */
+    private final Set<V> openedValues = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Entries collected since the last batch was submitted.
+     */
+    private List<Entry> batch;
+
+    /**
+     * Indicates that the copy is being hashed. Background tasks skip all remaining leaves.
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * The number of leaves hashed in background.
+     */
+    private final AtomicLong hashedCount = new AtomicLong();
+
+    /**
+     * The number of precomputed leaf hashes used when the copy is hashed.
+     */
+    private final AtomicLong usedCount = new AtomicLong();
+
+    /**
+     * Creates a new speculative leaf hasher.
+     *
+     * @param batchSize
+     * 		The number of updated leaves to collect before they are submitted for hashing
+     */
+    public SpeculativeLeafHasher(final int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+        this.batch = new ArrayList<>(batchSize);
+    }
+
+    /**
+     * Called when a leaf is added, updated, or moved to a new path. The leaf will be hashed in
+     * background, unless its value may be modified in place.
+     *
+     * @param leaf
+     * 		The updated leaf record
+     */
+    public void leafUpdated(@NonNull final VirtualLeafRecord<K, V> leaf) {
+        if (closed) {
+            return;
+        }
+        final V value = leaf.getValue();
+        if ((value != null) && openedValues.contains(value)) {
+            entries.remove(leaf.getPath());
+            return;
+        }
+        final Entry entry = new Entry(leaf);
+        entries.put(entry.path, entry);
+        batch.add(entry);
+        if (batch.size() >= batchSize) {
+            submit(batch);
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+
+    /**
+     * Called when a leaf value is returned for modification. Any hash computed for the leaf is
+     * discarded, and the leaf is never hashed in background again, as long as it has this value.
+     *
+     * @param leaf
+     * 		The leaf record, which value is returned for modification
+     */
+    public void leafOpenedForModify(@NonNull final VirtualLeafRecord<K, V> leaf) {
+        final V value = leaf.getValue();
+        if (value != null) {
+            openedValues.add(value);
+        }
+        entries.remove(leaf.getPath());
+    }
+
+    /**
+     * Stops background hashing. Leaves collected, but not submitted for hashing yet, are not hashed
+     * in background. Tasks that are already running skip all their remaining leaves.
+     */
+    public void close() {
+        closed = true;
+        batch = null;
+        openedValues.clear();
+    }
+
+    /**
+     * Gets a leaf hash computed in background, if available.
+     *
+     * @param leaf
+     * 		The leaf record to get a hash for
+     * @return the leaf hash, or null if the leaf hasn't been hashed in background, or it has
+     * 		been changed since it was hashed
+     */
+    @Nullable
+    public Hash getLeafHash(@NonNull final VirtualLeafRecord<K, V> leaf) {
+        final Entry entry = entries.get(leaf.getPath());
+        if ((entry == null) || !entry.matches(leaf)) {
+            return null;
+        }
+        final Hash hash = entry.hash;
+        if (hash != null) {
+            assert hash.equals(CryptographyHolder.get().digestSync(leaf))
+                    : "Leaf value was changed in place after it was put to the map, path = " + leaf.getPath();
+            usedCount.incrementAndGet();
+        }
+        return hash;
+    }
+
+    /**
+     * Gets the number of leaves hashed in background so far.
+     *
+     * @return the number of leaves hashed
+     */
+    public long getHashedCount() {
+        return hashedCount.get();
+    }
+
+    /**
+     * Gets the number of precomputed leaf hashes used to hash the copy.
+     *
+     * @return the number of leaf hashes used
+     */
+    public long getUsedCount() {
+        return usedCount.get();
+    }
+
+    private void submit(final List<Entry> toHash) {
+        VirtualHasher.getHashingPool().execute(() -> {
+            try {
+                for (final Entry entry : toHash) {
+                    if (closed) {
+                        return;
+                    }
+                    // Hash a separate record, since the original record may be changed concurrently
+                    final VirtualLeafRecord<K, V> snapshot =
+                            new VirtualLeafRecord<>(entry.path, entry.leaf.getKey(), entry.value);
+                    entry.hash = CryptographyHolder.get().digestSync(snapshot);
+                    hashedCount.incrementAndGet();
+                }
+            } catch (final Exception e) {
+                // Not critical, leaves without precomputed hashes will be hashed with the copy
+                logger.error(EXCEPTION.getMarker(), "Failed to hash leaves in background", e);
+            }
+        });
+    }
+}
@@ -34,6 +34,8 @@ import com.swirlds.virtualmap.datasource.VirtualLeafRecord;
 import com.swirlds.virtualmap.internal.Path;
 import com.swirlds.virtualmap.internal.merkle.VirtualInternalNode;
 import com.swirlds.virtualmap.internal.merkle.VirtualRootNode;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -90,6 +92,19 @@ public final class VirtualHasher<K extends VirtualKey, V extends VirtualValue> {
      */
     private Cryptography cryptography;
 
+    /**
+     * Indicates whether internal node hashes at the same rank of a hashing task are computed as a
+     * single batch using {@link Cryptography#digestBatchSync}. Initialized in the {@link
+     * #hash(LongFunction, Iterator, long, long)} method from config, same as {@link #cryptography}.
+     */
+    private boolean batchHashing;
+
+    /**
+     * Leaf hashes computed in background while the virtual map copy was mutable, if any. Stored in a
+     * class field to avoid passing it as an arg to every hashing task, same as {@link #hashReader}.
+     */
+    private SpeculativeLeafHasher<K, V> speculativeLeafHasher;
+
     /**
      * Tracks if this virtual hasher has been shut down. If true (indicating that the hasher
      * has been intentionally shut down), then don't log/throw if the rug is pulled from
@@ -99,7 +114,7 @@ public final class VirtualHasher<K extends VirtualKey, V extends VirtualValue> {
 
     private static volatile ForkJoinPool hashingPool = null;
 
-    private static ForkJoinPool getHashingPool() {
+    static ForkJoinPool getHashingPool() {
         ForkJoinPool pool = hashingPool;
         if (pool == null) {
             synchronized (VirtualHasher.class) {
@@ -216,9 +231,13 @@ public final class VirtualHasher<K extends VirtualKey, V extends VirtualValue> {
             try {
                 final Hash hash;
                 if (leaf != null) {
-                    hash = cryptography.digestSync(leaf);
+                    final Hash precomputed =
+                            speculativeLeafHasher != null ? speculativeLeafHasher.getLeafHash(leaf) : null;
+                    hash = precomputed != null ? precomputed : cryptography.digestSync(leaf);
                     listener.onLeafHashed(leaf);
                     listener.onNodeHashed(path, hash);
+                } else if (batchHashing) {
+                    hash = hashInputsBatched();
                 } else {
                     int len = 1 << height;
                     long rankPath = Path.getLeftGrandChildPath(path, height);
@@ -253,6 +272,70 @@ public final class VirtualHasher<K extends VirtualKey, V extends VirtualValue> {
             }
         }
 
+        /**
+         * Hashes input hashes up to the chunk root, rank by rank. All nodes at a rank, which need to be
+         * hashed, are hashed as a single batch. Produces exactly the same hashes as {@link #hash(long,
+         * Hash, Hash)}.
+         *
+         * @return the chunk root hash, or null if all inputs are null
+         */
+        private Hash hashInputsBatched() {
+            int len = 1 << height;
+            long rankPath = Path.getLeftGrandChildPath(path, height);
+            final byte[][] messages = new byte[len / 2][];
+            final int[] indices = new int[len / 2];
+            while (len > 1) {
+                int count = 0;
+                for (int i = 0; i < len / 2; i++) {
+                    Hash left = ins[i * 2];
+                    Hash right = ins[i * 2 + 1];
+                    if ((left == null) && (right == null)) {
+                        ins[i] = null;
+                    } else {
+                        if (left == null) {
+                            left = hashReader.apply(rankPath + i * 2);
+                        }
+                        if (right == null) {
+                            right = hashReader.apply(rankPath + i * 2 + 1);
+                        }
+                        messages[count] = internalNodeMessage(Path.getParentPath(rankPath + i * 2), left, right);
+                        indices[count++] = i;
+                    }
+                }
+                if (count > 0) {
+                    final byte[][] batch = (count == messages.length) ? messages : Arrays.copyOf(messages, count);
+                    final Hash[] hashes = cryptography.digestBatchSync(batch, Cryptography.DEFAULT_DIGEST_TYPE);
+                    for (int k = 0; k < count; k++) {
+                        final int i = indices[k];
+                        ins[i] = hashes[k];
+                        listener.onNodeHashed(Path.getParentPath(rankPath + i * 2), hashes[k]);
+                    }
+                }
+                rankPath = Path.getParentPath(rankPath);
+                len = len >> 1;
+            }
+            return ins[0];
+        }
+
+        /**
+         * Builds a message to hash for an internal node. The message contains the same bytes as passed to
+         * the hash builder in {@link #hash(long, Hash, Hash)}.
+         */
+        static byte[] internalNodeMessage(final long path, final Hash left, final Hash right) {
+            final long classId = path == ROOT_PATH ? VirtualRootNode.CLASS_ID : VirtualInternalNode.CLASS_ID;
+            final int serId = path == ROOT_PATH
+                    ? VirtualRootNode.ClassVersion.CURRENT_VERSION
+                    : VirtualInternalNode.SERIALIZATION_VERSION;
+            final int hashLength = Cryptography.DEFAULT_DIGEST_TYPE.digestLength();
+            final ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES + Integer.BYTES + hashLength * 2)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putLong(classId);
+            buffer.putInt(serId);
+            left.getBytes().writeTo(buffer);
+            right.getBytes().writeTo(buffer);
+            return buffer.array();
+        }
+
         static Hash hash(final long path, final Hash left, final Hash right) {
             final long classId = path == ROOT_PATH ? VirtualRootNode.CLASS_ID : VirtualInternalNode.CLASS_ID;
             final int serId = path == ROOT_PATH
@@ -282,7 +365,37 @@ public final class VirtualHasher<K extends VirtualKey, V extends VirtualValue> {
             final Iterator<VirtualLeafRecord<K, V>> sortedDirtyLeaves,
             final long firstLeafPath,
             final long lastLeafPath,
-            VirtualHashListener<K, V> listener) {
+            final VirtualHashListener<K, V> listener) {
+        return hash(hashReader, sortedDirtyLeaves, firstLeafPath, lastLeafPath, listener, null);
+    }
+
+    /**
+     * Hash the given dirty leaves and the minimal subset of the tree necessary to produce a single root hash,
+     * same as {@link #hash(LongFunction, Iterator, long, long, VirtualHashListener)}. Leaf hashes computed
+     * in background by the given speculative leaf hasher are used instead of hashing the leaves again, if
+     * the leaves haven't been changed since then.
+     *
+     * @param hashReader
+     * 		Return a {@link Hash} by path. Used when this method needs to look up clean nodes.
+     * @param sortedDirtyLeaves
+     * 		A stream of dirty leaves sorted in <strong>ASCENDING PATH ORDER</strong>
+     * @param firstLeafPath
+     * 		The firstLeafPath of the tree that is being hashed
+     * @param lastLeafPath
+     * 		The lastLeafPath of the tree that is being hashed
+     * @param listener
+     * 		Hashing listener, may be null
+     * @param speculativeLeafHasher
+     * 		Leaf hashes computed in background, may be null. Must be closed
+     * @return The hash of the root of the tree
+     */
+    public Hash hash(
+            final LongFunction<Hash> hashReader,
+            final Iterator<VirtualLeafRecord<K, V>> sortedDirtyLeaves,
+            final long firstLeafPath,
+            final long lastLeafPath,
+            VirtualHashListener<K, V> listener,
+            final SpeculativeLeafHasher<K, V> speculativeLeafHasher) {
 
         // If the first or last leaf path are invalid, then there is nothing to hash.
         if (firstLeafPath < 1 || lastLeafPath < 1) {
@@ -303,6 +416,7 @@ public final class VirtualHasher<K extends VirtualKey, V extends VirtualValue> {
 
         this.hashReader = hashReader;
         this.listener = listener;
+        this.speculativeLeafHasher = speculativeLeafHasher;
         this.cryptography = CryptographyHolder.get();
         final Hash NULL_HASH = cryptography.getNullHash();
 
@@ -332,6 +446,7 @@ public final class VirtualHasher<K extends VirtualKey, V extends VirtualValue> {
         // Default chunk height, from config
         final VirtualMapConfig vmConfig = ConfigurationHolder.getConfigData(VirtualMapConfig.class);
         final int chunkHeight = vmConfig.virtualHasherChunkHeight();
+        this.batchHashing = vmConfig.virtualHasherBatchHashing();
         int firstLeafRank = Path.getRank(firstLeafPath);
         int lastLeafRank = Path.getRank(lastLeafPath);
 
@@ -512,6 +627,7 @@ public final class VirtualHasher<K extends VirtualKey, V extends VirtualValue> {
 
         this.hashReader = null;
         this.listener = null;
+        this.speculativeLeafHasher = null;
 
         return resultTask.ins[0];
     }
@@ -188,13 +188,7 @@ public abstract class AbstractHashListener<K extends VirtualKey, V extends Virtu
         try {
             // flush it down
             try {
-                dataSource.saveRecords(
-                        firstLeafPath,
-                        lastLeafPath,
-                        hashesToFlush.stream(),
-                        leavesToFlush.stream().map(r -> r.toBytes(keySerializer, valueSerializer)),
-                        findLeavesToRemove().map(r -> r.toBytes(keySerializer, valueSerializer)),
-                        true);
+                saveRecords(hashesToFlush, leavesToFlush);
             } catch (IOException e) {
                 throw new UncheckedIOException(e);
             }
@@ -203,6 +197,30 @@ public abstract class AbstractHashListener<K extends VirtualKey, V extends Virtu
         }
     }
 
+    /**
+     * Save the given hashes and leaves, along with all leaves to remove, to the data source. Subclasses
+     * may override this method to track what is flushed.
+     *
+     * @param hashesToFlush
+     * 		the hashes to save, in the order the nodes were hashed
+     * @param leavesToFlush
+     * 		the leaves to save
+     * @throws IOException
+     * 		if an I/O error occurs
+     */
+    protected void saveRecords(
+            @NonNull final List<VirtualHashRecord> hashesToFlush,
+            @NonNull final List<VirtualLeafRecord<K, V>> leavesToFlush)
+            throws IOException {
+        dataSource.saveRecords(
+                firstLeafPath,
+                lastLeafPath,
+                hashesToFlush.stream(),
+                leavesToFlush.stream().map(r -> r.toBytes(keySerializer, valueSerializer)),
+                findLeavesToRemove().map(r -> r.toBytes(keySerializer, valueSerializer)),
+                true);
+    }
+
     /**
      * Find the leaves that need to be removed from the data source up to this moment.
      *
@@ -71,6 +71,8 @@ public class VirtualMapStatistics {
     private Counter flushCount;
     /** The average time to hash virtual map copy, ms */
     private LongAccumulator hashDurationMs;
+    /** The number of leaf hashes computed in background and reused when virtual map copies are hashed */
+    private LongAccumulator speculativeLeafHashes;
 
     private static LongAccumulator buildLongAccumulator(
             final Metrics metrics, final String name, final String description) {
@@ -166,6 +168,10 @@ public class VirtualMapStatistics {
                 metrics,
                 VMAP_PREFIX + LIFECYCLE_PREFIX + "hashDurationMs_" + label,
                 "Virtual root copy hash duration, " + label + ", ms");
+        speculativeLeafHashes = buildLongAccumulator(
+                metrics,
+                VMAP_PREFIX + LIFECYCLE_PREFIX + "speculativeLeafHashes_" + label,
+                "Leaf hashes computed in background and reused to hash virtual root copies, " + label);
     }
 
     /**
@@ -305,4 +311,15 @@ public class VirtualMapStatistics {
             this.hashDurationMs.update(hashDurationMs);
         }
     }
+
+    /**
+     * Record the number of leaf hashes computed in background and reused to hash a virtual root copy.
+     *
+     * @param count the number of leaf hashes
+     */
+    public void recordSpeculativeLeafHashes(final long count) {
+        if (this.speculativeLeafHashes != null) {
+            this.speculativeLeafHashes.update(count);
+        }
+    }
 }
@@ -72,6 +72,7 @@ import com.swirlds.virtualmap.datasource.VirtualLeafRecord;
 import com.swirlds.virtualmap.internal.RecordAccessor;
 import com.swirlds.virtualmap.internal.VirtualStateAccessor;
 import com.swirlds.virtualmap.internal.cache.VirtualNodeCache;
+import com.swirlds.virtualmap.internal.hash.SpeculativeLeafHasher;
 import com.swirlds.virtualmap.internal.hash.VirtualHashListener;
 import com.swirlds.virtualmap.internal.hash.VirtualHasher;
 import com.swirlds.virtualmap.internal.pipeline.VirtualPipeline;
@@ -80,6 +81,7 @@ import com.swirlds.virtualmap.internal.reconnect.ConcurrentBlockingIterator;
 import com.swirlds.virtualmap.internal.reconnect.LearnerPullVirtualTreeView;
 import com.swirlds.virtualmap.internal.reconnect.LearnerPushVirtualTreeView;
 import com.swirlds.virtualmap.internal.reconnect.NodeTraversalOrder;
+import com.swirlds.virtualmap.internal.reconnect.ReconnectCheckpoint;
 import com.swirlds.virtualmap.internal.reconnect.ReconnectHashListener;
 import com.swirlds.virtualmap.internal.reconnect.ReconnectNodeRemover;
 import com.swirlds.virtualmap.internal.reconnect.ReconnectState;
@@ -95,6 +97,7 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.channels.ClosedByInterruptException;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
@@ -268,6 +271,13 @@ public final class VirtualRootNode<K extends VirtualKey, V extends VirtualValue>
      */
     private final AtomicReference<Hash> hash = new AtomicReference<>();
 
+    /**
+     * Hashes updated leaves in background, while this copy is mutable. Null, if speculative hashing is
+     * disabled in {@link VirtualMapConfig#speculativeHashing()}, or after this copy is hashed.
+     */
+    private volatile SpeculativeLeafHasher<K, V> speculativeLeafHasher =
+            config.speculativeHashing() ? new SpeculativeLeafHasher<>(config.speculativeHashingBatchSize()) : null;
+
     /**
      * If true, then this copy of {@link VirtualRootNode} should eventually be flushed to disk. A heuristic is
      * used to determine which copy is flushed.
@@ -335,6 +345,25 @@ public final class VirtualRootNode<K extends VirtualKey, V extends VirtualValue>
 
     private ReconnectNodeRemover<K, V> nodeRemover;
 
+    /**
+     * On the learner, a checkpoint of the last failed reconnect, which used this node as the original map.
+     * The next reconnect of this node is resumed from this checkpoint. Only used, if reconnect checkpoints
+     * are enabled in {@link VirtualMapConfig#reconnectCheckpoints()}.
+     */
+    private ReconnectCheckpoint<K, V> reconnectCheckpoint;
+
+    /**
+     * During reconnect as a learner, the checkpoint this reconnect is resumed from, or null if reconnect
+     * starts from the original map.
+     */
+    private ReconnectCheckpoint<K, V> baseCheckpoint;
+
+    /**
+     * During reconnect as a learner, tracks reconnect progress to save a checkpoint, if reconnect fails.
+     * Null if reconnect checkpoints are disabled.
+     */
+    private ReconnectCheckpoint<K, V> learnerCheckpoint;
+
     private final long fastCopyVersion;
 
     private VirtualMapStatistics statistics;
@@ -738,6 +767,10 @@ public final class VirtualRootNode<K extends VirtualKey, V extends VirtualValue>
      */
     @Override
     protected void destroyNode() {
+        if (reconnectCheckpoint != null) {
+            reconnectCheckpoint.close();
+            reconnectCheckpoint = null;
+        }
         if (pipeline != null) {
             pipeline.destroyCopy(this);
         } else {
@@ -841,7 +874,14 @@ public final class VirtualRootNode<K extends VirtualKey, V extends VirtualValue>
         try {
             final VirtualLeafRecord<K, V> rec = records.findLeafRecord(key, true);
             statistics.countUpdatedEntities();
-            return rec == null ? null : rec.getValue();
+            if (rec == null) {
+                return null;
+            }
+            final SpeculativeLeafHasher<K, V> speculative = speculativeLeafHasher;
+            if (speculative != null) {
+                speculative.leafOpenedForModify(rec);
+            }
+            return rec.getValue();
         } finally {
             assert currentModifyingThreadRef.compareAndSet(Thread.currentThread(), null);
         }
@@ -867,7 +907,8 @@ public final class VirtualRootNode<K extends VirtualKey, V extends VirtualValue>
     /**
      * Puts the key/value pair into the map. The key must not be null, but the value
      * may be null. The previous value, if it existed, is returned. If the entry was already in the map,
-     * the value is replaced. If the mapping was not in the map, then a new entry is made.
+     * the value is replaced. If the mapping was not in the map, then a new entry is made. The value must
+     * not be changed in place after this call, use {@link #getForModify(VirtualKey)} to modify it.
      *
      * @param key
      * 		the key, cannot be null.
@@ -892,6 +933,7 @@ public final class VirtualRootNode<K extends VirtualKey, V extends VirtualValue>
 
             final VirtualLeafRecord<K, V> leaf = new VirtualLeafRecord<>(path, key, value);
             cache.putLeaf(leaf);
+            leafUpdated(leaf);
             statistics.countUpdatedEntities();
         } finally {
             assert currentModifyingThreadRef.compareAndSet(Thread.currentThread(), null);
@@ -901,7 +943,8 @@ public final class VirtualRootNode<K extends VirtualKey, V extends VirtualValue>
     /**
      * Replace the given key with the given value. Only has an effect if the key already exists
      * in the map. Returns the value on success. Throws an IllegalStateException if the key doesn't
-     * exist in the map.
+     * exist in the map. The value must not be changed in place after this call, use {@link
+     * #getForModify(VirtualKey)} to modify it.
      *
      * @param key
      * 		The key. Cannot be null.
@@ -966,6 +1009,7 @@ public final class VirtualRootNode<K extends VirtualKey, V extends VirtualValue>
                 cache.clearLeafPath(lastLeafPath);
                 lastLeaf.setPath(leafToDeletePath);
                 cache.putLeaf(lastLeaf);
+                leafUpdated(lastLeaf);
                 // NOTE: at this point, if leafToDelete was in the cache at some "path" index, it isn't anymore!
                 // The lastLeaf has taken its place in the path index.
             }
@@ -989,6 +1033,7 @@ public final class VirtualRootNode<K extends VirtualKey, V extends VirtualValue>
                     // To fix it, mark it as dirty explicitly
                     final VirtualLeafRecord<K, V> leaf = records.findLeafRecord(1, true);
                     cache.putLeaf(leaf);
+                    leafUpdated(leaf);
                 }
             } else {
                 final long lastLeafSibling = getSiblingPath(lastLeafPath);
@@ -998,6 +1043,7 @@ public final class VirtualRootNode<K extends VirtualKey, V extends VirtualValue>
                 cache.deleteHash(lastLeafParent);
                 sibling.setPath(lastLeafParent);
                 cache.putLeaf(sibling);
+                leafUpdated(sibling);
 
                 // Update the first & last leaf paths
                 state.setFirstLeafPath(lastLeafParent); // replaced by the sibling, it is now first
@@ -1355,6 +1401,13 @@ public final class VirtualRootNode<K extends VirtualKey, V extends VirtualValue>
         // Make sure the cache is immutable for leaf changes but mutable for internal node changes
         cache.prepareForHashing();
 
+        // Stop background leaf hashing, if enabled. Leaf hashes computed so far are used below
+        final SpeculativeLeafHasher<K, V> speculative = speculativeLeafHasher;
+        speculativeLeafHasher = null;
+        if (speculative != null) {
+            speculative.close();
+        }
+
         // Compute the root hash of the virtual tree
         final VirtualHashListener<K, V> hashListener = new VirtualHashListener<>() {
             @Override
@@ -1368,7 +1421,8 @@ public final class VirtualRootNode<K extends VirtualKey, V extends VirtualValue>
                         .iterator(),
                 state.getFirstLeafPath(),
                 state.getLastLeafPath(),
-                hashListener);
+                hashListener,
+                speculative);
 
         if (virtualHash == null) {
             final Hash rootHash = (state.size() == 0) ? null : records.findHash(0);
@@ -1384,6 +1438,9 @@ public final class VirtualRootNode<K extends VirtualKey, V extends VirtualValue>
 
         final long end = System.currentTimeMillis();
         statistics.recordHash(end - start);
+        if (speculative != null) {
+            statistics.recordSpeculativeLeafHashes(speculative.getUsedCount());
+        }
     }
 
     /*
@@ -1475,14 +1532,29 @@ public final class VirtualRootNode<K extends VirtualKey, V extends VirtualValue>
         // helpful and will just burn resources.
         originalMap.dataSource.stopAndDisableBackgroundCompaction();
 
-        // Take a snapshot, and use the snapshot database as my data source
-        this.dataSource = dataSourceBuilder.copy(originalMap.dataSource, true);
+        // If a previous reconnect of the original map failed, it's resumed from the saved checkpoint
+        if (config.reconnectCheckpoints()) {
+            baseCheckpoint = originalMap.reconnectCheckpoint;
+            learnerCheckpoint = new ReconnectCheckpoint<>(
+                    baseCheckpoint, originalMap.state.getFirstLeafPath(), originalMap.state.getLastLeafPath());
+        }
+
+        final VirtualNodeCache<K, V> snapshotCache;
+        if (baseCheckpoint == null) {
+            // Take a snapshot, and use the snapshot database as my data source
+            this.dataSource = dataSourceBuilder.copy(originalMap.dataSource, true);
 
-        // The old map's cache is going to become immutable, but that's OK, because the old map
-        // will NEVER be updated again.
-        assert originalMap.isHashed() : "The system should have made sure this was hashed by this point!";
-        final VirtualNodeCache<K, V> snapshotCache = originalMap.cache.snapshot();
-        flush(snapshotCache, originalMap.state, this.dataSource);
+            // The old map's cache is going to become immutable, but that's OK, because the old map
+            // will NEVER be updated again.
+            assert originalMap.isHashed() : "The system should have made sure this was hashed by this point!";
+            snapshotCache = originalMap.cache.snapshot();
+            flush(snapshotCache, originalMap.state, this.dataSource);
+        } else {
+            // The checkpoint data source already contains everything from the original map cache
+            logger.info(RECONNECT.getMarker(), "VirtualMap@{} resumes reconnect from a checkpoint", getRoute());
+            this.dataSource = dataSourceBuilder.copy(baseCheckpoint.getDataSource(), true);
+            snapshotCache = new VirtualNodeCache<>();
+        }
 
         // Set up the VirtualHasher which we will use during reconnect.
         // Initial timeout is intentionally very long, timeout is reduced once we receive the first leaf in the tree.
@@ -1515,19 +1587,31 @@ public final class VirtualRootNode<K extends VirtualKey, V extends VirtualValue>
     public LearnerTreeView<Long> buildLearnerView(
             final ReconnectConfig reconnectConfig, @NonNull final ReconnectMapStats mapStats) {
         assert originalMap != null;
-        // During reconnect we want to look up state from the original records
-        final VirtualStateAccessor originalState = originalMap.getState();
+        // During reconnect we want to look up state from the original records. If reconnect is resumed
+        // from a checkpoint, the checkpoint is used as the original
+        final RecordAccessor<K, V> originalRecords;
+        final VirtualStateAccessor originalState;
+        if (baseCheckpoint == null) {
+            originalRecords = originalMap.getRecords();
+            originalState = originalMap.getState();
+        } else {
+            originalRecords = baseCheckpoint.getRecords(keySerializer, valueSerializer);
+            originalState = baseCheckpoint.getState();
+        }
         nodeRemover = new ReconnectNodeRemover<>(
-                originalMap.getRecords(), originalState.getFirstLeafPath(), originalState.getLastLeafPath());
+                originalRecords,
+                originalState.getFirstLeafPath(),
+                originalState.getLastLeafPath(),
+                learnerCheckpoint);
         return switch (config.reconnectMode()) {
             case VirtualMapReconnectMode.PUSH -> new LearnerPushVirtualTreeView<>(
-                    reconnectConfig, this, originalMap.records, originalState, reconnectState, nodeRemover, mapStats);
+                    reconnectConfig, this, originalRecords, originalState, reconnectState, nodeRemover, mapStats);
             case VirtualMapReconnectMode.PULL_TOP_TO_BOTTOM -> {
                 final NodeTraversalOrder topToBottom = new TopToBottomTraversalOrder();
                 yield new LearnerPullVirtualTreeView<>(
                         reconnectConfig,
                         this,
-                        originalMap.records,
+                        originalRecords,
                         originalState,
                         reconnectState,
                         nodeRemover,
@@ -1539,7 +1623,7 @@ public final class VirtualRootNode<K extends VirtualKey, V extends VirtualValue>
                 yield new LearnerPullVirtualTreeView<>(
                         reconnectConfig,
                         this,
-                        originalMap.records,
+                        originalRecords,
                         originalState,
                         reconnectState,
                         nodeRemover,
@@ -1584,6 +1668,9 @@ public final class VirtualRootNode<K extends VirtualKey, V extends VirtualValue>
 
     public void prepareReconnectHashing(final long firstLeafPath, final long lastLeafPath) {
         assert nodeRemover != null : "Cannot prepare reconnect hashing, since reconnect is not started";
+        if (learnerCheckpoint != null) {
+            learnerCheckpoint.setPathInformation(firstLeafPath, lastLeafPath);
+        }
         // The hash listener will be responsible for flushing stuff to the reconnect data source
         final ReconnectHashListener<K, V> hashListener = new ReconnectHashListener<>(
                 firstLeafPath,
@@ -1591,7 +1678,8 @@ public final class VirtualRootNode<K extends VirtualKey, V extends VirtualValue>
                 keySerializer,
                 valueSerializer,
                 reconnectRecords.getDataSource(),
-                nodeRemover);
+                nodeRemover,
+                learnerCheckpoint);
 
         // This background thread will be responsible for hashing the tree and sending the
         // data to the hash listener to flush.
@@ -1625,6 +1713,13 @@ public final class VirtualRootNode<K extends VirtualKey, V extends VirtualValue>
             } else {
                 logger.warn(RECONNECT.getMarker(), "virtual map hashing thread was never started");
             }
+            // Reconnect is complete, there is nothing to resume any longer
+            if (originalMap.reconnectCheckpoint != null) {
+                originalMap.reconnectCheckpoint.close();
+                originalMap.reconnectCheckpoint = null;
+            }
+            baseCheckpoint = null;
+            learnerCheckpoint = null;
             nodeRemover = null;
             originalMap = null;
             logger.info(RECONNECT.getMarker(), "call postInit()");
@@ -1643,6 +1738,51 @@ public final class VirtualRootNode<K extends VirtualKey, V extends VirtualValue>
         logger.info(RECONNECT.getMarker(), "endLearnerReconnect() complete");
     }
 
+    /**
+     * Called on the learner, if reconnect fails. If reconnect checkpoints are enabled, saves a checkpoint of
+     * this reconnect attempt, so the next reconnect of the original map is resumed from it rather than
+     * started from scratch.
+     */
+    public void abortLearnerReconnect() {
+        if ((learnerCheckpoint == null) || (originalMap == null)) {
+            return;
+        }
+        // No flushes to the reconnect data source after this call. Closing the iterator lets the hashing
+        // thread complete, all its remaining flushes are skipped
+        learnerCheckpoint.abort();
+        reconnectIterator.close();
+        if (!learnerCheckpoint.canBeSaved()) {
+            logger.info(RECONNECT.getMarker(), "VirtualMap@{} has no reconnect checkpoint to save", getRoute());
+            return;
+        }
+        try {
+            // Leaves outside the new leaf path range are no longer accessible in the reconnect data source
+            // by path. Remove their keys now, otherwise they would never be removed
+            nodeRemover.allNodesReceived();
+            final List<VirtualLeafRecord<K, V>> leavesToRemove = nodeRemover.getRecordsToDelete().toList();
+            learnerCheckpoint.trackRemovedLeaves(leavesToRemove);
+            dataSource.saveRecords(
+                    reconnectState.getFirstLeafPath(),
+                    reconnectState.getLastLeafPath(),
+                    Stream.empty(),
+                    Stream.empty(),
+                    leavesToRemove.stream().map(r -> r.toBytes(keySerializer, valueSerializer)),
+                    true);
+            learnerCheckpoint.save(dataSourceBuilder.copy(dataSource, false));
+        } catch (final IOException | RuntimeException e) {
+            logger.warn(RECONNECT.getMarker(), "VirtualMap@{} failed to save reconnect checkpoint", getRoute(), e);
+            return;
+        }
+        // The new checkpoint supersedes the checkpoint this reconnect was resumed from, if any
+        if (originalMap.reconnectCheckpoint != null) {
+            originalMap.reconnectCheckpoint.close();
+        }
+        originalMap.reconnectCheckpoint = learnerCheckpoint;
+        baseCheckpoint = null;
+        learnerCheckpoint = null;
+        logger.info(RECONNECT.getMarker(), "VirtualMap@{} saved reconnect checkpoint", getRoute());
+    }
+
     /**
      * Loads the leaf record.
      * Lower level caches (VirtualDataSource, the OS file cache) should make subsequent value retrievals faster.
@@ -1730,6 +1870,7 @@ public final class VirtualRootNode<K extends VirtualKey, V extends VirtualValue>
             cache.clearLeafPath(firstLeafPath);
             oldLeaf.setPath(getLeftChildPath(firstLeafPath));
             cache.putLeaf(oldLeaf);
+            leafUpdated(oldLeaf);
 
             // Create a new internal node that is in the position of the old leaf and attach it to the parent
             // on the left side. Put the new item on the right side of the new parent.
@@ -1743,6 +1884,20 @@ public final class VirtualRootNode<K extends VirtualKey, V extends VirtualValue>
 
         final VirtualLeafRecord<K, V> newLeaf = new VirtualLeafRecord<>(leafPath, key, value);
         cache.putLeaf(newLeaf);
+        leafUpdated(newLeaf);
+    }
+
+    /**
+     * Notifies the speculative leaf hasher, if enabled, that the given leaf is added, updated, or moved.
+     *
+     * @param leaf
+     * 		The updated leaf
+     */
+    private void leafUpdated(final VirtualLeafRecord<K, V> leaf) {
+        final SpeculativeLeafHasher<K, V> speculative = speculativeLeafHasher;
+        if (speculative != null) {
+            speculative.leafUpdated(leaf);
+        }
     }
 
     /**
@@ -1762,6 +1917,7 @@ public final class VirtualRootNode<K extends VirtualKey, V extends VirtualValue>
         final VirtualLeafRecord<K, V> rec = records.findLeafRecord(key, true);
         if (rec != null) {
             rec.setValue(value);
+            leafUpdated(rec);
             return true;
         }
 
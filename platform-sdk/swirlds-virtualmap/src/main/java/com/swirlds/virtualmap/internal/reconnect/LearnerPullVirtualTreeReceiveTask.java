@@ -96,7 +96,7 @@ public class LearnerPullVirtualTreeReceiveTask {
                 if (responseExpected) {
                     final PullVirtualTreeResponse response = new PullVirtualTreeResponse(view);
                     // the learner tree is notified about the new response in deserialize() method below
-                    response.deserialize(in, 0);
+                    response.deserialize(in, response.getVersion());
                     view.getMapStats().incrementTransfersFromTeacher();
                     logger.debug(RECONNECT.getMarker(), "Learner receive path: " + response.getPath());
                     if (response.getPath() == 0) {
@@ -25,6 +25,7 @@ import com.swirlds.common.merkle.synchronization.utility.MerkleSynchronizationEx
 import com.swirlds.common.threading.pool.StandardWorkGroup;
 import com.swirlds.virtualmap.internal.Path;
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -40,9 +41,12 @@ import org.apache.logging.log4j.Logger;
  * tree path range on the teacher side.
  *
  * <p>After the root response has been received, this task keeps sending requests according to
- * the provided {@link NodeTraversalOrder}. After the next path to request is {@link
- * Path#INVALID_PATH}, this request is sent to indicate that there will be no more requests from
- * the learner, and this task is finished.
+ * the provided {@link NodeTraversalOrder}. Contiguous paths returned by the traversal order are
+ * sent as a single range request, up to {@link ReconnectConfig#pullMaxRangeSize()} paths. The
+ * teacher responds to a range request with a bitmap of clean and dirty nodes, so mostly synced
+ * subtrees cost a few requests rather than a request per node. After the next path to request
+ * is {@link Path#INVALID_PATH}, this request is sent to indicate that there will be no more
+ * requests from the learner, and this task is finished.
  */
 public class LearnerPullVirtualTreeSendTask {
 
@@ -61,6 +65,9 @@ public class LearnerPullVirtualTreeSendTask {
     // Max time to wait for path 0 (virtual root) response from the teacher
     private final Duration rootResponseTimeout;
 
+    // Max number of contiguous paths to send in a single request
+    private final int maxRangeSize;
+
     // Indicates if a response for path 0 (virtual root) has been received
     private final CountDownLatch rootResponseReceived;
 
@@ -103,6 +110,8 @@ public class LearnerPullVirtualTreeSendTask {
         this.responsesExpected = responsesExpected;
 
         this.rootResponseTimeout = reconnectConfig.pullLearnerRootResponseTimeout();
+        this.maxRangeSize = Math.min(
+                Math.max(reconnectConfig.pullMaxRangeSize(), 1), PullVirtualTreeRequest.MAX_RANGE_SIZE);
     }
 
     void exec() {
@@ -119,19 +128,32 @@ public class LearnerPullVirtualTreeSendTask {
                 throw new MerkleSynchronizationException("Timed out waiting for root node response from the teacher");
             }
 
+            final Hash[] rangeHashes = new Hash[maxRangeSize];
+            long nextPath = traversalOrder.getNextPathToSend();
             while (true) {
-                final long path = traversalOrder.getNextPathToSend();
+                final long path = nextPath;
                 logger.debug(RECONNECT.getMarker(), "Learner send path: " + path);
                 if (path < Path.INVALID_PATH) {
                     Thread.onSpinWait();
+                    nextPath = traversalOrder.getNextPathToSend();
                     continue;
                 }
-                final Hash hash = path == Path.INVALID_PATH ? null : view.getNodeHash(path);
-                out.sendAsync(new PullVirtualTreeRequest(path, hash));
-                view.getMapStats().incrementTransfersFromLearner();
                 if (path == Path.INVALID_PATH) {
+                    out.sendAsync(new PullVirtualTreeRequest(path, (Hash[]) null));
+                    view.getMapStats().incrementTransfersFromLearner();
                     break;
                 }
+                // Collect contiguous paths into a single request. The first path that doesn't
+                // fit into the range is sent in the next request
+                int count = 0;
+                rangeHashes[count++] = view.getNodeHash(path);
+                nextPath = traversalOrder.getNextPathToSend();
+                while ((count < maxRangeSize) && (nextPath == path + count)) {
+                    rangeHashes[count++] = view.getNodeHash(nextPath);
+                    nextPath = traversalOrder.getNextPathToSend();
+                }
+                out.sendAsync(new PullVirtualTreeRequest(path, Arrays.copyOf(rangeHashes, count)));
+                view.getMapStats().incrementTransfersFromLearner();
                 responsesExpected.incrementAndGet();
             }
             logger.debug(RECONNECT.getMarker(), "Learner send done");
@@ -330,6 +330,14 @@ public final class LearnerPullVirtualTreeView<K extends VirtualKey, V extends Vi
         // no-op
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void abort() {
+        root.abortLearnerReconnect();
+    }
+
     /**
      * {@inheritDoc}
      */
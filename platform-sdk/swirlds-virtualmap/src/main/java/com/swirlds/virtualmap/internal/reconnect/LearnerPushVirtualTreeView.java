@@ -171,6 +171,7 @@ public final class LearnerPushVirtualTreeView<K extends VirtualKey, V extends Vi
     @Override
     public void abort() {
         in.abort();
+        root.abortLearnerReconnect();
     }
 
     /**
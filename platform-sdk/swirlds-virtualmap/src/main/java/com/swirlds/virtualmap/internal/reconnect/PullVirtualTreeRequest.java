@@ -25,27 +25,42 @@ import com.swirlds.virtualmap.internal.Path;
 import java.io.IOException;
 
 /**
- * Used during the synchronization protocol to send data needed to reconstruct a single virtual node.
+ * Used during the synchronization protocol to send data needed to reconstruct a range of virtual nodes.
  *
- * <p>On the learner side, a request is created with a path and a hash in the old learner
- * tree (if exists), then sent to the teacher. On the teacher side, requests are deserialized
- * from the stream, and for every request a response is sent back to the learner.
+ * <p>On the learner side, a request is created with a range of contiguous paths and node hashes in
+ * the old learner tree (if exist), then sent to the teacher. On the teacher side, requests are
+ * deserialized from the stream, and for every request a response is sent back to the learner. A
+ * response contains a bitmap of clean and dirty nodes for the whole range, see {@link
+ * PullVirtualTreeResponse}.
+ *
+ * <p>Every request starts with its class version, so a teacher running a different software version
+ * fails on the first request instead of misreading the stream.
  */
 public class PullVirtualTreeRequest implements SelfSerializable {
 
     private static final long CLASS_ID = 0xecfbef49a90334ffL;
 
+    /**
+     * The max number of paths in a single request. Requests with more paths are rejected by the teacher.
+     */
+    public static final int MAX_RANGE_SIZE = 65536;
+
     private static class ClassVersion {
         public static final int ORIGINAL = 1;
+        /**
+         * The request covers a range of paths, the class version is written to the stream.
+         */
+        public static final int RANGES = 2;
     }
 
-    // Virtual node path. If the path is Path.INVALID_PATH, it indicates that the learner will
-    // not send any more node requests to the teacher
+    // The first virtual node path in the range. If the path is Path.INVALID_PATH, it indicates
+    // that the learner will not send any more node requests to the teacher
     private long path;
 
-    // Virtual node hash. If a node with the given path does not exist on the learner (path is
-    // outside of range), NULL_HASH is used. If the path is Path.INVALID_PATH, the hash is null
-    private Hash hash;
+    // Virtual node hashes for all paths in the range. If a node with a given path does not exist
+    // on the learner (path is outside of range), NULL_HASH is used. If the path is Path.INVALID_PATH,
+    // hashes are null
+    private Hash[] hashes;
 
     /**
      * This constructor is used by the teacher to deserialize the request from the stream.
@@ -53,13 +68,23 @@ public class PullVirtualTreeRequest implements SelfSerializable {
     public PullVirtualTreeRequest() {}
 
     /**
-     * This constructor is used by the learner to send requests to the teacher.
+     * This constructor is used by the learner to send single path requests to the teacher.
      */
     public PullVirtualTreeRequest(final long path, final Hash hash) {
-        // Null hash for the terminating requests, non-null otherwise
-        assert path == Path.INVALID_PATH || (path >= 0 && hash != null);
+        this(path, hash == null ? null : new Hash[] {hash});
+    }
+
+    /**
+     * This constructor is used by the learner to send range requests to the teacher.
+     *
+     * @param path the first path in the range
+     * @param hashes learner node hashes for paths path, path + 1, and so on
+     */
+    public PullVirtualTreeRequest(final long path, final Hash[] hashes) {
+        // Null hashes for the terminating requests, non-empty otherwise
+        assert path == Path.INVALID_PATH || (path >= 0 && hashes != null && hashes.length > 0);
         this.path = path;
-        this.hash = hash;
+        this.hashes = hashes;
     }
 
     /**
@@ -67,9 +92,13 @@ public class PullVirtualTreeRequest implements SelfSerializable {
      */
     @Override
     public void serialize(final SerializableDataOutputStream out) throws IOException {
+        out.writeInt(ClassVersion.RANGES);
         out.writeLong(path);
-        if (hash != null) {
-            hash.getBytes().writeTo(out);
+        if (hashes != null) {
+            out.writeInt(hashes.length);
+            for (final Hash hash : hashes) {
+                hash.getBytes().writeTo(out);
+            }
         }
     }
 
@@ -78,22 +107,53 @@ public class PullVirtualTreeRequest implements SelfSerializable {
      */
     @Override
     public void deserialize(final SerializableDataInputStream in, final int version) throws IOException {
+        // Version 1 requests were not prefixed with the class version, they can't be read
+        final int streamVersion = in.readInt();
+        if (streamVersion != ClassVersion.RANGES) {
+            throw new IOException("Unsupported request version from the learner: " + streamVersion);
+        }
         path = in.readLong();
         if (path >= 0) {
-            final byte[] hashBytes = new byte[DigestType.SHA_384.digestLength()];
-            if (VirtualReconnectUtils.completelyRead(in, hashBytes) != DigestType.SHA_384.digestLength()) {
-                throw new IOException("Failed to read node hash from the learner");
+            final int count = in.readInt();
+            if ((count <= 0) || (count > MAX_RANGE_SIZE)) {
+                throw new IOException("Invalid number of paths in the request from the learner: " + count);
+            }
+            hashes = new Hash[count];
+            for (int i = 0; i < count; i++) {
+                final byte[] hashBytes = new byte[DigestType.SHA_384.digestLength()];
+                if (VirtualReconnectUtils.completelyRead(in, hashBytes) != DigestType.SHA_384.digestLength()) {
+                    throw new IOException("Failed to read node hash from the learner");
+                }
+                hashes[i] = new Hash(hashBytes, DigestType.SHA_384);
             }
-            hash = new Hash(hashBytes, DigestType.SHA_384);
         }
     }
 
+    /**
+     * Get the first path in the range.
+     *
+     * @return the first path
+     */
     public long getPath() {
         return path;
     }
 
-    public Hash getHash() {
-        return hash;
+    /**
+     * Get the number of paths in the range.
+     *
+     * @return the number of paths, or zero for the terminating request
+     */
+    public int getCount() {
+        return hashes == null ? 0 : hashes.length;
+    }
+
+    /**
+     * Get learner node hashes for all paths in the range.
+     *
+     * @return the node hashes, or null for the terminating request
+     */
+    public Hash[] getHashes() {
+        return hashes;
     }
 
     /**
@@ -109,6 +169,6 @@ public class PullVirtualTreeRequest implements SelfSerializable {
      */
     @Override
     public int getVersion() {
-        return ClassVersion.ORIGINAL;
+        return ClassVersion.RANGES;
     }
 }
@@ -20,17 +20,22 @@ import com.swirlds.common.crypto.Hash;
 import com.swirlds.common.io.SelfSerializable;
 import com.swirlds.common.io.streams.SerializableDataInputStream;
 import com.swirlds.common.io.streams.SerializableDataOutputStream;
+import com.swirlds.virtualmap.datasource.VirtualLeafRecord;
 import java.io.IOException;
 
 /**
- * Used during the synchronization protocol to send data needed to reconstruct a single virtual node.
+ * Used during the synchronization protocol to send data needed to reconstruct a range of virtual nodes.
  *
  * <p>The teacher sends one response for every {@link PullVirtualTreeRequest} received from the
- * learner. Every response includes a path followed by an integer flag that indicates if the node
- * is clear (value 0, node hash on the teacher is the same as sent by the learner), or not (non-zero
- * value). If the path corresponds to a leaf node, and the node is not clear, a {@link
+ * learner. Every response includes the first path in the range and the number of paths, followed
+ * by a bitmap that indicates for every path if the node is clear (bit is 0, node hash on the teacher
+ * is the same as sent by the learner), or not (bit is 1). For every path in the range, which
+ * corresponds to a leaf node, and the node is not clear, a {@link
  * com.swirlds.virtualmap.datasource.VirtualLeafRecord} for the node is included in the end of the
  * response.
+ *
+ * <p>Every response starts with its class version, so a learner running a different software version
+ * fails on the first response instead of misreading the stream.
  */
 @SuppressWarnings("rawtypes")
 public class PullVirtualTreeResponse implements SelfSerializable {
@@ -39,6 +44,10 @@ public class PullVirtualTreeResponse implements SelfSerializable {
 
     private static class ClassVersion {
         public static final int ORIGINAL = 1;
+        /**
+         * The response covers a range of paths, the class version is written to the stream.
+         */
+        public static final int RANGES = 2;
     }
 
     // Only used on the teacher side
@@ -47,14 +56,17 @@ public class PullVirtualTreeResponse implements SelfSerializable {
     // Only used on the learner side
     private final LearnerPullVirtualTreeView learnerView;
 
-    // Virtual node path
+    // The first virtual node path in the range
     private long path;
 
-    // Virtual node hash on the learner side. May be NULL_HASH, if the path is outside of path range
-    // in the old learner virtual tree
-    private Hash learnerHash;
+    // The number of paths in the range
+    private int count;
+
+    // Only used on the teacher side. Indicates for every path in the range if the node is clean
+    private boolean[] clean;
 
-    private Hash teacherHash;
+    // Only used on the teacher side. Leaf records to send, loaded ahead of serialization
+    private VirtualLeafRecord[] leafRecords;
 
     /**
      * Zero-arg constructor for constructable registry.
@@ -66,19 +78,31 @@ public class PullVirtualTreeResponse implements SelfSerializable {
 
     /**
      * This constructor is used by the teacher to create new responses.
+     *
+     * @param teacherView the teacher view
+     * @param path the first path in the range
+     * @param learnerHashes node hashes on the learner side. May be NULL_HASH, if a path is outside
+     *      of path range in the old learner virtual tree
+     * @param teacherHashes node hashes on the teacher side. May be null, if the tree is empty
      */
     public PullVirtualTreeResponse(
             final TeacherPullVirtualTreeView teacherView,
             final long path,
-            final Hash learnerHash,
-            final Hash teacherHash) {
+            final Hash[] learnerHashes,
+            final Hash[] teacherHashes) {
+        assert learnerHashes != null && learnerHashes.length == teacherHashes.length;
         this.teacherView = teacherView;
         this.learnerView = null;
         this.path = path;
-        this.learnerHash = learnerHash;
-        assert learnerHash != null;
-        this.teacherHash = teacherHash;
-        // teacherHash may be null (in case the tree is empty)
+        this.count = learnerHashes.length;
+        this.clean = new boolean[count];
+        this.leafRecords = new VirtualLeafRecord[count];
+        for (int i = 0; i < count; i++) {
+            // teacherHash may be null (in case the tree is empty)
+            final Hash teacherHash = teacherHashes[i];
+            clean[i] = (teacherHash == null) || teacherHash.equals(learnerHashes[i]);
+            leafRecords[i] = teacherView.loadLeafRecord(path + i, clean[i]);
+        }
     }
 
     /**
@@ -98,10 +122,20 @@ public class PullVirtualTreeResponse implements SelfSerializable {
     @Override
     public void serialize(final SerializableDataOutputStream out) throws IOException {
         assert teacherView != null;
+        out.writeInt(ClassVersion.RANGES);
         out.writeLong(path);
-        final boolean isClean = (teacherHash == null) || teacherHash.equals(learnerHash);
-        out.write(isClean ? 0 : 1);
-        teacherView.writeNode(out, path, isClean);
+        out.writeInt(count);
+        final byte[] dirtyBits = new byte[(count + 7) / 8];
+        for (int i = 0; i < count; i++) {
+            if (!clean[i]) {
+                dirtyBits[i >>> 3] |= (byte) (1 << (i & 7));
+            }
+        }
+        out.write(dirtyBits);
+        for (int i = 0; i < count; i++) {
+            teacherView.writeNode(out, path + i, leafRecords[i]);
+        }
+        leafRecords = null;
     }
 
     /**
@@ -110,16 +144,35 @@ public class PullVirtualTreeResponse implements SelfSerializable {
     @Override
     public void deserialize(final SerializableDataInputStream in, final int version) throws IOException {
         assert learnerView != null;
+        // Version 1 responses were not prefixed with the class version, they can't be read
+        final int streamVersion = in.readInt();
+        if (streamVersion != ClassVersion.RANGES) {
+            throw new IOException("Unsupported response version from the teacher: " + streamVersion);
+        }
         path = in.readLong();
-        final boolean isClean = in.read() == 0;
-        learnerView.readNode(in, path, isClean);
-        if (learnerView.isLeaf(path)) {
-            learnerView.getMapStats().incrementLeafHashes(1, isClean ? 1 : 0);
-        } else {
-            learnerView.getMapStats().incrementInternalHashes(1, isClean ? 1 : 0);
+        count = in.readInt();
+        if ((count <= 0) || (count > PullVirtualTreeRequest.MAX_RANGE_SIZE)) {
+            throw new IOException("Invalid number of paths in the response from the teacher: " + count);
+        }
+        final byte[] dirtyBits = new byte[(count + 7) / 8];
+        in.readFully(dirtyBits);
+        for (int i = 0; i < count; i++) {
+            final long nodePath = path + i;
+            final boolean isClean = (dirtyBits[i >>> 3] & (1 << (i & 7))) == 0;
+            learnerView.readNode(in, nodePath, isClean);
+            if (learnerView.isLeaf(nodePath)) {
+                learnerView.getMapStats().incrementLeafHashes(1, isClean ? 1 : 0);
+            } else {
+                learnerView.getMapStats().incrementInternalHashes(1, isClean ? 1 : 0);
+            }
         }
     }
 
+    /**
+     * Get the first path in the range.
+     *
+     * @return the first path
+     */
     public long getPath() {
         return path;
     }
@@ -137,6 +190,6 @@ public class PullVirtualTreeResponse implements SelfSerializable {
      */
     @Override
     public int getVersion() {
-        return ClassVersion.ORIGINAL;
+        return ClassVersion.RANGES;
     }
 }
@@ -0,0 +1,581 @@
+/*
+ * Copyright (C) 2024 Hedera Hashgraph, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.swirlds.virtualmap.internal.reconnect;
+
+import static com.swirlds.logging.legacy.LogMarker.EXCEPTION;
+import static com.swirlds.virtualmap.internal.Path.INVALID_PATH;
+import static com.swirlds.virtualmap.internal.Path.getLeftChildPath;
+import static com.swirlds.virtualmap.internal.Path.getParentPath;
+import static com.swirlds.virtualmap.internal.Path.getRightChildPath;
+
+import com.swirlds.common.crypto.CryptographyHolder;
+import com.swirlds.common.crypto.Hash;
+import com.swirlds.common.io.streams.SerializableDataOutputStream;
+import com.swirlds.common.io.utility.IORunnable;
+import com.swirlds.virtualmap.VirtualKey;
+import com.swirlds.virtualmap.VirtualValue;
+import com.swirlds.virtualmap.datasource.VirtualDataSource;
+import com.swirlds.virtualmap.datasource.VirtualHashRecord;
+import com.swirlds.virtualmap.datasource.VirtualLeafRecord;
+import com.swirlds.virtualmap.internal.RecordAccessor;
+import com.swirlds.virtualmap.internal.VirtualStateAccessor;
+import com.swirlds.virtualmap.internal.cache.VirtualNodeCache;
+import com.swirlds.virtualmap.internal.merkle.RecordAccessorImpl;
+import com.swirlds.virtualmap.serialize.KeySerializer;
+import com.swirlds.virtualmap.serialize.ValueSerializer;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.stream.LongStream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Progress of a learner reconnect of a single virtual map, which can be used to resume the reconnect if it
+ * fails. While reconnect is in progress, this class tracks what is flushed to the reconnect data source.
+ * If reconnect fails, the reconnect data source is preserved (as a copy, on disk) along with the tracked
+ * information, and the next reconnect attempt of the same original map starts from this preserved data
+ * source rather than from the original map data source.
+ *
+ * <p>The reconnect data source is a mix of the original learner tree and nodes received from the teacher.
+ * To compare it with a teacher tree, which may be newer than the teacher tree of the failed attempt, every
+ * node is classified as follows:
+ *
+ * <ul>
+ *     <li>Verified nodes. When a node hash is flushed, the whole subtree of the node is already flushed or
+ *     was clean. Such subtrees are consistent with the teacher tree of the failed attempt, and their hashes
+ *     can be compared to the hashes of the next teacher tree</li>
+ *     <li>Untouched nodes. If nothing in a subtree was written to the data source during the failed attempt,
+ *     including removed and relocated leaf keys, the subtree is the same as in the base tree (the original
+ *     tree, or the checkpoint this attempt was resumed from), and the same classification applies to it
+ *     recursively</li>
+ *     <li>All other nodes are not trusted. A null hash is reported for them to the teacher, so they are
+ *     always sent again</li>
+ * </ul>
+ *
+ * <p>The data source only contains leaves and hashes in the leaf path range of the failed attempt, so a
+ * subtree is only trusted, if all its leaves are in this range.
+ *
+ * <p>When a checkpoint is saved, the classification of its base checkpoint is merged into it, and the base
+ * checkpoint is no longer referenced. This way checkpoints of repeated failed attempts don't build a chain.
+ * The merge is conservative: a base verified subtree, which is partially touched in the tracked attempt, is
+ * not trusted at all, even if some of its nodes could be.
+ *
+ * <p>Flushes to the reconnect data source are tracked in {@link #trackFlush(List, IORunnable)}, and other
+ * tracking methods are called from learner receiving threads. All tracking methods are thread safe. Once a
+ * checkpoint is saved, it's never changed again, and it may be queried from multiple threads.
+ *
+ * @param <K>
+ * 		the type of the key
+ * @param <V>
+ * 		the type of the value
+ */
+public class ReconnectCheckpoint<K extends VirtualKey, V extends VirtualValue> {
+
+    private static final Logger logger = LogManager.getLogger(ReconnectCheckpoint.class);
+
+    /**
+     * Reported to the teacher for all nodes that can't be trusted. It never matches a hash of an existing
+     * teacher node.
+     */
+    private static final Hash NULL_HASH = CryptographyHolder.get().getNullHash();
+
+    private static final long[] EMPTY = new long[0];
+
+    /**
+     * The checkpoint, which the reconnect attempt tracked by this checkpoint was resumed from. If null, the
+     * attempt was started from the original learner tree. Set to null, when the checkpoint is saved.
+     */
+    private ReconnectCheckpoint<K, V> base;
+
+    /**
+     * The first leaf path of the original learner tree.
+     */
+    private final long originalFirstLeafPath;
+
+    /**
+     * The last leaf path of the original learner tree.
+     */
+    private final long originalLastLeafPath;
+
+    /**
+     * Untouched subtrees of the original learner tree are only trusted, if all their leaves are in the
+     * leaf path ranges of all attempts since the original tree. This is the min path of these ranges.
+     * Only set when the checkpoint is saved.
+     */
+    private long minOriginalLeafPath = INVALID_PATH;
+
+    /**
+     * The max path of the leaf path ranges of all attempts since the original tree, see {@link
+     * #minOriginalLeafPath}. Only set when the checkpoint is saved.
+     */
+    private long maxOriginalLeafPath = INVALID_PATH;
+
+    /**
+     * The first leaf path of the teacher tree in the tracked reconnect attempt.
+     */
+    private long firstLeafPath = INVALID_PATH;
+
+    /**
+     * The last leaf path of the teacher tree in the tracked reconnect attempt.
+     */
+    private long lastLeafPath = INVALID_PATH;
+
+    /**
+     * Roots of verified subtrees, while the reconnect attempt is in progress. When a node is flushed,
+     * its children are removed from this set.
+     */
+    private TreeSet<Long> verifiedRootsInProgress = new TreeSet<>();
+
+    /**
+     * Paths of removed and relocated leaves, while the reconnect attempt is in progress. Not sorted, and
+     * may contain duplicates.
+     */
+    private long[] touchedPathsInProgress = new long[1024];
+
+    private int touchedPathsCount = 0;
+
+    /**
+     * Sorted roots of verified subtrees. Only set when the checkpoint is saved.
+     */
+    private long[] verifiedRoots = EMPTY;
+
+    /**
+     * Sorted paths of removed and relocated leaves. Only set when the checkpoint is saved.
+     */
+    private long[] touchedPaths = EMPTY;
+
+    /**
+     * Sorted roots of base verified subtrees, which are not trusted in this checkpoint. Neither nodes in
+     * these subtrees nor nodes above them are trusted. Only set when the checkpoint is saved.
+     */
+    private long[] untrustedRoots = EMPTY;
+
+    /**
+     * Indicates that at least one flush to the reconnect data source is complete.
+     */
+    private boolean flushed = false;
+
+    /**
+     * Indicates that a flush to the reconnect data source failed, so the data source content is unknown.
+     */
+    private boolean broken = false;
+
+    /**
+     * Indicates that the reconnect attempt is aborted. No flushes are allowed after that.
+     */
+    private boolean aborted = false;
+
+    /**
+     * A copy of the reconnect data source, preserved when the checkpoint is saved.
+     */
+    private VirtualDataSource dataSource;
+
+    /**
+     * Create a new checkpoint to track a reconnect attempt.
+     *
+     * @param base
+     * 		the checkpoint the attempt is resumed from, or null if the attempt starts from the original tree
+     * @param originalFirstLeafPath
+     * 		the first leaf path of the original learner tree
+     * @param originalLastLeafPath
+     * 		the last leaf path of the original learner tree
+     */
+    public ReconnectCheckpoint(
+            @Nullable final ReconnectCheckpoint<K, V> base,
+            final long originalFirstLeafPath,
+            final long originalLastLeafPath) {
+        this.base = base;
+        this.originalFirstLeafPath = originalFirstLeafPath;
+        this.originalLastLeafPath = originalLastLeafPath;
+    }
+
+    /**
+     * Set the first and last leaf paths of the teacher tree. Called once the teacher tree root is received.
+     *
+     * @param firstLeafPath
+     * 		the first leaf path of the teacher tree
+     * @param lastLeafPath
+     * 		the last leaf path of the teacher tree
+     */
+    public synchronized void setPathInformation(final long firstLeafPath, final long lastLeafPath) {
+        this.firstLeafPath = firstLeafPath;
+        this.lastLeafPath = lastLeafPath;
+    }
+
+    /**
+     * Run a flush to the reconnect data source and track the flushed node hashes. If the reconnect attempt
+     * is already aborted, the flush is skipped. Flushes and {@link #abort()} are mutually exclusive, so once
+     * {@code abort()} returns, the data source isn't written to any longer.
+     *
+     * @param hashes
+     * 		the hashes to flush, in the order the nodes were hashed
+     * @param flush
+     * 		the flush to run
+     * @throws IOException
+     * 		if the flush fails
+     */
+    public synchronized void trackFlush(@NonNull final List<VirtualHashRecord> hashes, @NonNull final IORunnable flush)
+            throws IOException {
+        if (aborted) {
+            return;
+        }
+        try {
+            flush.run();
+        } catch (final IOException | RuntimeException e) {
+            broken = true;
+            throw e;
+        }
+        // A node is always hashed after its children, so the children are already in the set
+        for (final VirtualHashRecord rec : hashes) {
+            final long path = rec.path();
+            verifiedRootsInProgress.remove(getLeftChildPath(path));
+            verifiedRootsInProgress.remove(getRightChildPath(path));
+            verifiedRootsInProgress.add(path);
+        }
+        flushed = true;
+    }
+
+    /**
+     * Track leaves to remove from the reconnect data source. Called before the leaves are removed.
+     *
+     * @param leaves
+     * 		the leaves to remove
+     */
+    public synchronized void trackRemovedLeaves(@NonNull final List<VirtualLeafRecord<K, V>> leaves) {
+        for (final VirtualLeafRecord<K, V> leaf : leaves) {
+            addTouchedPath(leaf.getPath());
+        }
+    }
+
+    /**
+     * Track a leaf key, which is moved to a different path. The key at the old path is no longer
+     * valid in the reconnect data source.
+     *
+     * @param oldPath
+     * 		the path of the key in the base tree
+     */
+    public synchronized void trackRelocatedLeaf(final long oldPath) {
+        addTouchedPath(oldPath);
+    }
+
+    private void addTouchedPath(final long path) {
+        if (touchedPathsCount == touchedPathsInProgress.length) {
+            touchedPathsInProgress = Arrays.copyOf(touchedPathsInProgress, touchedPathsCount * 2);
+        }
+        touchedPathsInProgress[touchedPathsCount++] = path;
+    }
+
+    /**
+     * Abort the reconnect attempt. Waits for the current flush, if any, to complete. All flushes after
+     * this method is called are skipped.
+     */
+    public synchronized void abort() {
+        aborted = true;
+    }
+
+    /**
+     * Check if this checkpoint can be saved. A checkpoint is only useful, if the teacher tree root was
+     * received, and at least one flush to the reconnect data source is complete. If a flush failed, the
+     * checkpoint can't be used.
+     *
+     * @return true if this checkpoint can be saved
+     */
+    public synchronized boolean canBeSaved() {
+        return aborted && flushed && !broken && (lastLeafPath != INVALID_PATH);
+    }
+
+    /**
+     * Save the checkpoint. The reconnect data source is preserved as a copy, which stays open till
+     * {@link #close()} is called. Must be called after {@link #abort()}.
+     *
+     * @param reconnectDataSourceCopy
+     * 		a copy of the reconnect data source
+     */
+    public synchronized void save(@NonNull final VirtualDataSource reconnectDataSourceCopy) {
+        assert canBeSaved() : "Checkpoint can't be saved";
+        dataSource = Objects.requireNonNull(reconnectDataSourceCopy);
+        verifiedRoots = verifiedRootsInProgress.stream().mapToLong(Long::longValue).toArray();
+        touchedPaths = Arrays.stream(touchedPathsInProgress, 0, touchedPathsCount)
+                .sorted()
+                .distinct()
+                .toArray();
+        minOriginalLeafPath = firstLeafPath;
+        maxOriginalLeafPath = lastLeafPath;
+        if (base != null) {
+            mergeBase(base);
+            base = null;
+        }
+        verifiedRootsInProgress = null;
+        touchedPathsInProgress = null;
+    }
+
+    /**
+     * Merge the classification of a saved base checkpoint into this checkpoint. Base verified subtrees are
+     * kept verified, if they are untouched in this attempt, and all their leaves are in the leaf path range
+     * of this attempt. Other base verified subtrees become untrusted. Paths in verified subtrees are dropped
+     * from touched paths and untrusted roots, as they don't change what is trusted.
+     *
+     * @param base
+     * 		the saved base checkpoint
+     */
+    private void mergeBase(final ReconnectCheckpoint<K, V> base) {
+        final LongStream.Builder keptRoots = LongStream.builder();
+        final LongStream.Builder droppedRoots = LongStream.builder();
+        for (final long root : base.verifiedRoots) {
+            final long[] range = leafRange(root, base.firstLeafPath, base.lastLeafPath);
+            if (!hasTouchedDescendant(root, verifiedRoots)
+                    && !hasTouchedDescendant(root, touchedPaths)
+                    && (range[0] >= firstLeafPath)
+                    && (range[1] <= lastLeafPath)) {
+                keptRoots.add(root);
+            } else {
+                droppedRoots.add(root);
+            }
+        }
+        verifiedRoots = LongStream.concat(LongStream.of(verifiedRoots), keptRoots.build()).sorted().toArray();
+        touchedPaths = mergeUnverified(
+                LongStream.concat(LongStream.of(touchedPaths), LongStream.of(base.touchedPaths)));
+        untrustedRoots = mergeUnverified(LongStream.concat(LongStream.of(base.untrustedRoots), droppedRoots.build()));
+        minOriginalLeafPath = Math.max(minOriginalLeafPath, base.minOriginalLeafPath);
+        maxOriginalLeafPath = Math.min(maxOriginalLeafPath, base.maxOriginalLeafPath);
+    }
+
+    /**
+     * Sort the given paths, and drop duplicates and paths in verified subtrees.
+     */
+    private long[] mergeUnverified(final LongStream paths) {
+        return paths.sorted().distinct().filter(p -> !isVerified(p)).toArray();
+    }
+
+    /**
+     * Get the preserved reconnect data source.
+     *
+     * @return the data source, or null if the checkpoint isn't saved
+     */
+    public synchronized VirtualDataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * Get the first and last leaf paths of the preserved reconnect data source.
+     *
+     * @return the state with the first and last leaf paths
+     */
+    public synchronized VirtualStateAccessor getState() {
+        return new ReconnectState(firstLeafPath, lastLeafPath);
+    }
+
+    /**
+     * Get records of the preserved reconnect data source, to be used as the original records in the next
+     * reconnect attempt. Hashes of all nodes that can't be trusted are reported as null hashes. Must only
+     * be called for saved checkpoints.
+     *
+     * @param keySerializer
+     * 		the key serializer
+     * @param valueSerializer
+     * 		the value serializer
+     * @return the records
+     */
+    public RecordAccessor<K, V> getRecords(
+            @NonNull final KeySerializer<K> keySerializer, @NonNull final ValueSerializer<V> valueSerializer) {
+        final RecordAccessor<K, V> records = new RecordAccessorImpl<>(
+                getState(), new VirtualNodeCache<>(), keySerializer, valueSerializer, getDataSource());
+        return new CheckpointRecordAccessor<>(this, records);
+    }
+
+    /**
+     * Close the preserved reconnect data source, if any. Called when the checkpoint is no longer needed.
+     */
+    public synchronized void close() {
+        if (dataSource != null) {
+            try {
+                dataSource.close();
+            } catch (final IOException e) {
+                logger.error(EXCEPTION.getMarker(), "Failed to close reconnect checkpoint data source", e);
+            }
+            dataSource = null;
+        }
+    }
+
+    /**
+     * Check if the subtree at the given path in the preserved reconnect data source can be trusted, i.e.
+     * compared to the teacher tree, and find the range of its leaf paths. Must only be called for saved
+     * checkpoints.
+     *
+     * @param path
+     * 		the subtree root path
+     * @return the min and max leaf paths of the subtree, or null if the subtree can't be trusted
+     */
+    long[] findTrustedLeafRange(final long path) {
+        if ((path < 0) || (path > lastLeafPath)) {
+            return null;
+        }
+        if (isVerified(path)) {
+            return leafRange(path, firstLeafPath, lastLeafPath);
+        }
+        if (hasTouchedDescendant(path, verifiedRoots)
+                || hasTouchedDescendant(path, touchedPaths)
+                || hasTouchedDescendant(path, untrustedRoots)
+                || hasAncestor(path, untrustedRoots)) {
+            return null;
+        }
+        if ((originalLastLeafPath == INVALID_PATH) || (path > originalLastLeafPath)) {
+            return null;
+        }
+        final long[] originalRange = leafRange(path, originalFirstLeafPath, originalLastLeafPath);
+        if ((originalRange[0] < minOriginalLeafPath) || (originalRange[1] > maxOriginalLeafPath)) {
+            return null;
+        }
+        return originalRange;
+    }
+
+    private boolean isVerified(final long path) {
+        return hasAncestor(path, verifiedRoots);
+    }
+
+    /**
+     * Check if any of the given sorted paths is the given path or its ancestor.
+     */
+    private static boolean hasAncestor(final long path, final long[] sortedPaths) {
+        // The parent of the root path is INVALID_PATH
+        for (long p = path; p != INVALID_PATH; p = getParentPath(p)) {
+            if (Arrays.binarySearch(sortedPaths, p) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if any of the given sorted paths is in the subtree of the given path, including the path itself.
+     */
+    private static boolean hasTouchedDescendant(final long path, final long[] sortedPaths) {
+        if (sortedPaths.length == 0) {
+            return false;
+        }
+        final long maxPath = sortedPaths[sortedPaths.length - 1];
+        long lo = path;
+        long hi = path;
+        while (lo <= maxPath) {
+            int i = Arrays.binarySearch(sortedPaths, lo);
+            if (i < 0) {
+                i = -i - 1;
+            }
+            if ((i < sortedPaths.length) && (sortedPaths[i] <= hi)) {
+                return true;
+            }
+            lo = getLeftChildPath(lo);
+            hi = getRightChildPath(hi);
+        }
+        return false;
+    }
+
+    /**
+     * Find the min and max leaf paths in the subtree of the given path, in a tree with the given
+     * first and last leaf paths.
+     */
+    static long[] leafRange(final long path, final long firstLeafPath, final long lastLeafPath) {
+        long min = INVALID_PATH;
+        long max = INVALID_PATH;
+        long lo = path;
+        long hi = path;
+        // Leaves of a subtree are at most at two ranks. Children of the nodes at the first of these
+        // ranks are only in the range, if the nodes are internal
+        while (lo <= lastLeafPath) {
+            final long leafLo = Math.max(lo, firstLeafPath);
+            final long leafHi = Math.min(hi, lastLeafPath);
+            if (leafLo <= leafHi) {
+                if (min == INVALID_PATH) {
+                    min = leafLo;
+                }
+                max = leafHi;
+            }
+            lo = getLeftChildPath(lo);
+            hi = getRightChildPath(hi);
+        }
+        return new long[] {min, max};
+    }
+
+    /**
+     * A record accessor for the preserved reconnect data source, which hides hashes of all nodes that
+     * can't be trusted.
+     */
+    private static final class CheckpointRecordAccessor<K extends VirtualKey, V extends VirtualValue>
+            implements RecordAccessor<K, V> {
+
+        private final ReconnectCheckpoint<K, V> checkpoint;
+        private final RecordAccessor<K, V> delegate;
+
+        CheckpointRecordAccessor(final ReconnectCheckpoint<K, V> checkpoint, final RecordAccessor<K, V> delegate) {
+            this.checkpoint = checkpoint;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Hash findHash(final long path) {
+            if (checkpoint.findTrustedLeafRange(path) == null) {
+                return NULL_HASH;
+            }
+            return delegate.findHash(path);
+        }
+
+        @Override
+        public boolean findAndWriteHash(final long path, final SerializableDataOutputStream out) throws IOException {
+            final Hash hash = findHash(path);
+            if (hash == null) {
+                return false;
+            }
+            hash.serialize(out);
+            return true;
+        }
+
+        @Override
+        public VirtualLeafRecord<K, V> findLeafRecord(final K key, final boolean copy) {
+            return delegate.findLeafRecord(key, copy);
+        }
+
+        @Override
+        public VirtualLeafRecord<K, V> findLeafRecord(final long path, final boolean copy) {
+            return delegate.findLeafRecord(path, copy);
+        }
+
+        @Override
+        public long findKey(final K key) {
+            return delegate.findKey(key);
+        }
+
+        @Override
+        public VirtualDataSource getDataSource() {
+            return delegate.getDataSource();
+        }
+
+        @Override
+        public synchronized VirtualStateAccessor getState() {
+            return delegate.getState();
+        }
+
+        @Override
+        public VirtualNodeCache<K, V> getCache() {
+            return delegate.getCache();
+        }
+    }
+}
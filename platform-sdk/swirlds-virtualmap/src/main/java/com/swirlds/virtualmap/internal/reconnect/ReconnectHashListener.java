@@ -19,11 +19,15 @@ package com.swirlds.virtualmap.internal.reconnect;
 import com.swirlds.virtualmap.VirtualKey;
 import com.swirlds.virtualmap.VirtualValue;
 import com.swirlds.virtualmap.datasource.VirtualDataSource;
+import com.swirlds.virtualmap.datasource.VirtualHashRecord;
 import com.swirlds.virtualmap.datasource.VirtualLeafRecord;
 import com.swirlds.virtualmap.internal.hash.VirtualHashListener;
 import com.swirlds.virtualmap.internal.merkle.AbstractHashListener;
 import com.swirlds.virtualmap.serialize.KeySerializer;
 import com.swirlds.virtualmap.serialize.ValueSerializer;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.util.List;
 import java.util.stream.Stream;
 
 /**
@@ -56,6 +60,11 @@ import java.util.stream.Stream;
 public class ReconnectHashListener<K extends VirtualKey, V extends VirtualValue> extends AbstractHashListener<K, V> {
     private final ReconnectNodeRemover<K, V> nodeRemover;
 
+    /**
+     * Tracks flushed nodes to resume reconnect, if it fails. May be null.
+     */
+    private final ReconnectCheckpoint<K, V> checkpoint;
+
     /**
      * Create a new {@link ReconnectHashListener}.
      *
@@ -73,8 +82,47 @@ public class ReconnectHashListener<K extends VirtualKey, V extends VirtualValue>
             final ValueSerializer<V> valueSerializer,
             final VirtualDataSource dataSource,
             final ReconnectNodeRemover<K, V> nodeRemover) {
+        this(firstLeafPath, lastLeafPath, keySerializer, valueSerializer, dataSource, nodeRemover, null);
+    }
+
+    /**
+     * Create a new {@link ReconnectHashListener}, which tracks all flushes in the given checkpoint.
+     *
+     * @param firstLeafPath
+     * 		The first leaf path. Must be a valid path.
+     * @param lastLeafPath
+     * 		The last leaf path. Must be a valid path.
+     * @param dataSource
+     * 		The data source. Cannot be null.
+     * @param checkpoint
+     * 		The reconnect checkpoint. May be null, if reconnect checkpoints are disabled.
+     */
+    public ReconnectHashListener(
+            final long firstLeafPath,
+            final long lastLeafPath,
+            final KeySerializer<K> keySerializer,
+            final ValueSerializer<V> valueSerializer,
+            final VirtualDataSource dataSource,
+            final ReconnectNodeRemover<K, V> nodeRemover,
+            final ReconnectCheckpoint<K, V> checkpoint) {
         super(firstLeafPath, lastLeafPath, keySerializer, valueSerializer, dataSource);
         this.nodeRemover = nodeRemover;
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void saveRecords(
+            @NonNull final List<VirtualHashRecord> hashesToFlush,
+            @NonNull final List<VirtualLeafRecord<K, V>> leavesToFlush)
+            throws IOException {
+        if (checkpoint == null) {
+            super.saveRecords(hashesToFlush, leavesToFlush);
+        } else {
+            checkpoint.trackFlush(hashesToFlush, () -> super.saveRecords(hashesToFlush, leavesToFlush));
+        }
     }
 
     /**
@@ -82,6 +130,11 @@ public class ReconnectHashListener<K extends VirtualKey, V extends VirtualValue>
      */
     @Override
     protected Stream<VirtualLeafRecord<K, V>> findLeavesToRemove() {
-        return nodeRemover.getRecordsToDelete();
+        if (checkpoint == null) {
+            return nodeRemover.getRecordsToDelete();
+        }
+        final List<VirtualLeafRecord<K, V>> leavesToRemove = nodeRemover.getRecordsToDelete().toList();
+        checkpoint.trackRemovedLeaves(leavesToRemove);
+        return leavesToRemove.stream();
     }
 }
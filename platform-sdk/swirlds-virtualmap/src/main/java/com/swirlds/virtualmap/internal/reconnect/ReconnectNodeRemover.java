@@ -17,6 +17,7 @@
 package com.swirlds.virtualmap.internal.reconnect;
 
 import static com.swirlds.logging.legacy.LogMarker.RECONNECT;
+import static com.swirlds.virtualmap.internal.Path.INVALID_PATH;
 
 import com.swirlds.virtualmap.VirtualKey;
 import com.swirlds.virtualmap.VirtualValue;
@@ -86,6 +87,11 @@ public class ReconnectNodeRemover<K extends VirtualKey, V extends VirtualValue>
      */
     private Set<VirtualLeafRecord<K, ?>> leavesToDelete = new HashSet<>();
 
+    /**
+     * Tracks keys moved to different paths, to resume reconnect if it fails. May be null.
+     */
+    private final ReconnectCheckpoint<K, V> checkpoint;
+
     /**
      * Create an object responsible for removing virtual map nodes during a reconnect.
      *
@@ -98,9 +104,31 @@ public class ReconnectNodeRemover<K extends VirtualKey, V extends VirtualValue>
      */
     public ReconnectNodeRemover(
             final RecordAccessor<K, ?> oldRecords, final long oldFirstLeafPath, final long oldLastLeafPath) {
+        this(oldRecords, oldFirstLeafPath, oldLastLeafPath, null);
+    }
+
+    /**
+     * Create an object responsible for removing virtual map nodes during a reconnect, which also tracks
+     * keys moved to different paths in the given checkpoint.
+     *
+     * @param oldRecords
+     * 		a record accessor for the original map from before the reconnect
+     * @param oldFirstLeafPath
+     * 		the original first leaf path from before the reconnect
+     * @param oldLastLeafPath
+     * 		the original last leaf path from before the reconnect
+     * @param checkpoint
+     * 		the reconnect checkpoint. May be null, if reconnect checkpoints are disabled
+     */
+    public ReconnectNodeRemover(
+            final RecordAccessor<K, ?> oldRecords,
+            final long oldFirstLeafPath,
+            final long oldLastLeafPath,
+            final ReconnectCheckpoint<K, V> checkpoint) {
         this.oldRecords = oldRecords;
         this.oldFirstLeafPath = oldFirstLeafPath;
         this.oldLastLeafPath = oldLastLeafPath;
+        this.checkpoint = checkpoint;
     }
 
     /**
@@ -123,8 +151,11 @@ public class ReconnectNodeRemover<K extends VirtualKey, V extends VirtualValue>
             // no-op if new first leaf path is less or equal to old first leaf path
             for (long path = oldFirstLeafPath; path < Math.min(newFirstLeafPath, oldLastLeafPath + 1); path++) {
                 final VirtualLeafRecord<K, ?> oldRecord = oldRecords.findLeafRecord(path, false);
-                assert oldRecord != null;
-                leavesToDelete.add(oldRecord);
+                // When reconnect is resumed from a checkpoint, some old leaves may already be removed
+                assert (oldRecord != null) || (checkpoint != null);
+                if (oldRecord != null) {
+                    leavesToDelete.add(oldRecord);
+                }
             }
         }
     }
@@ -140,9 +171,18 @@ public class ReconnectNodeRemover<K extends VirtualKey, V extends VirtualValue>
      */
     public synchronized void newLeafNode(final long path, final K newKey) {
         final VirtualLeafRecord<K, ?> oldRecord = oldRecords.findLeafRecord(path, false);
-        if ((oldRecord != null) && !newKey.equals(oldRecord.getKey())) {
+        final boolean sameKey = (oldRecord != null) && newKey.equals(oldRecord.getKey());
+        if ((oldRecord != null) && !sameKey) {
             leavesToDelete.add(oldRecord);
         }
+        // If the old leaf at the path has the same key, the key isn't relocated, and there is no need
+        // to look it up in the old records again
+        if ((checkpoint != null) && !sameKey) {
+            final long oldPath = oldRecords.findKey(newKey);
+            if ((oldPath != INVALID_PATH) && (oldPath != path)) {
+                checkpoint.trackRelocatedLeaf(oldPath);
+            }
+        }
     }
 
     public synchronized void allNodesReceived() {
@@ -156,7 +196,7 @@ public class ReconnectNodeRemover<K extends VirtualKey, V extends VirtualValue>
                 "allNodesReceived(): newLastLeafPath = " + newLastLeafPath + ", oldLastLeafPath = " + oldLastLeafPath);
         for (long p = newLastLeafPath + 1; p <= oldLastLeafPath; p++) {
             final VirtualLeafRecord<K, ?> oldExtraLeafRecord = oldRecords.findLeafRecord(p, false);
-            assert oldExtraLeafRecord != null || p < oldFirstLeafPath;
+            assert oldExtraLeafRecord != null || p < oldFirstLeafPath || checkpoint != null;
             if (oldExtraLeafRecord != null) {
                 leavesToDelete.add(oldExtraLeafRecord);
             }
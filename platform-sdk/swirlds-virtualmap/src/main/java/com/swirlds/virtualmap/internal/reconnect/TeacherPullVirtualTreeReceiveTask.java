@@ -37,8 +37,8 @@ import org.apache.logging.log4j.Logger;
  * A task running on the teacher side, which is responsible for processing requests from the
  * learner. For every request, a response is sent to the provided async output stream. Async
  * streams serialize objects to the underlying output streams in a separate thread. This is
- * where the provided hash from the learner is compared with the corresponding hash on the
- * teacher.
+ * where the provided hashes from the learner are compared with the corresponding hashes on the
+ * teacher. Every request may contain a range of paths, the rate limit is applied to every path.
  */
 public class TeacherPullVirtualTreeReceiveTask {
 
@@ -112,26 +112,28 @@ public class TeacherPullVirtualTreeReceiveTask {
     private void run() {
         try (out) {
             while (true) {
-                rateLimit();
                 final PullVirtualTreeRequest request = new PullVirtualTreeRequest();
-                request.deserialize(in, 0);
+                request.deserialize(in, request.getVersion());
                 logger.debug(RECONNECT.getMarker(), "Teacher receive path: " + request.getPath());
                 if (request.getPath() == Path.INVALID_PATH) {
                     logger.info(RECONNECT.getMarker(), "Teacher receiver is complete as requested by the learner");
                     break;
                 }
                 final long path = request.getPath();
-                final Hash learnerHash = request.getHash();
-                final Hash teacherHash = view.loadHash(path);
-                // The only valid scenario, when teacherHash may be null, is the empty tree
-                if ((teacherHash == null) && (path != 0)) {
-                    throw new MerkleSerializationException(
-                            "Cannot load node hash (bad request from learner?), path = " + path);
+                final Hash[] teacherHashes = new Hash[request.getCount()];
+                for (int i = 0; i < teacherHashes.length; i++) {
+                    rateLimit();
+                    teacherHashes[i] = view.loadHash(path + i);
+                    // The only valid scenario, when teacherHash may be null, is the empty tree
+                    if ((teacherHashes[i] == null) && (path + i != 0)) {
+                        throw new MerkleSerializationException(
+                                "Cannot load node hash (bad request from learner?), path = " + (path + i));
+                    }
                 }
                 final PullVirtualTreeResponse response =
-                        new PullVirtualTreeResponse(view, path, learnerHash, teacherHash);
-                // All real work is done in the async output thread. This call just registers a response
-                // and returns immediately
+                        new PullVirtualTreeResponse(view, path, request.getHashes(), teacherHashes);
+                // Dirty leaf records are read ahead when the response is created, everything else is done
+                // in the async output thread. This call just registers a response and returns immediately
                 out.sendAsync(response);
             }
             logger.debug(RECONNECT.getMarker(), "Teacher receive done");
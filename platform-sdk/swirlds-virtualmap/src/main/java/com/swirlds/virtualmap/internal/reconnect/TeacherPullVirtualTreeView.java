@@ -34,6 +34,7 @@ import com.swirlds.common.threading.manager.ThreadManager;
 import com.swirlds.common.threading.pool.StandardWorkGroup;
 import com.swirlds.virtualmap.VirtualKey;
 import com.swirlds.virtualmap.VirtualValue;
+import com.swirlds.virtualmap.datasource.VirtualLeafRecord;
 import com.swirlds.virtualmap.internal.RecordAccessor;
 import com.swirlds.virtualmap.internal.VirtualStateAccessor;
 import com.swirlds.virtualmap.internal.merkle.VirtualRootNode;
@@ -146,14 +147,46 @@ public final class TeacherPullVirtualTreeView<K extends VirtualKey, V extends Vi
      */
     public void writeNode(final SerializableDataOutputStream out, final long path, final boolean isClean)
             throws IOException {
+        writeNode(out, path, loadLeafRecord(path, isClean));
+    }
+
+    /**
+     * Writes the virtual node identified by a given path to the output stream, using a leaf record
+     * loaded in advance with {@link #loadLeafRecord(long, boolean)}.
+     *
+     * @param out the output stream
+     * @param path the virtual path
+     * @param leafRecord the leaf record to write, or null if no leaf record is sent for the path
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeNode(
+            final SerializableDataOutputStream out, final long path, final VirtualLeafRecord<K, V> leafRecord)
+            throws IOException {
         checkValidNode(path, reconnectState);
         if (path == 0) {
             out.writeLong(reconnectState.getFirstLeafPath());
             out.writeLong(reconnectState.getLastLeafPath());
         }
+        if (leafRecord != null) {
+            out.writeSerializable(leafRecord, false);
+        }
+    }
+
+    /**
+     * Loads the leaf record to send to the learner for a given path. Leaf records are only sent for
+     * dirty leaf nodes. This method is called by the teacher's receiving thread, when a response is
+     * created, so leaf records are read from the data source ahead of the thread that writes responses
+     * to the output stream.
+     *
+     * @param path the virtual path
+     * @param isClean indicates if the virtual node on the learner side matches what's on the teacher
+     * @return the leaf record to send, or null if the node is clean or not a leaf
+     */
+    public VirtualLeafRecord<K, V> loadLeafRecord(final long path, final boolean isClean) {
         if (!isClean && isLeaf(path) && (reconnectState.getFirstLeafPath() > 0)) {
-            out.writeSerializable(records.findLeafRecord(path, false), false);
+            return records.findLeafRecord(path, false);
         }
+        return null;
     }
 
     /**
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2024 Hedera Hashgraph, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.swirlds.virtualmap.internal.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class ConcurrentLongMapTest {
+
+    @Test
+    void invalidSegmentCount() {
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentLongMap<>(0));
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentLongMap<>(3));
+    }
+
+    @Test
+    void nullValuesNotSupported() {
+        final ConcurrentLongMap<String> map = new ConcurrentLongMap<>();
+        assertThrows(NullPointerException.class, () -> map.put(1, null));
+    }
+
+    /**
+     * Random puts, computes, and removes must give the same result as a regular hash map. A single
+     * segment map is used to get long probe sequences and many resizes.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {1, 64})
+    void sameAsHashMap(final int segmentCount) {
+        final ConcurrentLongMap<Long> map = new ConcurrentLongMap<>(segmentCount);
+        final Map<Long, Long> expected = new HashMap<>();
+        final Random random = new Random(12345);
+        for (int i = 0; i < 200_000; i++) {
+            final long key = random.nextInt(10_000) - 5_000;
+            switch (random.nextInt(3)) {
+                case 0 -> assertEquals(expected.put(key, (long) i), map.put(key, (long) i));
+                case 1 -> {
+                    final long value = i;
+                    assertEquals(
+                            expected.compute(key, (k, v) -> v == null ? value : null),
+                            map.compute(key, (k, v) -> v == null ? value : null));
+                }
+                default -> assertEquals(expected.get(key), map.get(key));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        final Map<Long, Long> actual = new HashMap<>();
+        map.forEach(actual::put);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void removeAll() {
+        final ConcurrentLongMap<Long> map = new ConcurrentLongMap<>(1);
+        for (long i = 0; i < 1000; i++) {
+            map.put(i, i);
+        }
+        for (long i = 0; i < 1000; i++) {
+            assertEquals(i, map.get(i));
+            assertNull(map.compute(i, (k, v) -> null));
+            assertNull(map.get(i));
+        }
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void concurrentComputes() throws Exception {
+        final ConcurrentLongMap<Integer> map = new ConcurrentLongMap<>();
+        final int threads = 8;
+        final int keys = 10_000;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final AtomicInteger misses = new AtomicInteger();
+            final Future<?>[] futures = new Future<?>[threads];
+            for (int t = 0; t < threads; t++) {
+                futures[t] = executor.submit(() -> {
+                    for (long key = 0; key < keys; key++) {
+                        map.compute(key, (k, v) -> v == null ? 1 : v + 1);
+                        if (map.get(key) == null) {
+                            misses.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+            assertEquals(0, misses.get(), "Every key must be visible after it's computed");
+            assertEquals(keys, map.size());
+            for (long key = 0; key < keys; key++) {
+                assertEquals(threads, map.get(key));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2024 Hedera Hashgraph, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.swirlds.virtualmap.internal.reconnect;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.swirlds.common.crypto.Hash;
+import com.swirlds.common.io.streams.SerializableDataInputStream;
+import com.swirlds.common.io.streams.SerializableDataOutputStream;
+import com.swirlds.common.test.fixtures.RandomUtils;
+import com.swirlds.virtualmap.internal.Path;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Tags;
+import org.junit.jupiter.api.Test;
+
+class PullVirtualTreeRequestTest {
+
+    private static PullVirtualTreeRequest roundTrip(final PullVirtualTreeRequest request) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final SerializableDataOutputStream out = new SerializableDataOutputStream(bytes)) {
+            request.serialize(out);
+        }
+        final PullVirtualTreeRequest copy = new PullVirtualTreeRequest();
+        try (final SerializableDataInputStream in =
+                new SerializableDataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy.deserialize(in, copy.getVersion());
+        }
+        return copy;
+    }
+
+    @Test
+    @Tags({@Tag("Reconnect")})
+    @DisplayName("Range request serialization")
+    void rangeRequest() throws IOException {
+        final Random random = new Random(42);
+        final Hash[] hashes = new Hash[64];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = RandomUtils.randomHash(random);
+        }
+        final PullVirtualTreeRequest copy = roundTrip(new PullVirtualTreeRequest(100, hashes));
+        assertEquals(100, copy.getPath(), "Wrong first path");
+        assertEquals(hashes.length, copy.getCount(), "Wrong number of paths");
+        assertArrayEquals(hashes, copy.getHashes(), "Wrong hashes");
+    }
+
+    @Test
+    @Tags({@Tag("Reconnect")})
+    @DisplayName("Single path and terminating request serialization")
+    void singleAndTerminatingRequests() throws IOException {
+        final Hash hash = RandomUtils.randomHash(new Random(7));
+        final PullVirtualTreeRequest single = roundTrip(new PullVirtualTreeRequest(Path.ROOT_PATH, hash));
+        assertEquals(Path.ROOT_PATH, single.getPath(), "Wrong path");
+        assertArrayEquals(new Hash[] {hash}, single.getHashes(), "Wrong hash");
+
+        final PullVirtualTreeRequest terminating =
+                roundTrip(new PullVirtualTreeRequest(Path.INVALID_PATH, (Hash[]) null));
+        assertEquals(Path.INVALID_PATH, terminating.getPath(), "Wrong path");
+        assertEquals(0, terminating.getCount(), "Terminating request has no paths");
+        assertNull(terminating.getHashes(), "Terminating request has no hashes");
+    }
+
+    @Test
+    @Tags({@Tag("Reconnect")})
+    @DisplayName("Invalid range size")
+    void invalidRangeSize() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final PullVirtualTreeRequest request = new PullVirtualTreeRequest();
+        try (final SerializableDataOutputStream out = new SerializableDataOutputStream(bytes)) {
+            out.writeInt(request.getVersion());
+            out.writeLong(1);
+            out.writeInt(PullVirtualTreeRequest.MAX_RANGE_SIZE + 1);
+        }
+        assertThrows(
+                IOException.class,
+                () -> request.deserialize(
+                        new SerializableDataInputStream(new ByteArrayInputStream(bytes.toByteArray())),
+                        request.getVersion()),
+                "Too large ranges should be rejected");
+    }
+
+    @Test
+    @Tags({@Tag("Reconnect")})
+    @DisplayName("Requests in the original format are rejected")
+    void originalVersionRequest() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final SerializableDataOutputStream out = new SerializableDataOutputStream(bytes)) {
+            // Version 1 request: path and a single hash, no class version
+            out.writeLong(Path.ROOT_PATH);
+            RandomUtils.randomHash(new Random(11)).getBytes().writeTo(out);
+        }
+        final PullVirtualTreeRequest request = new PullVirtualTreeRequest();
+        assertThrows(
+                IOException.class,
+                () -> request.deserialize(
+                        new SerializableDataInputStream(new ByteArrayInputStream(bytes.toByteArray())),
+                        request.getVersion()),
+                "Requests from learners with a different version should be rejected");
+    }
+}
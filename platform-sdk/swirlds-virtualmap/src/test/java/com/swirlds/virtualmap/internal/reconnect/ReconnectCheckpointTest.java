@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2024 Hedera Hashgraph, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.swirlds.virtualmap.internal.reconnect;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import com.swirlds.common.test.fixtures.RandomUtils;
+import com.swirlds.virtualmap.datasource.VirtualDataSource;
+import com.swirlds.virtualmap.datasource.VirtualHashRecord;
+import com.swirlds.virtualmap.datasource.VirtualLeafRecord;
+import com.swirlds.virtualmap.test.fixtures.TestKey;
+import com.swirlds.virtualmap.test.fixtures.TestValue;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Tags;
+import org.junit.jupiter.api.Test;
+
+class ReconnectCheckpointTest {
+
+    private static List<VirtualHashRecord> hashes(final long... paths) {
+        return Arrays.stream(paths)
+                .mapToObj(p -> new VirtualHashRecord(p, RandomUtils.randomHash()))
+                .toList();
+    }
+
+    private static VirtualLeafRecord<TestKey, TestValue> leaf(final long path) {
+        return new VirtualLeafRecord<>(path, new TestKey(path), null);
+    }
+
+    /**
+     * Original learner tree with 4 leaves (paths 3 to 6), the teacher tree with 5 leaves (paths 4 to 8).
+     * Leaves 7 and 8 and their parent 3 are flushed, the key at path 5 is removed.
+     */
+    private static ReconnectCheckpoint<TestKey, TestValue> createCheckpoint() throws IOException {
+        final ReconnectCheckpoint<TestKey, TestValue> checkpoint = new ReconnectCheckpoint<>(null, 3, 6);
+        checkpoint.setPathInformation(4, 8);
+        checkpoint.trackFlush(hashes(7, 8, 3), () -> {});
+        checkpoint.trackRemovedLeaves(List.of(leaf(5)));
+        checkpoint.abort();
+        assertTrue(checkpoint.canBeSaved(), "Checkpoint should be saved");
+        checkpoint.save(mock(VirtualDataSource.class));
+        return checkpoint;
+    }
+
+    @Test
+    @Tags({@Tag("Reconnect")})
+    @DisplayName("Leaf ranges of subtrees")
+    void leafRange() {
+        assertArrayEquals(new long[] {4, 8}, ReconnectCheckpoint.leafRange(0, 4, 8), "Wrong root leaf range");
+        assertArrayEquals(new long[] {4, 8}, ReconnectCheckpoint.leafRange(1, 4, 8), "Wrong leaf range");
+        assertArrayEquals(new long[] {5, 6}, ReconnectCheckpoint.leafRange(2, 4, 8), "Wrong leaf range");
+        assertArrayEquals(new long[] {7, 8}, ReconnectCheckpoint.leafRange(3, 4, 8), "Wrong leaf range");
+        assertArrayEquals(new long[] {6, 6}, ReconnectCheckpoint.leafRange(6, 4, 8), "Wrong leaf range");
+    }
+
+    @Test
+    @Tags({@Tag("Reconnect")})
+    @DisplayName("Trusted subtrees")
+    void trustedSubtrees() throws IOException {
+        final ReconnectCheckpoint<TestKey, TestValue> checkpoint = createCheckpoint();
+        // Verified subtrees
+        assertArrayEquals(new long[] {7, 8}, checkpoint.findTrustedLeafRange(3), "Flushed node is verified");
+        assertArrayEquals(new long[] {7, 7}, checkpoint.findTrustedLeafRange(7), "Flushed leaf is verified");
+        // Untouched original leaves
+        assertArrayEquals(new long[] {4, 4}, checkpoint.findTrustedLeafRange(4), "Original leaf is untouched");
+        assertArrayEquals(new long[] {6, 6}, checkpoint.findTrustedLeafRange(6), "Original leaf is untouched");
+        // Removed leaves and all nodes above them or above verified subtrees
+        assertNull(checkpoint.findTrustedLeafRange(5), "Removed leaf must not be trusted");
+        assertNull(checkpoint.findTrustedLeafRange(2), "Parent of a removed leaf must not be trusted");
+        assertNull(checkpoint.findTrustedLeafRange(1), "Partially flushed node must not be trusted");
+        assertNull(checkpoint.findTrustedLeafRange(0), "Partially flushed root must not be trusted");
+        // Outside the tree
+        assertNull(checkpoint.findTrustedLeafRange(9), "Node outside the tree must not be trusted");
+    }
+
+    @Test
+    @Tags({@Tag("Reconnect")})
+    @DisplayName("Checkpoint resumed from another checkpoint")
+    void nestedCheckpoints() throws IOException {
+        final ReconnectCheckpoint<TestKey, TestValue> base = createCheckpoint();
+
+        // The next teacher tree has the same size, nothing is flushed except leaf 6
+        final ReconnectCheckpoint<TestKey, TestValue> sameSize = new ReconnectCheckpoint<>(base, 3, 6);
+        sameSize.setPathInformation(4, 8);
+        sameSize.trackFlush(hashes(6), () -> {});
+        sameSize.abort();
+        sameSize.save(mock(VirtualDataSource.class));
+        assertArrayEquals(new long[] {7, 8}, sameSize.findTrustedLeafRange(3), "Base verified subtree is trusted");
+        assertArrayEquals(new long[] {4, 4}, sameSize.findTrustedLeafRange(4), "Original leaf is untouched");
+        assertArrayEquals(new long[] {6, 6}, sameSize.findTrustedLeafRange(6), "Flushed leaf is verified");
+        assertNull(sameSize.findTrustedLeafRange(5), "Base removed leaf must not be trusted");
+
+        // The next teacher tree has 3 leaves (paths 2 to 4), leaves 7 and 8 are out of range
+        final ReconnectCheckpoint<TestKey, TestValue> smaller = new ReconnectCheckpoint<>(base, 3, 6);
+        smaller.setPathInformation(2, 4);
+        smaller.trackFlush(hashes(2), () -> {});
+        smaller.abort();
+        smaller.save(mock(VirtualDataSource.class));
+        assertNull(smaller.findTrustedLeafRange(3), "Subtree with leaves out of range must not be trusted");
+        assertArrayEquals(new long[] {4, 4}, smaller.findTrustedLeafRange(4), "Original leaf is untouched");
+        assertArrayEquals(new long[] {2, 2}, smaller.findTrustedLeafRange(2), "Flushed leaf is verified");
+    }
+
+    @Test
+    @Tags({@Tag("Reconnect")})
+    @DisplayName("Checkpoints of repeated failed attempts are merged")
+    void repeatedCheckpoints() throws IOException {
+        final ReconnectCheckpoint<TestKey, TestValue> base = createCheckpoint();
+
+        final ReconnectCheckpoint<TestKey, TestValue> second = new ReconnectCheckpoint<>(base, 3, 6);
+        second.setPathInformation(4, 8);
+        second.trackFlush(hashes(6), () -> {});
+        second.abort();
+        second.save(mock(VirtualDataSource.class));
+        // The base checkpoint is no longer used after the second one is saved
+        base.close();
+
+        // Leaf 4 is flushed, the key at path 8 is removed, so the base verified subtree at path 3 is touched
+        final ReconnectCheckpoint<TestKey, TestValue> third = new ReconnectCheckpoint<>(second, 3, 6);
+        third.setPathInformation(4, 8);
+        third.trackFlush(hashes(4), () -> {});
+        third.trackRemovedLeaves(List.of(leaf(8)));
+        third.abort();
+        third.save(mock(VirtualDataSource.class));
+        second.close();
+        assertArrayEquals(new long[] {4, 4}, third.findTrustedLeafRange(4), "Flushed leaf is verified");
+        assertArrayEquals(new long[] {6, 6}, third.findTrustedLeafRange(6), "Base verified leaf is trusted");
+        assertNull(third.findTrustedLeafRange(3), "Touched base verified subtree must not be trusted");
+        assertNull(third.findTrustedLeafRange(7), "Nodes in touched base verified subtree must not be trusted");
+        assertNull(third.findTrustedLeafRange(8), "Removed leaf must not be trusted");
+        assertNull(third.findTrustedLeafRange(5), "Leaf removed in the first attempt must not be trusted");
+        assertNull(third.findTrustedLeafRange(0), "Partially flushed root must not be trusted");
+    }
+
+    @Test
+    @Tags({@Tag("Reconnect")})
+    @DisplayName("Checkpoints that can't be saved")
+    void cannotBeSaved() {
+        final ReconnectCheckpoint<TestKey, TestValue> notFlushed = new ReconnectCheckpoint<>(null, 3, 6);
+        notFlushed.setPathInformation(4, 8);
+        notFlushed.abort();
+        assertFalse(notFlushed.canBeSaved(), "Nothing is flushed");
+
+        final ReconnectCheckpoint<TestKey, TestValue> broken = new ReconnectCheckpoint<>(null, 3, 6);
+        broken.setPathInformation(4, 8);
+        assertThrows(
+                IOException.class,
+                () -> broken.trackFlush(hashes(7), () -> {
+                    throw new IOException("Flush failed");
+                }),
+                "Flush exception should be rethrown");
+        broken.abort();
+        assertFalse(broken.canBeSaved(), "Data source content is unknown after failed flushes");
+    }
+
+    @Test
+    @Tags({@Tag("Reconnect")})
+    @DisplayName("No flushes after abort")
+    void noFlushesAfterAbort() throws IOException {
+        final ReconnectCheckpoint<TestKey, TestValue> checkpoint = new ReconnectCheckpoint<>(null, 3, 6);
+        checkpoint.setPathInformation(4, 8);
+        checkpoint.abort();
+        checkpoint.trackFlush(hashes(7), () -> {
+            throw new IllegalStateException("Flush must be skipped");
+        });
+        assertFalse(checkpoint.canBeSaved(), "Nothing is flushed");
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2024 Hedera Hashgraph, LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.swirlds.virtualmap.internal.hash;
+
+import static com.swirlds.common.test.fixtures.AssertionUtils.assertEventuallyTrue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.swirlds.common.crypto.CryptographyHolder;
+import com.swirlds.common.crypto.Hash;
+import com.swirlds.common.test.fixtures.junit.tags.TestComponentTags;
+import com.swirlds.virtualmap.datasource.VirtualLeafRecord;
+import com.swirlds.virtualmap.test.fixtures.TestKey;
+import com.swirlds.virtualmap.test.fixtures.TestValue;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link SpeculativeLeafHasher}.
+ */
+class SpeculativeLeafHasherTest extends VirtualHasherTestBase {
+
+    private static VirtualLeafRecord<TestKey, TestValue> leaf(final long path) {
+        return new VirtualLeafRecord<>(path, new TestKey(path), new TestValue(path));
+    }
+
+    private static void waitUntilHashed(final SpeculativeLeafHasher<?, ?> hasher, final long count) {
+        assertEventuallyTrue(
+                () -> hasher.getHashedCount() == count,
+                Duration.ofSeconds(10),
+                "All submitted leaves should be hashed in background");
+    }
+
+    @Test
+    @Tag(TestComponentTags.VMAP)
+    @DisplayName("Invalid batch size")
+    void invalidBatchSize() {
+        assertThrows(IllegalArgumentException.class, () -> new SpeculativeLeafHasher<TestKey, TestValue>(0));
+    }
+
+    @Test
+    @Tag(TestComponentTags.VMAP)
+    @DisplayName("Precomputed leaf hashes match leaf hashes")
+    void precomputedHashesMatch() {
+        final SpeculativeLeafHasher<TestKey, TestValue> speculative = new SpeculativeLeafHasher<>(4);
+        final List<VirtualLeafRecord<TestKey, TestValue>> leaves = new ArrayList<>();
+        for (long path = 10; path < 18; path++) {
+            final VirtualLeafRecord<TestKey, TestValue> leaf = leaf(path);
+            leaves.add(leaf);
+            speculative.leafUpdated(leaf);
+        }
+        // Not a full batch, this leaf is never hashed in background
+        final VirtualLeafRecord<TestKey, TestValue> pending = leaf(18);
+        speculative.leafUpdated(pending);
+
+        waitUntilHashed(speculative, leaves.size());
+        speculative.close();
+
+        for (final VirtualLeafRecord<TestKey, TestValue> leaf : leaves) {
+            assertEquals(CryptographyHolder.get().digestSync(leaf), speculative.getLeafHash(leaf), "Wrong leaf hash");
+        }
+        assertNull(speculative.getLeafHash(pending), "Leaves in an incomplete batch should not be hashed");
+        assertEquals(leaves.size(), speculative.getUsedCount(), "Wrong number of used leaf hashes");
+    }
+
+    @Test
+    @Tag(TestComponentTags.VMAP)
+    @DisplayName("Changed leaves are not used")
+    void changedLeavesInvalidated() {
+        final SpeculativeLeafHasher<TestKey, TestValue> speculative = new SpeculativeLeafHasher<>(1);
+        final VirtualLeafRecord<TestKey, TestValue> moved = leaf(10);
+        final VirtualLeafRecord<TestKey, TestValue> replaced = leaf(11);
+        final VirtualLeafRecord<TestKey, TestValue> opened = leaf(12);
+        final VirtualLeafRecord<TestKey, TestValue> other = leaf(13);
+        speculative.leafUpdated(moved);
+        speculative.leafUpdated(replaced);
+        speculative.leafUpdated(opened);
+        speculative.leafUpdated(other);
+        waitUntilHashed(speculative, 4);
+
+        // Moved without notifying the hasher
+        moved.setPath(20);
+        // Value replaced without notifying the hasher
+        replaced.setValue(new TestValue(111));
+        // Value returned for modification, then moved
+        speculative.leafOpenedForModify(opened);
+        opened.setPath(21);
+        speculative.leafUpdated(opened);
+        // Another record at the same path
+        final VirtualLeafRecord<TestKey, TestValue> sameKey = leaf(13);
+        speculative.close();
+
+        assertNull(speculative.getLeafHash(moved), "Moved leaf hash should not be used");
+        assertNull(speculative.getLeafHash(replaced), "Replaced leaf hash should not be used");
+        assertNull(speculative.getLeafHash(opened), "Opened leaf hash should not be used");
+        assertNull(speculative.getLeafHash(sameKey), "Hash of another record should not be used");
+        assertEquals(
+                CryptographyHolder.get().digestSync(other),
+                speculative.getLeafHash(other),
+                "Unchanged leaf hash should be used");
+    }
+
+    @Test
+    @Tag(TestComponentTags.VMAP)
+    @DisplayName("Values changed in place after put are detected")
+    void valuesChangedInPlaceDetected() {
+        final SpeculativeLeafHasher<TestKey, TestValue> speculative = new SpeculativeLeafHasher<>(1);
+        final VirtualLeafRecord<TestKey, TestValue> leaf = leaf(10);
+        speculative.leafUpdated(leaf);
+        waitUntilHashed(speculative, 1);
+        speculative.close();
+
+        // Values must not be changed in place after put(). Such changes are not visible to the hasher,
+        // so the precomputed hash is checked against the leaf, when assertions are enabled
+        leaf.getValue().setValue("changed");
+        assertThrows(
+                AssertionError.class,
+                () -> speculative.getLeafHash(leaf),
+                "Stale precomputed hash should not be used");
+    }
+
+    @Test
+    @Tag(TestComponentTags.VMAP)
+    @DisplayName("Root hash with precomputed leaf hashes")
+    void rootHashWithPrecomputedLeafHashes() {
+        final long firstLeafPath = 63;
+        final long lastLeafPath = 126;
+        final TestDataSource ds = new TestDataSource(firstLeafPath, lastLeafPath);
+        final Hash expected = hashTree(ds);
+        final List<VirtualLeafRecord<TestKey, TestValue>> leaves = invalidateNodes(
+                ds, LongStream.rangeClosed(firstLeafPath, lastLeafPath).filter(p -> p % 3 != 0).boxed());
+
+        final SpeculativeLeafHasher<TestKey, TestValue> speculative = new SpeculativeLeafHasher<>(8);
+        leaves.forEach(speculative::leafUpdated);
+        waitUntilHashed(speculative, leaves.size() / 8 * 8);
+        speculative.close();
+
+        final VirtualHasher<TestKey, TestValue> hasher = new VirtualHasher<>();
+        final Hash rootHash =
+                hasher.hash(ds::loadHash, leaves.iterator(), firstLeafPath, lastLeafPath, null, speculative);
+        assertEquals(expected, rootHash, "Hash value does not match expected");
+        assertTrue(speculative.getUsedCount() > 0, "Precomputed leaf hashes should be used");
+    }
+}
@@ -23,8 +23,13 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import com.swirlds.common.crypto.Cryptography;
+import com.swirlds.common.crypto.CryptographyFactory;
+import com.swirlds.common.crypto.CryptographyHolder;
+import com.swirlds.common.crypto.DigestType;
 import com.swirlds.common.crypto.Hash;
 import com.swirlds.common.test.fixtures.junit.tags.TestComponentTags;
+import com.swirlds.config.extensions.test.fixtures.TestConfigBuilder;
 import com.swirlds.virtualmap.datasource.VirtualHashRecord;
 import com.swirlds.virtualmap.datasource.VirtualLeafRecord;
 import com.swirlds.virtualmap.internal.Path;
@@ -345,6 +350,29 @@ class VirtualHasherTest extends VirtualHasherTestBase {
                 "Hashing should not throw an exception");
     }
 
+    @Test
+    @Tag(TestComponentTags.VMAP)
+    @DisplayName("Verify batch hashing produces the same internal node hashes as the hash builder")
+    void batchHashingMatchesHashBuilder() {
+        final Cryptography cryptography = CryptographyHolder.get();
+        final Cryptography multiLaneCryptography = CryptographyFactory.create(
+                new TestConfigBuilder().withValue("crypto.multiLaneDigests", true).getOrCreateConfig());
+        final Hash left = cryptography.digestSync(new byte[] {1});
+        final Hash right = cryptography.digestSync(new byte[] {2});
+        final long[] paths = {Path.ROOT_PATH, 1, 2, 12345};
+        final byte[][] messages = new byte[paths.length][];
+        for (int i = 0; i < paths.length; i++) {
+            messages[i] = VirtualHasher.ChunkHashTask.internalNodeMessage(paths[i], left, right);
+        }
+        final Hash[] hashes = cryptography.digestBatchSync(messages, DigestType.SHA_384);
+        final Hash[] multiLaneHashes = multiLaneCryptography.digestBatchSync(messages, DigestType.SHA_384);
+        for (int i = 0; i < paths.length; i++) {
+            final Hash expected = VirtualHasher.ChunkHashTask.hash(paths[i], left, right);
+            assertEquals(expected, hashes[i], "Wrong batch hash for path " + paths[i]);
+            assertEquals(expected, multiLaneHashes[i], "Wrong multi-lane hash for path " + paths[i]);
+        }
+    }
+
     @SuppressWarnings("SpellCheckingInspection")
     private static void assertCallsAreBalanced(final HashingListener listener) {
         // Check the call order was correct. Something like:
@@ -19,15 +19,24 @@ package com.swirlds.virtualmap.internal.reconnect;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.swirlds.common.config.singleton.ConfigurationHolder;
 import com.swirlds.common.merkle.MerkleInternal;
+import com.swirlds.common.merkle.MerkleNode;
+import com.swirlds.common.merkle.synchronization.utility.MerkleSynchronizationException;
 import com.swirlds.common.test.fixtures.merkle.dummy.DummyMerkleInternal;
 import com.swirlds.common.test.fixtures.merkle.util.MerkleTestUtils;
+import com.swirlds.config.extensions.test.fixtures.TestConfigBuilder;
 import com.swirlds.virtualmap.VirtualMap;
+import com.swirlds.virtualmap.config.VirtualMapConfig_;
 import com.swirlds.virtualmap.datasource.VirtualDataSourceBuilder;
 import com.swirlds.virtualmap.test.fixtures.InMemoryBuilder;
 import com.swirlds.virtualmap.test.fixtures.TestKey;
+import com.swirlds.virtualmap.test.fixtures.TestKeySerializer;
 import com.swirlds.virtualmap.test.fixtures.TestValue;
+import com.swirlds.virtualmap.test.fixtures.TestValueSerializer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Stream;
@@ -282,6 +291,102 @@ class VirtualMapReconnectTest extends VirtualMapReconnectTestBase {
         learnerTree.release();
     }
 
+    @Test
+    @Tags({@Tag("VirtualMerkle"), @Tag("Reconnect")})
+    @DisplayName("Failed reconnect is resumed from a checkpoint")
+    void failedReconnectIsResumedFromCheckpoint() throws Exception {
+        // Received nodes are flushed often, so there is a checkpoint to save, when reconnect fails
+        new TestConfigBuilder()
+                .withValue(VirtualMapConfig_.RECONNECT_CHECKPOINTS, true)
+                .withValue(VirtualMapConfig_.RECONNECT_FLUSH_INTERVAL, 100)
+                .getOrCreateConfig();
+        final List<MerkleNode> treesToRelease = new ArrayList<>();
+        try {
+            populateMap(teacherMap, 0, 2_000);
+            populateMap(learnerMap, 1_000, 3_000);
+            final MerkleInternal teacherTree = createTreeForMap(teacherMap);
+            treesToRelease.add(teacherTree);
+            final MerkleInternal learnerTree = createTreeForMap(learnerMap);
+            treesToRelease.add(learnerTree);
+
+            // The teacher moves on, while the learner is reconnecting
+            final VirtualMap<TestKey, TestValue> newerTeacherMap = teacherMap.copy();
+            for (int i = 0; i < 100; i++) {
+                newerTeacherMap.remove(new TestKey(i));
+            }
+            for (int i = 500; i < 600; i++) {
+                newerTeacherMap.put(new TestKey(i), new TestValue(i + 1));
+            }
+            populateMap(newerTeacherMap, 2_000, 2_200);
+            final MerkleInternal newerTeacherTree = createTreeForMap(newerTeacherMap);
+            treesToRelease.add(newerTeacherTree);
+            treesToRelease.add(newerTeacherMap.copy());
+
+            // A reconnect of the same learner state from scratch, to know how many bytes are transferred
+            final long fullReconnectBytes = reconnectFromScratch(teacherTree, treesToRelease);
+
+            // The first attempt fails halfway through, a checkpoint is saved
+            final BrokenStreams brokenStreams = new BrokenStreams(fullReconnectBytes / 2);
+            assertThrows(
+                    MerkleSynchronizationException.class,
+                    () -> MerkleTestUtils.hashAndTestSynchronization(
+                            learnerTree, teacherTree, reconnectConfig, brokenStreams),
+                    "Reconnect over a broken connection should fail");
+
+            // The second attempt from the same original map is resumed from the checkpoint
+            final BrokenStreams resumedStreams = new BrokenStreams(Long.MAX_VALUE);
+            final DummyMerkleInternal resumedTree = MerkleTestUtils.hashAndTestSynchronization(
+                    learnerTree, newerTeacherTree, reconnectConfig, resumedStreams);
+            treesToRelease.add(resumedTree);
+            final VirtualMap<TestKey, TestValue> resumedMap =
+                    resumedTree.<DummyMerkleInternal>getChild(1).getChild(3);
+            for (int i = 0; i < 3_000; i++) {
+                final TestKey key = new TestKey(i);
+                if ((i < 100) || (i >= 2_200)) {
+                    assertNull(resumedMap.get(key), "Key " + i + " should not be in the map");
+                } else if ((i >= 500) && (i < 600)) {
+                    assertEquals(new TestValue(i + 1), resumedMap.get(key), "Wrong value for key " + i);
+                } else {
+                    assertEquals(new TestValue(i), resumedMap.get(key), "Wrong value for key " + i);
+                }
+            }
+
+            final long fullNewerReconnectBytes = reconnectFromScratch(newerTeacherTree, treesToRelease);
+            assertTrue(
+                    resumedStreams.getBytesRead() < fullNewerReconnectBytes,
+                    "Resumed reconnect should transfer less data than reconnect from scratch");
+        } finally {
+            treesToRelease.forEach(MerkleNode::release);
+            ConfigurationHolder.getInstance().reset();
+        }
+    }
+
+    /**
+     * Reconnects a new learner map with the same contents as the learner map in {@link
+     * #failedReconnectIsResumedFromCheckpoint()}, which has no reconnect checkpoints.
+     *
+     * @return the number of bytes sent from the teacher to the learner
+     */
+    private long reconnectFromScratch(final MerkleInternal teacherTree, final List<MerkleNode> treesToRelease)
+            throws Exception {
+        final VirtualMap<TestKey, TestValue> map =
+                new VirtualMap<>("Learner", TestKeySerializer.INSTANCE, TestValueSerializer.INSTANCE, learnerBuilder);
+        populateMap(map, 1_000, 3_000);
+        final MerkleInternal learnerTree = createTreeForMap(map);
+        treesToRelease.add(learnerTree);
+        final BrokenStreams streams = new BrokenStreams(Long.MAX_VALUE);
+        final MerkleNode reconnectedTree =
+                MerkleTestUtils.hashAndTestSynchronization(learnerTree, teacherTree, reconnectConfig, streams);
+        treesToRelease.add(reconnectedTree);
+        return streams.getBytesRead();
+    }
+
+    private static void populateMap(final VirtualMap<TestKey, TestValue> map, final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            map.put(new TestKey(i), new TestValue(i));
+        }
+    }
+
     static Stream<Arguments> provideSmallTreePermutations() {
         final List<Arguments> args = new ArrayList<>();
         // Two large leaf trees that have no intersection
@@ -26,6 +26,7 @@ import com.swirlds.common.constructable.ClassConstructorPair;
 import com.swirlds.common.constructable.ConstructableRegistry;
 import com.swirlds.common.constructable.ConstructableRegistryException;
 import com.swirlds.common.crypto.Hash;
+import com.swirlds.common.io.streams.MerkleDataInputStream;
 import com.swirlds.common.io.streams.SerializableDataInputStream;
 import com.swirlds.common.io.streams.SerializableDataOutputStream;
 import com.swirlds.common.merkle.MerkleInternal;
@@ -35,6 +36,7 @@ import com.swirlds.common.merkle.synchronization.task.QueryResponse;
 import com.swirlds.common.test.fixtures.merkle.dummy.DummyMerkleInternal;
 import com.swirlds.common.test.fixtures.merkle.dummy.DummyMerkleLeaf;
 import com.swirlds.common.test.fixtures.merkle.util.MerkleTestUtils;
+import com.swirlds.common.test.fixtures.merkle.util.PairedStreams;
 import com.swirlds.config.extensions.test.fixtures.TestConfigBuilder;
 import com.swirlds.metrics.api.Metrics;
 import com.swirlds.virtualmap.VirtualMap;
@@ -53,10 +55,12 @@ import com.swirlds.virtualmap.test.fixtures.TestValue;
 import com.swirlds.virtualmap.test.fixtures.TestValueSerializer;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeAll;
@@ -166,6 +170,56 @@ public abstract class VirtualMapReconnectTestBase {
         }
     }
 
+    /**
+     * Paired streams, which count bytes sent from the teacher to the learner. Once the learner has read the given
+     * number of bytes, the learner input fails, as if the connection is broken.
+     */
+    protected static final class BrokenStreams extends PairedStreams {
+
+        private final long failAfterBytes;
+        private final AtomicLong bytesRead = new AtomicLong(0);
+        private final MerkleDataInputStream brokenLearnerInput;
+
+        public BrokenStreams(final long failAfterBytes) throws IOException {
+            this.failAfterBytes = failAfterBytes;
+            brokenLearnerInput = new MerkleDataInputStream(new FilterInputStream(learnerInputBuffer) {
+                @Override
+                public int read() throws IOException {
+                    final int b = super.read();
+                    if (b >= 0) {
+                        countBytesRead(1);
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(final byte[] b, final int off, final int len) throws IOException {
+                    final int n = super.read(b, off, len);
+                    if (n > 0) {
+                        countBytesRead(n);
+                    }
+                    return n;
+                }
+            });
+        }
+
+        private void countBytesRead(final int n) throws IOException {
+            if (bytesRead.addAndGet(n) > failAfterBytes) {
+                throw new IOException("Connection is broken after " + failAfterBytes + " bytes");
+            }
+        }
+
+        @Override
+        public MerkleDataInputStream getLearnerInput() {
+            return brokenLearnerInput;
+        }
+
+        /** Number of bytes the learner has read from the teacher. */
+        public long getBytesRead() {
+            return bytesRead.get();
+        }
+    }
+
     protected static final class BrokenBuilder implements VirtualDataSourceBuilder {
 
         private static final long CLASS_ID = 0x5a79654cd0f96dcfL;